@@ -0,0 +1,62 @@
+package org.egg.license3j.api.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.features.FeatureFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax0.license3j.Feature;
+
+/**
+ * Compares building a feature through the {@code name:TYPE=content} string that
+ * {@code Feature.Create.from} parses with building it through {@link FeatureFactory}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeatureCreationBenchmark {
+	
+	@Param({"STRING", "INT", "LONG", "DATE", "UUID", "BIGDECIMAL", "BINARY"})
+	private FeatureType type;
+	
+	private String name;
+	private String content;
+	
+	@Setup
+	public void setUp() {
+		name = "feature"+type.name();
+		content = switch (type) {
+			case INT -> "2147483";
+			case LONG -> "9223372036854775";
+			case DATE -> "2030-12-31 23:59:59.999";
+			case UUID -> "3f2504e0-4f89-11d3-9a0c-0305e82c3301";
+			case BIGDECIMAL -> "123456789.987654321";
+			case BINARY -> "VGhpcyBpcyBhIGJpbmFyeSBmZWF0dXJl";
+			default -> "enterprise";
+		};
+	}
+	
+	@Benchmark
+	public Feature concatenateAndParse() {
+		return Feature.Create.from(name+":"+type+"="+content);
+	}
+	
+	@Benchmark
+	public Feature typedFactory() {
+		return FeatureFactory.create(name, type, content);
+	}
+}
@@ -0,0 +1,56 @@
+package org.egg.license3j.api.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.egg.license3j.api.service.LicenseService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ByteArrayResource;
+
+import javax0.license3j.io.IOFormat;
+
+/**
+ * saveKeys, which writes and zips the key pair, and digestPublicKey, which
+ * dumps the public key and its digest as Java code
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyExportBenchmark {
+	
+	@Param({"1024", "2048", "4096"})
+	private int keySize;
+	
+	@Param({"BINARY", "BASE64"})
+	private IOFormat format;
+	
+	private LicenseService ls;
+	
+	@Setup
+	public void setUp() {
+		ls = Sessions.newService();
+		ls.generate(Sessions.CIPHER, keySize);
+	}
+	
+	@Benchmark
+	public ByteArrayResource saveKeys() {
+		return ls.saveKeys("private.key", "public.key", format);
+	}
+	
+	@Benchmark
+	public String digestPublicKey() {
+		return ls.digestPublicKey();
+	}
+}
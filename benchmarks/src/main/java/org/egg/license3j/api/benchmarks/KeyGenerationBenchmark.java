@@ -0,0 +1,63 @@
+package org.egg.license3j.api.benchmarks;
+
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import org.egg.license3j.api.constants.RandomSource;
+import org.egg.license3j.api.service.RandomnessProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax0.license3j.crypto.LicenseKeyPair;
+
+/**
+ * Key pair generation from all threads at once, as under a burst of
+ * generatekeys requests. LICENSE3J is LicenseKeyPair.Create.from with the
+ * default SecureRandom of every generator, as the API generated keys before,
+ * the others draw from the per-thread instances of RandomnessProvider.
+ * Change the thread count with -t.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Threads(Threads.MAX)
+@Fork(1)
+public class KeyGenerationBenchmark {
+	
+	@Param({"LICENSE3J", "DEFAULT", "DRBG", "NATIVE_PRNG_NON_BLOCKING"})
+	private String source;
+	
+	@Param({"2048"})
+	private int keySize;
+	
+	private RandomnessProvider randomness;
+	
+	@Setup
+	public void setUp() {
+		if (!source.equals("LICENSE3J")) {
+			randomness = new RandomnessProvider(RandomSource.valueOf(source), 256);
+		}
+	}
+	
+	@Benchmark
+	public Object generate() throws NoSuchAlgorithmException {
+		if (randomness == null) {
+			return LicenseKeyPair.Create.from(Sessions.CIPHER, keySize);
+		}
+		KeyPair pair = randomness.generateKeyPair(Sessions.CIPHER, keySize);
+		return LicenseKeyPair.Create.from(pair.getPublic(), pair.getPrivate(), Sessions.CIPHER);
+	}
+}
@@ -0,0 +1,39 @@
+package org.egg.license3j.api.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.egg.license3j.api.service.LicenseService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A new session license built up feature by feature, every addFeature copies
+ * the license and publishes a new state version
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LicenseCreationBenchmark {
+	
+	@Param({"1", "10", "100"})
+	private int featureCount;
+	
+	@Benchmark
+	public LicenseService newLicenseAndAddFeatures() {
+		LicenseService ls = Sessions.newService();
+		ls.newLicense();
+		Sessions.addFeatures(ls, featureCount);
+		return ls;
+	}
+}
@@ -0,0 +1,59 @@
+package org.egg.license3j.api.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.service.LicenseService.SavedLicense;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax0.license3j.io.IOFormat;
+
+/**
+ * saveLicense and loadLicense of a signed license, per IOFormat
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+	
+	@Param({"BINARY", "BASE64", "STRING"})
+	private IOFormat format;
+	
+	@Param({"1", "10", "100"})
+	private int featureCount;
+	
+	private LicenseService ls;
+	private byte[] license;
+	
+	@Setup
+	public void setUp() throws IOException {
+		ls = Sessions.signedSession(2048, featureCount);
+		license = Sessions.saved(ls, format);
+	}
+	
+	// a saved license can be saved again, it is written every time
+	@Benchmark
+	public SavedLicense saveLicense() {
+		return ls.saveLicense("license.bin", format);
+	}
+	
+	// loading replaces the saved license with the same one
+	@Benchmark
+	public long loadLicense() {
+		return ls.loadLicense(Sessions.stream(license), format);
+	}
+}
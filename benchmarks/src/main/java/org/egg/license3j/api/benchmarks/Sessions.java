@@ -0,0 +1,65 @@
+package org.egg.license3j.api.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.constants.RandomSource;
+import org.egg.license3j.api.service.CryptoExecutor;
+import org.egg.license3j.api.service.LicenseMetrics;
+import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.service.RandomnessProvider;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import javax0.license3j.io.IOFormat;
+
+/**
+ * Session license services as the API creates them, with metrics recorded the
+ * way they are in production. Called from platform threads the crypto executor
+ * runs the cryptography inline, so no pool threads take part in a benchmark.
+ */
+final class Sessions {
+	
+	static final String CIPHER = "RSA/ECB/PKCS1Padding";
+	
+	private static final CryptoExecutor CRYPTO = new CryptoExecutor(1, 16);
+	private static final LicenseMetrics METRICS = new LicenseMetrics(new SimpleMeterRegistry());
+	private static final RandomnessProvider RANDOMNESS = new RandomnessProvider(RandomSource.DRBG, 256);
+	
+	private Sessions() {
+	}
+	
+	static LicenseService newService() {
+		return new LicenseService(CRYPTO, METRICS, RANDOMNESS);
+	}
+	
+	// a license with features of mixed types, like the ones issued to customers
+	static void addFeatures(LicenseService ls, int featureCount) {
+		for (int i = 0; i < featureCount; i++) {
+			switch (i % 4) {
+				case 0 -> ls.addFeature("edition"+i, FeatureType.STRING, "enterprise");
+				case 1 -> ls.addFeature("seats"+i, FeatureType.INT, Integer.toString(i * 10));
+				case 2 -> ls.addFeature("expiryDate"+i, FeatureType.DATE, "2030-12-31 23:59:59.999");
+				default -> ls.addFeature("id"+i, FeatureType.UUID, "3f2504e0-4f89-11d3-9a0c-0305e82c3301");
+			}
+		}
+	}
+	
+	// a session with a generated key pair and a signed license of featureCount features
+	static LicenseService signedSession(int keySize, int featureCount) {
+		LicenseService ls = newService();
+		ls.generate(CIPHER, keySize);
+		ls.newLicense();
+		addFeatures(ls, featureCount);
+		ls.signLicense();
+		return ls;
+	}
+	
+	static byte[] saved(LicenseService ls, IOFormat format) throws IOException {
+		return ls.saveLicense("license.bin", format).file().getByteArray();
+	}
+	
+	static ByteArrayInputStream stream(byte[] bytes) {
+		return new ByteArrayInputStream(bytes);
+	}
+}
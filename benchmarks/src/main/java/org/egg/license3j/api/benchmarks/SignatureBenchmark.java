@@ -0,0 +1,52 @@
+package org.egg.license3j.api.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.egg.license3j.api.service.LicenseService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * signLicense and verifyLicense of a session license, per RSA key size
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignatureBenchmark {
+	
+	@Param({"1024", "2048", "4096"})
+	private int keySize;
+	
+	@Param({"1", "10", "100"})
+	private int featureCount;
+	
+	private LicenseService ls;
+	
+	@Setup
+	public void setUp() {
+		ls = Sessions.signedSession(keySize, featureCount);
+	}
+	
+	// signs a copy of the license and publishes it, the license stays signable
+	@Benchmark
+	public long signLicense() {
+		return ls.signLicense();
+	}
+	
+	@Benchmark
+	public String verifyLicense() {
+		return ls.verifyLicense();
+	}
+}
@@ -0,0 +1,22 @@
+package org.egg.license3j.api.reactive;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class CryptoSchedulerConfiguration {
+
+	// key generation, signing and verification run here and never on the event loop
+	// the scheduler is bounded in threads and waiting tasks, beyond that requests are rejected
+	@Bean(destroyMethod = "dispose")
+	public Scheduler cryptoScheduler(
+			@Value("${license3j.crypto.threads:0}") int threads,
+			@Value("${license3j.crypto.queue-capacity:1024}") int queueCapacity) {
+		int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		return Schedulers.newBoundedElastic(poolSize, queueCapacity, "license3j-crypto");
+	}
+}
@@ -0,0 +1,16 @@
+package org.egg.license3j.api.reactive;
+
+import org.egg.license3j.api.handlers.IncorrectParameterHandler;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+
+// the parameter error handler is shared with the servlet API, its package is not scanned here
+@SpringBootApplication
+@Import(IncorrectParameterHandler.class)
+public class ReactiveLicense3jApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(ReactiveLicense3jApplication.class, args);
+	}
+}
@@ -0,0 +1,305 @@
+package org.egg.license3j.api.reactive;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.commons.text.StringEscapeUtils;
+import org.egg.license3j.api.constants.FeatureChange;
+import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.dto.FeatureRequest;
+import org.egg.license3j.api.exceptions.FeatureValidationException;
+import org.egg.license3j.api.license.LicenseState;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.WebSession;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import javax0.license3j.io.IOFormat;
+import reactor.core.publisher.Mono;
+
+/**
+ * The session license and key endpoints of the API on WebFlux, with the paths,
+ * parameters and responses of the servlet LicenseController.
+ */
+@RestController
+@Validated
+@RequestMapping("/api")
+public class ReactiveLicenseController {
+
+	private static final String LICENSE_VERSION_HEADER = "X-License-Version";
+
+	private final ReactiveLicenseService ls;
+
+	public ReactiveLicenseController(ReactiveLicenseService ls) {
+		this.ls = ls;
+	}
+
+	@PostMapping(value = "/license/new", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<Map<String, String>>> generateNewLicense(WebSession session,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		return expectedVersion(ifMatch)
+				.flatMap(expected -> ls.newLicense(session, expected.orElse(null)))
+				.map(version -> status(version, "A new license has been generated in memory"))
+				.onErrorResume(ResponseStatusException.class, ReactiveLicenseController::failed);
+	}
+
+	@GetMapping("/license/save")
+	public Mono<ResponseEntity<Object>> saveLicense(WebSession session,
+			@RequestParam @NotBlank(message = "License name cannot be blank") String licenseName,
+			@RequestParam IOFormat format) {
+		return ls.saveLicense(session, licenseName, format)
+				.map(saved -> ResponseEntity.ok()
+						.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename="+licenseName)
+						.header(LICENSE_VERSION_HEADER, Long.toString(saved.version()))
+						.contentLength(saved.file().length)
+						.contentType(MediaType.APPLICATION_OCTET_STREAM)
+						.<Object>body(download(saved.file())))
+				.onErrorResume(ResponseStatusException.class, e -> Mono.just(ResponseEntity.status(e.getStatusCode()).<Object>body(Collections.singletonMap("status", e.getReason()))));
+	}
+
+	@GetMapping(value = "/license/show", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<Map<String, String>>> showLicense(WebSession session) {
+		return ls.displayLicense(session)
+				.map(license -> ResponseEntity.ok().eTag(Long.toString(license.version())).body(Collections.singletonMap("License Info", license.text())))
+				.onErrorResume(ResponseStatusException.class, e -> Mono.just(ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("License Info", e.getReason()))));
+	}
+
+	@PostMapping(value = "/license/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<Map<String, String>>> uploadLicense(WebSession session,
+			@RequestPart("license") FilePart license,
+			@RequestPart("format") String format,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		return expectedVersion(ifMatch)
+				.flatMap(expected -> ls.loadLicense(session, license.content(), formatOf(format), expected.orElse(null)))
+				.map(version -> status(version, "License loaded from file"))
+				.onErrorResume(ResponseStatusException.class, ReactiveLicenseController::failed);
+	}
+
+	@PostMapping(value = "/license/addfeature", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<Map<String, String>>> addFeature(WebSession session,
+			@RequestParam("featureName") @NotBlank(message = "Feature name cannot be blank") String featureName,
+			@RequestParam("featureType") FeatureType featureType,
+			@RequestParam("featureContent") @NotBlank(message = "Feature content cannot be blank") String featureContent,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		return expectedVersion(ifMatch)
+				.flatMap(expected -> ls.addFeature(session, featureName, featureType, featureContent, expected.orElse(null)))
+				.map(version -> status(version, "Feature: "+StringEscapeUtils.escapeHtml4(featureName)+" of type "+StringEscapeUtils.escapeHtml4(featureType.toString())+" with value "+StringEscapeUtils.escapeHtml4(featureContent)+" has been added"))
+				.onErrorResume(ResponseStatusException.class, ReactiveLicenseController::failed);
+	}
+
+	@PostMapping(value = "/license/addfeatures", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<Map<String, String>>> addFeatures(WebSession session, @RequestBody List<FeatureRequest> features,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		return expectedVersion(ifMatch)
+				.flatMap(expected -> ls.addFeatures(session, features, expected.orElse(null)))
+				.map(version -> status(version, features.size()+" features have been added"))
+				.onErrorResume(FeatureValidationException.class, e -> Mono.just(ResponseEntity.badRequest().body(e.getErrors())))
+				.onErrorResume(ResponseStatusException.class, ReactiveLicenseController::failed);
+	}
+
+	@PostMapping(value = "/license/updatefeature", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<Map<String, String>>> updateFeature(WebSession session,
+			@RequestParam("featureName") @NotBlank(message = "Feature name cannot be blank") String featureName,
+			@RequestParam("featureType") FeatureType featureType,
+			@RequestParam("featureContent") @NotBlank(message = "Feature content cannot be blank") String featureContent,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		return expectedVersion(ifMatch)
+				.flatMap(expected -> ls.updateFeature(session, featureName, featureType, featureContent, expected.orElse(null)))
+				.map(version -> status(version, "Feature: "+StringEscapeUtils.escapeHtml4(featureName)+" has been updated to type "+StringEscapeUtils.escapeHtml4(featureType.toString())+" with value "+StringEscapeUtils.escapeHtml4(featureContent)))
+				.onErrorResume(ResponseStatusException.class, ReactiveLicenseController::failed);
+	}
+
+	@DeleteMapping(value = "/license/removefeature", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<Map<String, String>>> removeFeature(WebSession session,
+			@RequestParam("featureName") @NotBlank(message = "Feature name cannot be blank") String featureName,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		return expectedVersion(ifMatch)
+				.flatMap(expected -> ls.removeFeature(session, featureName, expected.orElse(null)))
+				.map(version -> status(version, "Feature: "+StringEscapeUtils.escapeHtml4(featureName)+" has been removed"))
+				.onErrorResume(ResponseStatusException.class, ReactiveLicenseController::failed);
+	}
+
+	@PostMapping(value = "/key/generatekeys", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<Map<String, String>>> generateKeys(WebSession session,
+			@RequestParam("cipher") @NotBlank(message = "Cipher specification cannot be blank") String cipher,
+			@RequestParam("size") @Min(value = 1024, message = "Size must be at least 1024") @Max(value = 3072, message = "Size cannot exceed 3072") int size,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		return expectedVersion(ifMatch)
+				.flatMap(expected -> ls.generate(session, cipher, size, expected.orElse(null)))
+				.map(version -> status(version, "Keys have been generated in memory. Download and save them to a secure location if you plan to use them for signing a license"))
+				.onErrorResume(ResponseStatusException.class, ReactiveLicenseController::failed);
+	}
+
+	@GetMapping("/key/downloadkeys")
+	public Mono<ResponseEntity<Object>> downloadKeys(WebSession session,
+			@RequestParam("privateKeyName") @NotBlank(message = "Private Key name cannot be blank") String privateKeyName,
+			@RequestParam("publicKeyName") @NotBlank(message = "Public Key name cannot be blank") String publicKeyName,
+			@RequestParam("format") IOFormat format) {
+		return ls.saveKeys(session, privateKeyName, publicKeyName, format)
+				.map(zippedKeys -> ResponseEntity.ok()
+						.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=keys.zip")
+						.contentLength(zippedKeys.length)
+						.contentType(MediaType.APPLICATION_OCTET_STREAM)
+						.<Object>body(download(zippedKeys)))
+				.onErrorResume(ResponseStatusException.class, e -> Mono.just(ResponseEntity.status(e.getStatusCode()).<Object>body(Collections.singletonMap("status", e.getReason()))));
+	}
+
+	@PostMapping(value = "/key/uploadprivatekey", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<Map<String, String>>> uploadPrivateKey(WebSession session,
+			@RequestPart("privateKeyFile") FilePart privateKeyFile,
+			@RequestPart("format") String format,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		return expectedVersion(ifMatch)
+				.flatMap(expected -> ls.loadPrivateKey(session, privateKeyFile.content(), formatOf(format), expected.orElse(null)))
+				.map(version -> status(version, "Private key loaded in memory"))
+				.onErrorResume(ResponseStatusException.class, ReactiveLicenseController::failed);
+	}
+
+	@PostMapping(value = "/key/uploadpublickey", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<Map<String, String>>> uploadPublicKey(WebSession session,
+			@RequestPart("publicKeyFile") FilePart publicKeyFile,
+			@RequestPart("format") String format,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		return expectedVersion(ifMatch)
+				.flatMap(expected -> ls.loadPublicKey(session, publicKeyFile.content(), formatOf(format), expected.orElse(null)))
+				.map(version -> status(version, "Public key loaded in memory"))
+				.onErrorResume(ResponseStatusException.class, ReactiveLicenseController::failed);
+	}
+
+	@GetMapping(value = "/key/dumppublickey", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<Map<String, String>>> digestPublicKey(WebSession session) {
+		return ls.digestPublicKey(session)
+				.map(digest -> ResponseEntity.ok(Collections.singletonMap("publickey", digest)))
+				.onErrorResume(ResponseStatusException.class, e -> Mono.just(ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("publickey", e.getReason()))));
+	}
+
+	@PostMapping(value = "/license/sign", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<Map<String, String>>> signLicense(WebSession session,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		return expectedVersion(ifMatch)
+				.flatMap(expected -> ls.signLicense(session, expected.orElse(null)))
+				.map(version -> status(version, "License Signed with the keys loaded in memory"))
+				.onErrorResume(ResponseStatusException.class, ReactiveLicenseController::failed);
+	}
+
+	@GetMapping(value = "/license/verify", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<Map<String, String>>> verifyLicense(WebSession session) {
+		return ls.verifyLicense(session)
+				.map(licenseSignStatus -> {
+					Map<String, String> response = new LinkedHashMap<>();
+					response.put("status", licenseSignStatus);
+					return ResponseEntity.ok(response);
+				})
+				.onErrorResume(ResponseStatusException.class, ReactiveLicenseController::failed);
+	}
+
+	//accessory functions
+
+	@GetMapping(value = "/license/version", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, Long>> licenseVersion(WebSession session) {
+		long version = ls.current(session).version();
+		return ResponseEntity.ok().eTag(Long.toString(version)).body(Collections.singletonMap("version", version));
+	}
+
+	@GetMapping(value = "/license/isloaded", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, Boolean>> isLicenseLoaded(WebSession session) {
+		return ResponseEntity.ok(Collections.singletonMap("status", ls.current(session).license() != null));
+	}
+
+	@GetMapping(value = "/license/requiressigning", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, Boolean>> licenseRequiresSigning(WebSession session) {
+		return ResponseEntity.ok(Collections.singletonMap("status", ls.current(session).toSign()));
+	}
+
+	@GetMapping(value = "/license/requiressaving", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, Boolean>> licenseRequiresSaving(WebSession session) {
+		return ResponseEntity.ok(Collections.singletonMap("status", ls.current(session).toSave()));
+	}
+
+	@GetMapping(value = "/license/changedfeatures", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, FeatureChange>> changedFeatures(WebSession session) {
+		return ResponseEntity.ok(new LinkedHashMap<>(ls.current(session).changedFeatures()));
+	}
+
+	@GetMapping(value = "/key/isprivatekeyloaded", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, Boolean>> isPrivateKeyLoaded(WebSession session) {
+		return ResponseEntity.ok(Collections.singletonMap("status", ls.current(session).hasPrivateKey()));
+	}
+
+	@GetMapping(value = "/key/ispublickeyloaded", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, Boolean>> isPublicKeyLoaded(WebSession session) {
+		LicenseState current = ls.current(session);
+		return ResponseEntity.ok(Collections.singletonMap("status", current.hasPublicKey()));
+	}
+
+	@GetMapping(value = "/healthcheck", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, String>> healthcheck() {
+		return ResponseEntity.ok(Collections.singletonMap("status", "active"));
+	}
+
+	@GetMapping(value = "/sessionid", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, String>> getSessionId(WebSession session) {
+		return ResponseEntity.ok(Collections.singletonMap("SessionID", session.getId()));
+	}
+
+	private static ResponseEntity<Map<String, String>> status(long version, String status) {
+		return ResponseEntity.ok().eTag(Long.toString(version)).body(Collections.singletonMap("status", status));
+	}
+
+	private static Mono<ResponseEntity<Map<String, String>>> failed(ResponseStatusException e) {
+		return Mono.just(ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getReason())));
+	}
+
+	// the resource encoder writes files to the connection in chunks as the client reads them, a Flux
+	// in an Object body would have no element type an encoder could be found for
+	private static ByteArrayResource download(byte[] file) {
+		return new ByteArrayResource(file);
+	}
+
+	private static IOFormat formatOf(String format) throws ResponseStatusException {
+		try {
+			return IOFormat.valueOf(format.trim());
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, format+" is not a valid format");
+		}
+	}
+
+	// the license state version an If-Match header asks for, empty if the request does not depend on one
+	private static Mono<Optional<Long>> expectedVersion(String ifMatch) {
+		if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+			return Mono.just(Optional.empty());
+		}
+		String tag = ifMatch.trim();
+		if (tag.startsWith("W/")) {
+			tag = tag.substring(2);
+		}
+		if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+			tag = tag.substring(1, tag.length() - 1);
+		}
+		try {
+			return Mono.just(Optional.of(Long.parseLong(tag)));
+		} catch (NumberFormatException e) {
+			return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "If-Match "+ifMatch+" is not a license state version"));
+		}
+	}
+}
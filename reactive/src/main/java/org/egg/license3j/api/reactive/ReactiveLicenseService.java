@@ -0,0 +1,233 @@
+package org.egg.license3j.api.reactive;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.dto.FeatureRequest;
+import org.egg.license3j.api.license.LicenseFiles;
+import org.egg.license3j.api.license.LicenseState;
+import org.egg.license3j.api.license.SessionLicense;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.WebSession;
+
+import javax0.license3j.License;
+import javax0.license3j.crypto.LicenseKeyPair;
+import javax0.license3j.io.IOFormat;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * License and keys of a {@link WebSession}, the reactive counterpart of the servlet LicenseService.
+ * <p>
+ * The state and its changes are kept by the {@link SessionLicense} in a session
+ * attribute, the same the servlet API uses. This service only adapts it: cheap
+ * changes run on the calling thread, cryptography runs on the bounded crypto
+ * scheduler and uploads are collected from the request body without blocking.
+ */
+@Service
+public class ReactiveLicenseService {
+
+	private static final String STATE_ATTRIBUTE = "license3j.licenseState";
+
+	private final Scheduler crypto;
+	private final int maxUploadSize;
+
+	private static final Logger logger = LoggerFactory.getLogger(ReactiveLicenseService.class);
+
+	public ReactiveLicenseService(@Qualifier("cryptoScheduler") Scheduler crypto,
+			@Value("${license3j.upload.max-size:1MB}") DataSize maxUploadSize) {
+		this.crypto = crypto;
+		this.maxUploadSize = (int) maxUploadSize.toBytes();
+	}
+
+	/**
+	 * A saved license file
+	 *
+	 * @param file    the license in the requested format
+	 * @param version state version after saving
+	 */
+	public record SavedLicense(byte[] file, long version) {}
+
+	/**
+	 * Rendering of the license of a state version
+	 *
+	 * @param text    the license in the STRING format
+	 * @param version state version the license belongs to
+	 */
+	public record RenderedLicense(String text, long version) {}
+
+	// accessory functions
+		public LicenseState current(WebSession session) {
+			return licenseOf(session).current();
+		}
+
+		public Boolean isFileNameValid(String fileName) {
+			return LicenseFiles.isFileNameValid(fileName);
+		}
+
+		private static SessionLicense licenseOf(WebSession session) {
+			return (SessionLicense) session.getAttributes().computeIfAbsent(STATE_ATTRIBUTE, name -> new SessionLicense());
+		}
+
+		// run a cryptographic operation off the event loop, a full scheduler rejects it instead of queuing without bound
+		private <T> Mono<T> onCryptoScheduler(Mono<T> operation) {
+			return operation.subscribeOn(crypto)
+					.onErrorMap(RejectedExecutionException.class, e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The server is busy, please retry later"));
+		}
+
+		// collect an uploaded file without blocking, up to the configured size
+		private Mono<byte[]> read(Flux<DataBuffer> content) {
+			return DataBufferUtils.join(content, maxUploadSize)
+					.map(buffer -> {
+						byte[] bytes = new byte[buffer.readableByteCount()];
+						buffer.read(bytes);
+						DataBufferUtils.release(buffer);
+						return bytes;
+					})
+					.defaultIfEmpty(new byte[0])
+					.onErrorMap(DataBufferLimitException.class, e -> new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "The uploaded file exceeds "+maxUploadSize+" bytes"));
+		}
+
+	// generate a new license if there are no previously unsaved licenses
+		public Mono<Long> newLicense(WebSession session, Long expectedVersion) {
+			return Mono.fromCallable(() -> licenseOf(session).newLicense(expectedVersion).version());
+		}
+
+		// save license to file
+		public Mono<SavedLicense> saveLicense(WebSession session, String licenseName, IOFormat format) {
+			return Mono.fromCallable(() -> {
+				if (Boolean.FALSE.equals(isFileNameValid(licenseName))) {
+					throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE, "Invalid File Name");
+				}
+				SessionLicense license = licenseOf(session);
+				while (true) {
+					LicenseState current = license.savable();
+					byte[] file = LicenseFiles.write(current.license(), format);
+					LicenseState saved = license.saved(current);
+					if (saved != null) {
+						return new SavedLicense(file, saved.version());
+					}
+				}
+			});
+		}
+
+		// dump license to screen
+		public Mono<RenderedLicense> displayLicense(WebSession session) {
+			return Mono.fromCallable(() -> {
+				LicenseState current = current(session);
+				License license = SessionLicense.requireLicense(current);
+				return new RenderedLicense(new String(LicenseFiles.write(license, IOFormat.STRING), StandardCharsets.UTF_8), current.version());
+			});
+		}
+
+		// load an existing license
+		public Mono<Long> loadLicense(WebSession session, Flux<DataBuffer> content, IOFormat format, Long expectedVersion) {
+			return read(content).map(bytes -> {
+				License loaded = LicenseFiles.read(new ByteArrayInputStream(bytes), format);
+				return licenseOf(session).load(loaded, expectedVersion).version();
+			});
+		}
+
+		// add features to a license
+		public Mono<Long> addFeature(WebSession session, String featureName, FeatureType type, String featureContent, Long expectedVersion) {
+			return Mono.fromCallable(() -> licenseOf(session).addFeature(featureName, type, featureContent, expectedVersion).version());
+		}
+
+		// add several features to a license at once, only if all of them are valid
+		public Mono<Long> addFeatures(WebSession session, List<FeatureRequest> features, Long expectedVersion) {
+			return Mono.fromCallable(() -> licenseOf(session).addFeatures(features, expectedVersion).version());
+		}
+
+		// replace the content or type of an existing feature
+		public Mono<Long> updateFeature(WebSession session, String featureName, FeatureType type, String featureContent, Long expectedVersion) {
+			return Mono.fromCallable(() -> licenseOf(session).updateFeature(featureName, type, featureContent, expectedVersion).version());
+		}
+
+		// remove an existing feature
+		public Mono<Long> removeFeature(WebSession session, String featureName, Long expectedVersion) {
+			return Mono.fromCallable(() -> licenseOf(session).removeFeature(featureName, expectedVersion).version());
+		}
+
+		// generate a private-key public-key pair on the crypto scheduler
+		public Mono<Long> generate(WebSession session, String cipher, int size, Long expectedVersion) {
+			return onCryptoScheduler(Mono.fromCallable(() -> {
+				SessionLicense license = licenseOf(session);
+				license.current(expectedVersion);
+				LicenseKeyPair generated;
+				try {
+					generated = LicenseKeyPair.Create.from(cipher, size);
+				} catch (GeneralSecurityException e) {
+					logger.error("Algorithm Unavailable", e);
+					throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, cipher+" is not available in the environment");
+				}
+				return license.generated(generated, expectedVersion).version();
+			}));
+		}
+
+		// bundle the keys in a zip format for download
+		public Mono<byte[]> saveKeys(WebSession session, String privateKeyName, String publicKeyName, IOFormat format) {
+			return Mono.fromCallable(() -> {
+				if (Boolean.FALSE.equals(isFileNameValid(privateKeyName)) || Boolean.FALSE.equals(isFileNameValid(publicKeyName))) {
+					throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE, "Invalid Key Names");
+				}
+				LicenseState current = current(session);
+				if (!current.hasPrivateKey() || !current.hasPublicKey()) {
+					throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either or both of the keys are not loaded");
+				}
+				return LicenseFiles.bundle(current.keyPair(), privateKeyName, publicKeyName, format).zip();
+			});
+		}
+
+		// load private key
+		public Mono<Long> loadPrivateKey(WebSession session, Flux<DataBuffer> keyFile, IOFormat format, Long expectedVersion) {
+			return read(keyFile).map(bytes -> licenseOf(session).loaded(LicenseFiles.readPrivateKey(new ByteArrayInputStream(bytes), format), expectedVersion).version());
+		}
+
+		// load public key
+		public Mono<Long> loadPublicKey(WebSession session, Flux<DataBuffer> keyFile, IOFormat format, Long expectedVersion) {
+			return read(keyFile).map(bytes -> licenseOf(session).loaded(LicenseFiles.readPublicKey(new ByteArrayInputStream(bytes), format), expectedVersion).version());
+		}
+
+		// digest public key
+		public Mono<String> digestPublicKey(WebSession session) {
+			return Mono.fromCallable(() -> {
+				LicenseKeyPair keyPair = current(session).keyPair();
+				if (keyPair == null) {
+					throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No public key in memory that can be digested.");
+				}
+				return LicenseFiles.digest(keyPair.getPublic());
+			});
+		}
+
+		// sign a copy of the license on the crypto scheduler
+		public Mono<Long> signLicense(WebSession session, Long expectedVersion) {
+			return onCryptoScheduler(Mono.fromCallable(() -> licenseOf(session)
+					.sign(expectedVersion, (license, keyPair) -> license.sign(keyPair.getPair().getPrivate(), SessionLicense.SIGNATURE_DIGEST))
+					.version()));
+		}
+
+		// verify license on the crypto scheduler
+		public Mono<String> verifyLicense(WebSession session) {
+			return onCryptoScheduler(Mono.fromCallable(() -> {
+				LicenseState current = licenseOf(session).verifiable();
+				return current.license().isOK(current.keyPair().getPair().getPublic())
+						? "License is properly signed."
+						: "License is NOT properly signed.";
+			}));
+		}
+}
@@ -0,0 +1,135 @@
+package org.egg.license3j.api.reactive;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ReactiveLicenseApiTest {
+
+	private static final String COOKIE_NAME = "LICENSE3J_SESSION_COOKIE";
+
+	@Autowired
+	private WebTestClient client;
+
+	private String newSession() {
+		ResponseCookie cookie = client.post().uri("/api/license/new")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+				.returnResult(String.class)
+				.getResponseCookies().getFirst(COOKIE_NAME);
+		assertNotNull(cookie);
+		return cookie.getValue();
+	}
+
+	@Test
+	void licenseIsSignedSavedAndLoadedAgain() {
+		String session = newSession();
+
+		client.post().uri("/api/license/addfeature?featureName=edition&featureType=STRING&featureContent=enterprise")
+				.cookie(COOKIE_NAME, session)
+				.exchange()
+				.expectStatus().isOk();
+		client.post().uri("/api/key/generatekeys?cipher=RSA&size=1024")
+				.cookie(COOKIE_NAME, session)
+				.exchange()
+				.expectStatus().isOk();
+		client.post().uri("/api/license/sign")
+				.cookie(COOKIE_NAME, session)
+				.exchange()
+				.expectStatus().isOk();
+		client.get().uri("/api/license/verify")
+				.cookie(COOKIE_NAME, session)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.status").isEqualTo("License is properly signed.");
+
+		byte[] license = client.get().uri("/api/license/save?licenseName=license.bin&format=BINARY")
+				.cookie(COOKIE_NAME, session)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentType(MediaType.APPLICATION_OCTET_STREAM)
+				.expectBody(byte[].class).returnResult().getResponseBody();
+		assertNotNull(license);
+		assertTrue(license.length > 0);
+
+		String other = newSession();
+		MultipartBodyBuilder upload = new MultipartBodyBuilder();
+		upload.part("license", new ByteArrayResource(license) {
+			@Override
+			public String getFilename() {
+				return "license.bin";
+			}
+		});
+		upload.part("format", "BINARY");
+		client.post().uri("/api/license/upload")
+				.cookie(COOKIE_NAME, other)
+				.contentType(MediaType.MULTIPART_FORM_DATA)
+				.body(BodyInserters.fromMultipartData(upload.build()))
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"2\"");
+		client.get().uri("/api/license/show")
+				.cookie(COOKIE_NAME, other)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$['License Info']").value(text -> assertTrue(text.toString().contains("edition=enterprise")));
+	}
+
+	@Test
+	void staleVersionIsRejected() {
+		String session = newSession();
+
+		client.post().uri("/api/license/addfeature?featureName=edition&featureType=STRING&featureContent=enterprise")
+				.cookie(COOKIE_NAME, session)
+				.header(HttpHeaders.IF_MATCH, "\"1\"")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"2\"");
+		client.post().uri("/api/license/sign")
+				.cookie(COOKIE_NAME, session)
+				.header(HttpHeaders.IF_MATCH, "\"1\"")
+				.exchange()
+				.expectStatus().isEqualTo(412);
+	}
+
+	@Test
+	void signingWithoutKeysIsABadRequest() {
+		String session = newSession();
+
+		client.post().uri("/api/license/sign")
+				.cookie(COOKIE_NAME, session)
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody().jsonPath("$.status").isEqualTo("No private key detected in memory.");
+	}
+
+	@Test
+	void featureNamesThatCannotBeSavedAreRejected() {
+		String session = newSession();
+
+		client.post().uri("/api/license/addfeature?featureName=edition:pro&featureType=STRING&featureContent=enterprise")
+				.cookie(COOKIE_NAME, session)
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody().jsonPath("$.status").isEqualTo("Feature name cannot contain ':' or '='");
+		client.post().uri("/api/license/addfeatures")
+				.cookie(COOKIE_NAME, session)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("[{\"name\":\"seats\",\"type\":\"INT\",\"content\":\"10\"},{\"name\":\"edition=pro\",\"type\":\"STRING\",\"content\":\"enterprise\"}]")
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody().jsonPath("$.['features[1].name']").isEqualTo("Feature name cannot contain ':' or '='");
+	}
+}
@@ -0,0 +1,52 @@
+#!/usr/bin/env bash
+# Measures how long the API takes from launch to its first successful
+# /api/healthcheck and its first successful /api/license/sign
+# usage: scripts/startup/measure.sh [runs] [modes]
+#
+# every mode of run.sh is measured runs times, by default default and cds 5 times
+# the sign time includes creating a license, adding a feature and generating the
+# keys in a new session right after the healthcheck answered
+set -euo pipefail
+
+project="$(cd "$(dirname "$0")/../.." && pwd)"
+runs="${1:-5}"
+modes="${2:-default cds}"
+port="${LICENSE3J_MEASURE_PORT:-18081}"
+base="http://localhost:$port"
+work="$project/target/startup-measurement"
+
+source "$(dirname "$0")/workflow.sh"
+
+for mode in $modes; do
+	healthchecks=0
+	signs=0
+	for run in $(seq 1 "$runs"); do
+		rm -rf "$work"
+		start="$(now_millis)"
+		"$(dirname "$0")/run.sh" "$mode" \
+			--server.port="$port" \
+			--management.server.port=0 \
+			--license3j.repository.directory="$work/issued" \
+			--license3j.revocation.file="$work/revocations.log" \
+			--license3j.activation.file="$work/activations.log" \
+			--license3j.resign.checkpoint-file="$work/resign.checkpoint" \
+			> "$project/target/startup-$mode.log" 2>&1 &
+		pid=$!
+		trap 'kill "$pid" 2>/dev/null || true' EXIT
+
+		wait_for_healthcheck "$base" 120
+		healthcheck=$(( $(now_millis) - start ))
+		cookie="$(new_session "$base")"
+		sign_license "$base" "$cookie"
+		sign=$(( $(now_millis) - start ))
+
+		kill "$pid"
+		wait "$pid" || true
+		trap - EXIT
+		echo "$mode run $run: healthcheck ${healthcheck}ms, sign ${sign}ms"
+		healthchecks=$((healthchecks + healthcheck))
+		signs=$((signs + sign))
+	done
+	echo "$mode average of $runs runs: healthcheck $((healthchecks / runs))ms, sign $((signs / runs))ms"
+done
+rm -rf "$work"
@@ -0,0 +1,34 @@
+#!/usr/bin/env bash
+# Starts the API
+# usage: scripts/startup/run.sh [default|cds] [application arguments]
+#
+# default runs target/license3j-api-<version>.jar as built by mvn package.
+# cds runs the application extracted by mvn -P startup package, with the Spring
+# AOT initialization and the class data sharing archive of the training run.
+# A JVM that cannot use the archive logs a warning and starts without it.
+# JAVA_OPTS is passed to the JVM in both modes.
+set -euo pipefail
+
+project="$(cd "$(dirname "$0")/../.." && pwd)"
+mode="${1:-default}"
+shift || true
+
+case "$mode" in
+	default)
+		jar="$(ls "$project"/target/license3j-api-*.jar | head -n 1)"
+		exec java ${JAVA_OPTS:-} -jar "$jar" "$@"
+		;;
+	cds)
+		archive="$project/target/startup/application.jsa"
+		if [[ ! -f "$archive" ]]; then
+			echo "$archive not found, build it with mvn -P startup package" >&2
+			exit 1
+		fi
+		jar="$(ls "$project"/target/startup/license3j-api-*.jar | head -n 1)"
+		exec java ${JAVA_OPTS:-} -XX:SharedArchiveFile="$archive" -Xlog:cds=warning -Dspring.aot.enabled=true -jar "$jar" "$@"
+		;;
+	*)
+		echo "usage: run.sh [default|cds] [application arguments]" >&2
+		exit 1
+		;;
+esac
@@ -0,0 +1,47 @@
+#!/usr/bin/env bash
+# Trains the class data sharing archive of the API
+# usage: scripts/startup/train.sh target/license3j-api-<version>.jar
+#
+# The jar is extracted to target/startup, class data sharing only works with
+# classes in plain jars. The extracted application is started once with the
+# Spring AOT initialization and serves a session workflow, so the classes of
+# license3j, zip4j and commons-text are loaded next to the ones of the context.
+# When it stops, the loaded classes are archived in target/startup/application.jsa.
+# The archive only fits the JVM and the jars it was trained with, train again
+# after changing either of them.
+set -euo pipefail
+
+jar="${1:?usage: train.sh <application jar>}"
+directory="$(dirname "$jar")/startup"
+port="${LICENSE3J_TRAINING_PORT:-18080}"
+base="http://localhost:$port"
+
+rm -rf "$directory"
+java -Djarmode=tools -jar "$jar" extract --destination "$directory"
+
+java -XX:ArchiveClassesAtExit="$directory/application.jsa" -Dspring.aot.enabled=true \
+	-jar "$directory/$(basename "$jar")" \
+	--server.port="$port" \
+	--management.server.port=0 \
+	--license3j.repository.directory="$directory/training/issued" \
+	--license3j.revocation.file="$directory/training/revocations.log" \
+	--license3j.activation.file="$directory/training/activations.log" \
+	--license3j.resign.checkpoint-file="$directory/training/resign.checkpoint" &
+pid=$!
+trap 'kill "$pid" 2>/dev/null || true' EXIT
+
+source "$(dirname "$0")/workflow.sh"
+wait_for_healthcheck "$base" 120
+run_workflow "$base"
+
+# the archive is written when the JVM exits, a SIGTERM lets it exit normally
+kill "$pid"
+wait "$pid" || true
+trap - EXIT
+rm -rf "$directory/training"
+
+if [[ ! -f "$directory/application.jsa" ]]; then
+	echo "The training run did not write $directory/application.jsa" >&2
+	exit 1
+fi
+echo "Class data sharing archive written to $directory/application.jsa"
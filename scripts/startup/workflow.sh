@@ -0,0 +1,60 @@
+# Session workflow shared by the startup scripts, sourced and not run
+#
+# the session cookie is marked Secure, it is read from Set-Cookie and sent back
+# by hand so the workflow also runs over plain http on localhost
+
+COOKIE_NAME=LICENSE3J_SESSION_COOKIE
+
+# milliseconds since the epoch
+now_millis() {
+	echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# waits until /api/healthcheck answers 200
+# usage: wait_for_healthcheck <base url> <timeout seconds>
+wait_for_healthcheck() {
+	local deadline=$((SECONDS + $2))
+	until curl -sf -o /dev/null "$1/api/healthcheck"; do
+		if (( SECONDS >= deadline )); then
+			echo "No answer from $1/api/healthcheck in $2 seconds" >&2
+			return 1
+		fi
+		sleep 0.02
+	done
+}
+
+# creates a license in a new session and prints the session cookie
+# usage: new_session <base url>
+new_session() {
+	curl -sf -D - -o /dev/null -X POST "$1/api/license/new" \
+		| tr -d '\r' \
+		| sed -n "s/^[Ss]et-[Cc]ookie: \($COOKIE_NAME=[^;]*\).*/\1/p"
+}
+
+# calls an endpoint in a session and fails unless it answers 2xx
+# usage: call <base url> <cookie> <method> <path>
+call() {
+	curl -sf -o /dev/null -H "Cookie: $2" -X "$3" "$1$4"
+}
+
+# a license with a feature, signed with a generated key pair
+# usage: sign_license <base url> <cookie>
+sign_license() {
+	call "$1" "$2" POST "/api/license/addfeature?featureName=edition&featureType=STRING&featureContent=enterprise"
+	call "$1" "$2" POST "/api/key/generatekeys?cipher=RSA%2FECB%2FPKCS1Padding&size=2048"
+	call "$1" "$2" POST "/api/license/sign"
+}
+
+# every endpoint of the session workflow once, so their classes are loaded
+# usage: run_workflow <base url>
+run_workflow() {
+	local cookie
+	cookie="$(new_session "$1")"
+	sign_license "$1" "$cookie"
+	call "$1" "$cookie" GET "/api/license/verify"
+	call "$1" "$cookie" GET "/api/license/show"
+	call "$1" "$cookie" GET "/api/license/save?licenseName=license.bin&format=BINARY"
+	call "$1" "$cookie" GET "/api/license/save?licenseName=license.txt&format=STRING"
+	call "$1" "$cookie" GET "/api/key/downloadkeys?privateKeyName=test.private&publicKeyName=test.public&format=BINARY"
+	call "$1" "$cookie" GET "/api/key/dumppublickey"
+}
@@ -2,8 +2,10 @@ package org.egg.license3j.api;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class License3jSpringApplication {
 
 	public static void main(String[] args) {
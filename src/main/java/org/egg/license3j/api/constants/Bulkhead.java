@@ -0,0 +1,41 @@
+package org.egg.license3j.api.constants;
+
+/**
+ * Isolated thread pools of the API, a burst of work in one cannot starve the others
+ * <p>
+ * The defaults apply unless overridden with the license3j.bulkhead.&lt;name&gt;.* properties,
+ * 0 threads means one per available processor.
+ */
+public enum Bulkhead {
+	KEYGEN(2, 16, BulkheadRejection.ABORT),
+	SIGN(0, 256, BulkheadRejection.ABORT),
+	VERIFY(0, 1024, BulkheadRejection.CALLER_RUNS),
+	IO(16, 1024, BulkheadRejection.CALLER_RUNS);
+	
+	private final int defaultThreads;
+	private final int defaultQueueCapacity;
+	private final BulkheadRejection defaultRejection;
+	
+	Bulkhead(int defaultThreads, int defaultQueueCapacity, BulkheadRejection defaultRejection) {
+		this.defaultThreads = defaultThreads;
+		this.defaultQueueCapacity = defaultQueueCapacity;
+		this.defaultRejection = defaultRejection;
+	}
+	
+	public int defaultThreads() {
+		return defaultThreads;
+	}
+	
+	public int defaultQueueCapacity() {
+		return defaultQueueCapacity;
+	}
+	
+	public BulkheadRejection defaultRejection() {
+		return defaultRejection;
+	}
+	
+	// name used in the configuration properties and the published statistics
+	public String key() {
+		return name().toLowerCase();
+	}
+}
@@ -0,0 +1,11 @@
+package org.egg.license3j.api.constants;
+
+/**
+ * What a bulkhead does with work when its threads are busy and its queue is full
+ */
+public enum BulkheadRejection {
+	// the request is answered with 503
+	ABORT,
+	// the request thread does the work itself, which slows down the callers instead of failing them
+	CALLER_RUNS
+}
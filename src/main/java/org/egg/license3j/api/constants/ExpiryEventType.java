@@ -0,0 +1,8 @@
+package org.egg.license3j.api.constants;
+
+/**
+ * Kinds of expiry events reported by the expiry scanner
+ */
+public enum ExpiryEventType {
+	UPCOMING, EXPIRED
+}
@@ -0,0 +1,8 @@
+package org.egg.license3j.api.constants;
+
+/**
+ * Formats the issued licenses can be exported in
+ */
+public enum ExportFormat {
+	NDJSON, CSV
+}
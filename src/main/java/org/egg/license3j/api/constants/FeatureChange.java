@@ -0,0 +1,8 @@
+package org.egg.license3j.api.constants;
+
+/**
+ * Describes how a feature has changed since the license was last signed
+ */
+public enum FeatureChange {
+	ADDED, UPDATED, REMOVED
+}
@@ -0,0 +1,41 @@
+package org.egg.license3j.api.constants;
+
+/**
+ * Operations of a session license and its keys, as they are timed and counted
+ * <p>
+ * Operations that read or write a file are also told apart by their format.
+ */
+public enum LicenseOperation {
+	NEW_LICENSE("license.new", false),
+	SAVE_LICENSE("license.save", true),
+	DISPLAY_LICENSE("license.display", false),
+	LOAD_LICENSE("license.load", true),
+	ADD_FEATURE("feature.add", false),
+	ADD_FEATURES("feature.add-all", false),
+	UPDATE_FEATURE("feature.update", false),
+	REMOVE_FEATURE("feature.remove", false),
+	GENERATE_KEYS("keys.generate", false),
+	SAVE_KEYS("keys.save", true),
+	LOAD_PRIVATE_KEY("keys.load-private", true),
+	LOAD_PUBLIC_KEY("keys.load-public", true),
+	DIGEST_PUBLIC_KEY("keys.digest", false),
+	SIGN_LICENSE("license.sign", false),
+	VERIFY_LICENSE("license.verify", false);
+	
+	private final String key;
+	private final boolean formatted;
+	
+	LicenseOperation(String key, boolean formatted) {
+		this.key = key;
+		this.formatted = formatted;
+	}
+	
+	// value of the operation tag
+	public String key() {
+		return key;
+	}
+	
+	public boolean formatted() {
+		return formatted;
+	}
+}
@@ -0,0 +1,24 @@
+package org.egg.license3j.api.constants;
+
+/**
+ * Where the SecureRandom instances used for key generation come from
+ */
+public enum RandomSource {
+	// new SecureRandom(), whatever the java.security configuration of the JVM selects
+	DEFAULT(null),
+	// the NIST SP 800-90Ar1 DRBG of the JDK, seeded once and not reseeded
+	DRBG("DRBG"),
+	// reads /dev/urandom, which does not block once the kernel pool is initialized, not available on Windows
+	NATIVE_PRNG_NON_BLOCKING("NativePRNGNonBlocking");
+
+	private final String algorithm;
+
+	RandomSource(String algorithm) {
+		this.algorithm = algorithm;
+	}
+
+	// the SecureRandom algorithm, null for the default one
+	public String algorithm() {
+		return algorithm;
+	}
+}
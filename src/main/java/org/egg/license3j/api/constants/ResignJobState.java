@@ -0,0 +1,8 @@
+package org.egg.license3j.api.constants;
+
+/**
+ * Lifecycle of a job re-signing the issued licenses with a new key
+ */
+public enum ResignJobState {
+	RUNNING, COMPLETED, CANCELLED, FAILED, INTERRUPTED
+}
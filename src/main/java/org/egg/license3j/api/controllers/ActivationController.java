@@ -0,0 +1,81 @@
+package org.egg.license3j.api.controllers;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.egg.license3j.api.service.ActivationService;
+import org.egg.license3j.api.service.ActivationService.CheckIn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import jakarta.validation.constraints.Pattern;
+
+// check-ins come from deployed software, none of these endpoints use the session
+@RestController
+@Validated
+@RequestMapping("/api")
+public class ActivationController {
+	
+	private static final String INSTANCE_ID_PATTERN = "[A-Za-z0-9._:-]{1,128}";
+	private static final String INSTANCE_ID_MESSAGE = "Instance id must be 1 to 128 letters, digits or . _ : -";
+	
+	private final ActivationService activations;
+	
+	@Autowired
+	public ActivationController(ActivationService activations) {
+		this.activations=activations;
+	}
+	
+	@PostMapping(value = "/activation/checkin", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, Object>> checkIn(
+			@RequestParam UUID licenseId,
+			@RequestParam @Pattern(regexp = INSTANCE_ID_PATTERN, message = INSTANCE_ID_MESSAGE) String instanceId) {
+		try {
+			CheckIn checkIn = activations.checkIn(licenseId, instanceId);
+			Map<String, Object> response = toResponse(checkIn);
+			response.put("status", checkIn.activated() ? "Instance "+instanceId+" has been activated" : "Instance "+instanceId+" has checked in");
+			return ResponseEntity.ok(response);
+		} catch (ResponseStatusException e) {
+			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
+		}
+	}
+	
+	@DeleteMapping(value = "/activation", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, String>> deactivate(
+			@RequestParam UUID licenseId,
+			@RequestParam @Pattern(regexp = INSTANCE_ID_PATTERN, message = INSTANCE_ID_MESSAGE) String instanceId) {
+		try {
+			activations.deactivate(licenseId, instanceId);
+			return ResponseEntity.ok(Collections.singletonMap("status", "Instance "+instanceId+" has been deactivated"));
+		} catch (ResponseStatusException e) {
+			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
+		}
+	}
+	
+	@GetMapping(value = "/activation", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, Object>> activationStatus(@RequestParam UUID licenseId) {
+		return activations.status(licenseId)
+				.map(checkIn -> ResponseEntity.ok(toResponse(checkIn)))
+				.orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Collections.singletonMap("status", "License "+licenseId+" has not been activated")));
+	}
+	
+	private static Map<String, Object> toResponse(CheckIn checkIn) {
+		Map<String, Object> response = new LinkedHashMap<>();
+		response.put("seatsUsed", checkIn.seatsUsed());
+		response.put("seats", checkIn.seats());
+		response.put("checkIns", checkIn.checkIns());
+		return response;
+	}
+}
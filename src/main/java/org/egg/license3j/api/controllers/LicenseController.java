@@ -1,28 +1,59 @@
 package org.egg.license3j.api.controllers;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.PublicKey;
+import java.time.Instant;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.apache.commons.text.StringEscapeUtils;
+import org.egg.license3j.api.constants.Bulkhead;
+import org.egg.license3j.api.constants.ExportFormat;
+import org.egg.license3j.api.constants.FeatureChange;
 import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.dto.ExpiryEvent;
+import org.egg.license3j.api.dto.FeatureRequest;
+import org.egg.license3j.api.exceptions.FeatureValidationException;
+import org.egg.license3j.api.repository.ByteBufferInputStream;
+import org.egg.license3j.api.repository.ScanCursor;
+import org.egg.license3j.api.service.BulkheadExecutor;
+import org.egg.license3j.api.service.ExpiryScanService;
+import org.egg.license3j.api.service.IssuedLicenseService;
+import org.egg.license3j.api.service.LicenseExportService;
 import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.service.LicenseService.RenderedLicense;
+import org.egg.license3j.api.service.LicenseService.SavedLicense;
+import org.egg.license3j.api.service.LicenseService.VerifiedLicense;
+import org.egg.license3j.api.service.ResignJobService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.aop.scope.ScopedObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.server.ResponseStatusException;
 
 import jakarta.servlet.http.HttpSession;
@@ -38,32 +69,58 @@ import javax0.license3j.io.IOFormat;
 public class LicenseController {
 	
 	private final LicenseService ls;
+	private final IssuedLicenseService issued;
+	private final LicenseExportService exports;
+	private final ResignJobService resign;
+	private final ExpiryScanService expiries;
+	private final BulkheadExecutor bulkheads;
 	private static final Logger logger = LoggerFactory.getLogger(LicenseController.class);
+	private static final String LICENSE_ID_HEADER = "X-License-Id";
+	private static final String LICENSE_VERSION_HEADER = "X-License-Version";
+	private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+	private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
 	
 	@Autowired
-	public LicenseController(LicenseService ls) {
+	public LicenseController(LicenseService ls, IssuedLicenseService issued, LicenseExportService exports, ResignJobService resign, ExpiryScanService expiries, BulkheadExecutor bulkheads) {
 		this.ls=ls;
+		this.issued=issued;
+		this.exports=exports;
+		this.resign=resign;
+		this.expiries=expiries;
+		this.bulkheads=bulkheads;
 	}
 	
 	@PostMapping(value ="/license/new", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<Map<String, String>> generateNewLicense() {
+	public ResponseEntity<Map<String, String>> generateNewLicense(@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 		try {
-			ls.newLicense();
-			return ResponseEntity.ok(Collections.singletonMap("status", "A new license has been generated in memory"));
+			long version = ls.newLicense(expectedVersion(ifMatch));
+			return ResponseEntity.ok().eTag(Long.toString(version)).body(Collections.singletonMap("status", "A new license has been generated in memory"));
 		} catch (ResponseStatusException e) {
 			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
 		}
 	}
 	
 	@GetMapping("/license/save")
-	public ResponseEntity<Object> saveLicense(
+	public CompletableFuture<ResponseEntity<?>> saveLicense(
 			@RequestParam @NotBlank(message = "License name cannot be blank") String licenseName,
 			@RequestParam IOFormat format) {
-			
+		
+		LicenseService session = sessionLicenseService();
+		return bulkheads.<ResponseEntity<?>>submit(Bulkhead.IO, () -> saveLicense(session, licenseName, format))
+				.exceptionally(LicenseController::failed);
+	}
+	
+	private ResponseEntity<?> saveLicense(LicenseService session, String licenseName, IOFormat format) {
 		try {
-			Resource licenseFile = ls.saveLicense(licenseName, format);
+			SavedLicense saved = session.saveLicense(licenseName, format);
+			Resource licenseFile = saved.file();
 			HttpHeaders headers = new HttpHeaders();
 	        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename="+licenseName);
+	        headers.add(LICENSE_VERSION_HEADER, Long.toString(saved.version()));
+	        // the saved snapshot is recorded, not a license a parallel request has changed since
+	        if (IssuedLicenseService.isSigned(saved.license())) {
+	        	headers.add(LICENSE_ID_HEADER, issued.record(saved.license()).toString());
+	        }
 			return ResponseEntity.ok()
 					.headers(headers)
 					.contentLength(licenseFile.contentLength())
@@ -77,11 +134,139 @@ public class LicenseController {
 		}
 	}
 	
+	@GetMapping("/license/issued")
+	public ResponseEntity<Object> fetchIssuedLicense(
+			@RequestParam UUID licenseId,
+			@RequestParam(defaultValue = "BINARY") IOFormat format) {
+		
+		try {
+			ByteBuffer license = issued.fetch(licenseId, format);
+			HttpHeaders headers = new HttpHeaders();
+	        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename="+licenseId);
+	        headers.add(LICENSE_ID_HEADER, licenseId.toString());
+	        // streamed straight from the buffer, archived licenses are never copied onto the heap as a whole
+			return ResponseEntity.ok()
+					.headers(headers)
+					.contentLength(license.remaining())
+					.contentType(MediaType.APPLICATION_OCTET_STREAM)
+					.body(new InputStreamResource(new ByteBufferInputStream(license)));
+		} catch (ResponseStatusException e) {
+			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));	
+		}
+	}
+	
+	// only a body declared as StreamingResponseBody is streamed, a rejected cursor is answered by rejected()
+	@GetMapping("/license/issued/export")
+	public ResponseEntity<StreamingResponseBody> exportIssuedLicenses(
+			@RequestParam(defaultValue = "NDJSON") ExportFormat format,
+			@RequestParam(required = false) String cursor) {
+		
+		ScanCursor from = exports.startAt(cursor);
+		// the session scoped service cannot be reached from the thread writing the response
+		PublicKey publicKey = ls.getPublicKey();
+		StreamingResponseBody body = output -> exports.export(from, format, publicKey, output);
+		return ResponseEntity.ok()
+				.contentType(format == ExportFormat.CSV ? TEXT_CSV : APPLICATION_NDJSON)
+				.body(body);
+	}
+	
+	@PostMapping(value = "/license/issued/archive", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, Object>> archiveIssuedLicenses() {
+		try {
+			return ResponseEntity.ok(Collections.singletonMap("archived", issued.archive()));
+		} catch (ResponseStatusException e) {
+			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
+		}
+	}
+	
+	// the old public key and the new private key are read from the configuration, never from the session
+	@PostMapping(value = "/license/issued/resign", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, Object>> startResignJob(@RequestParam(defaultValue = "false") boolean restart) {
+		try {
+			return ResponseEntity.accepted().body(resign.start(restart).progress());
+		} catch (ResponseStatusException e) {
+			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
+		}
+	}
+	
+	@GetMapping(value = "/license/issued/resign", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, Object>> resignJobProgress() {
+		return resign.currentJob()
+				.map(job -> ResponseEntity.ok(job.progress()))
+				.orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Collections.singletonMap("status", "No re-sign job has been started")));
+	}
+	
+	@DeleteMapping(value = "/license/issued/resign", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, Object>> cancelResignJob() {
+		try {
+			return ResponseEntity.ok(resign.cancel().progress());
+		} catch (ResponseStatusException e) {
+			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
+		}
+	}
+	
+	@GetMapping(value = "/license/issued/expiries", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, Object>> expiryEvents(
+			@RequestParam(defaultValue = "0") @Min(value = 0, message = "Sequence cannot be negative") long since,
+			@RequestParam(defaultValue = "1000") @Min(value = 1, message = "Limit must be at least 1") @Max(value = 10000, message = "Limit cannot exceed 10000") int limit) {
+		
+		List<ExpiryEvent> events = expiries.eventsSince(since, limit);
+		Map<String, Object> response = new LinkedHashMap<>();
+		response.put("lastScanAt", expiries.getLastScanAt() == null ? null : expiries.getLastScanAt().toString());
+		response.put("next", events.isEmpty() ? since : events.get(events.size() - 1).sequence());
+		response.put("events", events);
+		return ResponseEntity.ok(response);
+	}
+	
+	@PostMapping(value = "/license/revoke", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, String>> revokeLicense(
+			@RequestParam UUID licenseId,
+			@RequestParam(defaultValue = "") String reason) {
+		try {
+			issued.revoke(licenseId, reason);
+			return ResponseEntity.ok(Collections.singletonMap("status", "License "+licenseId+" has been revoked"));
+		} catch (ResponseStatusException e) {
+			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
+		}
+	}
+	
+	@GetMapping(value = "/license/revoked", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, Object>> isLicenseRevoked(@RequestParam UUID licenseId) {
+		Map<String, Object> response = new LinkedHashMap<>();
+		response.put("revoked", false);
+		issued.findRevocation(licenseId).ifPresent(revocation -> {
+			response.put("revoked", true);
+			response.put("revokedAt", Instant.ofEpochMilli(revocation.revokedAt()).toString());
+			response.put("reason", revocation.reason());
+		});
+		return ResponseEntity.ok(response);
+	}
+	
+	@GetMapping(value = "/license/issued/search", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, Object>> searchIssuedLicenses(
+			@RequestParam("featureName") @NotBlank(message = "Feature name cannot be blank") String featureName, 
+			@RequestParam("featureType") FeatureType featureType,
+			@RequestParam(required = false) String value,
+			@RequestParam(required = false) String from,
+			@RequestParam(required = false) String to,
+			@RequestParam(defaultValue = "1000") @Min(value = 1, message = "Limit must be at least 1") @Max(value = 10000, message = "Limit cannot exceed 10000") int limit) {
+		
+		try {
+			List<UUID> licenseIds = issued.search(featureName, featureType, value, from, to, limit);
+			Map<String, Object> response = new LinkedHashMap<>();
+			response.put("count", licenseIds.size());
+			response.put("licenseIds", licenseIds);
+			return ResponseEntity.ok(response);
+		} catch (ResponseStatusException e) {
+			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
+		}
+	}
+	
 	@GetMapping(value = "/license/show", produces = MediaType.APPLICATION_JSON_VALUE)
 	public ResponseEntity<Map<String, String>> showLicense() {
 		try {
-			String license = ls.displayLicense();
-			return ResponseEntity.ok(Collections.singletonMap("License Info", license));
+			RenderedLicense license = ls.displayLicense();
+			return ResponseEntity.ok().eTag(Long.toString(license.version())).body(Collections.singletonMap("License Info", license.text()));
 		} catch (ResponseStatusException e) {
 			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("License Info", e.getBody().getDetail()));
 		}
@@ -89,46 +274,95 @@ public class LicenseController {
 	
 	
 	@PostMapping(value = "/license/upload", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<Map<String, String>> uploadLicense(
+	public CompletableFuture<ResponseEntity<Map<String, String>>> uploadLicense(
 			@RequestParam("license") @NotNull(message = "License file cannot be null") MultipartFile license, 
-			@RequestParam("format") IOFormat format) {
-		try {		
-			ls.loadLicense(license.getInputStream(), format);
-			return ResponseEntity.ok().body(Collections.singletonMap("status", "License loaded from file"));
-		} catch (ResponseStatusException e) {
-			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
-		} catch (IOException e) {
-			logger.error("License input stream error", e);
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Collections.singletonMap("status", "License could not be read"));
-		} 
+			@RequestParam("format") IOFormat format,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		LicenseService session = sessionLicenseService();
+		return bulkheads.submit(Bulkhead.IO, () -> {
+			try {		
+				long version = session.loadLicense(license.getInputStream(), format, expectedVersion(ifMatch));
+				return ResponseEntity.ok().eTag(Long.toString(version)).body(Collections.singletonMap("status", "License loaded from file"));
+			} catch (ResponseStatusException e) {
+				return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
+			} catch (IOException e) {
+				logger.error("License input stream error", e);
+				return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Collections.singletonMap("status", "License could not be read"));
+			} 
+		}).exceptionally(LicenseController::failed);
 	}
 	
 	@PostMapping(value = "/license/addfeature", produces = MediaType.APPLICATION_JSON_VALUE)
 	public ResponseEntity<Map<String, String>> addFeature(
 			@RequestParam("featureName") @NotBlank(message = "Feature name cannot be blank") String featureName, 
 			@RequestParam("featureType") FeatureType featureType, 
-			@RequestParam("featureContent") @NotBlank(message = "Feature content cannot be blank") String featureContent){
+			@RequestParam("featureContent") @NotBlank(message = "Feature content cannot be blank") String featureContent,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
 		
 		try {
-			ls.addFeature(featureName, featureType, featureContent);
-			return ResponseEntity.ok(Collections.singletonMap("status", "Feature: "+StringEscapeUtils.escapeHtml4(featureName)+" of type "+StringEscapeUtils.escapeHtml4(featureType.toString())+" with value "+StringEscapeUtils.escapeHtml4(featureContent)+" has been added"));
+			long version = ls.addFeature(featureName, featureType, featureContent, expectedVersion(ifMatch));
+			return ResponseEntity.ok().eTag(Long.toString(version)).body(Collections.singletonMap("status", "Feature: "+StringEscapeUtils.escapeHtml4(featureName)+" of type "+StringEscapeUtils.escapeHtml4(featureType.toString())+" with value "+StringEscapeUtils.escapeHtml4(featureContent)+" has been added"));
 		} catch (ResponseStatusException e) {
 			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
 		}
 	}
 	
-	@PostMapping(value = "/key/generatekeys", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<Map<String, String>> generateKeys(
-			@RequestParam("cipher") @NotBlank(message = "Cipher specification cannot be blank") String cipher, 
-			@RequestParam("size") @NotNull @Min(value = 1024, message = "Size must be at least 1024") @Max(value = 3072, message = "Size cannot exceed 3072") int size) {
+	@PostMapping(value = "/license/addfeatures", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, String>> addFeatures(@RequestBody List<FeatureRequest> features, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		try {
+			long version = ls.addFeatures(features, expectedVersion(ifMatch));
+			return ResponseEntity.ok().eTag(Long.toString(version)).body(Collections.singletonMap("status", features.size()+" features have been added"));
+		} catch (FeatureValidationException e) {
+			return ResponseEntity.badRequest().body(e.getErrors());
+		} catch (ResponseStatusException e) {
+			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
+		}
+	}
+	
+	@PostMapping(value = "/license/updatefeature", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, String>> updateFeature(
+			@RequestParam("featureName") @NotBlank(message = "Feature name cannot be blank") String featureName, 
+			@RequestParam("featureType") FeatureType featureType, 
+			@RequestParam("featureContent") @NotBlank(message = "Feature content cannot be blank") String featureContent,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+		
+		try {
+			long version = ls.updateFeature(featureName, featureType, featureContent, expectedVersion(ifMatch));
+			return ResponseEntity.ok().eTag(Long.toString(version)).body(Collections.singletonMap("status", "Feature: "+StringEscapeUtils.escapeHtml4(featureName)+" has been updated to type "+StringEscapeUtils.escapeHtml4(featureType.toString())+" with value "+StringEscapeUtils.escapeHtml4(featureContent)));
+		} catch (ResponseStatusException e) {
+			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
+		}
+	}
+	
+	@DeleteMapping(value = "/license/removefeature", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, String>> removeFeature(
+			@RequestParam("featureName") @NotBlank(message = "Feature name cannot be blank") String featureName,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+		
 		try {
-			ls.generate(cipher, size);
-			return ResponseEntity.ok(Collections.singletonMap("status", "Keys have been generated in memory. Download and save them to a secure location if you plan to use them for signing a license"));
+			long version = ls.removeFeature(featureName, expectedVersion(ifMatch));
+			return ResponseEntity.ok().eTag(Long.toString(version)).body(Collections.singletonMap("status", "Feature: "+StringEscapeUtils.escapeHtml4(featureName)+" has been removed"));
 		} catch (ResponseStatusException e) {
 			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
 		}
 	}
 	
+	@PostMapping(value = "/key/generatekeys", produces = MediaType.APPLICATION_JSON_VALUE)
+	public CompletableFuture<ResponseEntity<Map<String, String>>> generateKeys(
+			@RequestParam("cipher") @NotBlank(message = "Cipher specification cannot be blank") String cipher, 
+			@RequestParam("size") @NotNull @Min(value = 1024, message = "Size must be at least 1024") @Max(value = 3072, message = "Size cannot exceed 3072") int size,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		LicenseService session = sessionLicenseService();
+		return bulkheads.submit(Bulkhead.KEYGEN, () -> {
+			try {
+				long version = session.generate(cipher, size, expectedVersion(ifMatch));
+				return ResponseEntity.ok().eTag(Long.toString(version)).body(Collections.singletonMap("status", "Keys have been generated in memory. Download and save them to a secure location if you plan to use them for signing a license"));
+			} catch (ResponseStatusException e) {
+				return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
+			}
+		}).exceptionally(LicenseController::failed);
+	}
+	
 	@GetMapping("/key/downloadkeys")
 	public ResponseEntity<Object> downloadKeys(
 			@RequestParam("privateKeyName") @NotBlank(message = "Private Key name cannot be blank") String privateKeyName, 
@@ -153,33 +387,41 @@ public class LicenseController {
 	}
 	
 	@PostMapping(value ="/key/uploadprivatekey", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<Map<String, String>> uploadPrivateKey(
+	public CompletableFuture<ResponseEntity<Map<String, String>>> uploadPrivateKey(
 			@RequestParam("privateKeyFile") @NotNull(message = "Private Key file cannot be null") MultipartFile privateKeyFile, 
-			@RequestParam IOFormat format) {
-		try {
-			ls.loadPrivateKey(privateKeyFile.getInputStream(), format);
-			return ResponseEntity.ok(Collections.singletonMap("status", "Private key loaded in memory"));
-		} catch (ResponseStatusException e) {
-			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
-		} catch (IOException e) {
-			logger.error("Private key input stream error", e);
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Collections.singletonMap("status", "Private Key could not be read"));
-		}
+			@RequestParam IOFormat format,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		LicenseService session = sessionLicenseService();
+		return bulkheads.submit(Bulkhead.IO, () -> {
+			try {
+				long version = session.loadPrivateKey(privateKeyFile.getInputStream(), format, expectedVersion(ifMatch));
+				return ResponseEntity.ok().eTag(Long.toString(version)).body(Collections.singletonMap("status", "Private key loaded in memory"));
+			} catch (ResponseStatusException e) {
+				return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
+			} catch (IOException e) {
+				logger.error("Private key input stream error", e);
+				return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Collections.singletonMap("status", "Private Key could not be read"));
+			}
+		}).exceptionally(LicenseController::failed);
 	}
 	
 	@PostMapping(value = "/key/uploadpublickey", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<Map<String, String>> uploadPublicKey(
+	public CompletableFuture<ResponseEntity<Map<String, String>>> uploadPublicKey(
 			@RequestParam("publicKeyFile") @NotNull(message = "Public Key file cannot be null") MultipartFile publicKeyFile, 
-			@RequestParam IOFormat format) {
-		try {
-			ls.loadPublicKey(publicKeyFile.getInputStream(), format);
-			return ResponseEntity.ok(Collections.singletonMap("status", "Public key loaded in memory"));
-		} catch (ResponseStatusException e) {
-			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
-		} catch (IOException e) {
-			logger.error("Public key input stream error", e);
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Collections.singletonMap("status", "Public Key could not be read"));
-		}
+			@RequestParam IOFormat format,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		LicenseService session = sessionLicenseService();
+		return bulkheads.submit(Bulkhead.IO, () -> {
+			try {
+				long version = session.loadPublicKey(publicKeyFile.getInputStream(), format, expectedVersion(ifMatch));
+				return ResponseEntity.ok().eTag(Long.toString(version)).body(Collections.singletonMap("status", "Public key loaded in memory"));
+			} catch (ResponseStatusException e) {
+				return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
+			} catch (IOException e) {
+				logger.error("Public key input stream error", e);
+				return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Collections.singletonMap("status", "Public Key could not be read"));
+			}
+		}).exceptionally(LicenseController::failed);
 	}
 	
 	@GetMapping(value = "/key/dumppublickey", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -192,27 +434,43 @@ public class LicenseController {
 	}
 	
 	@PostMapping(value = "/license/sign", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<Map<String, String>> signLicense() {
-		try {
-			ls.signLicense();
-			return ResponseEntity.ok(Collections.singletonMap("status", "License Signed with the keys loaded in memory"));
-		} catch (ResponseStatusException e) {
-			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
-		}
+	public CompletableFuture<ResponseEntity<Map<String, String>>> signLicense(@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		LicenseService session = sessionLicenseService();
+		return bulkheads.submit(Bulkhead.SIGN, () -> {
+			try {
+				long version = session.signLicense(expectedVersion(ifMatch));
+				return ResponseEntity.ok().eTag(Long.toString(version)).body(Collections.singletonMap("status", "License Signed with the keys loaded in memory"));
+			} catch (ResponseStatusException e) {
+				return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
+			}
+		}).exceptionally(LicenseController::failed);
 	}
 	
 	@GetMapping(value = "/license/verify", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<Map<String, String>> verifyLicense() {
-		try {
-			String licenseSignStatus = ls.verifyLicense();
-			return ResponseEntity.ok(Collections.singletonMap("status", licenseSignStatus));
-		} catch (ResponseStatusException e) {
-			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
-		}
+	public CompletableFuture<ResponseEntity<Map<String, String>>> verifyLicense() {
+		LicenseService session = sessionLicenseService();
+		return bulkheads.submit(Bulkhead.VERIFY, () -> {
+			try {
+				VerifiedLicense verified = session.verifyLicense();
+				Map<String, String> response = new LinkedHashMap<>();
+				response.put("status", verified.status());
+				// the license that was verified, the session may have changed since
+				response.put("revoked", String.valueOf(issued.isRevoked(verified.state().license())));
+				return ResponseEntity.ok(response);
+			} catch (ResponseStatusException e) {
+				return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
+			}
+		}).exceptionally(LicenseController::failed);
 	}
 	
 	//accessory functions
 	
+	@GetMapping(value = "/license/version", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, Long>> licenseVersion() {
+		long version = ls.getVersion();
+		return ResponseEntity.ok().eTag(Long.toString(version)).body(Collections.singletonMap("version", version));
+	}
+	
 	@GetMapping(value = "/license/isloaded", produces = MediaType.APPLICATION_JSON_VALUE)
 	public ResponseEntity<Map<String, Boolean>> isLicenseLoaded() {
 		return ResponseEntity.ok(Collections.singletonMap("status", ls.isLicenseLoaded()));
@@ -228,6 +486,11 @@ public class LicenseController {
 		return ResponseEntity.ok(Collections.singletonMap("status", ls.licenseRequiresSaving()));
 	}
 	
+	@GetMapping(value = "/license/changedfeatures", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, FeatureChange>> changedFeatures() {
+		return ResponseEntity.ok(ls.getChangedFeatures());
+	}
+	
 	@GetMapping(value = "/key/isprivatekeyloaded", produces = MediaType.APPLICATION_JSON_VALUE)
 	public ResponseEntity<Map<String, Boolean>> isPrivateKeyLoaded() {
 		return ResponseEntity.ok(Collections.singletonMap("status", ls.isPrivateKeyLoaded()));
@@ -238,6 +501,11 @@ public class LicenseController {
 		return ResponseEntity.ok(Collections.singletonMap("status", ls.isPublicKeyLoaded()));
 	}
 	
+	@GetMapping(value = "/bulkheads", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, Map<String, Object>>> bulkheadStatistics() {
+		return ResponseEntity.ok(bulkheads.statistics());
+	}
+	
 	@GetMapping(value = "/healthcheck", produces = MediaType.APPLICATION_JSON_VALUE)
 	public ResponseEntity<Map<String, String>> healthcheck() {
 		return ResponseEntity.ok(Collections.singletonMap("status", "active"));
@@ -263,4 +531,53 @@ public class LicenseController {
 		return ResponseEntity.ok(response);
 	}
 	
+	// the session bean behind the scoped proxy, which cannot be resolved on a bulkhead thread
+	private LicenseService sessionLicenseService() {
+		return ls instanceof ScopedObject scoped ? (LicenseService) scoped.getTargetObject() : ls;
+	}
+	
+	// a request rejected before its response could be started, in the body every other endpoint answers with
+	@ExceptionHandler(ResponseStatusException.class)
+	public ResponseEntity<Map<String, String>> rejected(ResponseStatusException e) {
+		return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
+	}
+	
+	// a full bulkhead answers with 503, anything else escaping the work is an internal error
+	private static ResponseEntity<Map<String, String>> failed(Throwable e) {
+		return ResponseEntity.status(statusOf(e)).body(Collections.singletonMap("status", detailOf(e)));
+	}
+	
+	private static HttpStatusCode statusOf(Throwable e) {
+		Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+		return cause instanceof ResponseStatusException statusException ? statusException.getStatusCode() : HttpStatus.INTERNAL_SERVER_ERROR;
+	}
+	
+	private static String detailOf(Throwable e) {
+		Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+		if (cause instanceof ResponseStatusException statusException) {
+			return statusException.getBody().getDetail();
+		}
+		logger.error("A request failed in its bulkhead", cause);
+		return "The request could not be completed";
+	}
+	
+	// the license state version an If-Match header asks for, null if the request does not depend on one
+	private static Long expectedVersion(String ifMatch) throws ResponseStatusException {
+		if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+			return null;
+		}
+		String tag = ifMatch.trim();
+		if (tag.startsWith("W/")) {
+			tag = tag.substring(2);
+		}
+		if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+			tag = tag.substring(1, tag.length() - 1);
+		}
+		try {
+			return Long.parseLong(tag);
+		} catch (NumberFormatException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "If-Match "+ifMatch+" is not a license state version");
+		}
+	}
+	
 }
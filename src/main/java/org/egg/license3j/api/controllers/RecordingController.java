@@ -0,0 +1,65 @@
+package org.egg.license3j.api.controllers;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Map;
+
+import org.egg.license3j.api.service.FlightRecordingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+// only mapped when license3j.diagnostics.recording.enabled is set, a recording holds the data of every session
+@RestController
+@RequestMapping("/api")
+@ConditionalOnProperty(name = "license3j.diagnostics.recording.enabled", havingValue = "true")
+public class RecordingController {
+	
+	private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+	
+	private final FlightRecordingService recordings;
+	
+	@Autowired
+	public RecordingController(FlightRecordingService recordings) {
+		this.recordings=recordings;
+	}
+	
+	@PostMapping(value = "/diagnostics/recording/start", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, Object>> startRecording() {
+		try {
+			return ResponseEntity.ok(recordings.start());
+		} catch (ResponseStatusException e) {
+			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
+		}
+	}
+	
+	@PostMapping("/diagnostics/recording/stop")
+	public ResponseEntity<Object> stopRecording() {
+		try {
+			byte[] recording = recordings.stop();
+			HttpHeaders headers = new HttpHeaders();
+	        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=license3j-"+LocalDateTime.now().format(FILE_TIME)+".jfr");
+			return ResponseEntity.ok()
+					.headers(headers)
+					.contentLength(recording.length)
+					.contentType(MediaType.APPLICATION_OCTET_STREAM)
+					.body(new ByteArrayResource(recording));
+		} catch (ResponseStatusException e) {
+			return ResponseEntity.status(e.getStatusCode()).body(Collections.singletonMap("status", e.getBody().getDetail()));
+		}
+	}
+	
+	@GetMapping(value = "/diagnostics/recording", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<String, Object>> recordingStatus() {
+		return ResponseEntity.ok(recordings.status());
+	}
+}
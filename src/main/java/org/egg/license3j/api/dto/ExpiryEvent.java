@@ -0,0 +1,18 @@
+package org.egg.license3j.api.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.egg.license3j.api.constants.ExpiryEventType;
+
+/**
+ * An upcoming or passed expiration found by the expiry scanner
+ * 
+ * @param sequence   increasing number of the event, starts from the microseconds since the epoch when the application starts
+ * @param licenseId  id of the license
+ * @param type       whether the license is about to expire or has expired
+ * @param expiresAt  expiry date of the license
+ * @param detectedAt time of the scan that found the event
+ */
+public record ExpiryEvent(long sequence, UUID licenseId, ExpiryEventType type, Instant expiresAt, Instant detectedAt) {
+}
@@ -0,0 +1,13 @@
+package org.egg.license3j.api.dto;
+
+import org.egg.license3j.api.constants.FeatureType;
+
+/**
+ * A single feature entry of a bulk feature request
+ * 
+ * @param name    name of the feature
+ * @param type    type of the feature content
+ * @param content content of the feature in its string representation
+ */
+public record FeatureRequest(String name, FeatureType type, String content) {
+}
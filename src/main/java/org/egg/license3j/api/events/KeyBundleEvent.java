@@ -0,0 +1,24 @@
+package org.egg.license3j.api.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// the key pair written and zipped for download
+@Name("org.egg.license3j.KeyBundle")
+@Label("Key Bundle")
+@Category({"License3j", "Serialization"})
+public class KeyBundleEvent extends LicenseEvent {
+
+	@Label("Format")
+	public String format;
+
+	@Label("Key Bytes")
+	@DataAmount
+	public long keyBytes;
+
+	@Label("Zip Bytes")
+	@DataAmount
+	public long zipBytes;
+}
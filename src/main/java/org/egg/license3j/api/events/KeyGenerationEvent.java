@@ -0,0 +1,19 @@
+package org.egg.license3j.api.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.egg.license3j.KeyGeneration")
+@Label("Key Generation")
+@Category({"License3j", "Crypto"})
+public class KeyGenerationEvent extends LicenseEvent {
+
+	@Label("Cipher")
+	public String cipher;
+
+	@Label("Key Size")
+	@DataAmount(DataAmount.BITS)
+	public int keySize;
+}
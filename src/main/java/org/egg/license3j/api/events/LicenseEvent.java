@@ -0,0 +1,22 @@
+package org.egg.license3j.api.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of an operation on a session license or its keys.
+ * <p>
+ * Events cost next to nothing while no recording is running, their fields are
+ * only filled in when {@link #shouldCommit()} says the event will be written.
+ */
+@Category({"License3j", "License"})
+@StackTrace(false)
+public abstract class LicenseEvent extends Event {
+
+	@Label("Session Tag")
+	@Description("Hash of the session id, the id itself is a credential and is never recorded")
+	public String sessionTag;
+}
@@ -0,0 +1,23 @@
+package org.egg.license3j.api.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// LicenseReader.read
+@Name("org.egg.license3j.LicenseRead")
+@Label("License Read")
+@Category({"License3j", "Serialization"})
+public class LicenseReadEvent extends LicenseEvent {
+
+	@Label("Format")
+	public String format;
+
+	@Label("Features")
+	public int features;
+
+	@Label("Bytes Read")
+	@DataAmount
+	public long bytes;
+}
@@ -0,0 +1,20 @@
+package org.egg.license3j.api.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.egg.license3j.LicenseSign")
+@Label("License Sign")
+@Category({"License3j", "Crypto"})
+public class LicenseSignEvent extends LicenseEvent {
+
+	@Label("Cipher")
+	public String cipher;
+
+	@Label("Digest Algorithm")
+	public String digest;
+
+	@Label("Features")
+	public int features;
+}
@@ -0,0 +1,21 @@
+package org.egg.license3j.api.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// License.isOK
+@Name("org.egg.license3j.LicenseVerify")
+@Label("License Verify")
+@Category({"License3j", "Crypto"})
+public class LicenseVerifyEvent extends LicenseEvent {
+
+	@Label("Cipher")
+	public String cipher;
+
+	@Label("Features")
+	public int features;
+
+	@Label("Properly Signed")
+	public boolean properlySigned;
+}
@@ -0,0 +1,23 @@
+package org.egg.license3j.api.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// LicenseWriter.write
+@Name("org.egg.license3j.LicenseWrite")
+@Label("License Write")
+@Category({"License3j", "Serialization"})
+public class LicenseWriteEvent extends LicenseEvent {
+
+	@Label("Format")
+	public String format;
+
+	@Label("Features")
+	public int features;
+
+	@Label("Bytes Written")
+	@DataAmount
+	public long bytes;
+}
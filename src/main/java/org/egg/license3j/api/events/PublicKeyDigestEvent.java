@@ -0,0 +1,20 @@
+package org.egg.license3j.api.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// the public key digest dumped as Java code
+@Name("org.egg.license3j.PublicKeyDigest")
+@Label("Public Key Digest")
+@Category({"License3j", "Crypto"})
+public class PublicKeyDigestEvent extends LicenseEvent {
+
+	@Label("Key Bytes")
+	@DataAmount
+	public long keyBytes;
+
+	@Label("Characters Dumped")
+	public int characters;
+}
@@ -0,0 +1,24 @@
+package org.egg.license3j.api.exceptions;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Thrown when one or more features of a bulk request fail validation.
+ * Carries every validation error so that they can be reported in a single response.
+ */
+public class FeatureValidationException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+	
+	private final transient Map<String, String> errors;
+
+	public FeatureValidationException(Map<String, String> errors) {
+		super("One or more features failed validation");
+		this.errors = Collections.unmodifiableMap(errors);
+	}
+
+	public Map<String, String> getErrors() {
+		return errors;
+	}
+}
@@ -0,0 +1,20 @@
+package org.egg.license3j.api.exceptions;
+
+import org.egg.license3j.api.repository.ScanCursor;
+
+/**
+ * Thrown when a scan is resumed from a cursor of an archive generation that no longer exists,
+ * or from a cursor that does not point at a record of the store
+ */
+public class StaleCursorException extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	public StaleCursorException(ScanCursor cursor, long generation) {
+		super("Cursor "+cursor+" belongs to archive generation "+cursor.generation()+", the store is at generation "+generation);
+	}
+
+	public StaleCursorException(ScanCursor cursor, String reason) {
+		super("Cursor "+cursor+" "+reason);
+	}
+}
@@ -0,0 +1,179 @@
+package org.egg.license3j.api.features;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.egg.license3j.api.constants.FeatureType;
+
+import javax0.license3j.Feature;
+
+/**
+ * Creates license features directly from their {@link FeatureType} and content.
+ * <p>
+ * The content is parsed once into the value the type requires and handed to the
+ * matching {@code Feature.Create.*Feature} method, so no intermediate
+ * {@code name:TYPE=content} string has to be built and parsed again. The
+ * content may therefore contain {@code :} and {@code =}. The name may not: the
+ * STRING format of a saved license still writes the feature as
+ * {@code name:TYPE=content}, and such a name would not be read back.
+ */
+public final class FeatureFactory {
+	
+	// date patterns accepted by License3j, tried from the most to the least specific
+	private static final List<DateTimeFormatter> DATE_TIME_FORMATS = List.of(
+			DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS"),
+			DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"),
+			DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"),
+			DateTimeFormatter.ofPattern("yyyy-MM-dd HH"));
+	
+	private FeatureFactory() {
+		throw new IllegalStateException("Utility Class");
+	}
+	
+	/**
+	 * Creates a feature of the given type
+	 * 
+	 * @param name    name of the feature
+	 * @param type    type of the feature
+	 * @param content string representation of the feature value
+	 * @return the created feature
+	 * @throws IllegalArgumentException if the name is not valid, see {@link #checkName}, or the content is not a valid value of the given type
+	 */
+	public static Feature create(String name, FeatureType type, String content) throws IllegalArgumentException {
+		checkName(name);
+		return switch (type) {
+			case STRING -> Feature.Create.stringFeature(name, content);
+			case BINARY -> Feature.Create.binaryFeature(name, (byte[]) parse(type, content));
+			case BYTE -> Feature.Create.byteFeature(name, (Byte) parse(type, content));
+			case SHORT -> Feature.Create.shortFeature(name, (Short) parse(type, content));
+			case INT -> Feature.Create.intFeature(name, (Integer) parse(type, content));
+			case LONG -> Feature.Create.longFeature(name, (Long) parse(type, content));
+			case FLOAT -> Feature.Create.floatFeature(name, (Float) parse(type, content));
+			case DOUBLE -> Feature.Create.doubleFeature(name, (Double) parse(type, content));
+			case BIGINTEGER -> Feature.Create.bigIntegerFeature(name, (BigInteger) parse(type, content));
+			case BIGDECIMAL -> Feature.Create.bigDecimalFeature(name, (BigDecimal) parse(type, content));
+			case DATE -> Feature.Create.dateFeature(name, (Date) parse(type, content));
+			case UUID -> Feature.Create.uuidFeature(name, (UUID) parse(type, content));
+		};
+	}
+	
+	/**
+	 * Checks that a feature name survives saving the license in the STRING format
+	 * 
+	 * @param name name of the feature
+	 * @throws IllegalArgumentException if the name contains {@code :} or {@code =}
+	 */
+	public static void checkName(String name) throws IllegalArgumentException {
+		if (name.indexOf(':') >= 0 || name.indexOf('=') >= 0) {
+			throw new IllegalArgumentException("Feature name cannot contain ':' or '='");
+		}
+	}
+	
+	/**
+	 * Parses the string representation of a feature value
+	 * 
+	 * @param type    type of the value
+	 * @param content string representation of the value
+	 * @return the value as the java type License3j stores for the feature type
+	 * @throws IllegalArgumentException if the content is not a valid value of the given type
+	 */
+	public static Object parse(FeatureType type, String content) throws IllegalArgumentException {
+		return switch (type) {
+			case STRING -> content;
+			case BINARY -> Base64.getDecoder().decode(content);
+			case BYTE -> Byte.valueOf(content);
+			case SHORT -> Short.valueOf(content);
+			case INT -> Integer.valueOf(content);
+			case LONG -> Long.valueOf(content);
+			case FLOAT -> Float.valueOf(content);
+			case DOUBLE -> Double.valueOf(content);
+			case BIGINTEGER -> new BigInteger(content);
+			case BIGDECIMAL -> new BigDecimal(content);
+			case DATE -> parseDate(content);
+			case UUID -> java.util.UUID.fromString(content);
+		};
+	}
+	
+	/**
+	 * Determines the type of an existing feature
+	 * 
+	 * @param feature the feature
+	 * @return the type of the feature
+	 */
+	public static FeatureType typeOf(Feature feature) {
+		if (feature.isString()) return FeatureType.STRING;
+		if (feature.isBinary()) return FeatureType.BINARY;
+		if (feature.isByte()) return FeatureType.BYTE;
+		if (feature.isShort()) return FeatureType.SHORT;
+		if (feature.isInt()) return FeatureType.INT;
+		if (feature.isLong()) return FeatureType.LONG;
+		if (feature.isFloat()) return FeatureType.FLOAT;
+		if (feature.isDouble()) return FeatureType.DOUBLE;
+		if (feature.isBigInteger()) return FeatureType.BIGINTEGER;
+		if (feature.isBigDecimal()) return FeatureType.BIGDECIMAL;
+		if (feature.isDate()) return FeatureType.DATE;
+		return FeatureType.UUID;
+	}
+	
+	/**
+	 * Reads the typed value of an existing feature
+	 * 
+	 * @param feature the feature
+	 * @return the value as the java type License3j stores for the feature type
+	 */
+	public static Object valueOf(Feature feature) {
+		return switch (typeOf(feature)) {
+			case STRING -> feature.getString();
+			case BINARY -> feature.getBinary();
+			case BYTE -> feature.getByte();
+			case SHORT -> feature.getShort();
+			case INT -> feature.getInt();
+			case LONG -> feature.getLong();
+			case FLOAT -> feature.getFloat();
+			case DOUBLE -> feature.getDouble();
+			case BIGINTEGER -> feature.getBigInteger();
+			case BIGDECIMAL -> feature.getBigDecimal();
+			case DATE -> feature.getDate();
+			case UUID -> feature.getUUID();
+		};
+	}
+	
+	/**
+	 * Formats the value of an existing feature so that {@link #parse(FeatureType, String)} reads it back
+	 * 
+	 * @param feature the feature
+	 * @return string representation of the feature value
+	 */
+	public static String format(Feature feature) {
+		return switch (typeOf(feature)) {
+			case BINARY -> Base64.getEncoder().encodeToString(feature.getBinary());
+			case DATE -> DATE_TIME_FORMATS.get(0).format(feature.getDate().toInstant().atOffset(ZoneOffset.UTC));
+			default -> String.valueOf(valueOf(feature));
+		};
+	}
+	
+	// dates are interpreted in UTC, the same way License3j does
+	private static Date parseDate(String content) {
+		for (DateTimeFormatter format : DATE_TIME_FORMATS) {
+			try {
+				return Date.from(LocalDateTime.parse(content, format).toInstant(ZoneOffset.UTC));
+			} catch (DateTimeParseException e) {
+				// try the next, less specific format
+			}
+		}
+		try {
+			return Date.from(LocalDate.parse(content).atStartOfDay(ZoneOffset.UTC).toInstant());
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException(content+" is not a valid date", e);
+		}
+	}
+}
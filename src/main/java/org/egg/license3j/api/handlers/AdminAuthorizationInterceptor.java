@@ -0,0 +1,92 @@
+package org.egg.license3j.api.handlers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collections;
+
+import org.egg.license3j.api.logging.SampledLogger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Guards the endpoints that read or act on every issued license rather than
+ * on the license of the session, and the flight recordings, which show the
+ * work of every session.
+ * <p>
+ * A request to them has to carry the configured administration token as a
+ * bearer token, otherwise it is answered with 401 before it reaches the
+ * controller. Without a configured token the endpoints are disabled and answer
+ * with 403.
+ */
+@Component
+public class AdminAuthorizationInterceptor implements HandlerInterceptor {
+
+	static final String REVOKE = "/api/license/revoke";
+	static final String ISSUED = "/api/license/issued";
+	static final String SEARCH = "/api/license/issued/search";
+	static final String EXPIRIES = "/api/license/issued/expiries";
+	static final String EXPORT = "/api/license/issued/export";
+	static final String RESIGN = "/api/license/issued/resign";
+	static final String ARCHIVE = "/api/license/issued/archive";
+	static final String RECORDING = "/api/diagnostics/recording/**";
+
+	private static final String BEARER = "Bearer ";
+
+	private final byte[] token;
+	private final ObjectMapper objectMapper;
+
+	private static final Logger logger = LoggerFactory.getLogger(AdminAuthorizationInterceptor.class);
+	private static final SampledLogger rejections = SampledLogger.of(logger);
+
+	public AdminAuthorizationInterceptor(ObjectMapper objectMapper, @Value("${license3j.admin.token:}") String token) {
+		this.objectMapper = objectMapper;
+		this.token = token.isBlank() ? null : token.getBytes(StandardCharsets.UTF_8);
+		if (this.token == null) {
+			logger.info("No administration token is configured, the administration endpoints are disabled");
+		}
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+		// the dispatch that writes the result of an async request has been authorized already
+		if (request.getDispatcherType() == DispatcherType.ASYNC) {
+			return true;
+		}
+		if (token == null) {
+			return reject(request, response, HttpStatus.FORBIDDEN, "The administration endpoints are disabled");
+		}
+		String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+		if (authorization == null || !authorization.startsWith(BEARER)) {
+			response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+			return reject(request, response, HttpStatus.UNAUTHORIZED, "An administration token is required");
+		}
+		// compared in constant time, the time taken does not tell how much of the token matched
+		byte[] presented = authorization.substring(BEARER.length()).trim().getBytes(StandardCharsets.UTF_8);
+		if (!MessageDigest.isEqual(token, presented)) {
+			response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+			return reject(request, response, HttpStatus.UNAUTHORIZED, "The administration token is not valid");
+		}
+		return true;
+	}
+
+	private boolean reject(HttpServletRequest request, HttpServletResponse response, HttpStatus status, String message) throws IOException {
+		rejections.warn("Request to {} from {} has been rejected: {}", request.getRequestURI(), request.getRemoteAddr(), message);
+		response.setStatus(status.value());
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		objectMapper.writeValue(response.getOutputStream(), Collections.singletonMap("status", message));
+		return false;
+	}
+}
@@ -0,0 +1,153 @@
+package org.egg.license3j.api.handlers;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.egg.license3j.api.logging.SampledLogger;
+import org.egg.license3j.api.logging.SessionTag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Limits how often a client can run the expensive cryptographic endpoints.
+ * <p>
+ * Every client, identified by its session or without one by its address, has a
+ * token bucket. Each endpoint costs a number of tokens, key generation costs
+ * per 1024 bits of the key. A request the bucket cannot pay for is answered
+ * with 429 and a Retry-After header before it reaches the controller.
+ * <p>
+ * Any endpoint hands out a new session and with it a full bucket, so key
+ * generation, the most expensive operation, is paid from the bucket of the
+ * address as well. A client cannot generate more keys by starting sessions.
+ */
+@Component
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+
+	static final String GENERATE_KEYS = "/api/key/generatekeys";
+	static final String SIGN = "/api/license/sign";
+	static final String VERIFY = "/api/license/verify";
+	static final String SHOW = "/api/license/show";
+
+	private final RateLimiter limiter;
+	private final ObjectMapper objectMapper;
+	private final Map<String, Integer> costs;
+	private final int generateKeysCost;
+
+	private static final Logger logger = LoggerFactory.getLogger(AdmissionControlInterceptor.class);
+	private static final SampledLogger rejections = SampledLogger.of(logger);
+
+	@Autowired
+	public AdmissionControlInterceptor(ObjectMapper objectMapper,
+			@Value("${license3j.admission.rate:10}") double rate,
+			@Value("${license3j.admission.burst:40}") double burst,
+			@Value("${license3j.admission.cost.generate-keys:10}") int generateKeysCost,
+			@Value("${license3j.admission.cost.sign:4}") int signCost,
+			@Value("${license3j.admission.cost.verify:2}") int verifyCost,
+			@Value("${license3j.admission.cost.show:1}") int showCost) {
+		this(new RateLimiter(rate, burst), objectMapper, burst, generateKeysCost, signCost, verifyCost, showCost);
+	}
+
+	public AdmissionControlInterceptor(RateLimiter limiter, ObjectMapper objectMapper, double burst, int generateKeysCost, int signCost, int verifyCost, int showCost) {
+		// the largest key has to fit into a full bucket, otherwise it could never be generated
+		if (generateKeysCost * 3 > burst || signCost > burst || verifyCost > burst || showCost > burst) {
+			throw new IllegalArgumentException("The admission burst of "+burst+" tokens cannot pay for the most expensive operation");
+		}
+		this.limiter = limiter;
+		this.objectMapper = objectMapper;
+		this.generateKeysCost = generateKeysCost;
+		this.costs = Map.of(SIGN, signCost, VERIFY, verifyCost, SHOW, showCost);
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+		// the dispatch that writes the result of a bulkheaded request has been paid for already
+		if (request.getDispatcherType() == DispatcherType.ASYNC) {
+			return true;
+		}
+		int cost = costOf(request);
+		if (cost <= 0) {
+			return true;
+		}
+
+		String client = clientOf(request);
+		long waitNanos = limiter.tryAcquire(client, cost);
+		if (waitNanos == 0 && isKeyGeneration(request)) {
+			String address = addressOf(request);
+			if (!address.equals(client)) {
+				waitNanos = limiter.tryAcquire(address, cost);
+				if (waitNanos > 0) {
+					limiter.refund(client, cost);
+					client = address;
+				}
+			}
+		}
+		if (waitNanos == 0) {
+			return true;
+		}
+
+		long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+		rejections.warn("Request to {} from {} has been rejected, retry after {} s", request.getRequestURI(), client, retryAfter);
+		response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+		response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		objectMapper.writeValue(response.getOutputStream(), Collections.singletonMap("status", "Too many requests. Please retry after "+retryAfter+" seconds"));
+		return false;
+	}
+
+	@Scheduled(fixedDelayString = "${license3j.admission.eviction-interval:PT1M}")
+	public void evictIdle() {
+		int evicted = limiter.evictIdle();
+		if (evicted > 0) {
+			logger.debug("Dropped {} full token buckets, {} remain", evicted, limiter.size());
+		}
+	}
+
+	private int costOf(HttpServletRequest request) {
+		String path = pathOf(request);
+		if (GENERATE_KEYS.equals(path)) {
+			// RSA key generation gets much slower with the size, the size is validated by the controller
+			try {
+				return generateKeysCost * Math.clamp(Integer.parseInt(request.getParameter("size")) / 1024, 1, 3);
+			} catch (NumberFormatException e) {
+				return generateKeysCost;
+			}
+		}
+		return costs.getOrDefault(path, 0);
+	}
+
+	private static boolean isKeyGeneration(HttpServletRequest request) {
+		return GENERATE_KEYS.equals(pathOf(request));
+	}
+
+	private static String pathOf(HttpServletRequest request) {
+		return request.getRequestURI().substring(request.getContextPath().length());
+	}
+
+	// a session is never created here, clients without one share the bucket of their address
+	// the session is known by its tag, the key is logged with rejections
+	private static String clientOf(HttpServletRequest request) {
+		HttpSession session = request.getSession(false);
+		return session != null ? "session:"+SessionTag.of(session.getId()) : addressOf(request);
+	}
+
+	private static String addressOf(HttpServletRequest request) {
+		return "address:"+request.getRemoteAddr();
+	}
+}
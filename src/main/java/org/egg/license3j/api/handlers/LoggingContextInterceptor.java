@@ -0,0 +1,48 @@
+package org.egg.license3j.api.handlers;
+
+import org.egg.license3j.api.logging.LoggingContext;
+import org.egg.license3j.api.logging.SessionTag;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Adds the session tag and the operation, the name of the handler method, to
+ * the log lines written while a request is handled.
+ */
+@Component
+public class LoggingContextInterceptor implements AsyncHandlerInterceptor {
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		HttpSession session = request.getSession(false);
+		if (session != null) {
+			MDC.put(LoggingContext.SESSION_TAG, SessionTag.of(session.getId()));
+		}
+		if (handler instanceof HandlerMethod method) {
+			MDC.put(LoggingContext.OPERATION, method.getMethod().getName());
+		}
+		return true;
+	}
+
+	// the request thread is released while a bulkhead runs the work
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		clear();
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		clear();
+	}
+
+	private static void clear() {
+		MDC.remove(LoggingContext.SESSION_TAG);
+		MDC.remove(LoggingContext.OPERATION);
+	}
+}
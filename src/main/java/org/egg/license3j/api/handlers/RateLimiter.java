@@ -0,0 +1,98 @@
+package org.egg.license3j.api.handlers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per client, implemented with the generic cell rate algorithm.
+ * <p>
+ * Instead of a token count and a refill time, a bucket is a single timestamp:
+ * the time at which it would be full again. Taking tokens moves that time
+ * forward by the cost of the operation, a request is admitted while the time
+ * stays within the burst of the current time. The timestamp is kept in an
+ * {@link AtomicLong} and moved with a compare-and-set, so admitting a request
+ * takes no lock and no background refill.
+ */
+public final class RateLimiter {
+
+	private final long emissionIntervalNanos;
+	private final long toleranceNanos;
+	private final LongSupplier nanoClock;
+	// time at which the bucket of a client is full again
+	private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+	/**
+	 * @param rate      tokens added to a bucket per second
+	 * @param burst     tokens a full bucket holds
+	 * @param nanoClock source of the current time in nanoseconds
+	 */
+	public RateLimiter(double rate, double burst, LongSupplier nanoClock) {
+		if (rate <= 0 || burst < 1) {
+			throw new IllegalArgumentException("The rate has to be positive and the burst at least one token");
+		}
+		this.emissionIntervalNanos = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / rate));
+		this.toleranceNanos = Math.round(burst * emissionIntervalNanos);
+		this.nanoClock = nanoClock;
+	}
+
+	public RateLimiter(double rate, double burst) {
+		this(rate, burst, System::nanoTime);
+	}
+
+	/**
+	 * Takes tokens from the bucket of a client if it holds enough of them
+	 *
+	 * @param key  the client
+	 * @param cost tokens the operation costs, at most the burst
+	 * @return 0 if the tokens were taken, otherwise the nanoseconds until the bucket holds enough of them
+	 */
+	public long tryAcquire(String key, double cost) {
+		long increment = Math.round(cost * emissionIntervalNanos);
+		AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+		long now = nanoClock.getAsLong();
+		while (true) {
+			long fullAt = bucket.get();
+			long next = (fullAt == Long.MIN_VALUE || fullAt - now < 0 ? now : fullAt) + increment;
+			long wait = next - toleranceNanos - now;
+			if (wait > 0) {
+				return wait;
+			}
+			if (bucket.compareAndSet(fullAt, next)) {
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * Gives back tokens taken for an operation that was not admitted after all
+	 *
+	 * @param key  the client
+	 * @param cost tokens taken by {@link #tryAcquire}
+	 */
+	public void refund(String key, double cost) {
+		AtomicLong bucket = buckets.get(key);
+		if (bucket != null) {
+			// a bucket that filled up meanwhile stays full, the next request starts from the current time anyway
+			bucket.addAndGet(-Math.round(cost * emissionIntervalNanos));
+		}
+	}
+
+	// drop the buckets that are full again, they behave exactly like missing ones
+	// a request racing with the removal may take its tokens from a dropped bucket, which only errs on admitting it
+	public int evictIdle() {
+		long now = nanoClock.getAsLong();
+		int before = buckets.size();
+		buckets.values().removeIf(bucket -> {
+			long fullAt = bucket.get();
+			return fullAt == Long.MIN_VALUE || fullAt - now <= 0;
+		});
+		return before - buckets.size();
+	}
+
+	public int size() {
+		return buckets.size();
+	}
+}
@@ -0,0 +1,44 @@
+package org.egg.license3j.api.handlers;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+	private final LoggingContextInterceptor loggingContext;
+	private final AdmissionControlInterceptor admissionControl;
+	private final AdminAuthorizationInterceptor adminAuthorization;
+	private final boolean admissionControlEnabled;
+
+	public WebConfiguration(LoggingContextInterceptor loggingContext, AdmissionControlInterceptor admissionControl, AdminAuthorizationInterceptor adminAuthorization,
+			@Value("${license3j.admission.enabled:true}") boolean admissionControlEnabled) {
+		this.loggingContext = loggingContext;
+		this.admissionControl = admissionControl;
+		this.adminAuthorization = adminAuthorization;
+		this.admissionControlEnabled = admissionControlEnabled;
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(loggingContext).addPathPatterns("/api/**");
+		registry.addInterceptor(adminAuthorization).addPathPatterns(
+				AdminAuthorizationInterceptor.REVOKE,
+				AdminAuthorizationInterceptor.ISSUED,
+				AdminAuthorizationInterceptor.SEARCH,
+				AdminAuthorizationInterceptor.EXPIRIES,
+				AdminAuthorizationInterceptor.EXPORT,
+				AdminAuthorizationInterceptor.RESIGN,
+				AdminAuthorizationInterceptor.ARCHIVE,
+				AdminAuthorizationInterceptor.RECORDING);
+		if (admissionControlEnabled) {
+			registry.addInterceptor(admissionControl).addPathPatterns(
+					AdmissionControlInterceptor.GENERATE_KEYS,
+					AdmissionControlInterceptor.SIGN,
+					AdmissionControlInterceptor.VERIFY,
+					AdmissionControlInterceptor.SHOW);
+		}
+	}
+}
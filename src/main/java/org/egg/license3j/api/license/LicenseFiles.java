@@ -0,0 +1,166 @@
+package org.egg.license3j.api.license;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+
+import org.egg.license3j.api.logging.SampledLogger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax0.license3j.License;
+import javax0.license3j.crypto.LicenseKeyPair;
+import javax0.license3j.io.IOFormat;
+import javax0.license3j.io.KeyPairReader;
+import javax0.license3j.io.KeyPairWriter;
+import javax0.license3j.io.LicenseReader;
+import javax0.license3j.io.LicenseWriter;
+import net.lingala.zip4j.io.outputstream.ZipOutputStream;
+import net.lingala.zip4j.model.ZipParameters;
+import net.lingala.zip4j.model.enums.CompressionLevel;
+import net.lingala.zip4j.model.enums.CompressionMethod;
+
+/**
+ * Reads and writes the license and key files of a session, shared by the
+ * servlet and the reactive API.
+ * <p>
+ * Everything works on streams and byte arrays in memory, where the bytes come
+ * from and when the call may block is up to the caller. Failures are reported
+ * with the status the APIs answer with.
+ */
+public final class LicenseFiles {
+
+	private static final Logger logger = LoggerFactory.getLogger(LicenseFiles.class);
+
+	// requests the client got wrong, logged without stack traces and sampled when they repeat
+	private static final SampledLogger clientErrors = SampledLogger.of(logger);
+
+	private LicenseFiles() {
+		throw new IllegalStateException("Utility Class");
+	}
+
+	/**
+	 * Zipped key files
+	 *
+	 * @param zip      the zip holding the private and the public key file
+	 * @param keyBytes size of both key files before compression
+	 */
+	public record KeyBundle(byte[] zip, long keyBytes) {}
+
+	// a file name must not lead out of the directory it is saved to
+	public static boolean isFileNameValid(String fileName) {
+		return !fileName.contains("..") && !fileName.contains("/") && !fileName.contains("\\");
+	}
+
+	// write a license in the given format
+	public static byte[] write(License license, IOFormat format) throws ResponseStatusException {
+		try (ByteArrayOutputStream baos = new ByteArrayOutputStream(); LicenseWriter writer = new LicenseWriter(baos)) {
+			writer.write(license, format);
+			return baos.toByteArray();
+		} catch (IOException e) {
+			logger.error(e.getMessage(), e);
+			throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An I/O error occured during writing the license");
+		}
+	}
+
+	// read a license in the given format, the stream is closed
+	public static License read(InputStream licenseInputStream, IOFormat format) throws ResponseStatusException {
+		try (LicenseReader reader = new LicenseReader(licenseInputStream)) {
+			return reader.read(format);
+		} catch (IOException e) {
+			logger.error("An error occured during loading the license from file", e);
+			throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An error occured during loading the license from file");
+		} catch (IllegalArgumentException e) {
+			// the upload is not a license in the given format, the stack trace tells nothing more
+			clientErrors.warn("The license file could not be read as {}: {}", format, e.getMessage());
+			throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An error occured during loading the license from file");
+		}
+	}
+
+	// bundle both keys of a pair in a zip
+	public static KeyBundle bundle(LicenseKeyPair keyPair, String privateKeyName, String publicKeyName, IOFormat format) throws ResponseStatusException {
+		try (ByteArrayOutputStream privateKeyOutputStream = new ByteArrayOutputStream();
+				ByteArrayOutputStream publicKeyOutputStream = new ByteArrayOutputStream();
+				ByteArrayOutputStream zippedKeysOutputStream = new ByteArrayOutputStream();
+				KeyPairWriter writer = new KeyPairWriter(privateKeyOutputStream, publicKeyOutputStream)) {
+			writer.write(keyPair, format);
+			try (ZipOutputStream zos = new ZipOutputStream(zippedKeysOutputStream)) {
+				putEntry(zos, privateKeyName, privateKeyOutputStream.toByteArray());
+				putEntry(zos, publicKeyName, publicKeyOutputStream.toByteArray());
+			}
+			return new KeyBundle(zippedKeysOutputStream.toByteArray(), (long) privateKeyOutputStream.size() + publicKeyOutputStream.size());
+		} catch (IOException e) {
+			logger.error("An I/O error occured during writing keys to files", e);
+			throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An I/O error occured during writing keys to files");
+		}
+	}
+
+	private static void putEntry(ZipOutputStream zos, String name, byte[] content) throws IOException {
+		ZipParameters parameters = new ZipParameters();
+		parameters.setCompressionMethod(CompressionMethod.DEFLATE);
+		parameters.setCompressionLevel(CompressionLevel.NORMAL);
+		parameters.setFileNameInZip(name);
+		parameters.setEntrySize(content.length);
+		parameters.setLastModifiedFileTime(System.currentTimeMillis());
+		zos.putNextEntry(parameters);
+		zos.write(content);
+		zos.closeEntry();
+	}
+
+	// read a private key file, the stream is closed
+	public static LicenseKeyPair readPrivateKey(InputStream keyFile, IOFormat format) throws ResponseStatusException {
+		return readKey(keyFile, format, true);
+	}
+
+	// read a public key file, the stream is closed
+	public static LicenseKeyPair readPublicKey(InputStream keyFile, IOFormat format) throws ResponseStatusException {
+		return readKey(keyFile, format, false);
+	}
+
+	private static LicenseKeyPair readKey(InputStream keyFile, IOFormat format, boolean privateKey) throws ResponseStatusException {
+		String kind = privateKey ? "private" : "public";
+		try (KeyPairReader kpread = new KeyPairReader(keyFile)) {
+			return privateKey ? kpread.readPrivate(format) : kpread.readPublic(format);
+		} catch (IOException e) {
+			logger.error("An I/O error occured while loading {} key", kind, e);
+			throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An I/O error occured while loading "+kind+" key");
+		} catch (InvalidKeySpecException e) {
+			clientErrors.warn("The {} key specification is invalid: {}", kind, e.getMessage());
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The given key specification is invalid");
+		} catch (NoSuchAlgorithmException e) {
+			clientErrors.warn("The algorithm of the {} key is unavailable: {}", kind, e.getMessage());
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The algorithm with which the key was created seems to be unvailable in the current environment.");
+		}
+	}
+
+	// java code holding the SHA-512 digest of a public key and the key itself
+	public static String digest(byte[] publicKey) throws ResponseStatusException {
+		try {
+			byte[] calculatedDigest = MessageDigest.getInstance("SHA-512").digest(publicKey);
+			StringBuilder javaCode = new StringBuilder("--KEY DIGEST START\nbyte [] digest = new byte[] {\n");
+			appendBytes(javaCode, calculatedDigest);
+			javaCode.append("\n};\n---KEY DIGEST END\n");
+			javaCode.append("--KEY START\nbyte [] key = new byte[] {\n");
+			appendBytes(javaCode, publicKey);
+			javaCode.append("\n};\n---KEY END\n");
+			return javaCode.toString();
+		} catch (NoSuchAlgorithmException e) {
+			logger.error("Message Digest Algorithm could not be loaded", e);
+			throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Message Digest Algorithm could not be loaded.");
+		}
+	}
+
+	private static void appendBytes(StringBuilder javaCode, byte[] bytes) {
+		for (int i = 0; i < bytes.length; i++) {
+			javaCode.append(String.format("(byte)0x%02X, ", bytes[i] & 0xff));
+			if (i % 8 == 0) {
+				javaCode.append("\n");
+			}
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package org.egg.license3j.api.license;
+
+import java.util.Map;
+
+import org.egg.license3j.api.constants.FeatureChange;
+
+import javax0.license3j.License;
+import javax0.license3j.crypto.LicenseKeyPair;
+
+/**
+ * The license and keys of a session at one version
+ * <p>
+ * A state is never changed, {@link SessionLicense} replaces it as a whole. The
+ * license it holds must not be changed by the caller either, it may still be
+ * shared with the states before and after it.
+ *
+ * @param version         incremented with every change
+ * @param license         the license, null before one is created or loaded
+ * @param toSave          true if the license changed since it was saved
+ * @param toSign          true if the license changed since it was signed
+ * @param keyPair         the loaded keys, null before any is generated or loaded
+ * @param changedFeatures features changed since the license was last signed or loaded
+ */
+public record LicenseState(long version, License license, boolean toSave, boolean toSign, LicenseKeyPair keyPair, Map<String, FeatureChange> changedFeatures) {
+
+	static final LicenseState EMPTY = new LicenseState(0, null, false, false, null, Map.of());
+
+	LicenseState withLicense(License license, boolean toSave, boolean toSign, Map<String, FeatureChange> changedFeatures) {
+		return new LicenseState(version, license, toSave, toSign, keyPair, changedFeatures);
+	}
+
+	LicenseState withKeyPair(LicenseKeyPair keyPair) {
+		return new LicenseState(version, license, toSave, toSign, keyPair, changedFeatures);
+	}
+
+	LicenseState withVersion(long version) {
+		return new LicenseState(version, license, toSave, toSign, keyPair, changedFeatures);
+	}
+
+	public boolean hasPrivateKey() {
+		return keyPair != null && keyPair.getPair() != null && keyPair.getPair().getPrivate() != null;
+	}
+
+	public boolean hasPublicKey() {
+		return keyPair != null && keyPair.getPair() != null && keyPair.getPair().getPublic() != null;
+	}
+}
@@ -0,0 +1,376 @@
+package org.egg.license3j.api.license;
+
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+import org.egg.license3j.api.constants.FeatureChange;
+import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.dto.FeatureRequest;
+import org.egg.license3j.api.exceptions.FeatureValidationException;
+import org.egg.license3j.api.features.FeatureFactory;
+import org.egg.license3j.api.logging.SampledLogger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax0.license3j.Feature;
+import javax0.license3j.License;
+import javax0.license3j.crypto.LicenseKeyPair;
+
+/**
+ * License and keys a session works on, shared by the servlet and the reactive API.
+ * <p>
+ * The state is an immutable snapshot that is replaced as a whole with a
+ * compare-and-set, so parallel requests of one session never see a half-done
+ * change and never need a lock. Every change publishes a new version, a caller
+ * passing the version it expects gets a 412 instead of overwriting a change it
+ * has not seen. A published license is never changed in place, changes work on
+ * a copy.
+ * <p>
+ * Nothing here blocks on I/O or knows about the web stack the session lives
+ * in, the services of both APIs run the operations where they belong and only
+ * adapt the results.
+ */
+public final class SessionLicense {
+
+	// digest the license is signed with
+	public static final String SIGNATURE_DIGEST = "SHA-512";
+
+	// feature License3j keeps the signature in, it is only changed by signing
+	public static final String SIGNATURE_FEATURE = "licenseSignature";
+
+	private static final Logger logger = LoggerFactory.getLogger(SessionLicense.class);
+
+	// requests the client got wrong, logged without stack traces and sampled when they repeat
+	private static final SampledLogger clientErrors = SampledLogger.of(logger);
+
+	private final AtomicReference<LicenseState> state = new AtomicReference<>(LicenseState.EMPTY);
+
+	/**
+	 * Signs a copy of the license of a state
+	 */
+	@FunctionalInterface
+	public interface Signer {
+
+		/**
+		 * @param license copy of the license to sign, not yet visible to other requests
+		 * @param keyPair the keys of the state, with a private key
+		 * @throws GeneralSecurityException if the signature could not be made
+		 */
+		void sign(License license, LicenseKeyPair keyPair) throws GeneralSecurityException;
+	}
+
+	// the current state
+	public LicenseState current() {
+		return state.get();
+	}
+
+	// the current state, if the caller expects a version it has to be the current one
+	public LicenseState current(Long expectedVersion) throws ResponseStatusException {
+		LicenseState current = state.get();
+		if (expectedVersion != null && expectedVersion.longValue() != current.version()) {
+			clientErrors.warn("License state is at version {}, a request expected version {}", current.version(), expectedVersion);
+			throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "License state is at version "+current.version()+", the request expected version "+expectedVersion);
+		}
+		return current;
+	}
+
+	// apply a change and publish the result as the next version
+	// a change that lost the race against a parallel request is applied again on the newer state,
+	// unless the caller expected a version, then the request fails with a 412
+	private LicenseState update(Long expectedVersion, UnaryOperator<LicenseState> change) throws ResponseStatusException {
+		while (true) {
+			LicenseState current = current(expectedVersion);
+			LicenseState next = change.apply(current).withVersion(current.version() + 1);
+			if (state.compareAndSet(current, next)) {
+				return next;
+			}
+		}
+	}
+
+	// replace the license with a new one if there is no unsaved license
+	public LicenseState newLicense(Long expectedVersion) throws ResponseStatusException {
+		return update(expectedVersion, current -> {
+			if (current.toSave()) {
+				clientErrors.warn("An unsaved license is detected in memory");
+				throw new ResponseStatusException(HttpStatus.CONFLICT, "An unsaved license is detected. Please save it first.");
+			}
+			return current.withLicense(new License(), false, true, Map.of());
+		});
+	}
+
+	// the state to write a license file from, the license has to be signed since its last change
+	public LicenseState savable() throws ResponseStatusException {
+		LicenseState current = state.get();
+		requireLicense(current);
+		if (current.toSign()) {
+			clientErrors.warn("License needs to be signed before saving");
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "License needs to be signed before saving");
+		}
+		return current;
+	}
+
+	// mark the written state as saved, null if the license changed meanwhile and has to be written again
+	public LicenseState saved(LicenseState written) {
+		LicenseState saved = written.withLicense(written.license(), false, false, written.changedFeatures()).withVersion(written.version() + 1);
+		return state.compareAndSet(written, saved) ? saved : null;
+	}
+
+	// fail early on a load that would be refused anyway, before the upload is read
+	public void requireNothingToSave(Long expectedVersion) throws ResponseStatusException {
+		if (current(expectedVersion).toSave()) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "Unsaved license detected in memory. Please save the license first.");
+		}
+	}
+
+	// replace the license with a loaded one if there is no unsaved license
+	public LicenseState load(License loaded, Long expectedVersion) throws ResponseStatusException {
+		return update(expectedVersion, current -> {
+			if (current.toSave()) {
+				throw new ResponseStatusException(HttpStatus.CONFLICT, "Unsaved license detected in memory. Please save the license first.");
+			}
+			return current.withLicense(loaded, false, false, Map.of());
+		});
+	}
+
+	// add a feature, or replace one of the same name
+	public LicenseState addFeature(String featureName, FeatureType type, String featureContent, Long expectedVersion) throws ResponseStatusException {
+		requireUnreserved(featureName);
+		requireLicense(current(expectedVersion));
+
+		Feature feature = createFeature(featureName, type, featureContent);
+		return update(expectedVersion, current -> {
+			License license = copyOf(requireLicense(current));
+			Map<String, FeatureChange> changes = recordChange(current.changedFeatures(), featureName, license.get(featureName) == null ? FeatureChange.ADDED : FeatureChange.UPDATED);
+			license.add(feature);
+			return current.withLicense(license, true, true, changes);
+		});
+	}
+
+	// add several features at once
+	// every entry is validated first, the license is only changed if all of them are valid
+	public LicenseState addFeatures(List<FeatureRequest> features, Long expectedVersion) throws ResponseStatusException, FeatureValidationException {
+		requireLicense(current(expectedVersion));
+
+		if (features == null || features.isEmpty()) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No features supplied");
+		}
+
+		Map<String, String> errors = new LinkedHashMap<>();
+		Set<String> names = new HashSet<>();
+		List<Feature> validated = new ArrayList<>(features.size());
+
+		for (int i = 0; i < features.size(); i++) {
+			FeatureRequest feature = features.get(i);
+			String path = "features["+i+"]";
+
+			if (feature == null) {
+				errors.put(path, "Feature cannot be null");
+				continue;
+			}
+			int previousErrors = errors.size();
+			if (feature.name() == null || feature.name().isBlank()) {
+				errors.put(path+".name", "Feature name cannot be blank");
+			} else if (!names.add(feature.name())) {
+				errors.put(path+".name", "Duplicate feature name in request");
+			} else if (SIGNATURE_FEATURE.equals(feature.name())) {
+				errors.put(path+".name", "Feature "+SIGNATURE_FEATURE+" is reserved for the signature, sign the license instead");
+			} else {
+				try {
+					FeatureFactory.checkName(feature.name());
+				} catch (IllegalArgumentException e) {
+					errors.put(path+".name", e.getMessage());
+				}
+			}
+			if (feature.type() == null) {
+				errors.put(path+".type", "Feature type cannot be null");
+			}
+			if (feature.content() == null || feature.content().isBlank()) {
+				errors.put(path+".content", "Feature content cannot be blank");
+			}
+
+			if (errors.size() == previousErrors) {
+				try {
+					validated.add(FeatureFactory.create(feature.name(), feature.type(), feature.content()));
+				} catch (IllegalArgumentException e) {
+					errors.put(path+".content", "Content is not a valid "+feature.type()+" value");
+				}
+			}
+		}
+
+		if (!errors.isEmpty()) {
+			clientErrors.warn("{} of {} features failed validation, none have been added", errors.size(), features.size());
+			throw new FeatureValidationException(errors);
+		}
+
+		return update(expectedVersion, current -> {
+			License license = copyOf(requireLicense(current));
+			Map<String, FeatureChange> changes = current.changedFeatures();
+			for (Feature feature : validated) {
+				changes = recordChange(changes, feature.name(), license.get(feature.name()) == null ? FeatureChange.ADDED : FeatureChange.UPDATED);
+				license.add(feature);
+			}
+			return current.withLicense(license, true, true, changes);
+		});
+	}
+
+	// replace the content or type of an existing feature
+	public LicenseState updateFeature(String featureName, FeatureType type, String featureContent, Long expectedVersion) throws ResponseStatusException {
+		requireUnreserved(featureName);
+		requireFeature(current(expectedVersion), featureName);
+
+		Feature feature = createFeature(featureName, type, featureContent);
+		return update(expectedVersion, current -> {
+			License license = copyOf(requireFeature(current, featureName));
+			license.add(feature);
+			return current.withLicense(license, true, true, recordChange(current.changedFeatures(), featureName, FeatureChange.UPDATED));
+		});
+	}
+
+	// remove an existing feature
+	// License3j has no removal, so the license is rebuilt from the remaining features
+	public LicenseState removeFeature(String featureName, Long expectedVersion) throws ResponseStatusException {
+		requireUnreserved(featureName);
+		return update(expectedVersion, current -> {
+			License rebuilt = new License();
+			requireFeature(current, featureName).getFeatures().values().stream()
+				.filter(feature -> !feature.name().equals(featureName))
+				.forEach(rebuilt::add);
+			return current.withLicense(rebuilt, true, true, recordChange(current.changedFeatures(), featureName, FeatureChange.REMOVED));
+		});
+	}
+
+	// replace the keys with a generated pair
+	public LicenseState generated(LicenseKeyPair generated, Long expectedVersion) throws ResponseStatusException {
+		return update(expectedVersion, current -> current.withKeyPair(generated));
+	}
+
+	// replace the key of a loaded key file, the other key of the pair is kept
+	public LicenseState loaded(LicenseKeyPair loaded, Long expectedVersion) throws ResponseStatusException {
+		return update(expectedVersion, current -> current.withKeyPair(merge(current.keyPair(), loaded)));
+	}
+
+	// the signature is made on a copy, a license changed while signing is signed again
+	public LicenseState sign(Long expectedVersion, Signer signer) throws ResponseStatusException {
+		return update(expectedVersion, current -> {
+			if (current.license() == null) {
+				clientErrors.warn("No license detected in memory. Load or create a license.");
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No license detected in memory.");
+			} else if (!current.hasPrivateKey()) {
+				clientErrors.warn("Private Key not loaded in memory");
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No private key detected in memory.");
+			}
+			License license = copyOf(current.license());
+			try {
+				signer.sign(license, current.keyPair());
+			} catch (GeneralSecurityException e) {
+				logger.error("Signing failed", e);
+				throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed To Sign License ");
+			}
+			return current.withLicense(license, true, false, Map.of());
+		});
+	}
+
+	// the current state if it has a license and a public key to verify it with
+	public LicenseState verifiable() throws ResponseStatusException {
+		LicenseState current = state.get();
+		if (current.license() == null) {
+			clientErrors.warn("No license loaded in memory to be verified.");
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No license in memory");
+		}
+		if (!current.hasPublicKey()) {
+			clientErrors.warn("No public key loaded in memory to be verified with.");
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No public key in memory");
+		}
+		return current;
+	}
+
+	public static License requireLicense(LicenseState current) throws ResponseStatusException {
+		if (current.license() == null) {
+			clientErrors.warn("No license in memory. Please create or load a license");
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No license in memory. Please create or load a license");
+		}
+		return current.license();
+	}
+
+	private static License requireFeature(LicenseState current, String featureName) throws ResponseStatusException {
+		License license = requireLicense(current);
+		if (license.get(featureName) == null) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Feature "+featureName+" does not exist in the license");
+		}
+		return license;
+	}
+
+	private static void requireUnreserved(String featureName) throws ResponseStatusException {
+		if (SIGNATURE_FEATURE.equals(featureName)) {
+			clientErrors.warn("The {} feature cannot be changed directly", featureName);
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Feature "+featureName+" is reserved for the signature, sign the license instead");
+		}
+	}
+
+	private static Feature createFeature(String featureName, FeatureType type, String featureContent) throws ResponseStatusException {
+		try {
+			FeatureFactory.checkName(featureName);
+		} catch (IllegalArgumentException e) {
+			clientErrors.warn("Feature name {} is not valid", featureName);
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+		}
+		try {
+			return FeatureFactory.create(featureName, type, featureContent);
+		} catch (IllegalArgumentException e) {
+			clientErrors.warn("Feature content is not a valid {} value", type);
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Content is not a valid "+type+" value");
+		}
+	}
+
+	private static License copyOf(License license) {
+		License copy = new License();
+		license.getFeatures().values().forEach(copy::add);
+		return copy;
+	}
+
+	// merge a change into the changes recorded since the last signing
+	// e.g. a feature added and then removed again has not changed at all
+	private static Map<String, FeatureChange> recordChange(Map<String, FeatureChange> changedFeatures, String featureName, FeatureChange change) {
+		FeatureChange previous = changedFeatures.get(featureName);
+		FeatureChange merged;
+		if (previous == FeatureChange.ADDED) {
+			merged = change == FeatureChange.REMOVED ? null : FeatureChange.ADDED;
+		} else if (previous == FeatureChange.REMOVED) {
+			merged = change == FeatureChange.REMOVED ? FeatureChange.REMOVED : FeatureChange.UPDATED;
+		} else {
+			merged = change;
+		}
+
+		Map<String, FeatureChange> changes = new LinkedHashMap<>(changedFeatures);
+		if (merged == null) {
+			changes.remove(featureName);
+		} else {
+			changes.put(featureName, merged);
+		}
+		return Collections.unmodifiableMap(changes);
+	}
+
+	private static LicenseKeyPair merge(LicenseKeyPair oldKp, LicenseKeyPair newKp) {
+		if (oldKp == null) {
+			return newKp;
+		}
+		final String cipher = oldKp.cipher();
+		if (newKp.getPair().getPublic() != null) {
+			return LicenseKeyPair.Create.from(newKp.getPair().getPublic(), oldKp.getPair().getPrivate(), cipher);
+		}
+		if (newKp.getPair().getPrivate() != null) {
+			return LicenseKeyPair.Create.from(oldKp.getPair().getPublic(), newKp.getPair().getPrivate(), cipher);
+		}
+		return oldKp;
+	}
+}
@@ -0,0 +1,47 @@
+package org.egg.license3j.api.logging;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.slf4j.MDC;
+
+/**
+ * Keys of the request context added to every log line, and the hand-over of
+ * that context to the threads that run part of a request.
+ */
+public final class LoggingContext {
+	
+	// a SessionTag, the session id itself is a credential and never logged
+	public static final String SESSION_TAG = "sessionTag";
+	public static final String OPERATION = "operation";
+	
+	private LoggingContext() {
+	}
+	
+	/**
+	 * Wraps work to run with the log context of the calling thread
+	 *
+	 * @param <T>  result of the work
+	 * @param work the work
+	 * @return the work, setting and clearing the context around it
+	 */
+	public static <T> Supplier<T> propagate(Supplier<T> work) {
+		Map<String, String> context = MDC.getCopyOfContextMap();
+		if (context == null || context.isEmpty()) {
+			return work;
+		}
+		return () -> {
+			Map<String, String> previous = MDC.getCopyOfContextMap();
+			MDC.setContextMap(context);
+			try {
+				return work.get();
+			} finally {
+				if (previous == null) {
+					MDC.clear();
+				} else {
+					MDC.setContextMap(previous);
+				}
+			}
+		};
+	}
+}
@@ -0,0 +1,83 @@
+package org.egg.license3j.api.logging;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+
+/**
+ * Logs client errors without flooding the log.
+ * <p>
+ * Each message is logged at most a few times per interval, the repeats beyond
+ * that are counted and the count is added to the next line logged for the
+ * message. The messages are logged at WARN and never with a stack trace, a
+ * request the client got wrong is not a fault of the server. Messages are told
+ * apart by their template, which keeps the number of tracked messages bounded
+ * by the log statements in the code.
+ */
+public final class SampledLogger {
+	
+	private final Logger logger;
+	private final long intervalNanos;
+	private final int perInterval;
+	
+	private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+	
+	private static final class Window {
+		
+		private final AtomicLong start;
+		private final AtomicInteger logged = new AtomicInteger();
+		private final LongAdder suppressed = new LongAdder();
+		
+		private Window(long start) {
+			this.start = new AtomicLong(start);
+		}
+	}
+	
+	public SampledLogger(Logger logger, Duration interval, int perInterval) {
+		this.logger = logger;
+		this.intervalNanos = interval.toNanos();
+		this.perInterval = perInterval;
+	}
+	
+	// the first 5 of every message each 10 seconds
+	public static SampledLogger of(Logger logger) {
+		return new SampledLogger(logger, Duration.ofSeconds(10), 5);
+	}
+	
+	/**
+	 * Logs a client error unless the message has been logged too often lately
+	 *
+	 * @param message   the message template
+	 * @param arguments the arguments of the template, no exceptions
+	 */
+	public void warn(String message, Object... arguments) {
+		if (!logger.isWarnEnabled()) {
+			return;
+		}
+		long now = System.nanoTime();
+		Window window = windows.computeIfAbsent(message, key -> new Window(now));
+		long start = window.start.get();
+		if (now - start >= intervalNanos && window.start.compareAndSet(start, now)) {
+			window.logged.set(0);
+		}
+		if (window.logged.incrementAndGet() > perInterval) {
+			window.suppressed.increment();
+			return;
+		}
+		
+		long suppressed = window.suppressed.sumThenReset();
+		if (suppressed == 0) {
+			logger.warn(message, arguments);
+		} else {
+			Object[] withCount = Arrays.copyOf(arguments, arguments.length + 1);
+			withCount[arguments.length] = suppressed;
+			logger.warn(message+" ({} similar messages suppressed)", withCount);
+		}
+	}
+}
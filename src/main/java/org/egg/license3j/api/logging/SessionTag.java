@@ -0,0 +1,41 @@
+package org.egg.license3j.api.logging;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Stands in for a session id wherever it would be written down.
+ * <p>
+ * The session id is the credential of the session, anyone reading it from a log
+ * line or a flight recording could take the session over. The tag is the start
+ * of a SHA-256 hash of the id: enough to tell the lines and events of one
+ * session apart from the others, but the id cannot be recovered from it.
+ */
+public final class SessionTag {
+
+	// 12 hex digits, 48 bits
+	private static final int BYTES = 6;
+
+	private SessionTag() {
+	}
+
+	/**
+	 * Tags a session id
+	 *
+	 * @param sessionId the session id, or null
+	 * @return the tag, null for a null id
+	 */
+	public static String of(String sessionId) {
+		if (sessionId == null) {
+			return null;
+		}
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(sessionId.getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(hash, 0, BYTES);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package org.egg.license3j.api.repository;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Log of license activations.
+ * <p>
+ * Activations, deactivations and check-in totals are appended to a log file, one
+ * line per entry, in batches written with a single {@code fsync}. The log is read
+ * back line by line on startup; for check-in totals the last entry of a license
+ * wins. {@link #compact(Stream)} replaces the log with a snapshot of the current
+ * activations, so its size follows the number of active instances rather than the
+ * number of check-ins ever made.
+ */
+@Component
+public class ActivationStore {
+	
+	public enum Kind {
+		ACTIVATED, DEACTIVATED, CHECK_INS
+	}
+	
+	/**
+	 * An entry of the activation log
+	 * 
+	 * @param kind       what happened
+	 * @param licenseId  id of the license
+	 * @param instanceId instance the license was activated on, empty for check-in totals
+	 * @param value      activation time in epoch milliseconds, or the check-in total
+	 */
+	public record Entry(Kind kind, UUID licenseId, String instanceId, long value) {}
+	
+	private final Path file;
+	private final Path snapshotFile;
+	
+	private FileChannel channel;
+	private BufferedWriter writer;
+	private StoreLock lock;
+	
+	private static final Logger logger = LoggerFactory.getLogger(ActivationStore.class);
+	
+	public ActivationStore(@Value("${license3j.activation.file:data/activations.log}") Path file) {
+		this.file = file;
+		this.snapshotFile = file.resolveSibling(file.getFileName()+".tmp");
+	}
+	
+	@PostConstruct
+	public void open() throws IOException {
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		lock = StoreLock.acquire(file.resolveSibling(file.getFileName()+StoreLock.SUFFIX), "activation log");
+		try {
+			// a snapshot that was not moved into place is incomplete, the log is still intact
+			Files.deleteIfExists(snapshotFile);
+			openWriter();
+		} catch (IOException | RuntimeException e) {
+			close();
+			throw e;
+		}
+	}
+	
+	@PreDestroy
+	public synchronized void close() throws IOException {
+		try {
+			if (writer != null) {
+				writer.close();
+				writer = null;
+			}
+		} finally {
+			if (lock != null) {
+				lock.close();
+				lock = null;
+			}
+		}
+	}
+	
+	/**
+	 * Reads the log line by line
+	 * 
+	 * @param visitor receives every entry of the log in the order it was written
+	 * @return number of entries read
+	 * @throws IOException if the log could not be read
+	 */
+	public long load(Consumer<Entry> visitor) throws IOException {
+		if (!Files.exists(file)) {
+			return 0;
+		}
+		long count = 0;
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				String[] fields = line.split("\t", 4);
+				try {
+					visitor.accept(new Entry(Kind.valueOf(fields[0]), UUID.fromString(fields[1]), fields[2], Long.parseLong(fields[3])));
+					count++;
+				} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+					logger.warn("Skipping unreadable activation log line: {}", line);
+				}
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Appends a batch of entries, durable when the method returns
+	 * 
+	 * @param entries the entries
+	 * @throws IOException if the entries could not be written
+	 */
+	public synchronized void append(List<Entry> entries) throws IOException {
+		if (entries.isEmpty()) {
+			return;
+		}
+		for (Entry entry : entries) {
+			write(writer, entry);
+		}
+		writer.flush();
+		channel.force(false);
+	}
+	
+	/**
+	 * Replaces the log with a snapshot, entries appended afterwards follow the snapshot.
+	 * The snapshot is written to a file of its own and moved over the log once it is
+	 * durable, so a crash leaves either the old log or the complete snapshot behind.
+	 * 
+	 * @param snapshot entries that recreate the current activations when read back
+	 * @return number of entries in the snapshot
+	 * @throws IOException if the snapshot could not be written, the log is left as it was
+	 */
+	public synchronized long compact(Stream<Entry> snapshot) throws IOException {
+		long count = 0;
+		try (FileChannel snapshotChannel = FileChannel.open(snapshotFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+				BufferedWriter snapshotWriter = new BufferedWriter(Channels.newWriter(snapshotChannel, StandardCharsets.UTF_8))) {
+			for (Iterator<Entry> entries = snapshot.iterator(); entries.hasNext();) {
+				write(snapshotWriter, entries.next());
+				count++;
+			}
+			snapshotWriter.flush();
+			snapshotChannel.force(false);
+		} catch (IOException e) {
+			Files.deleteIfExists(snapshotFile);
+			throw e;
+		}
+		
+		Files.move(snapshotFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		// the old writer still appends to the replaced file
+		writer.close();
+		openWriter();
+		return count;
+	}
+	
+	private void openWriter() throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+	}
+	
+	private static void write(BufferedWriter writer, Entry entry) throws IOException {
+		writer.write(entry.kind()+"\t"+entry.licenseId()+"\t"+entry.instanceId()+"\t"+entry.value());
+		writer.newLine();
+	}
+}
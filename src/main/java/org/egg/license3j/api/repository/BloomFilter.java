@@ -0,0 +1,72 @@
+package org.egg.license3j.api.repository;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over license ids.
+ * <p>
+ * Answers "definitely not present" without false negatives, and "maybe present"
+ * with the false positive rate it was sized for. Bits are set with CAS on an
+ * {@link AtomicLongArray}, so lookups and insertions can run concurrently.
+ */
+public class BloomFilter {
+	
+	private final AtomicLongArray bits;
+	private final long bitCount;
+	private final int hashCount;
+	private final long capacity;
+	
+	/**
+	 * @param capacity          number of insertions the filter is sized for
+	 * @param falsePositiveRate expected false positive rate at capacity, between 0 and 1
+	 */
+	public BloomFilter(long capacity, double falsePositiveRate) {
+		long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		this.bitCount = Math.max(64, (optimalBits + 63) / 64 * 64);
+		this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+		this.bits = new AtomicLongArray((int) (bitCount / 64));
+		this.capacity = capacity;
+	}
+	
+	public long capacity() {
+		return capacity;
+	}
+	
+	public void add(UUID id) {
+		long first = mix(id.getMostSignificantBits());
+		long second = mix(id.getLeastSignificantBits() ^ first);
+		for (int i = 0; i < hashCount; i++) {
+			long bit = Math.floorMod(first + i * second, bitCount);
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			long current = bits.get(word);
+			while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+				current = bits.get(word);
+			}
+		}
+	}
+	
+	public boolean mightContain(UUID id) {
+		long first = mix(id.getMostSignificantBits());
+		long second = mix(id.getLeastSignificantBits() ^ first);
+		for (int i = 0; i < hashCount; i++) {
+			long bit = Math.floorMod(first + i * second, bitCount);
+			if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	// finalizer of MurmurHash3, spreads ids that are not random, e.g. sequential ones
+	private static long mix(long value) {
+		long hash = value;
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
@@ -0,0 +1,249 @@
+package org.egg.license3j.api.repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.features.FeatureFactory;
+import org.springframework.stereotype.Component;
+
+import javax0.license3j.Feature;
+import javax0.license3j.License;
+
+/**
+ * Secondary indexes over the features of issued licenses.
+ * <p>
+ * Every feature is indexed under its name and {@link FeatureType} with its typed
+ * value as key. Numeric and date features are kept in sorted maps and support
+ * range queries, string and UUID features are kept in hash maps and support
+ * equality only. Binary features are not indexed. Queries are answered from the
+ * index alone, no license has to be read or deserialized.
+ * <p>
+ * The index lives on the heap and is not persisted. It holds the postings of
+ * every issued license, archived ones included, and is rebuilt on startup by
+ * deserializing every stored license, so both its heap and the rebuild time grow
+ * with the number of issued licenses. Archiving does not make it smaller.
+ */
+@Component
+public class FeatureIndex {
+	
+	private static final Set<FeatureType> ORDERED_TYPES = EnumSet.of(
+			FeatureType.BYTE, FeatureType.SHORT, FeatureType.INT, FeatureType.LONG, FeatureType.FLOAT, FeatureType.DOUBLE,
+			FeatureType.BIGINTEGER, FeatureType.BIGDECIMAL, FeatureType.DATE);
+	private static final Set<FeatureType> EQUALITY_TYPES = EnumSet.of(FeatureType.STRING, FeatureType.UUID);
+	
+	private record IndexKey(String featureName, FeatureType type) {}
+	
+	private record Posting(IndexKey key, Object value) {}
+	
+	private record FeatureListener(IndexKey key, Consumer<UUID> listener) {}
+	
+	private final Map<IndexKey, Map<Object, Set<UUID>>> indexes = new ConcurrentHashMap<>();
+	// what has been indexed for each license, so that a newer record can replace it
+	private final Map<UUID, List<Posting>> postings = new ConcurrentHashMap<>();
+	private final List<Consumer<UUID>> listeners = new CopyOnWriteArrayList<>();
+	private final List<FeatureListener> featureListeners = new CopyOnWriteArrayList<>();
+	
+	public static boolean isIndexed(FeatureType type) {
+		return ORDERED_TYPES.contains(type) || EQUALITY_TYPES.contains(type);
+	}
+	
+	public static boolean supportsRange(FeatureType type) {
+		return ORDERED_TYPES.contains(type);
+	}
+	
+	/**
+	 * Indexes the features of a license, replacing what was indexed for an earlier license with the same id
+	 * 
+	 * @param licenseId id of the license
+	 * @param license   the license
+	 */
+	public void add(UUID licenseId, License license) {
+		List<Posting> added = new ArrayList<>();
+		for (Feature feature : license.getFeatures().values()) {
+			FeatureType type = FeatureFactory.typeOf(feature);
+			if (isIndexed(type)) {
+				Posting posting = new Posting(new IndexKey(feature.name(), type), indexValue(feature));
+				indexFor(posting.key()).compute(posting.value(), (value, ids) -> {
+					Set<UUID> updated = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+					updated.add(licenseId);
+					return updated;
+				});
+				added.add(posting);
+			}
+		}
+		
+		List<Posting> previous = postings.put(licenseId, added);
+		if (previous != null) {
+			previous.stream()
+				.filter(posting -> !added.contains(posting))
+				.forEach(posting -> remove(licenseId, posting));
+		}
+		listeners.forEach(listener -> listener.accept(licenseId));
+		for (FeatureListener featureListener : featureListeners) {
+			if (!Objects.equals(valueIn(previous, featureListener.key()), valueIn(added, featureListener.key()))) {
+				featureListener.listener().accept(licenseId);
+			}
+		}
+	}
+	
+	/**
+	 * Registers a listener called with the license id whenever a license has been indexed
+	 * 
+	 * @param listener the listener, called on the thread indexing the license
+	 */
+	public void addListener(Consumer<UUID> listener) {
+		listeners.add(listener);
+	}
+	
+	/**
+	 * Registers a listener called with the license id whenever the value of a feature of a license
+	 * changed, indexing a license again with the same value does not call it
+	 * 
+	 * @param featureName name of the feature
+	 * @param type        type of the feature
+	 * @param listener    the listener, called on the thread indexing the license
+	 */
+	public void addListener(String featureName, FeatureType type, Consumer<UUID> listener) {
+		featureListeners.add(new FeatureListener(new IndexKey(featureName, type), listener));
+	}
+	
+	/**
+	 * Reads the indexed value of a feature of a license
+	 * 
+	 * @param licenseId   id of the license
+	 * @param featureName name of the feature
+	 * @param type        type of the feature
+	 * @return the typed value, or empty if the license has no such feature
+	 */
+	public Optional<Object> valueOf(UUID licenseId, String featureName, FeatureType type) {
+		return Optional.ofNullable(valueIn(postings.get(licenseId), new IndexKey(featureName, type)));
+	}
+	
+	/**
+	 * Finds the licenses whose feature has exactly the given value
+	 * 
+	 * @param featureName name of the feature
+	 * @param type        type of the feature
+	 * @param value       typed value of the feature
+	 * @return ids of the matching licenses
+	 */
+	public Set<UUID> equalTo(String featureName, FeatureType type, Object value) {
+		Map<Object, Set<UUID>> index = indexes.get(new IndexKey(featureName, type));
+		if (index == null) {
+			return Collections.emptySet();
+		}
+		return Collections.unmodifiableSet(index.getOrDefault(value, Collections.emptySet()));
+	}
+	
+	/**
+	 * Finds the licenses whose feature lies within the given bounds
+	 * 
+	 * @param featureName name of the feature
+	 * @param type        an ordered feature type
+	 * @param from        inclusive lower bound, or null for no lower bound
+	 * @param to          inclusive upper bound, or null for no upper bound
+	 * @param limit       maximum number of ids to return
+	 * @return ids of the matching licenses, ordered by feature value
+	 */
+	public List<UUID> range(String featureName, FeatureType type, Object from, Object to, int limit) {
+		if (!supportsRange(type)) {
+			throw new IllegalArgumentException(type+" features do not support range queries");
+		}
+		
+		@SuppressWarnings("unchecked")
+		NavigableMap<Object, Set<UUID>> index = (NavigableMap<Object, Set<UUID>>) indexes.get(new IndexKey(featureName, type));
+		if (index == null) {
+			return Collections.emptyList();
+		}
+		
+		NavigableMap<Object, Set<UUID>> range = index;
+		if (from != null) {
+			range = range.tailMap(from, true);
+		}
+		if (to != null) {
+			range = range.headMap(to, true);
+		}
+		
+		List<UUID> result = new ArrayList<>();
+		for (Set<UUID> ids : range.values()) {
+			for (UUID id : ids) {
+				if (result.size() >= limit) {
+					return result;
+				}
+				result.add(id);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Visits the licenses whose feature lies within the given bounds in the order of the feature value
+	 * 
+	 * @param featureName name of the feature
+	 * @param type        an ordered feature type
+	 * @param after       exclusive lower bound, or null for no lower bound
+	 * @param to          inclusive upper bound
+	 * @param visitor     receives the value and the id of each matching license
+	 */
+	public void forEachInRange(String featureName, FeatureType type, Object after, Object to, BiConsumer<Object, UUID> visitor) {
+		if (!supportsRange(type)) {
+			throw new IllegalArgumentException(type+" features do not support range queries");
+		}
+		
+		@SuppressWarnings("unchecked")
+		NavigableMap<Object, Set<UUID>> index = (NavigableMap<Object, Set<UUID>>) indexes.get(new IndexKey(featureName, type));
+		if (index == null) {
+			return;
+		}
+		
+		NavigableMap<Object, Set<UUID>> range = after == null ? index.headMap(to, true) : index.subMap(after, false, to, true);
+		range.forEach((value, ids) -> ids.forEach(id -> visitor.accept(value, id)));
+	}
+	
+	private static Object valueIn(List<Posting> indexed, IndexKey key) {
+		if (indexed == null) {
+			return null;
+		}
+		return indexed.stream()
+				.filter(posting -> posting.key().equals(key))
+				.map(Posting::value)
+				.findFirst()
+				.orElse(null);
+	}
+	
+	// the sorted indexes match values with compareTo, but a posting is only replaced when it is not equal to
+	// the new one, so values which compare as the same have to be equal as well: 1.0 and 1.00 are one BigDecimal key
+	private static Object indexValue(Feature feature) {
+		Object value = FeatureFactory.valueOf(feature);
+		return value instanceof BigDecimal decimal ? decimal.stripTrailingZeros() : value;
+	}
+	
+	private Map<Object, Set<UUID>> indexFor(IndexKey key) {
+		return indexes.computeIfAbsent(key, k -> supportsRange(k.type()) ? new ConcurrentSkipListMap<>() : new ConcurrentHashMap<>());
+	}
+	
+	private void remove(UUID licenseId, Posting posting) {
+		Map<Object, Set<UUID>> index = indexes.get(posting.key());
+		if (index != null) {
+			index.computeIfPresent(posting.value(), (value, ids) -> {
+				ids.remove(licenseId);
+				return ids.isEmpty() ? null : ids;
+			});
+		}
+	}
+}
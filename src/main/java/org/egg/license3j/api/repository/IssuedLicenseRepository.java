@@ -0,0 +1,806 @@
+package org.egg.license3j.api.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.egg.license3j.api.exceptions.StaleCursorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Append-only store for issued licenses.
+ * <p>
+ * Licenses are appended to segment files on local disk. Each record consists of
+ * a fixed size header (payload length, CRC32C of the payload, license id and
+ * issue time) followed by the license bytes. A segment is closed once it reaches
+ * the configured size and a new one is started.
+ * <p>
+ * A single writer thread drains the queue of pending writes and commits them in
+ * groups, so a whole batch of licenses costs one {@code fsync}. Callers receive a
+ * future that completes once their record is durable and visible in the
+ * in-memory index. The index maps each license id to the location of its latest
+ * record and is rebuilt from the segments on startup.
+ * <p>
+ * Closed segments can be moved into a memory-mapped {@link LicenseArchive} with
+ * {@link #archive()}. Archived licenses are dropped from the in-memory index of
+ * this store and their segments are deleted, so the index only holds the
+ * licenses written since the last archiving run. This does not bound the heap
+ * of the application: the {@link FeatureIndex} keeps the features of every
+ * issued license in memory and is rebuilt from all of them on startup.
+ * <p>
+ * Each archiving run appends a new archive generation with the licenses it
+ * archived instead of rewriting the earlier ones. Like a binary counter, a new
+ * generation takes over the newest generations that are not larger than it, so
+ * the number of generations stays logarithmic in the number of archived
+ * licenses and every license is rewritten only a logarithmic number of times.
+ * <p>
+ * The directory is locked while the repository is open, a second repository on
+ * the same directory, in this or in another process, fails to open.
+ */
+@Component
+public class IssuedLicenseRepository {
+	
+	static final int HEADER_SIZE = 32;
+	
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".log";
+	private static final String ARCHIVE_PREFIX = "archive-";
+	private static final String ARCHIVE_INDEX_SUFFIX = ".idx";
+	private static final String ARCHIVE_DATA_SUFFIX = ".dat";
+	
+	private final Path directory;
+	private final long segmentSize;
+	private final int maxBatchSize;
+	private final BlockingQueue<PendingWrite> pendingWrites;
+	
+	private final Map<UUID, RecordLocation> index = new ConcurrentHashMap<>();
+	private final Map<Long, FileChannel> segments = new ConcurrentHashMap<>();
+	// archive generations, oldest first
+	private volatile List<LicenseArchive> archives = List.of();
+	
+	// only changed by the writer thread once the repository is open
+	private volatile long activeSegment;
+	private long activeSegmentSize;
+	// end of the data made durable by the last committed batch
+	private volatile SegmentPosition durable;
+	
+	private volatile boolean running;
+	private Thread writer;
+	// held while the repository is open, the writer thread is the only one appending to the segments
+	private StoreLock lock;
+	
+	private static final Logger logger = LoggerFactory.getLogger(IssuedLicenseRepository.class);
+	
+	public IssuedLicenseRepository(
+			@Value("${license3j.repository.directory:data/issued}") Path directory,
+			@Value("${license3j.repository.segment-size:64MB}") DataSize segmentSize,
+			@Value("${license3j.repository.group-commit.max-batch-size:512}") int maxBatchSize,
+			@Value("${license3j.repository.group-commit.queue-capacity:8192}") int queueCapacity) {
+		this.directory = directory;
+		this.segmentSize = segmentSize.toBytes();
+		this.maxBatchSize = maxBatchSize;
+		this.pendingWrites = new ArrayBlockingQueue<>(queueCapacity);
+	}
+	
+	// a write without an id asks the writer thread to close the active segment
+	private record PendingWrite(UUID id, byte[] payload, CompletableFuture<RecordLocation> result) {
+		boolean isSeal() {
+			return id == null;
+		}
+	}
+	
+	private record SegmentPosition(long segment, long offset) {
+	}
+	
+	/**
+	 * Receives the records of a scan
+	 */
+	@FunctionalInterface
+	public interface RecordVisitor {
+		
+		/**
+		 * @param id       id of the license
+		 * @param issuedAt time the record was written
+		 * @param payload  license bytes
+		 * @param next     cursor to resume the scan after this record
+		 * @throws IOException if the visitor fails, the scan is aborted
+		 */
+		void visit(UUID id, long issuedAt, ByteBuffer payload, ScanCursor next) throws IOException;
+	}
+	
+	@PostConstruct
+	public void open() throws IOException {
+		Files.createDirectories(directory);
+		lock = StoreLock.acquire(directory.resolve("repository"+StoreLock.SUFFIX), "issued license repository");
+		try {
+			load();
+		} catch (IOException | RuntimeException e) {
+			close();
+			throw e;
+		}
+		
+		running = true;
+		writer = new Thread(this::writeLoop, "issued-license-writer");
+		writer.setDaemon(true);
+		writer.start();
+		logger.info("Issued license repository opened at {} with {} licenses in {} segments and {} archived licenses", 
+				directory.toAbsolutePath(), index.size(), segments.size(), licensesOf(archives));
+	}
+	
+	// reads the archives and segments back and finds the end of the active segment
+	private void load() throws IOException {
+		archives = openArchives();
+		
+		List<Long> segmentNumbers = listFiles(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+		for (int i = 0; i < segmentNumbers.size(); i++) {
+			recover(segmentNumbers.get(i), i == segmentNumbers.size() - 1);
+		}
+		
+		if (segmentNumbers.isEmpty()) {
+			activeSegment = 1;
+			activeSegmentSize = 0;
+			segments.put(activeSegment, openSegment(activeSegment));
+		} else {
+			activeSegment = segmentNumbers.get(segmentNumbers.size() - 1);
+			activeSegmentSize = segments.get(activeSegment).size();
+		}
+		durable = new SegmentPosition(activeSegment, activeSegmentSize);
+	}
+	
+	@PreDestroy
+	public void close() throws IOException {
+		running = false;
+		if (writer != null) {
+			try {
+				writer.join(TimeUnit.SECONDS.toMillis(10));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		for (FileChannel channel : segments.values()) {
+			channel.close();
+		}
+		segments.clear();
+		for (LicenseArchive archive : archives) {
+			archive.close();
+		}
+		if (lock != null) {
+			lock.close();
+			lock = null;
+		}
+	}
+	
+	/**
+	 * Queues a license for writing
+	 * 
+	 * @param id      id of the license
+	 * @param payload license bytes
+	 * @return a future completed with the location of the record once it is durable
+	 */
+	public CompletableFuture<RecordLocation> append(UUID id, byte[] payload) {
+		CompletableFuture<RecordLocation> result = new CompletableFuture<>();
+		if (!running) {
+			result.completeExceptionally(new IOException("Issued license repository is closed"));
+			return result;
+		}
+		try {
+			pendingWrites.put(new PendingWrite(id, payload, result));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+	
+	/**
+	 * Reads the latest license stored under the given id
+	 * 
+	 * @param id id of the license
+	 * @return the license bytes, a slice of the mapped archive for archived licenses, 
+	 * or empty if no license with the id has been stored
+	 * @throws IOException if the segment could not be read
+	 */
+	public Optional<ByteBuffer> read(UUID id) throws IOException {
+		RecordLocation location = index.get(id);
+		if (location != null) {
+			try {
+				return Optional.of(readPayload(location));
+			} catch (ClosedChannelException e) {
+				// the segment has been archived while reading it
+			}
+		}
+		List<LicenseArchive> current = archives;
+		for (int generation = current.size() - 1; generation >= 0; generation--) {
+			Optional<ByteBuffer> archived = current.get(generation).lookup(id);
+			if (archived.isPresent()) {
+				return archived;
+			}
+		}
+		return Optional.empty();
+	}
+	
+	/**
+	 * Visits the latest record of every stored license
+	 * 
+	 * @param visitor receives the id and bytes of each license
+	 * @throws IOException if a segment could not be read
+	 */
+	public void forEach(BiConsumer<UUID, ByteBuffer> visitor) throws IOException {
+		List<LicenseArchive> current = archives;
+		for (int generation = 0; generation < current.size(); generation++) {
+			LicenseArchive archive = current.get(generation);
+			for (long position = 0; position < archive.size(); position++) {
+				LicenseArchive.Entry entry = archive.entry(position);
+				if (isLatest(current, generation, entry.id())) {
+					visitor.accept(entry.id(), entry.payload());
+				}
+			}
+		}
+		for (Map.Entry<UUID, RecordLocation> entry : index.entrySet()) {
+			visitor.accept(entry.getKey(), readPayload(entry.getValue()));
+		}
+	}
+	
+	/**
+	 * @return a cursor positioned before the first stored license
+	 */
+	public ScanCursor start() {
+		return new ScanCursor(generationOf(archives), 0, 0, 0);
+	}
+	
+	/**
+	 * @return a cursor positioned after the last durable record
+	 */
+	public ScanCursor end() {
+		List<LicenseArchive> current = archives;
+		SegmentPosition position = durable;
+		return new ScanCursor(generationOf(current), entriesOf(current), position.segment(), position.offset());
+	}
+	
+	/**
+	 * Visits the latest record of every license between two cursors, archived licenses 
+	 * first, generation by generation in id order, and then the licenses of the live 
+	 * segments in write order. The archive position of a cursor counts the records of 
+	 * all generations.
+	 * Records superseded by a newer record of the same license are skipped.
+	 * 
+	 * @param from    cursor to start from
+	 * @param until   cursor to stop at, or null to stop at the current end of the store
+	 * @param visitor receives the records
+	 * @throws IOException          if the store could not be read or the visitor failed
+	 * @throws StaleCursorException if the store has been archived since the cursor was created,
+	 *                              or the cursor does not point at a record
+	 */
+	public void scan(ScanCursor from, ScanCursor until, RecordVisitor visitor) throws IOException, StaleCursorException {
+		List<LicenseArchive> current = archives;
+		long generation = generationOf(current);
+		ScanCursor end = until == null ? end() : until;
+		if (from.generation() != generation) {
+			throw new StaleCursorException(from, generation);
+		}
+		if (end.generation() != generation) {
+			throw new StaleCursorException(end, generation);
+		}
+		
+		long archived = Math.min(entriesOf(current), end.archivePosition());
+		long base = 0;
+		for (int archiveGeneration = 0; archiveGeneration < current.size(); archiveGeneration++) {
+			LicenseArchive archive = current.get(archiveGeneration);
+			long last = Math.min(archived, base + archive.size());
+			for (long position = Math.max(from.archivePosition(), base); position < last; position++) {
+				LicenseArchive.Entry entry = archive.entry(position - base);
+				if (isLatest(current, archiveGeneration, entry.id())) {
+					visitor.visit(entry.id(), entry.issuedAt(), entry.payload(), new ScanCursor(generation, position + 1, from.segment(), from.offset()));
+				}
+			}
+			base += archive.size();
+		}
+		
+		long archivePosition = Math.max(from.archivePosition(), archived);
+		try {
+			for (Long segment : segments.keySet().stream().filter(segment -> segment >= from.segment() && segment <= end.segment()).sorted().toList()) {
+				scanSegment(generation, archivePosition, segment, from, end, visitor);
+			}
+		} catch (ClosedChannelException e) {
+			if (generationOf(archives) != generation) {
+				throw new StaleCursorException(from, generationOf(archives));
+			}
+			throw e;
+		}
+	}
+	
+	private void scanSegment(long generation, long archivePosition, long segment, ScanCursor from, ScanCursor end, RecordVisitor visitor) throws IOException, StaleCursorException {
+		FileChannel channel = segments.get(segment);
+		if (channel == null) {
+			throw new ClosedChannelException();
+		}
+		long limit = segment == end.segment() ? end.offset() : channel.size();
+		long offset = segment == from.segment() ? from.offset() : 0;
+		// the offset of a resumed cursor is not trusted, a shifted one would read payload bytes as headers
+		if (offset != 0 && !isRecordAt(channel, offset, limit)) {
+			throw new StaleCursorException(from, "does not point at a record of segment "+segment);
+		}
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (offset + HEADER_SIZE <= limit) {
+			header.clear();
+			readFully(channel, header, offset);
+			header.flip();
+			int length = header.getInt();
+			header.getInt();
+			UUID id = new UUID(header.getLong(), header.getLong());
+			long issuedAt = header.getLong();
+			if (length < 0 || length > limit - offset - HEADER_SIZE) {
+				throw new StaleCursorException(from, "leads to a record of segment "+segment+" at offset "+offset+" that ends beyond "+limit);
+			}
+			
+			RecordLocation location = new RecordLocation(segment, offset, length, issuedAt);
+			offset += HEADER_SIZE + length;
+			if (location.equals(index.get(id))) {
+				visitor.visit(id, issuedAt, readPayload(location), new ScanCursor(generation, archivePosition, segment, offset));
+			}
+		}
+	}
+	
+	/**
+	 * Checks whether a scan can be resumed from the segment offset of a cursor,
+	 * the offset has to be the start of a record or the end of the written records
+	 * 
+	 * @param cursor cursor of the current archive generation
+	 * @return false if the offset lies inside or beyond the records of its segment
+	 * @throws IOException if the segment could not be read
+	 */
+	public boolean isRecordBoundary(ScanCursor cursor) throws IOException {
+		SegmentPosition position = durable;
+		if (cursor.segment() > position.segment()) {
+			return false;
+		}
+		FileChannel channel = segments.get(cursor.segment());
+		if (channel == null) {
+			return cursor.offset() == 0;
+		}
+		long limit = cursor.segment() == position.segment() ? position.offset() : channel.size();
+		return isRecordAt(channel, cursor.offset(), limit);
+	}
+	
+	// whether a record with a matching checksum starts at the offset, the end of the records counts as well
+	private static boolean isRecordAt(FileChannel channel, long offset, long limit) throws IOException {
+		if (offset < 0 || offset > limit) {
+			return false;
+		}
+		if (offset == limit) {
+			return true;
+		}
+		if (offset + HEADER_SIZE > limit) {
+			return false;
+		}
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		readFully(channel, header, offset);
+		header.flip();
+		int length = header.getInt();
+		int checksum = header.getInt();
+		if (length < 0 || length > limit - offset - HEADER_SIZE) {
+			return false;
+		}
+		ByteBuffer payload = ByteBuffer.allocate(length);
+		readFully(channel, payload, offset + HEADER_SIZE);
+		CRC32C crc = new CRC32C();
+		crc.update(payload.flip());
+		return (int) crc.getValue() == checksum;
+	}
+	
+	public Optional<RecordLocation> locate(UUID id) {
+		return Optional.ofNullable(index.get(id));
+	}
+	
+	// licenses issued again after being archived are counted twice
+	public long size() {
+		return index.size() + licensesOf(archives);
+	}
+	
+	/**
+	 * Moves every closed segment into a new generation of the memory-mapped archive.
+	 * The active segment is closed first, so every license written before the call is archived.
+	 * The new generation only holds the archived licenses, merged with the newest earlier 
+	 * generations that are not larger than it.
+	 * 
+	 * @return number of archived licenses
+	 * @throws IOException if the archive could not be written
+	 */
+	public synchronized long archive() throws IOException {
+		seal();
+		long firstLiveSegment = activeSegment;
+		
+		List<Map.Entry<UUID, RecordLocation>> sealed = index.entrySet().stream()
+				.filter(entry -> entry.getValue().segment() < firstLiveSegment)
+				.map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+				.sorted((first, second) -> LicenseArchiveWriter.compare(first.getKey(), second.getKey()))
+				.toList();
+		List<Long> sealedSegments = segments.keySet().stream().filter(segment -> segment < firstLiveSegment).sorted().toList();
+		List<LicenseArchive> current = archives;
+		if (sealed.isEmpty() && sealedSegments.isEmpty()) {
+			return licensesOf(current);
+		}
+		
+		// the new generation takes over the newest generations that are not larger than it
+		int kept = current.size();
+		long merged = sealed.size();
+		while (kept > 0 && current.get(kept - 1).size() <= merged) {
+			kept--;
+			merged += current.get(kept).size();
+		}
+		List<LicenseArchive> older = current.subList(0, kept);
+		List<LicenseArchive> replaced = current.subList(kept, current.size());
+		
+		long generation = generationOf(current) + 1;
+		long firstGeneration = replaced.isEmpty() ? generation : replaced.get(0).firstGeneration();
+		try (LicenseArchiveWriter writer = new LicenseArchiveWriter(archiveFile(generation, ARCHIVE_INDEX_SUFFIX), archiveFile(generation, ARCHIVE_DATA_SUFFIX), firstGeneration)) {
+			long added = mergeInto(writer, older, replaced, sealed);
+			writer.commit(licensesOf(older) + added);
+		}
+		List<LicenseArchive> updated = new ArrayList<>(older);
+		updated.add(new LicenseArchive(generation, archiveFile(generation, ARCHIVE_INDEX_SUFFIX), archiveFile(generation, ARCHIVE_DATA_SUFFIX)));
+		archives = List.copyOf(updated);
+		
+		// newer records written meanwhile stay in the index
+		sealed.forEach(entry -> index.remove(entry.getKey(), entry.getValue()));
+		for (Long segment : sealedSegments) {
+			FileChannel channel = segments.remove(segment);
+			if (channel != null) {
+				channel.close();
+			}
+			Files.deleteIfExists(segmentFile(segment));
+		}
+		for (LicenseArchive previous : replaced) {
+			// slices handed out earlier stay readable, the mapping outlives the deleted files
+			deleteArchive(previous);
+		}
+		
+		logger.info("Archived {} licenses from {} segments into archive generation {}, merged with {} earlier generations, {} generations hold {} licenses", 
+				sealed.size(), sealedSegments.size(), generation, replaced.size(), archives.size(), licensesOf(archives));
+		return licensesOf(archives);
+	}
+	
+	// merges the sorted records of closed segments with the generations they replace, for equal ids the segment 
+	// record wins over the archived ones and a newer generation over an older one
+	// returns the number of written licenses the older, kept generations do not hold
+	private long mergeInto(LicenseArchiveWriter writer, List<LicenseArchive> older, List<LicenseArchive> replaced, List<Map.Entry<UUID, RecordLocation>> sealed) throws IOException {
+		long[] positions = new long[replaced.size()];
+		int next = 0;
+		long added = 0;
+		
+		while (true) {
+			// the smallest id at the head of a source, from the newest source holding it
+			LicenseArchive.Entry archived = null;
+			for (int source = 0; source < replaced.size(); source++) {
+				if (positions[source] < replaced.get(source).size()) {
+					LicenseArchive.Entry head = replaced.get(source).entry(positions[source]);
+					if (archived == null || LicenseArchiveWriter.compare(head.id(), archived.id()) <= 0) {
+						archived = head;
+					}
+				}
+			}
+			Map.Entry<UUID, RecordLocation> fresh = next < sealed.size() ? sealed.get(next) : null;
+			UUID id;
+			if (fresh != null && (archived == null || LicenseArchiveWriter.compare(fresh.getKey(), archived.id()) <= 0)) {
+				id = fresh.getKey();
+				writer.add(id, fresh.getValue().issuedAt(), readPayload(fresh.getValue()));
+				next++;
+			} else if (archived != null) {
+				id = archived.id();
+				writer.add(id, archived.issuedAt(), archived.payload());
+			} else {
+				return added;
+			}
+			
+			for (int source = 0; source < replaced.size(); source++) {
+				if (positions[source] < replaced.get(source).size() && replaced.get(source).entry(positions[source]).id().equals(id)) {
+					positions[source]++;
+				}
+			}
+			if (older.stream().noneMatch(archive -> archive.contains(id))) {
+				added++;
+			}
+		}
+	}
+	
+	// an archived record is the latest one unless the license has been written to the live segments or a newer generation since
+	private boolean isLatest(List<LicenseArchive> current, int generation, UUID id) {
+		if (index.containsKey(id)) {
+			return false;
+		}
+		for (int newer = generation + 1; newer < current.size(); newer++) {
+			if (current.get(newer).contains(id)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	// closes the active segment once everything queued before has been written
+	private void seal() throws IOException {
+		CompletableFuture<RecordLocation> sealed = new CompletableFuture<>();
+		try {
+			pendingWrites.put(new PendingWrite(null, null, sealed));
+			sealed.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while closing the active segment", e);
+		} catch (ExecutionException e) {
+			throw new IOException("The active segment could not be closed", e.getCause());
+		}
+	}
+	
+	private void writeLoop() {
+		List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+		while (running || !pendingWrites.isEmpty()) {
+			try {
+				PendingWrite first = pendingWrites.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				pendingWrites.drainTo(batch, maxBatchSize - 1);
+				commit(batch);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+	
+	// writes a batch of records and makes them durable with a single force per touched segment
+	private void commit(List<PendingWrite> batch) {
+		// where the batch started, it may roll over into new segments before it fails
+		long batchSegment = activeSegment;
+		long batchStart = activeSegmentSize;
+		List<RecordLocation> locations = new ArrayList<>(batch.size());
+		
+		try {
+			List<ByteBuffer> buffers = new ArrayList<>(batch.size() * 2);
+			long now = System.currentTimeMillis();
+			
+			for (PendingWrite write : batch) {
+				if (write.isSeal()) {
+					flush(buffers);
+					if (activeSegmentSize > 0) {
+						roll();
+					}
+					locations.add(null);
+					continue;
+				}
+				
+				int recordSize = HEADER_SIZE + write.payload().length;
+				if (activeSegmentSize > 0 && activeSegmentSize + recordSize > segmentSize) {
+					flush(buffers);
+					roll();
+				}
+				
+				CRC32C crc = new CRC32C();
+				crc.update(write.payload());
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+						.putInt(write.payload().length)
+						.putInt((int) crc.getValue())
+						.putLong(write.id().getMostSignificantBits())
+						.putLong(write.id().getLeastSignificantBits())
+						.putLong(now)
+						.flip();
+				buffers.add(header);
+				buffers.add(ByteBuffer.wrap(write.payload()));
+				locations.add(new RecordLocation(activeSegment, activeSegmentSize, write.payload().length, now));
+				activeSegmentSize += recordSize;
+			}
+			flush(buffers);
+			segments.get(activeSegment).force(false);
+		} catch (IOException e) {
+			logger.error("Writing a batch of {} issued licenses failed", batch.size(), e);
+			rollback(batchSegment, batchStart);
+			batch.forEach(write -> write.result().completeExceptionally(e));
+			return;
+		}
+		
+		for (int i = 0; i < batch.size(); i++) {
+			PendingWrite write = batch.get(i);
+			if (!write.isSeal()) {
+				index.put(write.id(), locations.get(i));
+			}
+			write.result().complete(locations.get(i));
+		}
+		durable = new SegmentPosition(activeSegment, activeSegmentSize);
+	}
+	
+	private void flush(List<ByteBuffer> buffers) throws IOException {
+		FileChannel channel = segments.get(activeSegment);
+		ByteBuffer[] pending = buffers.toArray(ByteBuffer[]::new);
+		long remaining = buffers.stream().mapToLong(ByteBuffer::remaining).sum();
+		while (remaining > 0) {
+			remaining -= channel.write(pending);
+		}
+		buffers.clear();
+	}
+	
+	private void roll() throws IOException {
+		segments.get(activeSegment).force(false);
+		long next = activeSegment + 1;
+		segments.put(next, openSegment(next));
+		activeSegmentSize = 0;
+		activeSegment = next;
+		logger.info("Started issued license segment {}", next);
+	}
+	
+	// drops everything a failed batch wrote: the segments it started are deleted and the 
+	// segment it started in is cut back to where the batch began
+	private void rollback(long batchSegment, long batchStart) {
+		for (long segment = activeSegment; segment > batchSegment; segment--) {
+			try {
+				FileChannel channel = segments.remove(segment);
+				if (channel != null) {
+					channel.close();
+				}
+				Files.deleteIfExists(segmentFile(segment));
+			} catch (IOException e) {
+				logger.error("Removing segment {} started by a failed batch failed", segment, e);
+			}
+		}
+		activeSegment = batchSegment;
+		try {
+			FileChannel channel = segments.get(batchSegment);
+			channel.truncate(batchStart);
+			channel.position(batchStart);
+			activeSegmentSize = batchStart;
+		} catch (IOException e) {
+			logger.error("Rolling back a failed batch on segment {} failed", batchSegment, e);
+		}
+	}
+	
+	private ByteBuffer readPayload(RecordLocation location) throws IOException {
+		FileChannel channel = segments.get(location.segment());
+		if (channel == null) {
+			throw new ClosedChannelException();
+		}
+		ByteBuffer payload = ByteBuffer.allocate(location.length());
+		readFully(channel, payload, location.offset() + HEADER_SIZE);
+		return payload.flip();
+	}
+	
+	// rebuilds the index from a segment, a torn write at the end of the last segment is cut off
+	private void recover(long segmentNumber, boolean last) throws IOException {
+		FileChannel channel = openSegment(segmentNumber);
+		segments.put(segmentNumber, channel);
+		
+		long size = channel.size();
+		long offset = 0;
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (offset + HEADER_SIZE <= size) {
+			header.clear();
+			readFully(channel, header, offset);
+			header.flip();
+			int length = header.getInt();
+			int checksum = header.getInt();
+			UUID id = new UUID(header.getLong(), header.getLong());
+			long issuedAt = header.getLong();
+			
+			if (length < 0 || offset + HEADER_SIZE + length > size) {
+				break;
+			}
+			ByteBuffer payload = ByteBuffer.allocate(length);
+			readFully(channel, payload, offset + HEADER_SIZE);
+			CRC32C crc = new CRC32C();
+			crc.update(payload.flip());
+			if ((int) crc.getValue() != checksum) {
+				break;
+			}
+			
+			index.put(id, new RecordLocation(segmentNumber, offset, length, issuedAt));
+			offset += HEADER_SIZE + length;
+		}
+		
+		if (offset < size) {
+			if (last) {
+				logger.warn("Cutting off {} bytes of an incomplete record at the end of segment {}", size - offset, segmentNumber);
+				channel.truncate(offset);
+			} else {
+				logger.error("Segment {} is corrupt after offset {}, the remaining {} bytes are ignored", segmentNumber, offset, size - offset);
+			}
+		}
+		channel.position(offset);
+	}
+	
+	// opens the archive generations and removes unfinished archive files
+	private List<LicenseArchive> openArchives() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path leftover : files.filter(path -> path.getFileName().toString().endsWith(".tmp")).toList()) {
+				Files.delete(leftover);
+			}
+		}
+		
+		List<LicenseArchive> opened = new ArrayList<>();
+		for (Long generation : listFiles(ARCHIVE_PREFIX, ARCHIVE_INDEX_SUFFIX)) {
+			LicenseArchive archive = new LicenseArchive(generation, archiveFile(generation, ARCHIVE_INDEX_SUFFIX), archiveFile(generation, ARCHIVE_DATA_SUFFIX));
+			// generations merged into this one are left behind if archiving stopped before deleting them
+			while (!opened.isEmpty() && opened.get(opened.size() - 1).generation() >= archive.firstGeneration()) {
+				deleteArchive(opened.remove(opened.size() - 1));
+			}
+			opened.add(archive);
+		}
+		return List.copyOf(opened);
+	}
+	
+	private void deleteArchive(LicenseArchive archive) throws IOException {
+		archive.close();
+		Files.deleteIfExists(archiveFile(archive.generation(), ARCHIVE_INDEX_SUFFIX));
+		Files.deleteIfExists(archiveFile(archive.generation(), ARCHIVE_DATA_SUFFIX));
+	}
+	
+	private List<Long> listFiles(String prefix, String suffix) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.map(path -> path.getFileName().toString())
+					.filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+					.map(name -> Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())))
+					.sorted()
+					.toList();
+		}
+	}
+	
+	private static long generationOf(List<LicenseArchive> archives) {
+		return archives.isEmpty() ? 0 : archives.get(archives.size() - 1).generation();
+	}
+	
+	private static long licensesOf(List<LicenseArchive> archives) {
+		return archives.isEmpty() ? 0 : archives.get(archives.size() - 1).licenses();
+	}
+	
+	private static long entriesOf(List<LicenseArchive> archives) {
+		return archives.stream().mapToLong(LicenseArchive::size).sum();
+	}
+	
+	private Path segmentFile(long segmentNumber) {
+		return directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, segmentNumber, SEGMENT_SUFFIX));
+	}
+	
+	private Path archiveFile(long generation, String suffix) {
+		return directory.resolve(String.format("%s%010d%s", ARCHIVE_PREFIX, generation, suffix));
+	}
+	
+	private FileChannel openSegment(long segmentNumber) throws IOException {
+		FileChannel channel = FileChannel.open(segmentFile(segmentNumber), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		channel.position(channel.size());
+		return channel;
+	}
+	
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		int start = buffer.position();
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + buffer.position() - start);
+			if (read < 0) {
+				throw new IOException("Unexpected end of segment");
+			}
+		}
+	}
+}
@@ -0,0 +1,193 @@
+package org.egg.license3j.api.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Read-only, memory-mapped archive generation of license bytes.
+ * <p>
+ * Every archiving run writes a new generation holding only the licenses it
+ * archived, or the licenses of a range of earlier generations merged with them.
+ * A license can be held by several generations, the newest one holds its latest
+ * record. The header of the index records the first generation merged into this
+ * one and how many distinct licenses this generation and the older ones hold.
+ * <p>
+ * A generation consists of an index file holding fixed size entries sorted by
+ * license id and a data file holding the license bytes. Both files are mapped
+ * with {@link FileChannel#map}, so lookups are a binary search over the mapped
+ * index and return a slice of the mapped data without copying it. The heap
+ * footprint of the archive does not depend on the number of archived licenses,
+ * the {@link FeatureIndex} over the same licenses is not covered by it.
+ * <p>
+ * Files larger than a single mapping are mapped in chunks. The writer never lets
+ * a record cross a chunk boundary, so every record is a single slice.
+ * 
+ * @see LicenseArchiveWriter
+ */
+public final class LicenseArchive implements Closeable {
+	
+	static final int MAGIC = 0x4C334A41; // L3JA
+	static final int VERSION = 2;
+	static final int HEADER_SIZE = 32;
+	// version 1 headers lack the first generation and the license count
+	private static final int VERSION_1_HEADER_SIZE = 16;
+	static final int ENTRY_SIZE = 40;
+	static final long DATA_CHUNK_SIZE = 1L << 30;
+	static final int ENTRIES_PER_CHUNK = (int) (DATA_CHUNK_SIZE / ENTRY_SIZE);
+	
+	private final long generation;
+	private final long firstGeneration;
+	private final long entryCount;
+	private final long licenses;
+	private final FileChannel indexChannel;
+	private final FileChannel dataChannel;
+	private final List<MappedByteBuffer> indexChunks = new ArrayList<>();
+	private final List<MappedByteBuffer> dataChunks = new ArrayList<>();
+	
+	/**
+	 * An archived record
+	 * 
+	 * @param id       license id
+	 * @param issuedAt time the license was originally written, in epoch milliseconds
+	 * @param payload  read-only slice of the license bytes
+	 */
+	public record Entry(UUID id, long issuedAt, ByteBuffer payload) {}
+	
+	public LicenseArchive(long generation, Path indexFile, Path dataFile) throws IOException {
+		this.generation = generation;
+		this.indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ);
+		this.dataChannel = FileChannel.open(dataFile, StandardOpenOption.READ);
+		
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining() && indexChannel.read(header, header.position()) >= 0) {
+			// read until the header is complete
+		}
+		header.flip();
+		int version = header.remaining() < VERSION_1_HEADER_SIZE || header.getInt() != MAGIC ? 0 : header.getInt();
+		int headerSize = version == VERSION ? HEADER_SIZE : VERSION_1_HEADER_SIZE;
+		if ((version != VERSION && version != 1) || header.remaining() < headerSize - 8) {
+			close();
+			throw new IOException(indexFile+" is not a license archive index");
+		}
+		this.entryCount = header.getLong();
+		// a version 1 archive was rewritten as a whole, it holds every archived license once
+		this.firstGeneration = version == VERSION ? header.getLong() : generation;
+		this.licenses = version == VERSION ? header.getLong() : entryCount;
+		
+		for (long first = 0; first < entryCount; first += ENTRIES_PER_CHUNK) {
+			long entries = Math.min(ENTRIES_PER_CHUNK, entryCount - first);
+			indexChunks.add(indexChannel.map(FileChannel.MapMode.READ_ONLY, headerSize + first * ENTRY_SIZE, entries * ENTRY_SIZE));
+		}
+		long dataSize = dataChannel.size();
+		for (long start = 0; start < dataSize; start += DATA_CHUNK_SIZE) {
+			dataChunks.add(dataChannel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(DATA_CHUNK_SIZE, dataSize - start)));
+		}
+	}
+	
+	public long generation() {
+		return generation;
+	}
+	
+	// oldest generation merged into this one, the generation itself if it was not merged
+	public long firstGeneration() {
+		return firstGeneration;
+	}
+	
+	// number of records in this generation
+	public long size() {
+		return entryCount;
+	}
+	
+	// number of distinct licenses held by this generation and the older ones
+	public long licenses() {
+		return licenses;
+	}
+	
+	/**
+	 * Looks up a license by its id
+	 * 
+	 * @param id license id
+	 * @return a read-only slice of the mapped license bytes, or empty if the id is not archived
+	 */
+	public Optional<ByteBuffer> lookup(UUID id) {
+		long position = find(id);
+		return position < 0 ? Optional.empty() : Optional.of(payload(position));
+	}
+	
+	public boolean contains(UUID id) {
+		return find(id) >= 0;
+	}
+	
+	/**
+	 * Reads the entry at a position of the index, entries are ordered by license id
+	 * 
+	 * @param position position in the index, between 0 and {@link #size()}
+	 * @return the archived record
+	 */
+	public Entry entry(long position) {
+		return new Entry(new UUID(msb(position), lsb(position)), issuedAt(position), payload(position));
+	}
+	
+	// binary search over the mapped index, ids are ordered by their signed most and least significant bits
+	private long find(UUID id) {
+		long low = 0;
+		long high = entryCount - 1;
+		while (low <= high) {
+			long middle = (low + high) >>> 1;
+			int comparison = Long.compare(msb(middle), id.getMostSignificantBits());
+			if (comparison == 0) {
+				comparison = Long.compare(lsb(middle), id.getLeastSignificantBits());
+			}
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+	
+	private ByteBuffer payload(long position) {
+		long offset = indexChunk(position).getLong(indexOffset(position) + 16);
+		int length = indexChunk(position).getInt(indexOffset(position) + 32);
+		MappedByteBuffer chunk = dataChunks.get((int) (offset / DATA_CHUNK_SIZE));
+		return chunk.slice((int) (offset % DATA_CHUNK_SIZE), length).asReadOnlyBuffer();
+	}
+	
+	private long msb(long position) {
+		return indexChunk(position).getLong(indexOffset(position));
+	}
+	
+	private long lsb(long position) {
+		return indexChunk(position).getLong(indexOffset(position) + 8);
+	}
+	
+	private long issuedAt(long position) {
+		return indexChunk(position).getLong(indexOffset(position) + 24);
+	}
+	
+	private MappedByteBuffer indexChunk(long position) {
+		return indexChunks.get((int) (position / ENTRIES_PER_CHUNK));
+	}
+	
+	private static int indexOffset(long position) {
+		return (int) (position % ENTRIES_PER_CHUNK) * ENTRY_SIZE;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		indexChannel.close();
+		dataChannel.close();
+	}
+}
@@ -0,0 +1,155 @@
+package org.egg.license3j.api.repository;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * Writes a {@link LicenseArchive}.
+ * <p>
+ * Records have to be added in ascending license id order. Both files are written
+ * under temporary names and only moved into place by {@link #commit()}, the
+ * index last, so a crash never leaves a half written archive behind.
+ */
+public class LicenseArchiveWriter implements Closeable {
+	
+	private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+	
+	private final Path indexFile;
+	private final Path dataFile;
+	private final Path indexTemp;
+	private final Path dataTemp;
+	private final FileChannel indexChannel;
+	private final DataOutputStream index;
+	private final OutputStream dataStream;
+	private final WritableByteChannel data;
+	private final long firstGeneration;
+	
+	private long entryCount;
+	private long dataSize;
+	private UUID lastId;
+	private boolean committed;
+	
+	/**
+	 * @param indexFile       index file of the generation
+	 * @param dataFile        data file of the generation
+	 * @param firstGeneration oldest generation merged into this one, the generation itself if none is merged
+	 * @throws IOException if the files could not be created
+	 */
+	public LicenseArchiveWriter(Path indexFile, Path dataFile, long firstGeneration) throws IOException {
+		this.indexFile = indexFile;
+		this.firstGeneration = firstGeneration;
+		this.dataFile = dataFile;
+		this.indexTemp = indexFile.resolveSibling(indexFile.getFileName()+".tmp");
+		this.dataTemp = dataFile.resolveSibling(dataFile.getFileName()+".tmp");
+		
+		this.indexChannel = FileChannel.open(indexTemp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		this.index = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(indexChannel), 1 << 16));
+		this.dataStream = new BufferedOutputStream(Files.newOutputStream(dataTemp), 1 << 16);
+		this.data = Channels.newChannel(dataStream);
+		
+		// the entry and license counts are filled in on commit
+		index.writeInt(LicenseArchive.MAGIC);
+		index.writeInt(LicenseArchive.VERSION);
+		index.writeLong(0);
+		index.writeLong(firstGeneration);
+		index.writeLong(0);
+	}
+	
+	/**
+	 * Appends a record
+	 * 
+	 * @param id       license id, greater than the id of the previous record
+	 * @param issuedAt time the license was originally written, in epoch milliseconds
+	 * @param payload  license bytes
+	 * @throws IOException if the record could not be written
+	 */
+	public void add(UUID id, long issuedAt, ByteBuffer payload) throws IOException {
+		if (lastId != null && compare(lastId, id) >= 0) {
+			throw new IllegalArgumentException("Archive records have to be added in ascending id order");
+		}
+		int length = payload.remaining();
+		if (length > MAX_RECORD_SIZE) {
+			throw new IllegalArgumentException("License "+id+" is too large to be archived");
+		}
+		
+		// a record never crosses the boundary of a mapped data chunk
+		long chunkRemaining = LicenseArchive.DATA_CHUNK_SIZE - (dataSize % LicenseArchive.DATA_CHUNK_SIZE);
+		if (length > chunkRemaining) {
+			data.write(ByteBuffer.allocate((int) chunkRemaining));
+			dataSize += chunkRemaining;
+		}
+		
+		index.writeLong(id.getMostSignificantBits());
+		index.writeLong(id.getLeastSignificantBits());
+		index.writeLong(dataSize);
+		index.writeLong(issuedAt);
+		index.writeInt(length);
+		index.writeInt(0);
+		
+		ByteBuffer bytes = payload.duplicate();
+		while (bytes.hasRemaining()) {
+			data.write(bytes);
+		}
+		dataSize += length;
+		entryCount++;
+		lastId = id;
+	}
+	
+	public long size() {
+		return entryCount;
+	}
+	
+	/**
+	 * Makes the archive durable and moves it into place
+	 * 
+	 * @param licenses number of distinct licenses held by this generation and the older ones
+	 * @throws IOException if the archive could not be written
+	 */
+	public void commit(long licenses) throws IOException {
+		dataStream.flush();
+		index.flush();
+		indexChannel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, entryCount), 8);
+		indexChannel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, licenses), 24);
+		indexChannel.force(true);
+		try (FileChannel channel = FileChannel.open(dataTemp, StandardOpenOption.WRITE)) {
+			channel.force(true);
+		}
+		closeStreams();
+		
+		Files.move(dataTemp, dataFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		Files.move(indexTemp, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		committed = true;
+	}
+	
+	// an archive that is closed without being committed is discarded
+	@Override
+	public void close() throws IOException {
+		closeStreams();
+		if (!committed) {
+			Files.deleteIfExists(indexTemp);
+			Files.deleteIfExists(dataTemp);
+		}
+	}
+	
+	private void closeStreams() throws IOException {
+		index.close();
+		data.close();
+	}
+	
+	static int compare(UUID first, UUID second) {
+		int comparison = Long.compare(first.getMostSignificantBits(), second.getMostSignificantBits());
+		return comparison != 0 ? comparison : Long.compare(first.getLeastSignificantBits(), second.getLeastSignificantBits());
+	}
+}
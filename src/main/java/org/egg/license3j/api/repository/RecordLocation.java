@@ -0,0 +1,12 @@
+package org.egg.license3j.api.repository;
+
+/**
+ * Position of a stored license inside the segment log
+ * 
+ * @param segment  number of the segment file
+ * @param offset   offset of the record header inside the segment
+ * @param length   length of the license bytes
+ * @param issuedAt time the record was written, in epoch milliseconds
+ */
+public record RecordLocation(long segment, long offset, int length, long issuedAt) {
+}
@@ -0,0 +1,187 @@
+package org.egg.license3j.api.repository;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Registry of revoked licenses.
+ * <p>
+ * Revocations are appended to a log file, one line per revocation, and kept in a
+ * map in memory. A {@link BloomFilter} sits in front of the map, so the common
+ * case of a license that is not revoked is settled without a map lookup. A
+ * revocation takes effect as soon as {@link #revoke} returns.
+ */
+@Component
+public class RevocationRegistry {
+	
+	/**
+	 * A revoked license
+	 * 
+	 * @param licenseId id of the license
+	 * @param revokedAt time of the revocation, in epoch milliseconds
+	 * @param reason    reason given for the revocation
+	 */
+	public record Revocation(UUID licenseId, long revokedAt, String reason) {}
+	
+	private final Path file;
+	private final double falsePositiveRate;
+	private final Map<UUID, Revocation> revocations = new ConcurrentHashMap<>();
+	// revoked ids derived from the content of a license without a license id
+	private final AtomicInteger nameBasedRevocations = new AtomicInteger();
+	private volatile BloomFilter filter;
+	
+	private FileChannel channel;
+	private BufferedWriter writer;
+	private StoreLock lock;
+	
+	private static final Logger logger = LoggerFactory.getLogger(RevocationRegistry.class);
+	
+	public RevocationRegistry(
+			@Value("${license3j.revocation.file:data/revocations.log}") Path file,
+			@Value("${license3j.revocation.expected-revocations:100000}") long expectedRevocations,
+			@Value("${license3j.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+		this.file = file;
+		this.falsePositiveRate = falsePositiveRate;
+		this.filter = new BloomFilter(expectedRevocations, falsePositiveRate);
+	}
+	
+	@PostConstruct
+	public void open() throws IOException {
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		lock = StoreLock.acquire(file.resolveSibling(file.getFileName()+StoreLock.SUFFIX), "revocation log");
+		try {
+			load();
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		} catch (IOException | RuntimeException e) {
+			close();
+			throw e;
+		}
+		writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+		logger.info("Loaded {} license revocations", revocations.size());
+	}
+	
+	private void load() throws IOException {
+		if (Files.exists(file)) {
+			// read a line at a time, the log is never held in memory as a whole
+			try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+					String[] fields = line.split("\t", 3);
+					if (fields.length == 3) {
+						Revocation revocation = new Revocation(UUID.fromString(fields[0]), Long.parseLong(fields[1]), fields[2]);
+						if (revocations.put(revocation.licenseId(), revocation) == null) {
+							countNameBased(revocation.licenseId());
+						}
+					}
+				}
+			}
+			rebuildFilter(filter.capacity());
+		}
+	}
+	
+	@PreDestroy
+	public synchronized void close() throws IOException {
+		try {
+			if (writer != null) {
+				writer.close();
+				writer = null;
+			}
+		} finally {
+			if (lock != null) {
+				lock.close();
+				lock = null;
+			}
+		}
+	}
+	
+	/**
+	 * Revokes a license, the revocation is durable when the method returns
+	 * 
+	 * @param licenseId id of the license
+	 * @param reason    reason for the revocation
+	 * @return the revocation, or the earlier one if the license was already revoked
+	 * @throws IOException if the revocation could not be written
+	 */
+	public synchronized Revocation revoke(UUID licenseId, String reason) throws IOException {
+		Revocation existing = revocations.get(licenseId);
+		if (existing != null) {
+			return existing;
+		}
+		
+		// tabs and line breaks would break the line format
+		String sanitizedReason = reason == null ? "" : reason.replaceAll("[\\t\\r\\n]", " ");
+		Revocation revocation = new Revocation(licenseId, System.currentTimeMillis(), sanitizedReason);
+		writer.write(licenseId+"\t"+revocation.revokedAt()+"\t"+sanitizedReason);
+		writer.newLine();
+		writer.flush();
+		channel.force(false);
+		
+		// the filter is filled before the map, a concurrent check never misses the revocation
+		filter.add(licenseId);
+		countNameBased(licenseId);
+		revocations.put(licenseId, revocation);
+		if (revocations.size() > filter.capacity()) {
+			rebuildFilter(filter.capacity() * 2);
+		}
+		logger.info("License {} has been revoked", licenseId);
+		return revocation;
+	}
+	
+	public boolean isRevoked(UUID licenseId) {
+		return filter.mightContain(licenseId) && revocations.containsKey(licenseId);
+	}
+	
+	public Optional<Revocation> find(UUID licenseId) {
+		return isRevoked(licenseId) ? Optional.ofNullable(revocations.get(licenseId)) : Optional.empty();
+	}
+	
+	/**
+	 * Whether an id derived from license content has been revoked. Derived ids
+	 * are name-based, version 3 UUIDs, while license ids are random ones.
+	 */
+	public boolean hasNameBasedRevocations() {
+		return nameBasedRevocations.get() > 0;
+	}
+	
+	public boolean isEmpty() {
+		return revocations.isEmpty();
+	}
+	
+	public int size() {
+		return revocations.size();
+	}
+	
+	private void countNameBased(UUID licenseId) {
+		if (licenseId.version() == 3) {
+			nameBasedRevocations.incrementAndGet();
+		}
+	}
+	
+	// a filter filled beyond its capacity loses precision, so it is replaced by a larger one
+	private void rebuildFilter(long capacity) {
+		BloomFilter rebuilt = new BloomFilter(Math.max(capacity, revocations.size() * 2L), falsePositiveRate);
+		revocations.keySet().forEach(rebuilt::add);
+		filter = rebuilt;
+	}
+}
@@ -0,0 +1,42 @@
+package org.egg.license3j.api.repository;
+
+/**
+ * Position of a scan over the issued license store.
+ * <p>
+ * A scan walks the archive in id order first and then the live segments in write
+ * order. A cursor is only valid for the archive generation it was created for,
+ * archiving the store in between invalidates it.
+ * 
+ * @param generation      archive generation the cursor belongs to, 0 without an archive
+ * @param archivePosition next position in the archive index
+ * @param segment         next segment to read
+ * @param offset          next offset inside the segment
+ */
+public record ScanCursor(long generation, long archivePosition, long segment, long offset) {
+	
+	private static final String SEPARATOR = "-";
+	
+	/**
+	 * Parses a cursor from its string form
+	 * 
+	 * @param cursor string created by {@link #toString()}
+	 * @return the cursor
+	 * @throws IllegalArgumentException if the string is not a cursor
+	 */
+	public static ScanCursor parse(String cursor) throws IllegalArgumentException {
+		String[] parts = cursor.split(SEPARATOR);
+		if (parts.length != 4) {
+			throw new IllegalArgumentException(cursor+" is not a valid cursor");
+		}
+		ScanCursor parsed = new ScanCursor(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+		if (parsed.generation() < 0 || parsed.archivePosition() < 0 || parsed.segment() < 0 || parsed.offset() < 0) {
+			throw new IllegalArgumentException(cursor+" is not a valid cursor");
+		}
+		return parsed;
+	}
+	
+	@Override
+	public String toString() {
+		return generation+SEPARATOR+archivePosition+SEPARATOR+segment+SEPARATOR+offset;
+	}
+}
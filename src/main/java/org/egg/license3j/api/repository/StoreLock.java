@@ -0,0 +1,69 @@
+package org.egg.license3j.api.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Exclusive lock on the files of a store.
+ * <p>
+ * Every store keeps state about its files in memory, such as the size of the
+ * active segment or the position a log is appended at. A second process, or a
+ * second application context in the same JVM, opening the same files would
+ * write from its own stale copy of that state and corrupt the files of the
+ * first. The lock is held on a file of its own next to the store from opening
+ * to closing, a second store on the same files fails to open.
+ */
+final class StoreLock implements Closeable {
+
+	static final String SUFFIX = ".lock";
+
+	private final FileChannel channel;
+	private final FileLock lock;
+
+	private StoreLock(FileChannel channel, FileLock lock) {
+		this.channel = channel;
+		this.lock = lock;
+	}
+
+	/**
+	 * Takes the lock without waiting
+	 *
+	 * @param lockFile file to lock, created if it does not exist
+	 * @param store    name of the store, for the error message
+	 * @return the lock, held until it is closed
+	 * @throws IOException if the lock is held by another process or by another store in this JVM
+	 */
+	static StoreLock acquire(Path lockFile, String store) throws IOException {
+		FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		FileLock lock;
+		try {
+			lock = channel.tryLock();
+		} catch (OverlappingFileLockException e) {
+			// held by another channel of this JVM
+			lock = null;
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		if (lock == null) {
+			channel.close();
+			throw new IOException("The "+store+" at "+lockFile.toAbsolutePath().getParent()+" is already in use, "
+					+ "another process or application context holds "+lockFile.getFileName());
+		}
+		return new StoreLock(channel, lock);
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			lock.release();
+		} finally {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,337 @@
+package org.egg.license3j.api.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.egg.license3j.api.repository.ActivationStore;
+import org.egg.license3j.api.repository.ActivationStore.Entry;
+import org.egg.license3j.api.repository.ActivationStore.Kind;
+import org.egg.license3j.api.repository.FeatureIndex;
+import org.egg.license3j.api.repository.RevocationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import javax0.license3j.Feature;
+import javax0.license3j.License;
+import javax0.license3j.io.IOFormat;
+import javax0.license3j.io.KeyPairReader;
+
+/**
+ * Online activation of issued licenses.
+ * <p>
+ * Deployed software checks in with its license id and an instance id. The first
+ * check-in of an instance takes a seat, limited by the INT seat feature of the
+ * license. The result of verifying a license signature is cached per license and
+ * dropped when the license is recorded again, so a check-in usually costs a few map
+ * lookups and no signature verification. Seats are taken with a compare-and-set on
+ * a per-license counter and check-ins are counted with a {@link LongAdder}, both
+ * stay correct without locks under heavy contention. New activations and check-in
+ * totals are written to the {@link ActivationStore} in batches. Once enough entries
+ * have been written, the log is replaced by a snapshot of the current activations.
+ */
+@Service
+public class ActivationService {
+
+	private final IssuedLicenseService issued;
+	private final RevocationRegistry revocations;
+	private final ActivationStore store;
+	private final CryptoExecutor crypto;
+	private final String publicKeyLocation;
+	private final IOFormat publicKeyFormat;
+	private final String seatsFeature;
+	private final int verificationCacheSize;
+	private final long compactAfter;
+
+	private volatile PublicKey publicKey;
+	private final Map<UUID, VerifiedLicense> verified = new ConcurrentHashMap<>();
+	private final Map<UUID, Activations> activations = new ConcurrentHashMap<>();
+
+	// activations and deactivations waiting for the next batch, in the order they happened
+	private final Queue<Entry> pendingEntries = new ConcurrentLinkedQueue<>();
+	// licenses checked in since the last batch, their totals are written with it
+	private final Queue<Activations> pendingCheckIns = new ConcurrentLinkedQueue<>();
+	// entries of a failed batch, written first by the next one
+	private final List<Entry> unwritten = new ArrayList<>();
+	// entries in the log after the last snapshot, only touched while writing a batch
+	private long entriesSinceSnapshot;
+
+	private static final Logger logger = LoggerFactory.getLogger(ActivationService.class);
+
+	public ActivationService(IssuedLicenseService issued, RevocationRegistry revocations, ActivationStore store, FeatureIndex featureIndex, CryptoExecutor crypto,
+			@Value("${license3j.activation.public-key:}") String publicKeyLocation,
+			@Value("${license3j.activation.public-key-format:BINARY}") IOFormat publicKeyFormat,
+			@Value("${license3j.activation.seats-feature:seats}") String seatsFeature,
+			@Value("${license3j.activation.verification-cache-size:100000}") int verificationCacheSize,
+			@Value("${license3j.activation.compact-after:100000}") long compactAfter) {
+		this.issued = issued;
+		this.revocations = revocations;
+		this.store = store;
+		this.crypto = crypto;
+		this.publicKeyLocation = publicKeyLocation;
+		this.publicKeyFormat = publicKeyFormat;
+		this.seatsFeature = seatsFeature;
+		this.verificationCacheSize = verificationCacheSize;
+		this.compactAfter = compactAfter;
+		// a license recorded again may carry a new signature or seat limit
+		featureIndex.addListener(verified::remove);
+	}
+
+	private record VerifiedLicense(boolean valid, int seats) {}
+
+	private static final class Activations {
+
+		// activated instances and the time they were activated
+		private final Map<String, Long> instances = new ConcurrentHashMap<>();
+		private final AtomicInteger seatsUsed = new AtomicInteger();
+		private final LongAdder checkIns = new LongAdder();
+		private final AtomicBoolean checkInsPending = new AtomicBoolean();
+		private final UUID licenseId;
+		// only touched while writing a batch
+		private long persistedCheckIns;
+
+		private Activations(UUID licenseId) {
+			this.licenseId = licenseId;
+		}
+
+		// takes a seat unless all of them are in use
+		private boolean reserveSeat(int seats) {
+			int used;
+			do {
+				used = seatsUsed.get();
+				if (used >= seats) {
+					return false;
+				}
+			} while (!seatsUsed.compareAndSet(used, used + 1));
+			return true;
+		}
+	}
+
+	/**
+	 * Outcome of a check-in
+	 *
+	 * @param activated true if the check-in activated a new instance
+	 * @param seatsUsed seats in use after the check-in
+	 * @param seats     seats of the license, null if the license does not limit them
+	 * @param checkIns  check-ins of the license so far
+	 */
+	public record CheckIn(boolean activated, int seatsUsed, Integer seats, long checkIns) {}
+
+	@PostConstruct
+	public void open() throws IOException {
+		if (!publicKeyLocation.isBlank()) {
+			try (InputStream input = new DefaultResourceLoader().getResource(publicKeyLocation).getInputStream();
+					KeyPairReader reader = new KeyPairReader(input)) {
+				publicKey = reader.readPublic(publicKeyFormat).getPair().getPublic();
+			} catch (InvalidKeySpecException | NoSuchAlgorithmException e) {
+				throw new IOException("The activation public key "+publicKeyLocation+" could not be read", e);
+			}
+		}
+
+		entriesSinceSnapshot = store.load(entry -> {
+			Activations license = activations.computeIfAbsent(entry.licenseId(), Activations::new);
+			switch (entry.kind()) {
+				case ACTIVATED -> {
+					if (license.instances.putIfAbsent(entry.instanceId(), entry.value()) == null) {
+						license.seatsUsed.incrementAndGet();
+					}
+				}
+				case DEACTIVATED -> {
+					if (license.instances.remove(entry.instanceId()) != null) {
+						license.seatsUsed.decrementAndGet();
+					}
+				}
+				case CHECK_INS -> {
+					license.checkIns.reset();
+					license.checkIns.add(entry.value());
+					license.persistedCheckIns = entry.value();
+				}
+			}
+		});
+		logger.info("Loaded {} activation log entries for {} licenses, activation {}", entriesSinceSnapshot, activations.size(),
+				publicKey == null ? "is disabled without a public key" : "verifies with "+publicKeyLocation);
+	}
+
+	@PreDestroy
+	public void close() {
+		flush();
+	}
+
+	/**
+	 * Checks in an instance of a license, activating it on its first check-in
+	 *
+	 * @param licenseId  id of the issued license
+	 * @param instanceId id of the installation checking in
+	 * @return the outcome of the check-in
+	 * @throws ResponseStatusException if the license is unknown, revoked, not validly signed or has no free seat
+	 */
+	public CheckIn checkIn(UUID licenseId, String instanceId) throws ResponseStatusException {
+		VerifiedLicense license = verify(licenseId);
+		Activations licenseActivations = activations.computeIfAbsent(licenseId, Activations::new);
+
+		boolean activated = false;
+		if (!licenseActivations.instances.containsKey(instanceId)) {
+			if (!licenseActivations.reserveSeat(license.seats())) {
+				throw new ResponseStatusException(HttpStatus.CONFLICT, "All "+license.seats()+" seats of license "+licenseId+" are in use");
+			}
+			long activatedAt = System.currentTimeMillis();
+			activated = licenseActivations.instances.putIfAbsent(instanceId, activatedAt) == null;
+			if (activated) {
+				pendingEntries.add(new Entry(Kind.ACTIVATED, licenseId, instanceId, activatedAt));
+			} else {
+				// activated by a concurrent check-in of the same instance
+				licenseActivations.seatsUsed.decrementAndGet();
+			}
+		}
+
+		licenseActivations.checkIns.increment();
+		if (!licenseActivations.checkInsPending.get() && licenseActivations.checkInsPending.compareAndSet(false, true)) {
+			pendingCheckIns.add(licenseActivations);
+		}
+		return new CheckIn(activated, licenseActivations.seatsUsed.get(),
+				license.seats() == Integer.MAX_VALUE ? null : license.seats(), licenseActivations.checkIns.sum());
+	}
+
+	/**
+	 * Releases the seat of an instance
+	 *
+	 * @param licenseId  id of the issued license
+	 * @param instanceId id of the installation
+	 * @throws ResponseStatusException if the instance is not activated
+	 */
+	public void deactivate(UUID licenseId, String instanceId) throws ResponseStatusException {
+		Activations licenseActivations = activations.get(licenseId);
+		if (licenseActivations == null || licenseActivations.instances.remove(instanceId) == null) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Instance "+instanceId+" is not activated for license "+licenseId);
+		}
+		licenseActivations.seatsUsed.decrementAndGet();
+		pendingEntries.add(new Entry(Kind.DEACTIVATED, licenseId, instanceId, System.currentTimeMillis()));
+	}
+
+	public Optional<CheckIn> status(UUID licenseId) {
+		Activations licenseActivations = activations.get(licenseId);
+		if (licenseActivations == null) {
+			return Optional.empty();
+		}
+		VerifiedLicense license = verified.get(licenseId);
+		Integer seats = license == null || license.seats() == Integer.MAX_VALUE ? null : license.seats();
+		return Optional.of(new CheckIn(false, licenseActivations.seatsUsed.get(), seats, licenseActivations.checkIns.sum()));
+	}
+
+	// writes the activations and check-in totals gathered since the previous batch
+	@Scheduled(fixedDelayString = "${license3j.activation.flush-interval:PT1S}")
+	public synchronized void flush() {
+		List<Entry> batch = new ArrayList<>(unwritten);
+		unwritten.clear();
+		for (Entry entry = pendingEntries.poll(); entry != null; entry = pendingEntries.poll()) {
+			batch.add(entry);
+		}
+		for (Activations license = pendingCheckIns.poll(); license != null; license = pendingCheckIns.poll()) {
+			license.checkInsPending.set(false);
+			long total = license.checkIns.sum();
+			if (total != license.persistedCheckIns) {
+				batch.add(new Entry(Kind.CHECK_INS, license.licenseId, "", total));
+				license.persistedCheckIns = total;
+			}
+		}
+
+		try {
+			store.append(batch);
+			entriesSinceSnapshot += batch.size();
+		} catch (IOException e) {
+			logger.error("Writing {} activation log entries failed, they are retried with the next batch", batch.size(), e);
+			unwritten.addAll(batch);
+			return;
+		}
+		if (entriesSinceSnapshot >= compactAfter) {
+			compact();
+		}
+	}
+
+	// replaces the log with the current activations, entries still pending describe changes made while the
+	// snapshot is taken and are written after it, reading them back again on startup leaves the same state
+	private void compact() {
+		long start = System.nanoTime();
+		try {
+			long written = store.compact(activations.values().stream().flatMap(ActivationService::snapshotOf));
+			logger.info("Replaced {} activation log entries by a snapshot of {} entries in {} ms", entriesSinceSnapshot, written,
+					(System.nanoTime() - start) / 1_000_000);
+			entriesSinceSnapshot = written;
+		} catch (IOException e) {
+			// the log keeps growing until the next batch tries again
+			logger.error("Writing a snapshot of the activation log failed", e);
+		}
+	}
+
+	private static Stream<Entry> snapshotOf(Activations license) {
+		Stream<Entry> instances = license.instances.entrySet().stream()
+				.map(instance -> new Entry(Kind.ACTIVATED, license.licenseId, instance.getKey(), instance.getValue()));
+		long checkIns = license.checkIns.sum();
+		return checkIns == 0 ? instances : Stream.concat(instances, Stream.of(new Entry(Kind.CHECK_INS, license.licenseId, "", checkIns)));
+	}
+
+	// the signature is verified once per recorded license, later check-ins use the cached result
+	private VerifiedLicense verify(UUID licenseId) throws ResponseStatusException {
+		PublicKey key = publicKey;
+		if (key == null) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "License activation is not configured with a public key");
+		}
+		if (revocations.isRevoked(licenseId)) {
+			throw new ResponseStatusException(HttpStatus.FORBIDDEN, "License "+licenseId+" has been revoked");
+		}
+
+		VerifiedLicense license = verified.get(licenseId);
+		if (license == null) {
+			License stored;
+			try {
+				stored = IssuedLicenseService.deserialize(issued.fetch(licenseId, IOFormat.BINARY));
+			} catch (IOException | IllegalArgumentException e) {
+				logger.error("Issued license {} could not be read", licenseId, e);
+				throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "The issued license could not be read");
+			}
+			Feature seats = stored.get(seatsFeature);
+			license = new VerifiedLicense(isProperlySigned(stored, key), seats != null && seats.isInt() ? seats.getInt() : Integer.MAX_VALUE);
+			// a full cache is dropped as a whole, it refills with the licenses that keep checking in
+			if (verified.size() >= verificationCacheSize) {
+				verified.clear();
+			}
+			verified.put(licenseId, license);
+		}
+
+		if (!license.valid()) {
+			throw new ResponseStatusException(HttpStatus.FORBIDDEN, "License "+licenseId+" does not carry a valid signature");
+		}
+		return license;
+	}
+	
+	private boolean isProperlySigned(License license, PublicKey key) {
+		try {
+			return crypto.execute(() -> license.isOK(key));
+		} catch (GeneralSecurityException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package org.egg.license3j.api.service;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.egg.license3j.api.constants.Bulkhead;
+import org.egg.license3j.api.constants.BulkheadRejection;
+import org.egg.license3j.api.logging.LoggingContext;
+import org.egg.license3j.api.logging.SampledLogger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs the work of a request in the thread pool of its {@link Bulkhead}.
+ * <p>
+ * Every bulkhead has its own threads and a bounded queue, so a burst of key
+ * generations only fills the key generation queue while signing, verification
+ * and the cheap requests served by the request threads carry on. Work that
+ * finds its bulkhead full is rejected or run by the caller, as configured.
+ */
+@Component
+public class BulkheadExecutor {
+
+	private final Map<Bulkhead, Pool> pools = new EnumMap<>(Bulkhead.class);
+
+	private static final Logger logger = LoggerFactory.getLogger(BulkheadExecutor.class);
+	private static final SampledLogger rejections = SampledLogger.of(logger);
+
+	private static final class Pool {
+
+		private final ThreadPoolExecutor executor;
+		private final int queueCapacity;
+		private final BulkheadRejection rejection;
+		private final LongAdder rejected = new LongAdder();
+
+		private Pool(ThreadPoolExecutor executor, int queueCapacity, BulkheadRejection rejection) {
+			this.executor = executor;
+			this.queueCapacity = queueCapacity;
+			this.rejection = rejection;
+		}
+	}
+
+	public BulkheadExecutor(Environment environment) {
+		for (Bulkhead bulkhead : Bulkhead.values()) {
+			String prefix = "license3j.bulkhead."+bulkhead.key()+".";
+			int threads = environment.getProperty(prefix+"threads", Integer.class, bulkhead.defaultThreads());
+			int queueCapacity = environment.getProperty(prefix+"queue-capacity", Integer.class, bulkhead.defaultQueueCapacity());
+			BulkheadRejection rejection = environment.getProperty(prefix+"rejection", BulkheadRejection.class, bulkhead.defaultRejection());
+
+			int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+			AtomicInteger threadCount = new AtomicInteger();
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+				Thread thread = new Thread(runnable, "license3j-"+bulkhead.key()+"-"+threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}, new ThreadPoolExecutor.AbortPolicy());
+			pools.put(bulkhead, new Pool(executor, queueCapacity, rejection));
+			logger.info("Bulkhead {} runs {} threads with room for {} waiting tasks, {} when full", bulkhead.key(), poolSize, queueCapacity, rejection);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		pools.values().forEach(pool -> pool.executor.shutdown());
+	}
+
+	/**
+	 * Runs work in a bulkhead
+	 *
+	 * @param <T>      result of the work
+	 * @param bulkhead the bulkhead the work belongs to
+	 * @param work     the work
+	 * @return the result, completed with a 503 ResponseStatusException if the bulkhead rejected the work
+	 */
+	public <T> CompletableFuture<T> submit(Bulkhead bulkhead, Supplier<T> work) {
+		Pool pool = pools.get(bulkhead);
+		try {
+			return CompletableFuture.supplyAsync(LoggingContext.propagate(work), pool.executor);
+		} catch (RejectedExecutionException e) {
+			pool.rejected.increment();
+			if (pool.rejection == BulkheadRejection.CALLER_RUNS && !pool.executor.isShutdown()) {
+				try {
+					return CompletableFuture.completedFuture(work.get());
+				} catch (RuntimeException failure) {
+					return CompletableFuture.failedFuture(failure);
+				}
+			}
+			rejections.warn("Bulkhead {} is full, a request has been rejected", bulkhead.key());
+			return CompletableFuture.failedFuture(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The server is busy with too many "+bulkhead.key()+" requests. Please retry later"));
+		}
+	}
+
+	public int activeCount(Bulkhead bulkhead) {
+		return pools.get(bulkhead).executor.getActiveCount();
+	}
+
+	public int queueDepth(Bulkhead bulkhead) {
+		return pools.get(bulkhead).executor.getQueue().size();
+	}
+
+	public long rejectedCount(Bulkhead bulkhead) {
+		return pools.get(bulkhead).rejected.sum();
+	}
+
+	// a snapshot of every bulkhead, the counts are read without stopping the pools
+	public Map<String, Map<String, Object>> statistics() {
+		Map<String, Map<String, Object>> statistics = new LinkedHashMap<>();
+		pools.forEach((bulkhead, pool) -> {
+			Map<String, Object> values = new LinkedHashMap<>();
+			values.put("threads", pool.executor.getMaximumPoolSize());
+			values.put("active", pool.executor.getActiveCount());
+			values.put("queued", pool.executor.getQueue().size());
+			values.put("queueCapacity", pool.queueCapacity);
+			values.put("completed", pool.executor.getCompletedTaskCount());
+			values.put("rejected", pool.rejected.sum());
+			values.put("rejection", pool.rejection);
+			statistics.put(bulkhead.key(), values);
+		});
+		return statistics;
+	}
+}
@@ -0,0 +1,41 @@
+package org.egg.license3j.api.service;
+
+import org.egg.license3j.api.constants.Bulkhead;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes the busy threads, the queued work and the rejections of every
+ * bulkhead. The values are read from the pools when the registry is scraped.
+ */
+@Component
+public class BulkheadMetrics implements MeterBinder {
+	
+	private final BulkheadExecutor bulkheads;
+	
+	public BulkheadMetrics(BulkheadExecutor bulkheads) {
+		this.bulkheads = bulkheads;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		for (Bulkhead bulkhead : Bulkhead.values()) {
+			Gauge.builder("license3j.bulkhead.active", bulkheads, executor -> executor.activeCount(bulkhead))
+					.description("Threads of a bulkhead running work")
+					.tag("bulkhead", bulkhead.key())
+					.register(registry);
+			Gauge.builder("license3j.bulkhead.queued", bulkheads, executor -> executor.queueDepth(bulkhead))
+					.description("Work waiting for a thread of a bulkhead")
+					.tag("bulkhead", bulkhead.key())
+					.register(registry);
+			FunctionCounter.builder("license3j.bulkhead.rejected", bulkheads, executor -> executor.rejectedCount(bulkhead))
+					.description("Work a full bulkhead rejected or handed back to the caller")
+					.tag("bulkhead", bulkhead.key())
+					.register(registry);
+		}
+	}
+}
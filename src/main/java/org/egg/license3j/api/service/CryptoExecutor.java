@@ -0,0 +1,118 @@
+package org.egg.license3j.api.service;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.egg.license3j.api.logging.SampledLogger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs CPU-bound cryptography (key generation, signing, verification) on a
+ * platform thread pool sized to the number of cores.
+ * <p>
+ * With virtual threads serving requests, a long RSA operation would occupy a
+ * carrier thread for its whole duration and starve the other virtual threads.
+ * Calls made from a virtual thread are therefore handed to the pool and the
+ * virtual thread parks until the result is ready. Calls from platform threads
+ * run directly, they gain nothing from the hand-off.
+ * <p>
+ * The session endpoints run their key generation, signing and verification in
+ * the platform threads of the {@link BulkheadExecutor}, so their calls always
+ * run directly. The pool is still used with virtual threads enabled for the work
+ * done on the request or response thread itself: the signature check of the
+ * first activation check-in of a license and the signature status of the
+ * licenses streamed by an export. A full pool rejects the call with 503 like
+ * the bulkheads do; running it on the caller would pin the carrier of the
+ * calling virtual thread, the very thing the pool is there to avoid.
+ */
+@Component
+public class CryptoExecutor {
+	
+	/**
+	 * A cryptographic operation
+	 *
+	 * @param <T> result of the operation
+	 */
+	@FunctionalInterface
+	public interface CryptoTask<T> {
+		T call() throws GeneralSecurityException;
+	}
+	
+	private final ExecutorService pool;
+	
+	private static final Logger logger = LoggerFactory.getLogger(CryptoExecutor.class);
+	private static final SampledLogger rejections = SampledLogger.of(logger);
+	
+	public CryptoExecutor(
+			@Value("${license3j.crypto.threads:0}") int threads,
+			@Value("${license3j.crypto.queue-capacity:1024}") int queueCapacity) {
+		int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		AtomicInteger threadCount = new AtomicInteger();
+		this.pool = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+			Thread thread = new Thread(runnable, "license3j-crypto-"+threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}, new ThreadPoolExecutor.AbortPolicy());
+	}
+	
+	@PreDestroy
+	public void shutdown() {
+		pool.shutdown();
+	}
+	
+	/**
+	 * Runs a cryptographic operation, on the crypto pool when called from a virtual thread
+	 *
+	 * @param <T>  result of the operation
+	 * @param task the operation
+	 * @return the result of the operation
+	 * @throws GeneralSecurityException if the operation failed
+	 * @throws ResponseStatusException  with 503 if the pool is busy with too many operations
+	 */
+	public <T> T execute(CryptoTask<T> task) throws GeneralSecurityException, ResponseStatusException {
+		if (!Thread.currentThread().isVirtual()) {
+			return task.call();
+		}
+		
+		Future<T> result;
+		try {
+			result = pool.submit(task::call);
+		} catch (RejectedExecutionException e) {
+			rejections.warn("The crypto pool is full, a cryptographic operation has been rejected");
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The server is busy with too many cryptographic operations. Please retry later");
+		}
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			result.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a cryptographic operation", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof GeneralSecurityException securityException) {
+				throw securityException;
+			}
+			if (cause instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (cause instanceof Error error) {
+				throw error;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package org.egg.license3j.api.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.egg.license3j.api.constants.ExpiryEventType;
+import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.dto.ExpiryEvent;
+import org.egg.license3j.api.repository.FeatureIndex;
+import org.egg.license3j.api.repository.RevocationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reports issued licenses that are about to expire or have expired.
+ * <p>
+ * Expiry dates are read from the date-ordered {@link FeatureIndex} of the configured
+ * DATE feature. Each run only walks the part of the index that moved into the
+ * warning period or into the past since the previous run, plus the licenses indexed
+ * since then, so the cost of a run does not depend on the number of issued licenses.
+ * The latest events are kept in memory and can be fetched incrementally by sequence.
+ * <p>
+ * Only licenses whose expiry date changed are queued for the next run, so recording
+ * a license again with the same expiry date, as a re-sign job does for every issued
+ * license, costs the scanner nothing. Until the first run, which walks the whole
+ * index, nothing is queued, so the startup rebuild of the index is not queued either.
+ */
+@Service
+public class ExpiryScanService {
+	
+	private final FeatureIndex featureIndex;
+	private final RevocationRegistry revocations;
+	private final String expiryFeature;
+	private final Duration warningPeriod;
+	private final int retainedEvents;
+	
+	// licenses indexed since the previous run, their expiry may lie in an already scanned range
+	private final Queue<UUID> changed = new ConcurrentLinkedQueue<>();
+	private final Deque<ExpiryEvent> events = new ArrayDeque<>();
+	// microseconds since the epoch at startup, the events of a restarted application continue after the ones seen before
+	private long nextSequence = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+	private volatile boolean scanStarted;
+	
+	// null until the first run, which scans the index from its start
+	private Date expiredWatermark;
+	private Date upcomingWatermark;
+	private volatile Instant lastScanAt;
+	
+	private static final Logger logger = LoggerFactory.getLogger(ExpiryScanService.class);
+	
+	public ExpiryScanService(FeatureIndex featureIndex, RevocationRegistry revocations,
+			@Value("${license3j.expiry.feature:expiryDate}") String expiryFeature,
+			@Value("${license3j.expiry.warning-period:P30D}") Duration warningPeriod,
+			@Value("${license3j.expiry.retained-events:10000}") int retainedEvents) {
+		this.featureIndex = featureIndex;
+		this.revocations = revocations;
+		this.expiryFeature = expiryFeature;
+		this.warningPeriod = warningPeriod;
+		this.retainedEvents = retainedEvents;
+		featureIndex.addListener(expiryFeature, FeatureType.DATE, licenseId -> {
+			if (scanStarted) {
+				changed.add(licenseId);
+			}
+		});
+	}
+	
+	/**
+	 * Emits the expirations that became due or came within the warning period since the previous run
+	 * 
+	 * @return number of emitted events
+	 */
+	@Scheduled(initialDelayString = "${license3j.expiry.scan-interval:PT1M}", fixedDelayString = "${license3j.expiry.scan-interval:PT1M}")
+	public synchronized int scan() {
+		long start = System.nanoTime();
+		// licenses indexed from now on may be missed by the ranges of this run
+		scanStarted = true;
+		Instant now = Instant.now();
+		Date expiredUntil = Date.from(now);
+		Date upcomingUntil = Date.from(now.plus(warningPeriod));
+		
+		List<UUID> changedSinceLastRun = new ArrayList<>();
+		for (UUID licenseId = changed.poll(); licenseId != null; licenseId = changed.poll()) {
+			changedSinceLastRun.add(licenseId);
+		}
+		
+		Set<UUID> reported = new HashSet<>();
+		List<ExpiryEvent> found = new ArrayList<>();
+		featureIndex.forEachInRange(expiryFeature, FeatureType.DATE, expiredWatermark, expiredUntil, (expiresAt, licenseId) -> 
+			report(found, reported, licenseId, ExpiryEventType.EXPIRED, (Date) expiresAt, now));
+		Date upcomingFrom = upcomingWatermark == null || upcomingWatermark.before(expiredUntil) ? expiredUntil : upcomingWatermark;
+		featureIndex.forEachInRange(expiryFeature, FeatureType.DATE, upcomingFrom, upcomingUntil, (expiresAt, licenseId) -> 
+			report(found, reported, licenseId, ExpiryEventType.UPCOMING, (Date) expiresAt, now));
+		
+		// the ranges above only hold what moved since the previous run, licenses changed meanwhile
+		// may have an expiry date in a range that has already been scanned
+		for (UUID licenseId : changedSinceLastRun) {
+			featureIndex.valueOf(licenseId, expiryFeature, FeatureType.DATE).ifPresent(value -> {
+				Date expiresAt = (Date) value;
+				if (!expiresAt.after(expiredUntil)) {
+					report(found, reported, licenseId, ExpiryEventType.EXPIRED, expiresAt, now);
+				} else if (!expiresAt.after(upcomingUntil)) {
+					report(found, reported, licenseId, ExpiryEventType.UPCOMING, expiresAt, now);
+				}
+			});
+		}
+		
+		expiredWatermark = expiredUntil;
+		upcomingWatermark = upcomingUntil;
+		lastScanAt = now;
+		synchronized (events) {
+			events.addAll(found);
+			while (events.size() > retainedEvents) {
+				events.removeFirst();
+			}
+		}
+		
+		logger.info("Expiry scan found {} events in {} ms, {} licenses changed since the previous scan", 
+				found.size(), (System.nanoTime() - start) / 1_000_000, changedSinceLastRun.size());
+		return found.size();
+	}
+	
+	/**
+	 * @param since sequence of the last event already seen, 0 for all retained events
+	 * @param limit maximum number of events to return
+	 * @return the retained events after the given sequence, oldest first
+	 */
+	public List<ExpiryEvent> eventsSince(long since, int limit) {
+		synchronized (events) {
+			return events.stream().filter(event -> event.sequence() > since).limit(limit).toList();
+		}
+	}
+	
+	public Instant getLastScanAt() {
+		return lastScanAt;
+	}
+	
+	private void report(List<ExpiryEvent> found, Set<UUID> reported, UUID licenseId, ExpiryEventType type, Date expiresAt, Instant now) {
+		if (!reported.add(licenseId) || revocations.isRevoked(licenseId)) {
+			return;
+		}
+		found.add(new ExpiryEvent(nextSequence++, licenseId, type, expiresAt.toInstant(), now));
+	}
+}
@@ -0,0 +1,140 @@
+package org.egg.license3j.api.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Captures a Flight Recorder recording on demand.
+ * <p>
+ * Only one recording runs at a time. It holds the JDK events of the chosen
+ * settings and the events of the license operations, and is bounded in age and
+ * size so a forgotten recording cannot fill the disk. Stopping a recording
+ * returns its content and discards it.
+ */
+@Component
+@ConditionalOnProperty(name = "license3j.diagnostics.recording.enabled", havingValue = "true")
+public class FlightRecordingService {
+	
+	private final String settings;
+	private final Duration maxAge;
+	private final DataSize maxSize;
+	
+	// guarded by this
+	private Recording recording;
+	
+	private static final Logger logger = LoggerFactory.getLogger(FlightRecordingService.class);
+	
+	public FlightRecordingService(
+			@Value("${license3j.diagnostics.recording.settings:profile}") String settings,
+			@Value("${license3j.diagnostics.recording.max-age:PT10M}") Duration maxAge,
+			@Value("${license3j.diagnostics.recording.max-size:64MB}") DataSize maxSize) {
+		this.settings = settings;
+		this.maxAge = maxAge;
+		this.maxSize = maxSize;
+	}
+	
+	@PreDestroy
+	public synchronized void close() {
+		if (recording != null) {
+			recording.close();
+			recording = null;
+		}
+	}
+	
+	public synchronized Map<String, Object> start() throws ResponseStatusException {
+		if (recording != null) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "A recording is already running. Stop it first.");
+		}
+		Configuration configuration;
+		try {
+			configuration = Configuration.getConfiguration(settings);
+		} catch (IOException | ParseException e) {
+			logger.error("Flight recorder settings {} could not be loaded", settings, e);
+			throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Flight recorder settings "+settings+" could not be loaded");
+		}
+		
+		Recording started = new Recording(configuration);
+		started.setName("license3j");
+		started.setToDisk(true);
+		started.setMaxAge(maxAge);
+		started.setMaxSize(maxSize.toBytes());
+		try {
+			started.start();
+		} catch (IllegalStateException | SecurityException e) {
+			started.close();
+			logger.error("Flight recording could not be started", e);
+			throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Flight recording could not be started");
+		}
+		recording = started;
+		logger.info("Flight recording started with the {} settings", settings);
+		return status();
+	}
+	
+	/**
+	 * Stops the running recording
+	 *
+	 * @return the recording in the JFR file format
+	 * @throws ResponseStatusException if no recording is running
+	 */
+	public synchronized byte[] stop() throws ResponseStatusException {
+		if (recording == null) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "No recording is running");
+		}
+		Recording stopped = recording;
+		recording = null;
+		
+		Path file = null;
+		try {
+			stopped.stop();
+			file = Files.createTempFile("license3j-", ".jfr");
+			stopped.dump(file);
+			logger.info("Flight recording stopped, {} bytes recorded", Files.size(file));
+			return Files.readAllBytes(file);
+		} catch (IOException e) {
+			logger.error("Flight recording could not be written", e);
+			throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Flight recording could not be written");
+		} finally {
+			stopped.close();
+			if (file != null) {
+				try {
+					Files.deleteIfExists(file);
+				} catch (IOException e) {
+					logger.warn("Flight recording file {} could not be deleted", file, e);
+				}
+			}
+		}
+	}
+	
+	public synchronized Map<String, Object> status() {
+		Map<String, Object> status = new LinkedHashMap<>();
+		status.put("recording", recording != null);
+		status.put("settings", settings);
+		status.put("maxAge", maxAge.toString());
+		status.put("maxSize", maxSize.toBytes());
+		if (recording != null) {
+			Instant startTime = recording.getStartTime();
+			status.put("startTime", startTime.toString());
+			status.put("duration", Duration.between(startTime, Instant.now()).toString());
+		}
+		return status;
+	}
+}
@@ -0,0 +1,234 @@
+package org.egg.license3j.api.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.features.FeatureFactory;
+import org.egg.license3j.api.license.SessionLicense;
+import org.egg.license3j.api.repository.ByteBufferInputStream;
+import org.egg.license3j.api.repository.FeatureIndex;
+import org.egg.license3j.api.repository.IssuedLicenseRepository;
+import org.egg.license3j.api.repository.RevocationRegistry;
+import org.egg.license3j.api.repository.RevocationRegistry.Revocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import jakarta.annotation.PostConstruct;
+import javax0.license3j.License;
+import javax0.license3j.io.IOFormat;
+import javax0.license3j.io.LicenseReader;
+import javax0.license3j.io.LicenseWriter;
+
+/**
+ * Keeps a server-side record of every signed license handed out by the API
+ */
+@Service
+public class IssuedLicenseService {
+	
+	private static final UUID NO_LICENSE_ID = new UUID(0, 0);
+	private static final long COMMIT_TIMEOUT_SECONDS = 10;
+	private static final int ARCHIVING = -1;
+	
+	private final IssuedLicenseRepository repository;
+	private final FeatureIndex featureIndex;
+	private final RevocationRegistry revocations;
+	// number of jobs walking the repository with a cursor, which archiving would invalidate, 
+	// or ARCHIVING while an archiving run is in progress
+	private final AtomicInteger archiveState = new AtomicInteger();
+	
+	private static final Logger logger = LoggerFactory.getLogger(IssuedLicenseService.class);
+	
+	@Autowired
+	public IssuedLicenseService(IssuedLicenseRepository repository, FeatureIndex featureIndex, RevocationRegistry revocations) {
+		this.repository = repository;
+		this.featureIndex = featureIndex;
+		this.revocations = revocations;
+	}
+	
+	// the feature index lives in memory only, so it is rebuilt from the stored licenses,
+	// archived ones included, every license is deserialized once
+	@PostConstruct
+	public void rebuildIndex() throws IOException {
+		long start = System.nanoTime();
+		repository.forEach((licenseId, license) -> {
+			try {
+				featureIndex.add(licenseId, deserialize(license));
+			} catch (IOException | IllegalArgumentException e) {
+				logger.warn("Stored license {} could not be indexed", licenseId);
+			}
+		});
+		logger.info("Indexed the features of {} issued licenses in {} ms", repository.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+	}
+	
+	// the license id feature if the license has one, otherwise an id derived from the license content
+	public static UUID licenseIdOf(License license) {
+		UUID licenseId = license.getLicenseId();
+		if (licenseId == null || NO_LICENSE_ID.equals(licenseId)) {
+			return UUID.nameUUIDFromBytes(license.serialized());
+		}
+		return licenseId;
+	}
+	
+	public static boolean isSigned(License license) {
+		return license.get(SessionLicense.SIGNATURE_FEATURE) != null;
+	}
+	
+	// store a signed license, waits until the record is durable
+	public UUID record(License license) throws ResponseStatusException {
+		if (!isSigned(license)) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "Only signed licenses can be recorded");
+		}
+		
+		UUID licenseId = licenseIdOf(license);
+		try {
+			repository.append(licenseId, serialize(license, IOFormat.BINARY)).get(COMMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			featureIndex.add(licenseId, license);
+			logger.info("License {} has been recorded", licenseId);
+			return licenseId;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Recording the license was interrupted");
+		} catch (ExecutionException | TimeoutException | IOException e) {
+			logger.error("License {} could not be recorded", licenseId, e);
+			throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "The license could not be recorded");
+		}
+	}
+	
+	// store a new version of an issued license under its existing id without waiting for the write
+	public CompletableFuture<Void> replace(UUID licenseId, License license) {
+		byte[] serialized;
+		try {
+			serialized = serialize(license, IOFormat.BINARY);
+		} catch (IOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		return repository.append(licenseId, serialized).thenRun(() -> featureIndex.add(licenseId, license));
+	}
+	
+	// fetch a recorded license in the requested format
+	// binary licenses are returned as stored, archived ones as a slice of the mapped archive
+	public ByteBuffer fetch(UUID licenseId, IOFormat format) throws ResponseStatusException {
+		try {
+			ByteBuffer license = repository.read(licenseId)
+					.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No license has been issued with the id "+licenseId));
+			if (format == IOFormat.BINARY) {
+				return license;
+			}
+			return ByteBuffer.wrap(serialize(deserialize(license), format));
+		} catch (IOException e) {
+			logger.error("License {} could not be read", licenseId, e);
+			throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An I/O error occured during reading the license");
+		}
+	}
+	
+	// find issued licenses by a feature value or, for ordered feature types, by a range of values
+	public List<UUID> search(String featureName, FeatureType type, String value, String from, String to, int limit) throws ResponseStatusException {
+		if (!FeatureIndex.isIndexed(type)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, type+" features are not indexed");
+		}
+		
+		try {
+			if (value != null) {
+				return featureIndex.equalTo(featureName, type, FeatureFactory.parse(type, value)).stream().limit(limit).toList();
+			}
+			if (from == null && to == null) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either a value or a range has to be given");
+			}
+			if (!FeatureIndex.supportsRange(type)) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, type+" features only support searching for a value");
+			}
+			return featureIndex.range(featureName, type, 
+					from == null ? null : FeatureFactory.parse(type, from), 
+					to == null ? null : FeatureFactory.parse(type, to), limit);
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search bounds are not valid "+type+" values");
+		}
+	}
+	
+	// revoke a license by its id, takes effect immediately
+	public Revocation revoke(UUID licenseId, String reason) throws ResponseStatusException {
+		try {
+			return revocations.revoke(licenseId, reason);
+		} catch (IOException e) {
+			logger.error("License {} could not be revoked", licenseId, e);
+			throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An I/O error occured during revoking the license");
+		}
+	}
+	
+	public Optional<Revocation> findRevocation(UUID licenseId) {
+		return revocations.find(licenseId);
+	}
+	
+	// the id of a license without a license id is a hash of the whole license, it is only
+	// computed when such an id has been revoked at all
+	public boolean isRevoked(License license) {
+		if (revocations.isEmpty()) {
+			return false;
+		}
+		UUID licenseId = license.getLicenseId();
+		if (licenseId != null && !NO_LICENSE_ID.equals(licenseId)) {
+			return revocations.isRevoked(licenseId);
+		}
+		return revocations.hasNameBasedRevocations() && revocations.isRevoked(licenseIdOf(license));
+	}
+	
+	// move the closed segments of the repository into the memory-mapped archive
+	public long archive() throws ResponseStatusException {
+		// a job can only take its cursor while no archiving runs, and archiving only starts while no job holds one
+		if (!archiveState.compareAndSet(0, ARCHIVING)) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT, archiveState.get() == ARCHIVING 
+					? "The issued licenses are already being archived" 
+					: "Issued licenses cannot be archived while a re-sign job is running");
+		}
+		try {
+			return repository.archive();
+		} catch (IOException e) {
+			logger.error("Archiving the issued licenses failed", e);
+			throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An I/O error occured during archiving the issued licenses");
+		} finally {
+			archiveState.set(0);
+		}
+	}
+	
+	// has to be called before the cursors of a job are taken, they stay valid until unblockArchiving
+	public void blockArchiving() throws ResponseStatusException {
+		int state;
+		do {
+			state = archiveState.get();
+			if (state == ARCHIVING) {
+				throw new ResponseStatusException(HttpStatus.CONFLICT, "The issued licenses are being archived, try again once it finished");
+			}
+		} while (!archiveState.compareAndSet(state, state + 1));
+	}
+	
+	public void unblockArchiving() {
+		archiveState.decrementAndGet();
+	}
+	
+	static byte[] serialize(License license, IOFormat format) throws IOException {
+		try (ByteArrayOutputStream baos = new ByteArrayOutputStream(); LicenseWriter writer = new LicenseWriter(baos)) {
+			writer.write(license, format);
+			return baos.toByteArray();
+		}
+	}
+	
+	static License deserialize(ByteBuffer license) throws IOException {
+		try (LicenseReader reader = new LicenseReader(new ByteBufferInputStream(license))) {
+			return reader.read(IOFormat.BINARY);
+		}
+	}
+}
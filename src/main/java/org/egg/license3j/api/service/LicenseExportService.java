@@ -0,0 +1,211 @@
+package org.egg.license3j.api.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.commons.text.StringEscapeUtils;
+import org.egg.license3j.api.constants.ExportFormat;
+import org.egg.license3j.api.exceptions.StaleCursorException;
+import org.egg.license3j.api.features.FeatureFactory;
+import org.egg.license3j.api.license.SessionLicense;
+import org.egg.license3j.api.repository.IssuedLicenseRepository;
+import org.egg.license3j.api.repository.RevocationRegistry;
+import org.egg.license3j.api.repository.ScanCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax0.license3j.Feature;
+import javax0.license3j.License;
+
+/**
+ * Streams the issued licenses as NDJSON or CSV.
+ * <p>
+ * Licenses are read from the repository one record at a time and written straight
+ * to the response, so memory use does not grow with the number of licenses.
+ * Every exported record carries the cursor that resumes the export after it. An
+ * export that cannot be finished ends with an error record instead, see
+ * {@link #export}.
+ */
+@Service
+public class LicenseExportService {
+	
+	private static final String CSV_HEADER = "licenseId,issuedAt,signature,revoked,features,cursor";
+	private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+	
+	private final IssuedLicenseRepository repository;
+	private final RevocationRegistry revocations;
+	private final ObjectMapper objectMapper;
+	private final CryptoExecutor crypto;
+	
+	private static final Logger logger = LoggerFactory.getLogger(LicenseExportService.class);
+	
+	@Autowired
+	public LicenseExportService(IssuedLicenseRepository repository, RevocationRegistry revocations, ObjectMapper objectMapper, CryptoExecutor crypto) {
+		this.repository = repository;
+		this.revocations = revocations;
+		this.objectMapper = objectMapper;
+		this.crypto = crypto;
+	}
+	
+	// parse the cursor of a resumed export, checked before the response is started
+	public ScanCursor startAt(String cursor) throws ResponseStatusException {
+		if (cursor == null || cursor.isBlank()) {
+			return repository.start();
+		}
+		ScanCursor parsed;
+		try {
+			parsed = ScanCursor.parse(cursor);
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor "+cursor+" is not valid");
+		}
+		if (parsed.generation() != repository.start().generation()) {
+			throw new ResponseStatusException(HttpStatus.GONE, "The issued licenses have been archived since the cursor was created, restart the export");
+		}
+		try {
+			if (!repository.isRecordBoundary(parsed)) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor "+cursor+" is not valid");
+			}
+		} catch (IOException e) {
+			logger.error("The cursor {} could not be checked", cursor, e);
+			throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "The issued licenses could not be read");
+		}
+		return parsed;
+	}
+	
+	/**
+	 * Writes every issued license from the cursor on
+	 * 
+	 * @param from      cursor to start from
+	 * @param format    format of the export
+	 * @param publicKey key the signatures are verified with, or null to leave them unverified
+	 * @param output    stream the export is written to
+	 * @return number of exported licenses
+	 * @throws IOException if the store could not be read, the output could not be written or the
+	 *                     licenses were archived during the export, after an error record was written
+	 */
+	public long export(ScanCursor from, ExportFormat format, PublicKey publicKey, OutputStream output) throws IOException {
+		long start = System.nanoTime();
+		long[] exported = new long[1];
+		Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+		if (format == ExportFormat.CSV) {
+			writer.write(CSV_HEADER);
+			writer.write('\n');
+		}
+		
+		ScanCursor[] last = {from};
+		try {
+			repository.scan(from, null, (licenseId, issuedAt, payload, next) -> {
+				writeRecord(writer, format, licenseId, issuedAt, payload, publicKey, next);
+				last[0] = next;
+				exported[0]++;
+			});
+		} catch (StaleCursorException e) {
+			// the status has been sent already, so the export ends with an error record and the connection is
+			// aborted, a client that missed the record still sees the response end without its last chunk
+			logger.warn("Export stopped after {} licenses: {}", exported[0], e.getMessage());
+			writeError(writer, format, "The issued licenses have been archived during the export, restart the export", last[0]);
+			writer.flush();
+			throw new IOException("Export stopped after "+exported[0]+" licenses", e);
+		}
+		writer.flush();
+		logger.info("Exported {} issued licenses as {} in {} ms", exported[0], format, (System.nanoTime() - start) / 1_000_000);
+		return exported[0];
+	}
+	
+	private void writeRecord(Writer writer, ExportFormat format, UUID licenseId, long issuedAt, ByteBuffer payload, PublicKey publicKey, ScanCursor next) throws IOException {
+		License license;
+		try {
+			license = IssuedLicenseService.deserialize(payload);
+		} catch (IOException | IllegalArgumentException e) {
+			logger.warn("Stored license {} could not be read and is left out of the export", licenseId);
+			return;
+		}
+		
+		Map<String, Map<String, String>> features = new LinkedHashMap<>();
+		for (Feature feature : license.getFeatures().values()) {
+			if (!SessionLicense.SIGNATURE_FEATURE.equals(feature.name())) {
+				Map<String, String> rendered = new LinkedHashMap<>();
+				rendered.put("type", FeatureFactory.typeOf(feature).name());
+				rendered.put("value", FeatureFactory.format(feature));
+				features.put(feature.name(), rendered);
+			}
+		}
+		String signature = signatureStatus(license, publicKey);
+		boolean revoked = !revocations.isEmpty() && revocations.isRevoked(licenseId);
+		
+		if (format == ExportFormat.CSV) {
+			writer.write(licenseId.toString());
+			writer.write(',');
+			writer.write(Instant.ofEpochMilli(issuedAt).toString());
+			writer.write(',');
+			writer.write(signature);
+			writer.write(',');
+			writer.write(Boolean.toString(revoked));
+			writer.write(',');
+			writer.write(StringEscapeUtils.escapeCsv(objectMapper.writeValueAsString(features)));
+			writer.write(',');
+			writer.write(next.toString());
+		} else {
+			Map<String, Object> record = new LinkedHashMap<>();
+			record.put("licenseId", licenseId);
+			record.put("issuedAt", Instant.ofEpochMilli(issuedAt).toString());
+			record.put("signature", signature);
+			record.put("revoked", revoked);
+			record.put("features", features);
+			record.put("cursor", next.toString());
+			writer.write(objectMapper.writeValueAsString(record));
+		}
+		writer.write('\n');
+	}
+	
+	// the error record has the signature "error", the message in place of the features and the cursor of the last exported license
+	private void writeError(Writer writer, ExportFormat format, String message, ScanCursor last) throws IOException {
+		if (format == ExportFormat.CSV) {
+			writer.write(",,error,,");
+			writer.write(StringEscapeUtils.escapeCsv(message));
+			writer.write(',');
+			writer.write(last.toString());
+		} else {
+			Map<String, Object> record = new LinkedHashMap<>();
+			record.put("signature", "error");
+			record.put("error", message);
+			record.put("cursor", last.toString());
+			writer.write(objectMapper.writeValueAsString(record));
+		}
+		writer.write('\n');
+	}
+	
+	private String signatureStatus(License license, PublicKey publicKey) {
+		if (!IssuedLicenseService.isSigned(license)) {
+			return "unsigned";
+		}
+		if (publicKey == null) {
+			return "unverified";
+		}
+		try {
+			return crypto.execute(() -> license.isOK(publicKey)) ? "valid" : "invalid";
+		} catch (GeneralSecurityException e) {
+			return "invalid";
+		} catch (ResponseStatusException e) {
+			// a busy crypto pool leaves the license unchecked rather than stopping the whole export
+			return "unverified";
+		}
+	}
+}
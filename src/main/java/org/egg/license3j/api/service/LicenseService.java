@@ -1,372 +1,536 @@
 package org.egg.license3j.api.service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.security.spec.InvalidKeySpecException;
-
-import javax.crypto.BadPaddingException;
-import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+import org.egg.license3j.api.constants.FeatureChange;
 import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.constants.LicenseOperation;
+import org.egg.license3j.api.dto.FeatureRequest;
+import org.egg.license3j.api.events.KeyBundleEvent;
+import org.egg.license3j.api.events.KeyGenerationEvent;
+import org.egg.license3j.api.events.LicenseReadEvent;
+import org.egg.license3j.api.events.LicenseSignEvent;
+import org.egg.license3j.api.events.LicenseVerifyEvent;
+import org.egg.license3j.api.events.LicenseWriteEvent;
+import org.egg.license3j.api.events.PublicKeyDigestEvent;
+import org.egg.license3j.api.exceptions.FeatureValidationException;
+import org.egg.license3j.api.license.LicenseFiles;
+import org.egg.license3j.api.license.LicenseFiles.KeyBundle;
+import org.egg.license3j.api.license.LicenseState;
+import org.egg.license3j.api.license.SessionLicense;
+import org.egg.license3j.api.logging.SampledLogger;
+import org.egg.license3j.api.logging.SessionTag;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.annotation.SessionScope;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.server.ResponseStatusException;
 
-import javax0.license3j.Feature;
 import javax0.license3j.License;
 import javax0.license3j.crypto.LicenseKeyPair;
 import javax0.license3j.io.IOFormat;
-import javax0.license3j.io.KeyPairReader;
-import javax0.license3j.io.KeyPairWriter;
-import javax0.license3j.io.LicenseReader;
-import javax0.license3j.io.LicenseWriter;
-import net.lingala.zip4j.io.outputstream.ZipOutputStream;
-import net.lingala.zip4j.model.ZipParameters;
-import net.lingala.zip4j.model.enums.CompressionLevel;
-import net.lingala.zip4j.model.enums.CompressionMethod;
 
+/**
+ * License and keys a session works on.
+ * <p>
+ * The state and its changes are kept by a {@link SessionLicense}, which the
+ * reactive API shares. This service adds what only the servlet API has: the
+ * operation metrics, the flight recorder events and the crypto executor the
+ * cryptography runs on.
+ */
 @Component
 @SessionScope
 public class LicenseService {
-	
-	private License license;
-	private boolean licenseToSave = false;
-	private boolean licenseToSign = false;
-	private LicenseKeyPair keyPair;
-	
+
+	private final SessionLicense session = new SessionLicense();
+
+	private final CryptoExecutor crypto;
+
+	private final LicenseMetrics metrics;
+
+	private final RandomnessProvider randomness;
+
+	// tag of the session owning this state, recorded in the flight recorder events
+	private final String sessionTag;
+
+	// rendering of the last displayed license, licenses in the state are never changed in place
+	// so it stays valid until a change of the features puts another license into the state
+	private volatile Rendering rendering;
+
 	private static final Logger logger = LoggerFactory.getLogger(LicenseService.class);
-	
+
+	// requests the client got wrong, logged without stack traces and sampled when they repeat
+	private static final SampledLogger clientErrors = SampledLogger.of(logger);
+
+	@Autowired
+	public LicenseService(CryptoExecutor crypto, LicenseMetrics metrics, RandomnessProvider randomness) {
+		this.crypto = crypto;
+		this.metrics = metrics;
+		this.randomness = randomness;
+		RequestAttributes request = RequestContextHolder.getRequestAttributes();
+		this.sessionTag = request != null ? SessionTag.of(request.getSessionId()) : null;
+	}
+
+	/**
+	 * A saved license file with the license it was written from
+	 *
+	 * @param file    the license in the requested format
+	 * @param license the saved license, later changes of the session do not affect it
+	 * @param version state version after saving
+	 */
+	public record SavedLicense(ByteArrayResource file, License license, long version) {}
+
+	/**
+	 * Rendering of the license of a state version
+	 *
+	 * @param text    the license in the STRING format
+	 * @param version state version the license belongs to
+	 */
+	public record RenderedLicense(String text, long version) {}
+
+	/**
+	 * Outcome of verifying the license of a state version
+	 *
+	 * @param status whether the license is properly signed, as reported to the client
+	 * @param state  the verified state, later changes of the session do not affect it
+	 */
+	public record VerifiedLicense(String status, LicenseState state) {}
+
+	private record Rendering(License license, String text) {}
+
 	// accessory functions
+		public long getVersion() {
+			return session.current().version();
+		}
+
 		public Boolean isLicenseLoaded() {
-			return license != null;
+			return session.current().license() != null;
 		}
-		
+
 		public Boolean licenseRequiresSaving() {
-			return licenseToSave;
+			return session.current().toSave();
 		}
-		
+
 		public Boolean licenseRequiresSigning() {
-			return licenseToSign;
+			return session.current().toSign();
 		}
-		
+
 		public Boolean isPrivateKeyLoaded() {
-			return (keyPair != null && keyPair.getPair() != null && keyPair.getPair().getPrivate() != null);
+			return session.current().hasPrivateKey();
 		}
-		
+
 		public Boolean isPublicKeyLoaded() {
-			return (keyPair != null && keyPair.getPair() != null && keyPair.getPair().getPublic() != null);
+			return session.current().hasPublicKey();
 		}
-		
+
+		// null if no public key has been loaded
+		public PublicKey getPublicKey() {
+			LicenseState current = session.current();
+			return current.hasPublicKey() ? current.keyPair().getPair().getPublic() : null;
+		}
+
+		// the license must not be changed by the caller, it is shared with the session state
+		public License getLicense() {
+			return session.current().license();
+		}
+
+		public Map<String, FeatureChange> getChangedFeatures() {
+			return new LinkedHashMap<>(session.current().changedFeatures());
+		}
+
 		public Boolean isFileNameValid(String fileName) {
-			return !fileName.contains("..") && !fileName.contains("/") && !fileName.contains("\\");
+			return LicenseFiles.isFileNameValid(fileName);
 		}
-	
+
 	// generate a new license if there are no previously unsaved licenses
-		public void newLicense() throws ResponseStatusException {
-			if (!licenseToSave) {
-				license = new License();
-				licenseToSign = true;
-				logger.info("A new license has been generated in memory"); 
-			} else {
-				logger.warn("An unsaved license is detected in memory");
-				throw new ResponseStatusException(HttpStatus.CONFLICT, "An unsaved license is detected. Please save it first.");
-			}
+		public long newLicense() throws ResponseStatusException {
+			return newLicense(null);
+		}
+
+		public long newLicense(Long expectedVersion) throws ResponseStatusException {
+			return metrics.time(LicenseOperation.NEW_LICENSE, null, () -> doNewLicense(expectedVersion));
+		}
+
+		private long doNewLicense(Long expectedVersion) throws ResponseStatusException {
+			LicenseState created = session.newLicense(expectedVersion);
+			logger.info("A new license has been generated in memory");
+			return created.version();
 		}
-		
+
 		// save license to file
-		public ByteArrayResource saveLicense(String licenseName, IOFormat format) throws ResponseStatusException {
-			
+		public SavedLicense saveLicense(String licenseName, IOFormat format) throws ResponseStatusException {
+			return metrics.time(LicenseOperation.SAVE_LICENSE, format, () -> doSaveLicense(licenseName, format));
+		}
+
+		private SavedLicense doSaveLicense(String licenseName, IOFormat format) throws ResponseStatusException {
 			if(Boolean.FALSE.equals(isFileNameValid(licenseName))) {
 				throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE, "Invalid File Name");
 			}
-			
-			if (license == null) {
-				logger.error("No license in memory. Please create or load a license");
-				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No license in memory. Please create or load a license");
-			} 
-			
-			if(licenseToSign) {
-				logger.error("License needs to be signed before saving");
-				throw new ResponseStatusException(HttpStatus.CONFLICT, "License needs to be signed before saving");
-			}
-			
-			try (ByteArrayOutputStream baos = new ByteArrayOutputStream(); LicenseWriter writer = new LicenseWriter(baos)) {
-				writer.write(license, format);
-				licenseToSave = false;
-				logger.info("License Written Successfully");
-				return new ByteArrayResource(baos.toByteArray());
-			} catch (IOException e) {
-				logger.error(e.getMessage(), e);
-				throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An I/O error occured during writing the license");
+
+			while (true) {
+				LicenseState current = session.savable();
+				License license = current.license();
+
+				LicenseWriteEvent event = new LicenseWriteEvent();
+				event.begin();
+				byte[] file = LicenseFiles.write(license, format);
+				written(event, format, license, file.length);
+
+				// only the written snapshot is marked as saved, a license changed meanwhile is written again
+				LicenseState saved = session.saved(current);
+				if (saved != null) {
+					logger.info("License Written Successfully");
+					return new SavedLicense(new ByteArrayResource(file), license, saved.version());
+				}
 			}
 		}
-		
+
 		// dump license to screen
-		public String displayLicense() throws ResponseStatusException {
-			if (license == null) {
-				logger.error("No license in memory. Please create or load a license");
-				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No license in memory. Please create or load a license");
-			}
+		public RenderedLicense displayLicense() throws ResponseStatusException {
+			return metrics.time(LicenseOperation.DISPLAY_LICENSE, null, () -> doDisplayLicense());
+		}
 
-			try (ByteArrayOutputStream baos = new ByteArrayOutputStream(); LicenseWriter lw = new LicenseWriter(baos)) {
-				lw.write(license, IOFormat.STRING);
-				return baos.toString(StandardCharsets.UTF_8);
-			} catch (IOException e) {
-				logger.error(e.getMessage(), e);
-				throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An I/O error occured during writing license bytes");
+		private RenderedLicense doDisplayLicense() throws ResponseStatusException {
+			LicenseState current = session.current();
+			License license = SessionLicense.requireLicense(current);
+
+			Rendering cached = rendering;
+			if (cached != null && cached.license() == license) {
+				return new RenderedLicense(cached.text(), current.version());
 			}
+
+			LicenseWriteEvent event = new LicenseWriteEvent();
+			event.begin();
+			byte[] bytes = LicenseFiles.write(license, IOFormat.STRING);
+			written(event, IOFormat.STRING, license, bytes.length);
+			String text = new String(bytes, StandardCharsets.UTF_8);
+			rendering = new Rendering(license, text);
+			return new RenderedLicense(text, current.version());
 		}
-		
+
 		// load an existing license
-		public void loadLicense(InputStream licenseInputStream, IOFormat format) throws ResponseStatusException {
-			if (licenseToSave) {
-				throw new ResponseStatusException(HttpStatus.CONFLICT, "Unsaved license detected in memory. Please save the license first.");
-			}
+		public long loadLicense(InputStream licenseInputStream, IOFormat format) throws ResponseStatusException {
+			return loadLicense(licenseInputStream, format, null);
+		}
+
+		public long loadLicense(InputStream licenseInputStream, IOFormat format, Long expectedVersion) throws ResponseStatusException {
+			return metrics.time(LicenseOperation.LOAD_LICENSE, format, () -> doLoadLicense(licenseInputStream, format, expectedVersion));
+		}
+
+		private long doLoadLicense(InputStream licenseInputStream, IOFormat format, Long expectedVersion) throws ResponseStatusException {
+			session.requireNothingToSave(expectedVersion);
 
-			try (LicenseReader reader = new LicenseReader(licenseInputStream)) {
-				license = reader.read(format);
-				licenseToSave = false;
-				licenseToSign = false;
-				logger.info("License is loaded in memory.");
-			} catch (IOException | IllegalArgumentException e) {
+			LicenseReadEvent event = new LicenseReadEvent();
+			event.begin();
+			BoundedInputStream counted;
+			try {
+				counted = BoundedInputStream.builder().setInputStream(licenseInputStream).get();
+			} catch (IOException e) {
 				logger.error("An error occured during loading the license from file", e);
 				throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An error occured during loading the license from file");
-			} 
+			}
+			License loaded = LicenseFiles.read(counted, format);
+			event.end();
+			if (event.shouldCommit()) {
+				event.sessionTag = sessionTag;
+				event.format = format.name();
+				event.features = loaded.getFeatures().size();
+				event.bytes = counted.getCount();
+				event.commit();
+			}
+
+			LicenseState next = session.load(loaded, expectedVersion);
+			logger.info("License is loaded in memory.");
+			return next.version();
 		}
-		
+
 		// add features to a license
-		public void addFeature(String featureName, FeatureType type, String featureContent) throws ResponseStatusException {
-			if (license == null) {
-				logger.error("No license in memory. Feature cannot be added.");
-				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No license in memory. Please create or load a license");
-			}
+		public long addFeature(String featureName, FeatureType type, String featureContent) throws ResponseStatusException {
+			return addFeature(featureName, type, featureContent, null);
+		}
+
+		public long addFeature(String featureName, FeatureType type, String featureContent, Long expectedVersion) throws ResponseStatusException {
+			return metrics.time(LicenseOperation.ADD_FEATURE, null, () -> doAddFeature(featureName, type, featureContent, expectedVersion));
+		}
+
+		private long doAddFeature(String featureName, FeatureType type, String featureContent, Long expectedVersion) throws ResponseStatusException {
+			LicenseState next = session.addFeature(featureName, type, featureContent, expectedVersion);
+			logger.debug("Feature: {} of type {} has been added to the license. License must be signed before saving.", featureName, type);
+			return next.version();
+		}
 
-			license.add(Feature.Create.from(featureName+":"+type+"="+featureContent));
-			licenseToSave = true;
-			licenseToSign = true;
-			logger.info("Feature: {} of type {} with content {} has been added to the license. License must be signed before saving.", featureName, type, featureContent);
+		// add several features to a license at once
+		// every entry is validated first, the license is only changed if all of them are valid
+		public long addFeatures(List<FeatureRequest> features) throws ResponseStatusException, FeatureValidationException {
+			return addFeatures(features, null);
 		}
-		
+
+		public long addFeatures(List<FeatureRequest> features, Long expectedVersion) throws ResponseStatusException, FeatureValidationException {
+			return metrics.time(LicenseOperation.ADD_FEATURES, null, () -> doAddFeatures(features, expectedVersion));
+		}
+
+		private long doAddFeatures(List<FeatureRequest> features, Long expectedVersion) throws ResponseStatusException, FeatureValidationException {
+			LicenseState next = session.addFeatures(features, expectedVersion);
+			logger.debug("{} features have been added to the license. License must be signed before saving.", features.size());
+			return next.version();
+		}
+
+		// replace the content or type of an existing feature
+		public long updateFeature(String featureName, FeatureType type, String featureContent) throws ResponseStatusException {
+			return updateFeature(featureName, type, featureContent, null);
+		}
+
+		public long updateFeature(String featureName, FeatureType type, String featureContent, Long expectedVersion) throws ResponseStatusException {
+			return metrics.time(LicenseOperation.UPDATE_FEATURE, null, () -> doUpdateFeature(featureName, type, featureContent, expectedVersion));
+		}
+
+		private long doUpdateFeature(String featureName, FeatureType type, String featureContent, Long expectedVersion) throws ResponseStatusException {
+			LicenseState next = session.updateFeature(featureName, type, featureContent, expectedVersion);
+			logger.debug("Feature: {} has been updated to type {}. License must be signed before saving.", featureName, type);
+			return next.version();
+		}
+
+		// remove an existing feature
+		public long removeFeature(String featureName) throws ResponseStatusException {
+			return removeFeature(featureName, null);
+		}
+
+		public long removeFeature(String featureName, Long expectedVersion) throws ResponseStatusException {
+			return metrics.time(LicenseOperation.REMOVE_FEATURE, null, () -> doRemoveFeature(featureName, expectedVersion));
+		}
+
+		private long doRemoveFeature(String featureName, Long expectedVersion) throws ResponseStatusException {
+			LicenseState next = session.removeFeature(featureName, expectedVersion);
+			logger.debug("Feature: {} has been removed. License must be signed before saving.", featureName);
+			return next.version();
+		}
+
 		// will generate a private-key public-key pair and load it in memory
-		private void generateKeys(String algorithm, int size) throws NoSuchAlgorithmException {
-				keyPair = LicenseKeyPair.Create.from(algorithm, size);
+		private long generateKeys(String algorithm, int size, Long expectedVersion) throws GeneralSecurityException {
+				session.current(expectedVersion);
+				KeyGenerationEvent event = new KeyGenerationEvent();
+				event.begin();
+				// drawn from the SecureRandom of the thread the crypto executor runs the generation on
+				LicenseKeyPair generated = crypto.execute(() -> {
+					KeyPair pair = randomness.generateKeyPair(algorithm, size);
+					return LicenseKeyPair.Create.from(pair.getPublic(), pair.getPrivate(), algorithm);
+				});
+				event.end();
+				if (event.shouldCommit()) {
+					event.sessionTag = sessionTag;
+					event.cipher = algorithm;
+					event.keySize = size;
+					event.commit();
+				}
+				long version = session.generated(generated, expectedVersion).version();
 				logger.info("Private and Public Keys loaded in memory");
+				return version;
 		}
 
 		// will save the loaded keys to file
 		// uses the generateKeys() method internally
 
-		public void generate(String cipher, int size) throws ResponseStatusException {
-			
+		public long generate(String cipher, int size) throws ResponseStatusException {
+			return generate(cipher, size, null);
+		}
+
+		public long generate(String cipher, int size, Long expectedVersion) throws ResponseStatusException {
+			return metrics.time(LicenseOperation.GENERATE_KEYS, null, () -> doGenerate(cipher, size, expectedVersion));
+		}
+
+		private long doGenerate(String cipher, int size, Long expectedVersion) throws ResponseStatusException {
 			try {
-				generateKeys(cipher, size);
-			} catch (NoSuchAlgorithmException e) {
-				logger.error("Algorithm Unavailable", e);
+				return generateKeys(cipher, size, expectedVersion);
+			} catch (GeneralSecurityException e) {
+				clientErrors.warn("Algorithm {} is unavailable: {}", cipher, e.getMessage());
 				throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, cipher+" is not available in the environment");
 			}
 		}
-		
+
 		// bundle the keys in a zip format for download
 		public ByteArrayResource saveKeys(String privateKeyName, String publicKeyName, IOFormat format) throws ResponseStatusException {
-			
+			return metrics.time(LicenseOperation.SAVE_KEYS, format, () -> doSaveKeys(privateKeyName, publicKeyName, format));
+		}
+
+		private ByteArrayResource doSaveKeys(String privateKeyName, String publicKeyName, IOFormat format) throws ResponseStatusException {
 			if(Boolean.FALSE.equals(isFileNameValid(privateKeyName)) || Boolean.FALSE.equals(isFileNameValid(publicKeyName))) {
 				throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE, "Invalid Key Names");
 			}
-			
-			if(Boolean.TRUE.equals(!isPrivateKeyLoaded()) || Boolean.TRUE.equals(!isPublicKeyLoaded()))
-				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either or both of the keys are not loaded");			
-			
-			try (ByteArrayOutputStream privateKeyOutputStream = new ByteArrayOutputStream();
-					ByteArrayOutputStream publicKeyOutputStream = new ByteArrayOutputStream();
-					ByteArrayOutputStream zippedKeysOutputStream = new ByteArrayOutputStream();
-					KeyPairWriter writer = new KeyPairWriter(privateKeyOutputStream, publicKeyOutputStream)) {
-				
-				writer.write(keyPair, format);
-				logger.info("Keys have been written for output");
-				
-				try (ZipOutputStream zos = new ZipOutputStream(zippedKeysOutputStream)) {
-
-					// Write private key entry
-					ZipParameters privateParams = new ZipParameters();
-					privateParams.setCompressionMethod(CompressionMethod.DEFLATE);
-					privateParams.setCompressionLevel(CompressionLevel.NORMAL);
-					privateParams.setFileNameInZip(privateKeyName);
-					privateParams.setEntrySize(privateKeyOutputStream.size());
-					privateParams.setLastModifiedFileTime(System.currentTimeMillis());
-					zos.putNextEntry(privateParams);
-					zos.write(privateKeyOutputStream.toByteArray());
-					zos.closeEntry();
-
-					// Write public key entry
-					ZipParameters publicParams = new ZipParameters();
-					publicParams.setCompressionMethod(CompressionMethod.DEFLATE);
-					publicParams.setCompressionLevel(CompressionLevel.NORMAL);
-					publicParams.setFileNameInZip(publicKeyName);
-					publicParams.setEntrySize(publicKeyOutputStream.size());
-					publicParams.setLastModifiedFileTime(System.currentTimeMillis());
-					zos.putNextEntry(publicParams);
-					zos.write(publicKeyOutputStream.toByteArray());
-					zos.closeEntry();
-				}
 
-	                        
-				return new ByteArrayResource(zippedKeysOutputStream.toByteArray());
-			} catch (IOException e) {
-				logger.error("An I/O error occured during writing keys to files", e);
-				throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An I/O error occured during writing keys to files");
-			}
-		}
-		
-		private LicenseKeyPair merge(LicenseKeyPair oldKp, LicenseKeyPair newKp) {
-			if (oldKp == null) {
-				return newKp;
-			}
-			final String cipher = oldKp.cipher();
-			if (newKp.getPair().getPublic() != null) {
-				return LicenseKeyPair.Create.from(newKp.getPair().getPublic(), oldKp.getPair().getPrivate(), cipher);
-			}
-			if (newKp.getPair().getPrivate() != null) {
-				return LicenseKeyPair.Create.from(oldKp.getPair().getPublic(), newKp.getPair().getPrivate(), cipher);
+			LicenseState current = session.current();
+			if(!current.hasPrivateKey() || !current.hasPublicKey())
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either or both of the keys are not loaded");
+
+			KeyBundleEvent event = new KeyBundleEvent();
+			event.begin();
+			KeyBundle bundle = LicenseFiles.bundle(current.keyPair(), privateKeyName, publicKeyName, format);
+			logger.info("Keys have been written for output");
+			event.end();
+			if (event.shouldCommit()) {
+				event.sessionTag = sessionTag;
+				event.format = format.name();
+				event.keyBytes = bundle.keyBytes();
+				event.zipBytes = bundle.zip().length;
+				event.commit();
 			}
-			return oldKp;
+			return new ByteArrayResource(bundle.zip());
 		}
 
 		// load private key
-		public void loadPrivateKey(InputStream keyFile, IOFormat format) throws ResponseStatusException {
-			if (Boolean.TRUE.equals(isPrivateKeyLoaded())) {
+		public long loadPrivateKey(InputStream keyFile, IOFormat format) throws ResponseStatusException {
+			return loadPrivateKey(keyFile, format, null);
+		}
+
+		public long loadPrivateKey(InputStream keyFile, IOFormat format, Long expectedVersion) throws ResponseStatusException {
+			return metrics.time(LicenseOperation.LOAD_PRIVATE_KEY, format, () -> doLoadPrivateKey(keyFile, format, expectedVersion));
+		}
+
+		private long doLoadPrivateKey(InputStream keyFile, IOFormat format, Long expectedVersion) throws ResponseStatusException {
+			if (session.current(expectedVersion).hasPrivateKey()) {
 				logger.info("Private Key in memory will be overriden by a new key loaded from a file.");
 			}
 
-			try (KeyPairReader kpread = new KeyPairReader(keyFile)) {
-				keyPair = merge(keyPair, kpread.readPrivate(format));
-				logger.info("Private Key Loaded");
-			} catch (IOException  e) {
-				logger.error("An I/O error occured while loading private key", e);
-				throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An I/O error occured while loading private key");
-			} catch (InvalidKeySpecException e) {
-				logger.error("An error occured while loading private key", e);
-				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The given key specification is invalid");
-			} catch (NoSuchAlgorithmException e) {
-				logger.error("An error occured while loading private key", e);
-				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The algorithm with which the key was created seems to be unvailable in the current environment.");
-			}
+			long version = session.loaded(LicenseFiles.readPrivateKey(keyFile, format), expectedVersion).version();
+			logger.info("Private Key Loaded");
+			return version;
 		}
 
 		// load public key
-		public void loadPublicKey(InputStream keyFile, IOFormat format) throws ResponseStatusException  {
-			if (Boolean.TRUE.equals(isPublicKeyLoaded())) {
-				logger.info("Public Key in memory will be overriden by a new key loaded from a file.");
-			}
+		public long loadPublicKey(InputStream keyFile, IOFormat format) throws ResponseStatusException  {
+			return loadPublicKey(keyFile, format, null);
+		}
 
+		public long loadPublicKey(InputStream keyFile, IOFormat format, Long expectedVersion) throws ResponseStatusException  {
+			return metrics.time(LicenseOperation.LOAD_PUBLIC_KEY, format, () -> doLoadPublicKey(keyFile, format, expectedVersion));
+		}
 
-			try (KeyPairReader kpread = new KeyPairReader(keyFile)) {
-				keyPair = merge(keyPair, kpread.readPublic(format));
-				logger.info("Public Key Loaded");
-			} catch (IOException  e) {
-				logger.error("An I/O error occured while loading public key", e);
-				throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An I/O error occured during writing keys to files");
-			} catch (InvalidKeySpecException e) {
-				logger.error("An error occured while loading public key", e);
-				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The given key specification is invalid");
-			} catch (NoSuchAlgorithmException e) {
-				logger.error("An error occured while loading public key", e);
-				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The algorithm with which the key was created seems to be unvailable in the current environment.");
+		private long doLoadPublicKey(InputStream keyFile, IOFormat format, Long expectedVersion) throws ResponseStatusException {
+			if (session.current(expectedVersion).hasPublicKey()) {
+				logger.info("Public Key in memory will be overriden by a new key loaded from a file.");
 			}
+
+			long version = session.loaded(LicenseFiles.readPublicKey(keyFile, format), expectedVersion).version();
+			logger.info("Public Key Loaded");
+			return version;
 		}
-		
+
 		// digest public key
 		public String digestPublicKey() throws ResponseStatusException {
+			return metrics.time(LicenseOperation.DIGEST_PUBLIC_KEY, null, () -> doDigestPublicKey());
+		}
 
+		private String doDigestPublicKey() throws ResponseStatusException {
+			LicenseKeyPair keyPair = session.current().keyPair();
 			if (keyPair == null) {
-				logger.error("No digestable public key loaded.");
+				clientErrors.warn("No digestable public key loaded.");
 				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No public key in memory that can be digested.");
 			}
 
 			byte[] publicKey = keyPair.getPublic();
-			MessageDigest digest;
-			try {
-				digest = MessageDigest.getInstance("SHA-512");
-				byte[] calculatedDigest = digest.digest(publicKey);
-
-				StringBuilder javaCode = new StringBuilder("--KEY DIGEST START\nbyte [] digest = new byte[] {\n");
-				for (int i = 0; i < calculatedDigest.length; i++) {
-					int intVal = (calculatedDigest[i]) & 0xff;
-					javaCode.append(String.format("(byte)0x%02X, ", intVal));
-					if (i % 8 == 0) {
-						javaCode.append("\n");
-					}
-				}
-				javaCode.append("\n};\n---KEY DIGEST END\n");
-
-				javaCode.append("--KEY START\nbyte [] key = new byte[] {\n");
-				for (int i = 0; i < publicKey.length; i++) {
-					int intVal = (publicKey[i]) & 0xff;
-					javaCode.append(String.format("(byte)0x%02X, ", intVal));
-					if (i % 8 == 0) {
-						javaCode.append("\n");
-					}
-				}
-				
-				javaCode.append("\n};\n---KEY END\n");
-				return javaCode.toString();
-				
-			} catch (NoSuchAlgorithmException e) {
-				logger.error("Message Digest Algorithm could not be loaded", e);
-				throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Message Digest Algorithm could not be loaded.");
+			PublicKeyDigestEvent event = new PublicKeyDigestEvent();
+			event.begin();
+			String javaCode = LicenseFiles.digest(publicKey);
+			event.end();
+			if (event.shouldCommit()) {
+				event.sessionTag = sessionTag;
+				event.keyBytes = publicKey.length;
+				event.characters = javaCode.length();
+				event.commit();
 			}
-
+			return javaCode;
 		}
-		
+
 		// sign license
-		public void signLicense() throws ResponseStatusException {
-			if (license == null) {
-				logger.error("No license detected in memory. Load or create a license.");
-				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No license detected in memory.");
-				
-			} else if (Boolean.FALSE.equals(isPrivateKeyLoaded())) {
-				logger.error("Private Key not loaded in memory");
-				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No private key detected in memory.");
-				
-			} else {
-				try {
-					license.sign(keyPair.getPair().getPrivate(), "SHA-512");
-					logger.info("License Signed. Please save before closing the app");
-					licenseToSave = true;
-		            licenseToSign = false;
-				} catch (InvalidKeyException | NoSuchAlgorithmException | NoSuchPaddingException | BadPaddingException
-						| IllegalBlockSizeException e) {
-					logger.error("Signing failed", e);
-					throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed To Sign License ");
+		public long signLicense() throws ResponseStatusException {
+			return signLicense(null);
+		}
+
+		// the signature is made on a copy, a license changed while signing is signed again
+		public long signLicense(Long expectedVersion) throws ResponseStatusException {
+			return metrics.time(LicenseOperation.SIGN_LICENSE, null, () -> doSignLicense(expectedVersion));
+		}
+
+		private long doSignLicense(Long expectedVersion) throws ResponseStatusException {
+			LicenseState signed = session.sign(expectedVersion, (license, keyPair) -> {
+				LicenseSignEvent event = new LicenseSignEvent();
+				event.begin();
+				crypto.execute(() -> {
+					license.sign(keyPair.getPair().getPrivate(), SessionLicense.SIGNATURE_DIGEST);
+					return license;
+				});
+				event.end();
+				if (event.shouldCommit()) {
+					event.sessionTag = sessionTag;
+					event.cipher = keyPair.cipher();
+					event.digest = SessionLicense.SIGNATURE_DIGEST;
+					event.features = license.getFeatures().size();
+					event.commit();
 				}
-				
-			}
+			});
+			logger.info("License Signed. Please save before closing the app");
+			return signed.version();
 		}
-		
+
 		// verify license
-		public String verifyLicense() {
-			if (license == null) {
-				logger.error("No license loaded in memory to be verified.");
-				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No license in memory");
+		public VerifiedLicense verifyLicense() {
+			return metrics.time(LicenseOperation.VERIFY_LICENSE, null, () -> doVerifyLicense());
+		}
+
+		private VerifiedLicense doVerifyLicense() {
+			LicenseState current = session.verifiable();
+
+			boolean properlySigned = isProperlySigned(current);
+			metrics.verified(properlySigned);
+			if (properlySigned) {
+				return new VerifiedLicense("License is properly signed.", current);
+			} else {
+				return new VerifiedLicense("License is NOT properly signed.", current);
+			}
+		}
+
+		private boolean isProperlySigned(LicenseState current) {
+			LicenseVerifyEvent event = new LicenseVerifyEvent();
+			event.begin();
+			boolean properlySigned;
+			try {
+				properlySigned = crypto.execute(() -> current.license().isOK(current.keyPair().getPair().getPublic()));
+			} catch (GeneralSecurityException e) {
+				// isOK reports a broken signature as false and does not throw
+				properlySigned = false;
 			}
-			if (Boolean.FALSE.equals(isPublicKeyLoaded())) {
-				logger.error("No public key loaded in memory to be verified with.");
-				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No public key in memory");
+			event.end();
+			if (event.shouldCommit()) {
+				event.sessionTag = sessionTag;
+				event.cipher = current.keyPair().cipher();
+				event.features = current.license().getFeatures().size();
+				event.properlySigned = properlySigned;
+				event.commit();
 			}
-			
-			if (license.isOK(keyPair.getPair().getPublic())) {
-				return "License is properly signed.";
-			} else {
-				return "License is NOT properly signed.";
+			return properlySigned;
+		}
+
+		private void written(LicenseWriteEvent event, IOFormat format, License license, long bytes) {
+			event.end();
+			if (event.shouldCommit()) {
+				event.sessionTag = sessionTag;
+				event.format = format.name();
+				event.features = license.getFeatures().size();
+				event.bytes = bytes;
+				event.commit();
 			}
 		}
 }
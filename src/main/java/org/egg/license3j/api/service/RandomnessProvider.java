@@ -0,0 +1,88 @@
+package org.egg.license3j.api.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DrbgParameters;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.egg.license3j.api.constants.RandomSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out the SecureRandom instances key generation draws from, one per
+ * thread.
+ * <p>
+ * A KeyPairGenerator initialized without a SecureRandom creates its own from
+ * the JVM default, which may read the blocking entropy source, and threads
+ * that share one instance take turns on its lock. Here every thread seeds its
+ * own instance once, the first time it generates a key. Key generation runs on
+ * the platform threads of the key generation bulkhead and the crypto pool,
+ * CryptoExecutor hands the work of virtual threads to the pool, so the number
+ * of instances stays at the number of those threads.
+ */
+@Component
+public class RandomnessProvider {
+
+	private static final Logger logger = LoggerFactory.getLogger(RandomnessProvider.class);
+
+	private final RandomSource source;
+	private final int strength;
+	private final AtomicLong instances = new AtomicLong();
+	private final ThreadLocal<SecureRandom> randoms;
+
+	public RandomnessProvider(
+			@Value("${license3j.random.source:DRBG}") RandomSource source,
+			@Value("${license3j.random.strength:256}") int strength) {
+		this.source = source;
+		this.strength = strength;
+		// a source the JVM does not offer fails the startup, not the first key generation
+		create();
+		this.randoms = ThreadLocal.withInitial(this::create);
+		logger.info("Key generation draws from a {} SecureRandom per thread", source);
+	}
+
+	// the SecureRandom of the calling thread
+	public SecureRandom current() {
+		return randoms.get();
+	}
+
+	/**
+	 * Generates a key pair with the SecureRandom of the calling thread
+	 *
+	 * @param cipher the cipher of the license key pair, such as RSA/ECB/PKCS1Padding, the key algorithm is its first part
+	 * @param size   the key size in bits
+	 * @return the key pair
+	 * @throws NoSuchAlgorithmException if the key algorithm is not available
+	 */
+	public KeyPair generateKeyPair(String cipher, int size) throws NoSuchAlgorithmException {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance(cipher.split("/", 2)[0]);
+		generator.initialize(size, current());
+		return generator.generateKeyPair();
+	}
+
+	// number of SecureRandom instances created, one per thread that generated a key plus the startup check
+	public long instanceCount() {
+		return instances.get();
+	}
+
+	private SecureRandom create() {
+		instances.incrementAndGet();
+		try {
+			return switch (source) {
+				case DEFAULT -> new SecureRandom();
+				// the personalization string sets apart the output of generators seeded at the same moment
+				case DRBG -> SecureRandom.getInstance(source.algorithm(), DrbgParameters.instantiation(strength, DrbgParameters.Capability.NONE,
+						("license3j-"+Thread.currentThread().threadId()+"-"+instances.get()).getBytes(StandardCharsets.UTF_8)));
+				case NATIVE_PRNG_NON_BLOCKING -> SecureRandom.getInstance(source.algorithm());
+			};
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("The "+source+" SecureRandom is not available in this JVM", e);
+		}
+	}
+}
@@ -0,0 +1,432 @@
+package org.egg.license3j.api.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.egg.license3j.api.constants.ResignJobState;
+import org.egg.license3j.api.exceptions.StaleCursorException;
+import org.egg.license3j.api.repository.IssuedLicenseRepository;
+import org.egg.license3j.api.repository.ScanCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import javax0.license3j.License;
+import javax0.license3j.crypto.LicenseKeyPair;
+import javax0.license3j.io.IOFormat;
+import javax0.license3j.io.KeyPairReader;
+
+/**
+ * Re-signs the issued licenses with a new key after a key rotation.
+ * <p>
+ * A job walks every license recorded up to the moment it starts. Each license is
+ * verified with the old public key and, if the signature holds, signed again with
+ * the new private key and stored under its existing id. Licenses signed with any
+ * other key are left untouched. Licenses are processed in batches on a pool of
+ * worker threads, after each batch the scan cursor and the counters are written
+ * to a checkpoint file. The keys are read from the configured locations whenever
+ * a job is started, never from a session, and are only held in memory while it
+ * runs. A job interrupted by a restart is resumed by starting it again with the
+ * same old key.
+ */
+@Service
+public class ResignJobService {
+
+	private static final String DIGEST_ALGORITHM = "SHA-512";
+
+	private final IssuedLicenseRepository repository;
+	private final IssuedLicenseService issued;
+	private final Path checkpointFile;
+	private final String oldPublicKeyLocation;
+	private final String newPrivateKeyLocation;
+	private final IOFormat keyFormat;
+	private final int threads;
+	private final int batchSize;
+
+	private final AtomicReference<ResignJob> current = new AtomicReference<>();
+
+	private static final Logger logger = LoggerFactory.getLogger(ResignJobService.class);
+
+	public ResignJobService(IssuedLicenseRepository repository, IssuedLicenseService issued,
+			@Value("${license3j.resign.checkpoint-file:data/resign.checkpoint}") Path checkpointFile,
+			@Value("${license3j.resign.old-public-key:}") String oldPublicKeyLocation,
+			@Value("${license3j.resign.new-private-key:}") String newPrivateKeyLocation,
+			@Value("${license3j.resign.key-format:BINARY}") IOFormat keyFormat,
+			@Value("${license3j.resign.threads:0}") int threads,
+			@Value("${license3j.resign.batch-size:1000}") int batchSize) {
+		this.repository = repository;
+		this.issued = issued;
+		this.checkpointFile = checkpointFile;
+		this.oldPublicKeyLocation = oldPublicKeyLocation;
+		this.newPrivateKeyLocation = newPrivateKeyLocation;
+		this.keyFormat = keyFormat;
+		this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		this.batchSize = batchSize;
+	}
+
+	// a license read by the scan, waiting to be re-signed with the rest of its batch
+	private record PendingLicense(UUID licenseId, ByteBuffer payload, ScanCursor next) {
+	}
+
+	/**
+	 * State and counters of a re-sign job
+	 */
+	public static final class ResignJob {
+
+		private final String jobId;
+		private final String oldKeyDigest;
+		private final ScanCursor end;
+		private final long total;
+		private final Instant startedAt;
+
+		private final AtomicLong processed = new AtomicLong();
+		private final AtomicLong resigned = new AtomicLong();
+		private final AtomicLong rejected = new AtomicLong();
+		private final AtomicLong failed = new AtomicLong();
+
+		private volatile ScanCursor cursor;
+		private volatile ResignJobState state;
+		private volatile Instant finishedAt;
+		private volatile boolean cancelRequested;
+
+		// throughput is measured over the current run only, not across restarts
+		private volatile long runStartNanos;
+		private volatile long runStartProcessed;
+
+		private ResignJob(String jobId, String oldKeyDigest, ScanCursor cursor, ScanCursor end, long total, Instant startedAt, ResignJobState state) {
+			this.jobId = jobId;
+			this.oldKeyDigest = oldKeyDigest;
+			this.cursor = cursor;
+			this.end = end;
+			this.total = total;
+			this.startedAt = startedAt;
+			this.state = state;
+		}
+
+		public ResignJobState getState() {
+			return state;
+		}
+
+		public Map<String, Object> progress() {
+			long done = processed.get();
+			Map<String, Object> progress = new LinkedHashMap<>();
+			progress.put("jobId", jobId);
+			progress.put("state", state);
+			progress.put("processed", done);
+			progress.put("resigned", resigned.get());
+			progress.put("rejected", rejected.get());
+			progress.put("failed", failed.get());
+			progress.put("total", total);
+			progress.put("percent", total == 0 ? 100.0 : Math.min(100.0, Math.round(done * 1000.0 / total) / 10.0));
+			progress.put("throughput", throughput());
+			progress.put("cursor", cursor.toString());
+			progress.put("startedAt", startedAt.toString());
+			progress.put("finishedAt", finishedAt == null ? null : finishedAt.toString());
+			return progress;
+		}
+
+		// licenses per second in the current run
+		private long throughput() {
+			if (runStartNanos == 0) {
+				return 0;
+			}
+			double seconds = (System.nanoTime() - runStartNanos) / 1_000_000_000.0;
+			return seconds <= 0 ? 0 : Math.round((processed.get() - runStartProcessed) / seconds);
+		}
+	}
+
+	// a job that was running when the application stopped is reported as interrupted
+	@PostConstruct
+	public void loadCheckpoint() throws IOException {
+		readCheckpoint().ifPresent(job -> {
+			if (job.state == ResignJobState.RUNNING) {
+				job.state = ResignJobState.INTERRUPTED;
+			}
+			current.set(job);
+			logger.info("Re-sign job {} found in state {} after {} licenses", job.jobId, job.state, job.processed.get());
+		});
+	}
+
+	@PreDestroy
+	public void stop() {
+		ResignJob job = current.get();
+		if (job != null && job.state == ResignJobState.RUNNING) {
+			job.cancelRequested = true;
+		}
+	}
+
+	public Optional<ResignJob> currentJob() {
+		return Optional.ofNullable(current.get());
+	}
+
+	/**
+	 * Starts a re-sign job with the configured keys, or resumes the unfinished one if it was started with the same old key
+	 *
+	 * @param restart discard an unfinished job and start over
+	 * @return the started job
+	 * @throws ResponseStatusException if the keys are not configured or readable, another job is running or cannot be resumed, or the issued licenses are being archived
+	 */
+	public ResignJob start(boolean restart) throws ResponseStatusException {
+		if (oldPublicKeyLocation.isBlank() || newPrivateKeyLocation.isBlank()) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "The old public key and the new private key have to be configured to re-sign licenses");
+		}
+		PublicKey oldPublicKey = readKey(oldPublicKeyLocation, false).getPair().getPublic();
+		PrivateKey newPrivateKey = readKey(newPrivateKeyLocation, true).getPair().getPrivate();
+		String oldKeyDigest = digest(oldPublicKey);
+
+		synchronized (current) {
+			ResignJob previous = current.get();
+			if (previous != null && previous.state == ResignJobState.RUNNING) {
+				throw new ResponseStatusException(HttpStatus.CONFLICT, "Re-sign job "+previous.jobId+" is already running");
+			}
+
+			// archiving is blocked before the cursors are taken, so they stay valid for the whole job
+			issued.blockArchiving();
+			try {
+				ResignJob job;
+				if (!restart && previous != null && previous.state != ResignJobState.COMPLETED) {
+					if (!previous.oldKeyDigest.equals(oldKeyDigest)) {
+						throw new ResponseStatusException(HttpStatus.CONFLICT, "Re-sign job "+previous.jobId+" was started with a different key, restart it to discard it");
+					}
+					if (previous.cursor.generation() != repository.start().generation()) {
+						throw new ResponseStatusException(HttpStatus.CONFLICT, "The issued licenses have been archived since re-sign job "+previous.jobId+" stopped, restart it to discard it");
+					}
+					job = previous;
+					job.state = ResignJobState.RUNNING;
+					job.finishedAt = null;
+					job.cancelRequested = false;
+					logger.info("Resuming re-sign job {} after {} licenses", job.jobId, job.processed.get());
+				} else {
+					job = new ResignJob(UUID.randomUUID().toString(), oldKeyDigest, repository.start(), repository.end(), repository.size(), Instant.now(), ResignJobState.RUNNING);
+					logger.info("Starting re-sign job {} over {} licenses", job.jobId, job.total);
+				}
+
+				current.set(job);
+				Thread runner = new Thread(() -> run(job, oldPublicKey, newPrivateKey), "license-resign-"+job.jobId);
+				runner.setDaemon(true);
+				runner.start();
+				return job;
+			} catch (RuntimeException e) {
+				issued.unblockArchiving();
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Stops the running job after its current batch, it can be resumed later
+	 *
+	 * @return the cancelled job
+	 * @throws ResponseStatusException if no job is running
+	 */
+	public ResignJob cancel() throws ResponseStatusException {
+		ResignJob job = current.get();
+		if (job == null || job.state != ResignJobState.RUNNING) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "No re-sign job is running");
+		}
+		job.cancelRequested = true;
+		return job;
+	}
+
+	private void run(ResignJob job, PublicKey oldPublicKey, PrivateKey newPrivateKey) {
+		AtomicInteger workerCount = new AtomicInteger();
+		ThreadFactory workerFactory = runnable -> {
+			Thread worker = new Thread(runnable, "license-resign-worker-"+workerCount.incrementAndGet());
+			worker.setDaemon(true);
+			return worker;
+		};
+		ExecutorService workers = Executors.newFixedThreadPool(threads, workerFactory);
+		List<PendingLicense> batch = new ArrayList<>(batchSize);
+		job.runStartNanos = System.nanoTime();
+		job.runStartProcessed = job.processed.get();
+
+		try {
+			repository.scan(job.cursor, job.end, (licenseId, issuedAt, payload, next) -> {
+				if (job.cancelRequested) {
+					throw new JobCancelledException();
+				}
+				batch.add(new PendingLicense(licenseId, payload, next));
+				if (batch.size() == batchSize) {
+					processBatch(job, batch, workers, oldPublicKey, newPrivateKey);
+				}
+			});
+			processBatch(job, batch, workers, oldPublicKey, newPrivateKey);
+			finish(job, ResignJobState.COMPLETED);
+		} catch (JobCancelledException e) {
+			finish(job, ResignJobState.CANCELLED);
+		} catch (IOException | StaleCursorException | RuntimeException e) {
+			logger.error("Re-sign job {} failed after {} licenses", job.jobId, job.processed.get(), e);
+			finish(job, ResignJobState.FAILED);
+		} finally {
+			workers.shutdownNow();
+			issued.unblockArchiving();
+		}
+	}
+
+	// re-signs a batch in parallel, the checkpoint only moves once every license of the batch is durable
+	private void processBatch(ResignJob job, List<PendingLicense> batch, ExecutorService workers, PublicKey oldPublicKey, PrivateKey newPrivateKey) throws IOException {
+		if (batch.isEmpty()) {
+			return;
+		}
+		CompletableFuture<?>[] results = batch.stream()
+				.map(pending -> CompletableFuture.supplyAsync(() -> resign(job, pending, oldPublicKey, newPrivateKey), workers)
+						.thenCompose(stored -> stored)
+						.exceptionally(e -> {
+							job.failed.incrementAndGet();
+							logger.warn("License {} could not be re-signed: {}", pending.licenseId(), e.getMessage());
+							return null;
+						}))
+				.toArray(CompletableFuture<?>[]::new);
+		CompletableFuture.allOf(results).join();
+
+		job.processed.addAndGet(batch.size());
+		job.cursor = batch.get(batch.size() - 1).next();
+		batch.clear();
+		writeCheckpoint(job);
+	}
+
+	private CompletableFuture<Void> resign(ResignJob job, PendingLicense pending, PublicKey oldPublicKey, PrivateKey newPrivateKey) {
+		License license;
+		try {
+			license = IssuedLicenseService.deserialize(pending.payload());
+		} catch (IOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		if (!IssuedLicenseService.isSigned(license) || !license.isOK(oldPublicKey)) {
+			job.rejected.incrementAndGet();
+			return CompletableFuture.completedFuture(null);
+		}
+		try {
+			license.sign(newPrivateKey, DIGEST_ALGORITHM);
+		} catch (Exception e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		// stored under the id it was issued with, the content derived id of licenses without an id feature changes
+		return issued.replace(pending.licenseId(), license).thenRun(job.resigned::incrementAndGet);
+	}
+
+	private void finish(ResignJob job, ResignJobState state) {
+		job.state = state;
+		job.finishedAt = Instant.now();
+		try {
+			writeCheckpoint(job);
+		} catch (IOException e) {
+			logger.error("Checkpoint of re-sign job {} could not be written", job.jobId, e);
+		}
+		logger.info("Re-sign job {} {}: {} licenses processed, {} re-signed, {} rejected, {} failed",
+				job.jobId, state, job.processed.get(), job.resigned.get(), job.rejected.get(), job.failed.get());
+	}
+
+	// written to a temporary file first, so a crash leaves either the old or the new checkpoint
+	private void writeCheckpoint(ResignJob job) throws IOException {
+		Properties checkpoint = new Properties();
+		checkpoint.setProperty("jobId", job.jobId);
+		checkpoint.setProperty("oldKeyDigest", job.oldKeyDigest);
+		checkpoint.setProperty("state", job.state.name());
+		checkpoint.setProperty("cursor", job.cursor.toString());
+		checkpoint.setProperty("end", job.end.toString());
+		checkpoint.setProperty("total", Long.toString(job.total));
+		checkpoint.setProperty("processed", Long.toString(job.processed.get()));
+		checkpoint.setProperty("resigned", Long.toString(job.resigned.get()));
+		checkpoint.setProperty("rejected", Long.toString(job.rejected.get()));
+		checkpoint.setProperty("failed", Long.toString(job.failed.get()));
+		checkpoint.setProperty("startedAt", job.startedAt.toString());
+		if (job.finishedAt != null) {
+			checkpoint.setProperty("finishedAt", job.finishedAt.toString());
+		}
+
+		Path directory = checkpointFile.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path temporary = Files.createTempFile(directory, checkpointFile.getFileName().toString(), ".tmp");
+		try (OutputStream output = Files.newOutputStream(temporary)) {
+			checkpoint.store(output, "re-sign job checkpoint");
+		}
+		Files.move(temporary, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private Optional<ResignJob> readCheckpoint() throws IOException {
+		if (!Files.exists(checkpointFile)) {
+			return Optional.empty();
+		}
+		Properties checkpoint = new Properties();
+		try (InputStream input = Files.newInputStream(checkpointFile)) {
+			checkpoint.load(input);
+		}
+		try {
+			ResignJob job = new ResignJob(checkpoint.getProperty("jobId"), checkpoint.getProperty("oldKeyDigest"),
+					ScanCursor.parse(checkpoint.getProperty("cursor")), ScanCursor.parse(checkpoint.getProperty("end")),
+					Long.parseLong(checkpoint.getProperty("total")), Instant.parse(checkpoint.getProperty("startedAt")),
+					ResignJobState.valueOf(checkpoint.getProperty("state")));
+			job.processed.set(Long.parseLong(checkpoint.getProperty("processed")));
+			job.resigned.set(Long.parseLong(checkpoint.getProperty("resigned")));
+			job.rejected.set(Long.parseLong(checkpoint.getProperty("rejected")));
+			job.failed.set(Long.parseLong(checkpoint.getProperty("failed")));
+			String finishedAt = checkpoint.getProperty("finishedAt");
+			job.finishedAt = finishedAt == null ? null : Instant.parse(finishedAt);
+			return Optional.of(job);
+		} catch (RuntimeException e) {
+			logger.warn("Re-sign checkpoint {} is not readable and is ignored", checkpointFile.toAbsolutePath());
+			return Optional.empty();
+		}
+	}
+
+	private LicenseKeyPair readKey(String location, boolean privateKey) throws ResponseStatusException {
+		try (InputStream input = new DefaultResourceLoader().getResource(location).getInputStream();
+				KeyPairReader reader = new KeyPairReader(input)) {
+			return privateKey ? reader.readPrivate(keyFormat) : reader.readPublic(keyFormat);
+		} catch (IOException | GeneralSecurityException e) {
+			logger.error("Re-sign key {} could not be read", location, e);
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "The re-sign key "+location+" could not be read");
+		}
+	}
+
+	private static String digest(PublicKey key) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(key.getEncoded()));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	// unwinds the scan when a job is cancelled between two licenses
+	private static final class JobCancelledException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		JobCancelledException() {
+			super("Re-sign job cancelled", null, false, false);
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package org.egg.license3j.api.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.egg.license3j.api.constants.Bulkhead;
+import org.egg.license3j.api.constants.FeatureType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggerConfiguration;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import javax0.license3j.io.IOFormat;
+
+/**
+ * Exercises key generation, signing, verification, the public key digest and
+ * the serialization of licenses and keys with throwaway keys before the
+ * application takes traffic.
+ * <p>
+ * The first of these calls pay for SecureRandom seeding, the initialization of
+ * the KeyPairGenerator and Cipher providers and the interpreted code the JIT
+ * has not compiled yet. Spring Boot only reports the readiness state as
+ * accepting traffic once the application runners are done, so the warm-up runs
+ * as one and the readiness probe stays down until it finished. The work runs in
+ * the bulkheads the requests use, which also starts their threads.
+ */
+@Service
+public class WarmupService implements ApplicationRunner {
+
+	public static final String WARMUP_DURATION = "license3j.warmup.duration";
+
+	private static final Logger logger = LoggerFactory.getLogger(WarmupService.class);
+
+	// License3j writes keys in the binary formats only, a STRING key bundle fails with an IllegalArgumentException
+	private static final Set<IOFormat> KEY_FORMATS = EnumSet.of(IOFormat.BINARY, IOFormat.BASE64);
+
+	private final CryptoExecutor crypto;
+	private final RandomnessProvider randomness;
+	private final BulkheadExecutor bulkheads;
+	private final LoggingSystem loggingSystem;
+	private final boolean enabled;
+	private final int iterations;
+	private final int keyGenerations;
+	private final int keySize;
+	private final String cipher;
+	private final AtomicLong durationNanos = new AtomicLong();
+
+	public WarmupService(CryptoExecutor crypto, RandomnessProvider randomness, BulkheadExecutor bulkheads, MeterRegistry registry, LoggingSystem loggingSystem,
+			@Value("${license3j.warmup.enabled:true}") boolean enabled,
+			@Value("${license3j.warmup.iterations:50}") int iterations,
+			@Value("${license3j.warmup.key-generations:2}") int keyGenerations,
+			@Value("${license3j.warmup.key-size:2048}") int keySize,
+			@Value("${license3j.warmup.cipher:RSA/ECB/PKCS1Padding}") String cipher) {
+		this.crypto = crypto;
+		this.randomness = randomness;
+		this.bulkheads = bulkheads;
+		this.loggingSystem = loggingSystem;
+		this.enabled = enabled;
+		this.iterations = iterations;
+		this.keyGenerations = keyGenerations;
+		this.keySize = keySize;
+		this.cipher = cipher;
+		TimeGauge.builder(WARMUP_DURATION, durationNanos, TimeUnit.NANOSECONDS, AtomicLong::doubleValue)
+				.description("Time the warm-up took before the application accepted traffic")
+				.register(registry);
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (!enabled) {
+			logger.info("Warm-up is disabled");
+			return;
+		}
+		// every warm-up call would log what it did, only its warnings are kept
+		String serviceLogger = LicenseService.class.getName();
+		LoggerConfiguration configuration = loggingSystem.getLoggerConfiguration(serviceLogger);
+		LogLevel configured = configuration != null ? configuration.getConfiguredLevel() : null;
+		loggingSystem.setLogLevel(serviceLogger, LogLevel.WARN);
+
+		long start = System.nanoTime();
+		try {
+			warmUp();
+		} catch (RuntimeException e) {
+			// a failed warm-up only leaves the first requests slow, it does not keep the application from starting
+			logger.warn("Warm-up stopped early", e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+		} finally {
+			loggingSystem.setLogLevel(serviceLogger, configured);
+		}
+		durationNanos.set(System.nanoTime() - start);
+		logger.info("Warm-up of {} iterations with {} {} bit key generations finished in {} ms", iterations, keyGenerations, keySize, duration());
+	}
+
+	// milliseconds the last warm-up took, 0 if none ran
+	public long duration() {
+		return TimeUnit.NANOSECONDS.toMillis(durationNanos.get());
+	}
+
+	private void warmUp() {
+		// a session of its own, recorded in a registry of its own so the warm-up does not show in the operation metrics
+		LicenseService ls = new LicenseService(crypto, new LicenseMetrics(new SimpleMeterRegistry()), randomness);
+
+		for (int i = 0; i < keyGenerations; i++) {
+			bulkheads.submit(Bulkhead.KEYGEN, () -> ls.generate(cipher, keySize)).join();
+		}
+		ls.newLicense();
+		ls.addFeature("edition", FeatureType.STRING, "warm-up");
+		ls.addFeature("seats", FeatureType.INT, "10");
+		ls.addFeature("expiryDate", FeatureType.DATE, "2030-12-31 23:59:59.999");
+		ls.addFeature("id", FeatureType.UUID, "3f2504e0-4f89-11d3-9a0c-0305e82c3301");
+
+		for (int i = 0; i < iterations; i++) {
+			bulkheads.submit(Bulkhead.SIGN, ls::signLicense).join();
+			bulkheads.submit(Bulkhead.VERIFY, ls::verifyLicense).join();
+			ls.digestPublicKey();
+			ls.displayLicense();
+			bulkheads.submit(Bulkhead.IO, () -> {
+				for (IOFormat format : IOFormat.values()) {
+					byte[] license = ls.saveLicense("warmup.license", format).file().getByteArray();
+					ls.loadLicense(new ByteArrayInputStream(license), format);
+				}
+				for (IOFormat format : KEY_FORMATS) {
+					reloadKeys(ls, ls.saveKeys("warmup.private", "warmup.public", format).getByteArray(), format);
+				}
+				return null;
+			}).join();
+		}
+	}
+
+	// loads the keys of a bundle written by saveKeys, as the key upload endpoints would
+	private static void reloadKeys(LicenseService ls, byte[] bundle, IOFormat format) {
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bundle))) {
+			ZipEntry entry;
+			while ((entry = zip.getNextEntry()) != null) {
+				ByteArrayInputStream key = new ByteArrayInputStream(zip.readAllBytes());
+				if (entry.getName().equals("warmup.private")) {
+					ls.loadPrivateKey(key, format);
+				} else {
+					ls.loadPublicKey(key, format);
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("The warm-up key bundle could not be read", e);
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package org.egg.license3j.api.tests.integeration;
+
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+/**
+ * Performs requests to the endpoints served by the bulkheads. Their handlers
+ * return before the work is done, the response is written by the async
+ * dispatch performed here. Requests rejected before the handler runs, such as
+ * invalid parameters, are returned as they are.
+ */
+public final class AsyncRequests {
+
+	private AsyncRequests() {
+	}
+
+	public static ResultActions perform(MockMvc mockMvc, RequestBuilder request) throws Exception {
+		ResultActions actions = mockMvc.perform(request);
+		MvcResult result = actions.andReturn();
+		if (result.getRequest().isAsyncStarted()) {
+			return mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result));
+		}
+		return actions;
+	}
+}
@@ -1,5 +1,6 @@
 package org.egg.license3j.api.tests.integeration.accesoryfunctions;
 
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -44,7 +45,7 @@ class KeyLoadCheckTest {
 	@Test
 	void freshKeyLoadCheck() throws Exception {
 
-		mockMvc.perform(MockMvcRequestBuilders.post("/api/key/generatekeys")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/key/generatekeys")
 				.param("cipher", "RSA/ECB/PKCS1Padding")
 				.param("size", String.valueOf(1024))
 				.session(session))
@@ -71,12 +72,12 @@ class KeyLoadCheckTest {
 		MockMultipartFile publicKey = new MockMultipartFile("publicKeyFile", "test.public",
 				MediaType.APPLICATION_OCTET_STREAM_VALUE, KeyLoadCheckTest.class.getResourceAsStream("/test.public"));
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/key/uploadprivatekey").file(privateKey)
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/key/uploadprivatekey").file(privateKey)
 				.param("format", IOFormat.BINARY.name()).session(session))
 				.andExpect(MockMvcResultMatchers.status().isOk())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("Private key loaded in memory")));
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/key/uploadpublickey").file(publicKey)
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/key/uploadpublickey").file(publicKey)
 				.param("format", IOFormat.BINARY.name()).session(session))
 				.andExpect(MockMvcResultMatchers.status().isOk())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("Public key loaded in memory")));
@@ -101,12 +102,12 @@ class KeyLoadCheckTest {
 		MockMultipartFile publicKey = new MockMultipartFile("publicKeyFile", "test.public",
 				MediaType.APPLICATION_OCTET_STREAM_VALUE, KeyLoadCheckTest.class.getResourceAsStream("/test.private"));
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/key/uploadprivatekey").file(privateKey)
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/key/uploadprivatekey").file(privateKey)
 				.param("format", IOFormat.BINARY.name()).session(session))
 				.andExpect(MockMvcResultMatchers.status().isBadRequest())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("The given key specification is invalid")));
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/key/uploadpublickey").file(publicKey)
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/key/uploadpublickey").file(publicKey)
 				.param("format", IOFormat.BINARY.name()).session(session))
 				.andExpect(MockMvcResultMatchers.status().isBadRequest())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("The given key specification is invalid")));
@@ -1,5 +1,6 @@
 package org.egg.license3j.api.tests.integeration.accesoryfunctions;
 
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -64,7 +65,7 @@ class LicenseLoadCheckTest {
 	            LicenseLoadCheckTest.class.getResourceAsStream("/license.bin").readAllBytes()
 	        );
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/license/upload")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/license/upload")
 				.file(mockFile)
 				.param("format", IOFormat.BINARY.name())
 				.session(session))
@@ -86,7 +87,7 @@ class LicenseLoadCheckTest {
 	            LicenseLoadCheckTest.class.getResourceAsStream("/InvalidLicense.bin").readAllBytes()
 	        );
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/license/upload")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/license/upload")
 				.file(mockFile)
 				.param("format", IOFormat.BINARY.name())
 				.session(session))
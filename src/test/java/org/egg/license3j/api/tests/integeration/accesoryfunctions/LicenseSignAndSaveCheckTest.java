@@ -2,6 +2,7 @@ package org.egg.license3j.api.tests.integeration.accesoryfunctions;
 
 import org.egg.license3j.api.constants.FeatureType;
 import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -107,7 +108,7 @@ class LicenseSignAndSaveCheckTest {
 	            LicenseLoadCheckTest.class.getResourceAsStream("/license.bin").readAllBytes()
 	        );
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/license/upload")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/license/upload")
 				.file(mockFile)
 				.param("format", IOFormat.BINARY.name())
 				.session(session))
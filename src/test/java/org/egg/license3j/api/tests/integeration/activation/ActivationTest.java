@@ -0,0 +1,148 @@
+package org.egg.license3j.api.tests.integeration.activation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.service.ActivationService;
+import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.RequestContextFilter;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax0.license3j.io.IOFormat;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ActivationTest {
+
+	@Autowired
+	private WebApplicationContext wac;
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ActivationService activations;
+
+	@BeforeEach
+	void setUp() {
+
+		// Set up MockMvc with the actual web application context
+		// RequestContextFilter is crucial for @SessionScope to work correctly in tests
+		mockMvc = MockMvcBuilders.webAppContextSetup(wac).addFilters(new RequestContextFilter()).build();
+		// Ensures session scope is properly handled
+	}
+	
+	private String issueLicense(int seats) throws Exception {
+		MockHttpSession session = new MockHttpSession();
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+
+		String licenseId = UUID.randomUUID().toString();
+		LicenseService ls = (LicenseService) session.getAttribute("scopedTarget.licenseService");
+		ls.addFeature("licenseId", FeatureType.UUID, licenseId);
+		ls.addFeature("seats", FeatureType.INT, Integer.toString(seats));
+		ls.loadPrivateKey(ActivationTest.class.getResourceAsStream("/test.private"), IOFormat.BINARY);
+		ls.signLicense();
+
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/save")
+				.param("licenseName", "license.bin")
+				.param("format", IOFormat.BINARY.name())
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		return licenseId;
+	}
+
+	@Test
+	void checkInUntilSeatsAreUsed() throws Exception {
+		String licenseId = issueLicense(2);
+		
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/activation/checkin").param("licenseId", licenseId).param("instanceId", "host-1"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("Instance host-1 has been activated")))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.seats", Matchers.is(2)));
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/activation/checkin").param("licenseId", licenseId).param("instanceId", "host-2"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.seatsUsed", Matchers.is(2)));
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/activation/checkin").param("licenseId", licenseId).param("instanceId", "host-3"))
+				.andExpect(MockMvcResultMatchers.status().isConflict());
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/activation/checkin").param("licenseId", licenseId).param("instanceId", "host-1"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("Instance host-1 has checked in")))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.checkIns", Matchers.is(3)));
+		
+		mockMvc.perform(MockMvcRequestBuilders.delete("/api/activation").param("licenseId", licenseId).param("instanceId", "host-2"))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/activation/checkin").param("licenseId", licenseId).param("instanceId", "host-3"))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+	}
+	
+	@Test
+	void revokedLicenseCannotCheckIn() throws Exception {
+		String licenseId = issueLicense(5);
+		
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/activation/checkin").param("licenseId", licenseId).param("instanceId", "host-1"))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/revoke").param("licenseId", licenseId).header(HttpHeaders.AUTHORIZATION, "Bearer test-admin-token"))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/activation/checkin").param("licenseId", licenseId).param("instanceId", "host-1"))
+				.andExpect(MockMvcResultMatchers.status().isForbidden());
+	}
+	
+	@Test
+	void unknownLicenseCannotCheckIn() throws Exception {
+		
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/activation/checkin").param("licenseId", UUID.randomUUID().toString()).param("instanceId", "host-1"))
+				.andExpect(MockMvcResultMatchers.status().isNotFound());
+	}
+	
+	@Test
+	void concurrentCheckInsNeverExceedSeats() throws Exception {
+		UUID licenseId = UUID.fromString(issueLicense(10));
+		int threads = 16;
+		int checkInsPerThread = 500;
+		AtomicInteger rejected = new AtomicInteger();
+		
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<?>> results = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			int thread = t;
+			results.add(executor.submit(() -> {
+				for (int i = 0; i < checkInsPerThread; i++) {
+					try {
+						// every thread competes for a few shared instances and brings its own
+						activations.checkIn(licenseId, i % 2 == 0 ? "shared-"+(i % 8) : "thread-"+thread);
+					} catch (ResponseStatusException e) {
+						rejected.incrementAndGet();
+					}
+				}
+			}));
+		}
+		for (Future<?> result : results) {
+			result.get();
+		}
+		executor.shutdown();
+		
+		ActivationService.CheckIn status = activations.status(licenseId).orElseThrow();
+		Assertions.assertEquals(10, status.seatsUsed());
+		Assertions.assertEquals((long) threads * checkInsPerThread - rejected.get(), status.checkIns());
+	}
+}
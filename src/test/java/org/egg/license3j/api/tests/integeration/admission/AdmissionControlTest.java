@@ -0,0 +1,143 @@
+package org.egg.license3j.api.tests.integeration.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.egg.license3j.api.handlers.AdmissionControlInterceptor;
+import org.egg.license3j.api.handlers.RateLimiter;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class AdmissionControlTest {
+
+	private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+	@Test
+	void fullBucketAdmitsItsBurstAndRefills() {
+		RateLimiter limiter = new RateLimiter(1, 4, clock::get);
+		for (int i = 0; i < 4; i++) {
+			assertEquals(0, limiter.tryAcquire("client", 1));
+		}
+		long wait = limiter.tryAcquire("client", 1);
+		assertEquals(TimeUnit.SECONDS.toNanos(1), wait);
+		assertEquals(0, limiter.tryAcquire("other", 4));
+
+		clock.addAndGet(wait);
+		assertEquals(0, limiter.tryAcquire("client", 1));
+		assertTrue(limiter.tryAcquire("client", 1) > 0);
+	}
+
+	@Test
+	void concurrentRequestsNeverTakeMoreThanTheBurst() throws Exception {
+		RateLimiter limiter = new RateLimiter(1, 100, clock::get);
+		List<Future<Integer>> admitted = new ArrayList<>();
+		try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+			for (int t = 0; t < 16; t++) {
+				admitted.add(executor.submit(() -> {
+					int count = 0;
+					for (int i = 0; i < 1000; i++) {
+						if (limiter.tryAcquire("client", 1) == 0) {
+							count++;
+						}
+					}
+					return count;
+				}));
+			}
+			int total = 0;
+			for (Future<Integer> count : admitted) {
+				total += count.get();
+			}
+			assertEquals(100, total);
+		}
+	}
+
+	@Test
+	void fullBucketsAreEvicted() {
+		RateLimiter limiter = new RateLimiter(10, 10, clock::get);
+		limiter.tryAcquire("client", 10);
+		assertEquals(0, limiter.evictIdle());
+
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		assertEquals(1, limiter.evictIdle());
+		assertEquals(0, limiter.size());
+	}
+
+	@Test
+	void rejectedRequestsGet429WithRetryAfter() throws Exception {
+		AdmissionControlInterceptor interceptor = new AdmissionControlInterceptor(new RateLimiter(1, 8, clock::get), new ObjectMapper(), 8, 2, 4, 2, 1);
+		MockHttpSession session = new MockHttpSession();
+
+		assertTrue(interceptor.preHandle(request("/api/license/sign", session), new MockHttpServletResponse(), null));
+		assertTrue(interceptor.preHandle(request("/api/license/sign", session), new MockHttpServletResponse(), null));
+
+		MockHttpServletResponse rejected = new MockHttpServletResponse();
+		assertFalse(interceptor.preHandle(request("/api/license/sign", session), rejected, null));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), rejected.getStatus());
+		assertEquals("4", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+		assertTrue(rejected.getContentAsString().contains("Please retry after 4 seconds"));
+
+		// other sessions and cheap endpoints are not affected
+		assertTrue(interceptor.preHandle(request("/api/license/sign", new MockHttpSession()), new MockHttpServletResponse(), null));
+		assertTrue(interceptor.preHandle(request("/api/healthcheck", session), new MockHttpServletResponse(), null));
+	}
+
+	@Test
+	void keyGenerationCostGrowsWithTheKeySize() throws Exception {
+		AdmissionControlInterceptor interceptor = new AdmissionControlInterceptor(new RateLimiter(1, 9, clock::get), new ObjectMapper(), 9, 3, 4, 2, 1);
+
+		MockHttpServletRequest large = request("/api/key/generatekeys", null);
+		large.setParameter("size", "3072");
+		assertTrue(interceptor.preHandle(large, new MockHttpServletResponse(), null));
+
+		MockHttpServletRequest small = request("/api/key/generatekeys", null);
+		small.setParameter("size", "1024");
+		MockHttpServletResponse rejected = new MockHttpServletResponse();
+		assertFalse(interceptor.preHandle(small, rejected, null));
+		assertEquals("3", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+	}
+
+	@Test
+	void newSessionsDoNotGenerateMoreKeys() throws Exception {
+		AdmissionControlInterceptor interceptor = new AdmissionControlInterceptor(new RateLimiter(1, 9, clock::get), new ObjectMapper(), 9, 3, 4, 2, 1);
+
+		for (int i = 0; i < 3; i++) {
+			MockHttpServletRequest generate = request("/api/key/generatekeys", new MockHttpSession());
+			generate.setParameter("size", "1024");
+			assertTrue(interceptor.preHandle(generate, new MockHttpServletResponse(), null));
+		}
+
+		// a fresh session has a full bucket of its own, but the address has paid for three keys already
+		MockHttpSession session = new MockHttpSession();
+		MockHttpServletRequest generate = request("/api/key/generatekeys", session);
+		generate.setParameter("size", "1024");
+		MockHttpServletResponse rejected = new MockHttpServletResponse();
+		assertFalse(interceptor.preHandle(generate, rejected, null));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), rejected.getStatus());
+
+		// the rejected key generation has not been charged to the session
+		for (int i = 0; i < 2; i++) {
+			assertTrue(interceptor.preHandle(request("/api/license/sign", session), new MockHttpServletResponse(), null));
+		}
+	}
+
+	private static MockHttpServletRequest request(String path, MockHttpSession session) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+		request.setSession(session);
+		return request;
+	}
+}
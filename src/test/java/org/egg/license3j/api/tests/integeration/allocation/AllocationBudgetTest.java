@@ -0,0 +1,293 @@
+package org.egg.license3j.api.tests.integeration.allocation;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.constants.RandomSource;
+import org.egg.license3j.api.service.CryptoExecutor;
+import org.egg.license3j.api.service.LicenseMetrics;
+import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.service.RandomnessProvider;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.RequestContextFilter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import javax0.license3j.io.IOFormat;
+
+/**
+ * Measures the heap an endpoint or a LicenseService operation allocates per
+ * call, writes the values to target/allocation/measured.properties and checks
+ * them against the budgets in src/test/resources/allocation-budgets.properties.
+ * <p>
+ * The budgets are measured, not guessed. Running the test on the reference
+ * machine with -Dallocation.record=true writes the budgets file instead of
+ * checking it, every measured value raised by 10% and rounded up to the next
+ * KB, and the file is checked in. Without the file the test fails. A budget
+ * already in the file is only ever raised, key generation allocates depending
+ * on the primes it finds, so the file is recorded over several runs.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class AllocationBudgetTest {
+
+	private static final String CIPHER = "RSA/ECB/PKCS1Padding";
+	private static final int FEATURES = 8;
+	private static final int WARMUPS = 20;
+	private static final int ITERATIONS = 15;
+	// key generation is slow and its allocation depends on the primes found
+	private static final int KEYGEN_WARMUPS = 3;
+	private static final int KEYGEN_ITERATIONS = 9;
+
+	private static final Path MEASURED = Path.of("target", "allocation", "measured.properties");
+	private static final String BUDGETS = "/allocation-budgets.properties";
+	private static final Path BUDGETS_SOURCE = Path.of("src", "test", "resources", "allocation-budgets.properties");
+	// headroom of a recorded budget over the measured value, in percent
+	private static final int HEADROOM = 10;
+	private static final boolean RECORD = Boolean.getBoolean("allocation.record");
+
+	private static final Logger logger = LoggerFactory.getLogger(AllocationBudgetTest.class);
+
+	@Autowired
+	private WebApplicationContext wac;
+	private MockMvc mockMvc;
+
+	private MockHttpSession session;
+
+	private static byte[] privateKey;
+	private static byte[] publicKey;
+	// null if no budgets are checked in
+	private static Properties budgets;
+
+	@BeforeAll
+	static void loadBudgets() throws Exception {
+		assumeTrue(AllocationMeter.supported(), "Thread allocation counting is not available in this JVM");
+		try (InputStream in = AllocationBudgetTest.class.getResourceAsStream(BUDGETS)) {
+			if (in != null) {
+				budgets = new Properties();
+				budgets.load(in);
+			}
+		}
+		try (InputStream in = AllocationBudgetTest.class.getResourceAsStream("/test.private")) {
+			privateKey = in.readAllBytes();
+		}
+		try (InputStream in = AllocationBudgetTest.class.getResourceAsStream("/test.public")) {
+			publicKey = in.readAllBytes();
+		}
+	}
+
+	@BeforeEach
+	void setUp() {
+		session = new MockHttpSession();
+		mockMvc = MockMvcBuilders.webAppContextSetup(wac).addFilters(new RequestContextFilter()).build();
+	}
+
+	@Test
+	void endpointsStayWithinTheirBudgets() throws Exception {
+		Map<String, Long> measured = new LinkedHashMap<>();
+
+		// a signed license with the test keys
+		perform(MockMvcRequestBuilders.multipart("/api/key/uploadprivatekey").file(privateKeyFile()).param("format", IOFormat.BINARY.name()).session(session));
+		perform(MockMvcRequestBuilders.multipart("/api/key/uploadpublickey").file(publicKeyFile()).param("format", IOFormat.BINARY.name()).session(session));
+		perform(MockMvcRequestBuilders.post("/api/license/new").session(session));
+		for (int i = 0; i < FEATURES; i++) {
+			perform(MockMvcRequestBuilders.post("/api/license/addfeature")
+					.param("featureName", "feature"+i)
+					.param("featureType", FeatureType.STRING.name())
+					.param("featureContent", "value"+i)
+					.session(session));
+		}
+		perform(MockMvcRequestBuilders.post("/api/license/sign").session(session));
+		byte[] license = perform(MockMvcRequestBuilders.get("/api/license/save")
+				.param("licenseName", "license.bin")
+				.param("format", IOFormat.BINARY.name())
+				.session(session));
+
+		measured.put("endpoint.license.addfeature", endpoint(() -> MockMvcRequestBuilders.post("/api/license/addfeature")
+				.param("featureName", "feature0")
+				.param("featureType", FeatureType.STRING.name())
+				.param("featureContent", "value0")
+				.session(session)));
+		measured.put("endpoint.license.sign", endpoint(() -> MockMvcRequestBuilders.post("/api/license/sign").session(session)));
+		measured.put("endpoint.license.verify", endpoint(() -> MockMvcRequestBuilders.get("/api/license/verify").session(session)));
+		measured.put("endpoint.license.show", endpoint(() -> MockMvcRequestBuilders.get("/api/license/show").session(session)));
+		measured.put("endpoint.license.save", endpoint(() -> MockMvcRequestBuilders.get("/api/license/save")
+				.param("licenseName", "license.bin")
+				.param("format", IOFormat.BINARY.name())
+				.session(session)));
+		measured.put("endpoint.license.upload", endpoint(() -> MockMvcRequestBuilders.multipart("/api/license/upload")
+				.file(new MockMultipartFile("license", "license.bin", MediaType.APPLICATION_OCTET_STREAM_VALUE, license))
+				.param("format", IOFormat.BINARY.name())
+				.session(session)));
+		measured.put("endpoint.key.uploadprivatekey", endpoint(() -> MockMvcRequestBuilders.multipart("/api/key/uploadprivatekey")
+				.file(privateKeyFile())
+				.param("format", IOFormat.BINARY.name())
+				.session(session)));
+		measured.put("endpoint.key.uploadpublickey", endpoint(() -> MockMvcRequestBuilders.multipart("/api/key/uploadpublickey")
+				.file(publicKeyFile())
+				.param("format", IOFormat.BINARY.name())
+				.session(session)));
+		measured.put("endpoint.key.dumppublickey", endpoint(() -> MockMvcRequestBuilders.get("/api/key/dumppublickey").session(session)));
+		measured.put("endpoint.key.downloadkeys", endpoint(() -> MockMvcRequestBuilders.get("/api/key/downloadkeys")
+				.param("privateKeyName", "test.private")
+				.param("publicKeyName", "test.public")
+				.param("format", IOFormat.BINARY.name())
+				.session(session)));
+		measured.put("endpoint.license.new", endpoint(() -> MockMvcRequestBuilders.post("/api/license/new").session(session)));
+		measured.put("endpoint.key.generatekeys", AllocationMeter.measure(KEYGEN_WARMUPS, KEYGEN_ITERATIONS,
+				() -> perform(MockMvcRequestBuilders.post("/api/key/generatekeys")
+						.param("cipher", CIPHER)
+						.param("size", String.valueOf(1024))
+						.session(session))));
+
+		assertWithinBudgets(measured);
+	}
+
+	@Test
+	void serviceOperationsStayWithinTheirBudgets() throws Exception {
+		Map<String, Long> measured = new LinkedHashMap<>();
+
+		// called from this platform thread the crypto executor runs inline, all of the work is measured here
+		LicenseService ls = new LicenseService(new CryptoExecutor(1, 16), new LicenseMetrics(new SimpleMeterRegistry()), new RandomnessProvider(RandomSource.DRBG, 256));
+		ls.loadPrivateKey(new ByteArrayInputStream(privateKey), IOFormat.BINARY);
+		ls.loadPublicKey(new ByteArrayInputStream(publicKey), IOFormat.BINARY);
+		ls.newLicense();
+		for (int i = 0; i < FEATURES; i++) {
+			ls.addFeature("feature"+i, FeatureType.STRING, "value"+i);
+		}
+		ls.signLicense();
+		byte[] license = ls.saveLicense("license.bin", IOFormat.BINARY).file().getByteArray();
+
+		measured.put("service.addFeature", service(() -> ls.addFeature("feature0", FeatureType.STRING, "value0")));
+		measured.put("service.signLicense", service(ls::signLicense));
+		measured.put("service.verifyLicense", service(ls::verifyLicense));
+		measured.put("service.displayLicense", service(ls::displayLicense));
+		measured.put("service.saveLicense", service(() -> ls.saveLicense("license.bin", IOFormat.BINARY)));
+		measured.put("service.loadLicense", service(() -> ls.loadLicense(new ByteArrayInputStream(license), IOFormat.BINARY)));
+		measured.put("service.loadPrivateKey", service(() -> ls.loadPrivateKey(new ByteArrayInputStream(privateKey), IOFormat.BINARY)));
+		measured.put("service.loadPublicKey", service(() -> ls.loadPublicKey(new ByteArrayInputStream(publicKey), IOFormat.BINARY)));
+		measured.put("service.digestPublicKey", service(ls::digestPublicKey));
+		measured.put("service.saveKeys", service(() -> ls.saveKeys("test.private", "test.public", IOFormat.BINARY)));
+		measured.put("service.newLicense", service(ls::newLicense));
+		measured.put("service.generate", AllocationMeter.measure(KEYGEN_WARMUPS, KEYGEN_ITERATIONS, () -> ls.generate(CIPHER, 1024)));
+
+		assertWithinBudgets(measured);
+	}
+
+	private interface Request {
+		RequestBuilder build();
+	}
+
+	private long endpoint(Request request) throws Exception {
+		return AllocationMeter.measure(WARMUPS, ITERATIONS, () -> perform(request.build()));
+	}
+
+	private static long service(AllocationMeter.Operation operation) throws Exception {
+		return AllocationMeter.measure(WARMUPS, ITERATIONS, operation);
+	}
+
+	private byte[] perform(RequestBuilder request) throws Exception {
+		return AsyncRequests.perform(mockMvc, request)
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+	}
+
+	private static MockMultipartFile privateKeyFile() {
+		return new MockMultipartFile("privateKeyFile", "test.private", MediaType.APPLICATION_OCTET_STREAM_VALUE, privateKey);
+	}
+
+	private static MockMultipartFile publicKeyFile() {
+		return new MockMultipartFile("publicKeyFile", "test.public", MediaType.APPLICATION_OCTET_STREAM_VALUE, publicKey);
+	}
+
+	private static void assertWithinBudgets(Map<String, Long> measured) throws Exception {
+		write(measured);
+		if (RECORD) {
+			record(measured);
+			return;
+		}
+		if (budgets == null) {
+			fail("No allocation budgets are checked in at "+BUDGETS_SOURCE+", run this test once on the reference machine "
+					+ "with -Dallocation.record=true and check in the file it writes");
+		}
+		List<String> overruns = new ArrayList<>();
+		measured.forEach((operation, bytes) -> {
+			String budget = budgets.getProperty(operation);
+			if (budget == null) {
+				overruns.add(operation+" has no budget, measured "+bytes+" bytes");
+			} else if (bytes > DataSize.parse(budget).toBytes()) {
+				overruns.add(operation+" allocated "+bytes+" bytes, its budget is "+budget);
+			}
+		});
+		assertTrue(overruns.isEmpty(), String.join("\n", overruns));
+	}
+
+	// both tests add their values to the one file
+	private static synchronized void write(Map<String, Long> measured) throws Exception {
+		Properties recorded = load(MEASURED);
+		measured.forEach((operation, bytes) -> recorded.setProperty(operation, bytes+"B"));
+		store(MEASURED, recorded, "bytes allocated by one call, the median of "+ITERATIONS+" calls");
+	}
+
+	// the budgets to check in, the largest measured values with their headroom
+	private static synchronized void record(Map<String, Long> measured) throws Exception {
+		Properties recorded = load(BUDGETS_SOURCE);
+		measured.forEach((operation, bytes) -> {
+			long budget = Math.ceilDiv(bytes * (100 + HEADROOM), 100 * 1024L);
+			String previous = recorded.getProperty(operation);
+			if (previous != null) {
+				budget = Math.max(budget, DataSize.parse(previous).toKilobytes());
+			}
+			logger.info("{} allocated {} bytes, its budget is {}KB", operation, bytes, budget);
+			recorded.setProperty(operation, budget+"KB");
+		});
+		store(BUDGETS_SOURCE, recorded, "bytes allocated by one call, measured with -Dallocation.record=true plus "+HEADROOM+"%");
+	}
+
+	private static Properties load(Path file) throws Exception {
+		Properties properties = new Properties();
+		if (Files.exists(file)) {
+			try (InputStream in = Files.newInputStream(file)) {
+				properties.load(in);
+			}
+		}
+		return properties;
+	}
+
+	private static void store(Path file, Properties properties, String comment) throws Exception {
+		Files.createDirectories(file.getParent());
+		try (OutputStream out = Files.newOutputStream(file)) {
+			properties.store(out, comment);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package org.egg.license3j.api.tests.integeration.allocation;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures the bytes an operation allocates on the heap.
+ * <p>
+ * The calling thread is measured together with the bulkhead and crypto pool
+ * threads, which run the work of the async endpoints. Allocation of other
+ * threads, such as the asynchronous log appender or the repository writer, is
+ * not counted. An operation is run a number of times first so class loading
+ * and the JIT do not count, then the median of the measured runs is reported.
+ */
+final class AllocationMeter {
+
+	// the pool threads of BulkheadExecutor and CryptoExecutor
+	private static final String POOL_THREAD_PREFIX = "license3j-";
+
+	private static final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	interface Operation {
+		void run() throws Exception;
+	}
+
+	private AllocationMeter() {
+	}
+
+	static boolean supported() {
+		return threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled();
+	}
+
+	/**
+	 * Measures an operation
+	 *
+	 * @param warmups    runs before the measurement
+	 * @param iterations measured runs
+	 * @param operation  the operation
+	 * @return median bytes allocated by one run
+	 */
+	static long measure(int warmups, int iterations, Operation operation) throws Exception {
+		for (int i = 0; i < warmups; i++) {
+			operation.run();
+		}
+		long[] samples = new long[iterations];
+		for (int i = 0; i < iterations; i++) {
+			// the pool threads are listed outside the measured section, listing them allocates on this thread
+			Map<Long, Long> poolsBefore = poolAllocations();
+			long before = threads.getCurrentThreadAllocatedBytes();
+			operation.run();
+			long after = threads.getCurrentThreadAllocatedBytes();
+			Map<Long, Long> poolsAfter = poolAllocations();
+
+			long pools = 0;
+			for (Map.Entry<Long, Long> pool : poolsAfter.entrySet()) {
+				// a pool thread started during the run had allocated nothing before it
+				pools += pool.getValue() - poolsBefore.getOrDefault(pool.getKey(), 0L);
+			}
+			samples[i] = after - before + pools;
+		}
+		Arrays.sort(samples);
+		return samples[iterations / 2];
+	}
+
+	private static Map<Long, Long> poolAllocations() {
+		long[] ids = Thread.getAllStackTraces().keySet().stream()
+				.filter(thread -> thread.getName().startsWith(POOL_THREAD_PREFIX))
+				.mapToLong(Thread::threadId)
+				.toArray();
+		long[] allocated = threads.getThreadAllocatedBytes(ids);
+		Map<Long, Long> allocations = new HashMap<>();
+		for (int i = 0; i < ids.length; i++) {
+			// -1 for a thread that ended meanwhile
+			if (allocated[i] >= 0) {
+				allocations.put(ids[i], allocated[i]);
+			}
+		}
+		return allocations;
+	}
+}
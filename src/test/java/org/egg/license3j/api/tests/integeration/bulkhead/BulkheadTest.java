@@ -0,0 +1,119 @@
+package org.egg.license3j.api.tests.integeration.bulkhead;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.egg.license3j.api.constants.Bulkhead;
+import org.egg.license3j.api.service.BulkheadExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.server.ResponseStatusException;
+
+class BulkheadTest {
+
+	private BulkheadExecutor bulkheads;
+
+	@AfterEach
+	void shutdown() {
+		if (bulkheads != null) {
+			bulkheads.shutdown();
+		}
+	}
+
+	private BulkheadExecutor singleThreaded(String rejection) {
+		MockEnvironment environment = new MockEnvironment();
+		for (Bulkhead bulkhead : Bulkhead.values()) {
+			environment.setProperty("license3j.bulkhead."+bulkhead.key()+".threads", "1");
+			environment.setProperty("license3j.bulkhead."+bulkhead.key()+".queue-capacity", "1");
+			environment.setProperty("license3j.bulkhead."+bulkhead.key()+".rejection", rejection);
+		}
+		return new BulkheadExecutor(environment);
+	}
+
+	// occupies the thread and the queue slot of a single threaded bulkhead
+	private CompletableFuture<String> saturate(Bulkhead bulkhead, CountDownLatch started, CountDownLatch release) {
+		CompletableFuture<String> running = bulkheads.submit(bulkhead, () -> {
+			started.countDown();
+			await(release);
+			return "running";
+		});
+		bulkheads.submit(bulkhead, () -> "queued");
+		return running;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test
+	void workRunsOnTheThreadsOfItsBulkhead() throws Exception {
+		bulkheads = singleThreaded("ABORT");
+		String thread = bulkheads.submit(Bulkhead.SIGN, () -> Thread.currentThread().getName()).get(10, TimeUnit.SECONDS);
+		assertEquals("license3j-sign-1", thread);
+	}
+
+	@Test
+	void fullBulkheadRejectsWithServiceUnavailable() throws Exception {
+		bulkheads = singleThreaded("ABORT");
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> running = saturate(Bulkhead.KEYGEN, started, release);
+		started.await(10, TimeUnit.SECONDS);
+
+		CompletableFuture<String> rejected = bulkheads.submit(Bulkhead.KEYGEN, () -> "rejected");
+		ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(10, TimeUnit.SECONDS));
+		ResponseStatusException cause = assertInstanceOf(ResponseStatusException.class, e.getCause());
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, cause.getStatusCode());
+		assertEquals("The server is busy with too many keygen requests. Please retry later", cause.getBody().getDetail());
+		assertEquals(1, bulkheads.rejectedCount(Bulkhead.KEYGEN));
+		assertEquals(1, bulkheads.queueDepth(Bulkhead.KEYGEN));
+
+		// a full key generation bulkhead leaves signing alone
+		assertEquals("signed", bulkheads.submit(Bulkhead.SIGN, () -> "signed").get(10, TimeUnit.SECONDS));
+		assertEquals(0, bulkheads.rejectedCount(Bulkhead.SIGN));
+
+		release.countDown();
+		assertEquals("running", running.get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void fullBulkheadRunsOnTheCallerWhenConfigured() throws Exception {
+		bulkheads = singleThreaded("CALLER_RUNS");
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		saturate(Bulkhead.VERIFY, started, release);
+		started.await(10, TimeUnit.SECONDS);
+
+		Thread caller = Thread.currentThread();
+		String thread = bulkheads.submit(Bulkhead.VERIFY, () -> Thread.currentThread().getName()).get(10, TimeUnit.SECONDS);
+		assertEquals(caller.getName(), thread);
+		assertNotEquals("license3j-verify-1", thread);
+		assertEquals(1, bulkheads.rejectedCount(Bulkhead.VERIFY));
+		release.countDown();
+	}
+
+	@Test
+	void statisticsCoverEveryBulkhead() {
+		bulkheads = singleThreaded("ABORT");
+		Map<String, Map<String, Object>> statistics = bulkheads.statistics();
+		assertEquals(Bulkhead.values().length, statistics.size());
+		Map<String, Object> keygen = statistics.get("keygen");
+		assertEquals(1, keygen.get("threads"));
+		assertEquals(1, keygen.get("queueCapacity"));
+		assertEquals(0L, keygen.get("rejected"));
+	}
+}
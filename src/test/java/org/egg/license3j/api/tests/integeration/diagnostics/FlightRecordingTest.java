@@ -0,0 +1,129 @@
+package org.egg.license3j.api.tests.integeration.diagnostics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.egg.license3j.api.logging.SessionTag;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.RequestContextFilter;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+@SpringBootTest(properties = {
+		"license3j.diagnostics.recording.enabled=true",
+		"license3j.diagnostics.recording.settings=default",
+		// a context of its own, it must not open the stores of the shared test context
+		"license3j.repository.directory=target/test-data/flight-recording/issued",
+		"license3j.revocation.file=target/test-data/flight-recording/revocations.log",
+		"license3j.activation.file=target/test-data/flight-recording/activations.log",
+		"license3j.resign.checkpoint-file=target/test-data/flight-recording/resign.checkpoint"
+})
+@AutoConfigureMockMvc
+class FlightRecordingTest {
+
+	// license3j.admin.token of the test configuration
+	private static final String ADMIN_AUTHORIZATION = "Bearer test-admin-token";
+
+	@Autowired
+	private WebApplicationContext wac;
+	private MockMvc mockMvc;
+
+	private MockHttpSession session;
+
+	@TempDir
+	private Path directory;
+
+	@BeforeEach
+	void setUp() {
+		session = new MockHttpSession();
+		mockMvc = MockMvcBuilders.webAppContextSetup(wac).addFilters(new RequestContextFilter()).build();
+	}
+
+	@Test
+	void recordingCapturesTheLicenseOperations() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/diagnostics/recording/start").header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.recording", Matchers.is(true)));
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/diagnostics/recording/start").header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION))
+				.andExpect(MockMvcResultMatchers.status().isConflict());
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/addfeature")
+				.param("featureName", "edition")
+				.param("featureType", "STRING")
+				.param("featureContent", "enterprise")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/key/generatekeys")
+				.param("cipher", "RSA/ECB/PKCS1Padding")
+				.param("size", String.valueOf(1024))
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/license/sign").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/verify").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/save")
+				.param("licenseName", "license.bin")
+				.param("format", "BINARY")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+
+		byte[] recording = mockMvc.perform(MockMvcRequestBuilders.post("/api/diagnostics/recording/stop").header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+		Path file = Files.write(directory.resolve("recording.jfr"), recording);
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+				.filter(event -> event.getEventType().getName().startsWith("org.egg.license3j."))
+				.filter(event -> SessionTag.of(session.getId()).equals(event.getString("sessionTag")))
+				.toList();
+		Set<String> types = events.stream().map(event -> event.getEventType().getName()).collect(Collectors.toSet());
+		assertTrue(types.containsAll(Set.of(
+				"org.egg.license3j.KeyGeneration",
+				"org.egg.license3j.LicenseSign",
+				"org.egg.license3j.LicenseVerify",
+				"org.egg.license3j.LicenseWrite")), types.toString());
+
+		RecordedEvent generation = events.stream().filter(event -> event.getEventType().getName().equals("org.egg.license3j.KeyGeneration")).findFirst().orElseThrow();
+		assertEquals(1024, generation.getInt("keySize"));
+		assertEquals("RSA/ECB/PKCS1Padding", generation.getString("cipher"));
+		RecordedEvent write = events.stream().filter(event -> event.getEventType().getName().equals("org.egg.license3j.LicenseWrite")).findFirst().orElseThrow();
+		assertEquals("BINARY", write.getString("format"));
+		assertTrue(write.getLong("bytes") > 0);
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/diagnostics/recording/stop").header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION))
+				.andExpect(MockMvcResultMatchers.status().isConflict())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("No recording is running")));
+	}
+
+	@Test
+	void recordingRequiresTheAdministrationToken() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/diagnostics/recording/start"))
+				.andExpect(MockMvcResultMatchers.status().isUnauthorized());
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/diagnostics/recording"))
+				.andExpect(MockMvcResultMatchers.status().isUnauthorized());
+	}
+}
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -49,7 +50,7 @@ class KeyDownloadTest {
 	@Test
 	void downloadGeneratedKeys() throws Exception {
 
-		mockMvc.perform(MockMvcRequestBuilders.post("/api/key/generatekeys")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/key/generatekeys")
 				.param("cipher", "RSA/ECB/PKCS1Padding")
 				.param("size", String.valueOf(1024))
 				.session(session))
@@ -87,7 +88,7 @@ class KeyDownloadTest {
 	@Test
 	void downloadGeneratedKeysWithEmptyOrInvalidNames() throws Exception {
 
-		mockMvc.perform(MockMvcRequestBuilders.post("/api/key/generatekeys")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/key/generatekeys")
 				.param("cipher", "RSA/ECB/PKCS1Padding")
 				.param("size", String.valueOf(1024))
 				.session(session))
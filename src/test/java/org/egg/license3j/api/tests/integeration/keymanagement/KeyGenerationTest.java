@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -47,7 +48,7 @@ class KeyGenerationTest {
 	@Test
 	void generateNewKeys() throws Exception {
 		
-		mockMvc.perform(MockMvcRequestBuilders.post("/api/key/generatekeys")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/key/generatekeys")
 				.param("cipher", "RSA/ECB/PKCS1Padding")
 				.param("size", String.valueOf(1024))
 				.session(session))
@@ -63,14 +64,14 @@ class KeyGenerationTest {
 	void generateNewKeysWithUnsupportedCiphers() throws Exception {
 		
 		String cipherName = "TestCipher";
-		mockMvc.perform(MockMvcRequestBuilders.post("/api/key/generatekeys")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/key/generatekeys")
 				.param("cipher", cipherName)
 				.param("size", String.valueOf(1024))
 				.session(session))
 				.andExpect(MockMvcResultMatchers.status().isInternalServerError())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is(cipherName+" is not available in the environment")));
 		
-		mockMvc.perform(MockMvcRequestBuilders.post("/api/key/generatekeys")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/key/generatekeys")
 				.param("cipher", "")
 				.param("size", String.valueOf(1024))
 				.session(session))
@@ -85,14 +86,14 @@ class KeyGenerationTest {
 	@Test
 	void generateNewKeysWithUnsupportedCipherSizes() throws Exception {
 		
-		mockMvc.perform(MockMvcRequestBuilders.post("/api/key/generatekeys")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/key/generatekeys")
 				.param("cipher", "RSA/ECB/PKCS1Padding")
 				.param("size", String.valueOf(512))
 				.session(session))
 				.andExpect(MockMvcResultMatchers.status().isBadRequest())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.['generateKeys.size']", Matchers.is("Size must be at least 1024")));
 		
-		mockMvc.perform(MockMvcRequestBuilders.post("/api/key/generatekeys")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/key/generatekeys")
 				.param("cipher", "RSA/ECB/PKCS1Padding")
 				.param("size", String.valueOf(4096))
 				.session(session))
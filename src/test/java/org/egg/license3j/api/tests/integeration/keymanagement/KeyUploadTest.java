@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -56,12 +57,12 @@ class KeyUploadTest {
 		MockMultipartFile publicKey = new MockMultipartFile("publicKeyFile", "test.public",
 				MediaType.APPLICATION_OCTET_STREAM_VALUE, KeyGenerationTest.class.getResourceAsStream("/test.public"));
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/key/uploadprivatekey").file(privateKey)
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/key/uploadprivatekey").file(privateKey)
 				.param("format", IOFormat.BINARY.name()).session(session))
 				.andExpect(MockMvcResultMatchers.status().isOk())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("Private key loaded in memory")));
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/key/uploadpublickey").file(publicKey)
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/key/uploadpublickey").file(publicKey)
 				.param("format", IOFormat.BINARY.name()).session(session))
 				.andExpect(MockMvcResultMatchers.status().isOk())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("Public key loaded in memory")));
@@ -80,12 +81,12 @@ class KeyUploadTest {
 		MockMultipartFile publicKey = new MockMultipartFile("publicKeyFile", "test.public",
 				MediaType.APPLICATION_OCTET_STREAM_VALUE, KeyGenerationTest.class.getResourceAsStream("/test.private"));
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/key/uploadprivatekey").file(privateKey)
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/key/uploadprivatekey").file(privateKey)
 				.param("format", IOFormat.BINARY.name()).session(session))
 				.andExpect(MockMvcResultMatchers.status().isBadRequest())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("The given key specification is invalid")));
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/key/uploadpublickey").file(publicKey)
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/key/uploadpublickey").file(publicKey)
 				.param("format", IOFormat.BINARY.name()).session(session))
 				.andExpect(MockMvcResultMatchers.status().isBadRequest())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("The given key specification is invalid")));
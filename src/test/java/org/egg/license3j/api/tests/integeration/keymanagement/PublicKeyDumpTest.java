@@ -1,5 +1,6 @@
 package org.egg.license3j.api.tests.integeration.keymanagement;
 
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -47,7 +48,7 @@ class PublicKeyDumpTest {
 		MockMultipartFile publicKey = new MockMultipartFile("publicKeyFile", "test.public",
 				MediaType.APPLICATION_OCTET_STREAM_VALUE, KeyGenerationTest.class.getResourceAsStream("/test.public"));
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/key/uploadpublickey").file(publicKey)
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/key/uploadpublickey").file(publicKey)
 				.param("format", IOFormat.BINARY.name()).session(session))
 				.andExpect(MockMvcResultMatchers.status().isOk())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("Public key loaded in memory")));
@@ -5,6 +5,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.egg.license3j.api.constants.FeatureType;
 import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -76,7 +78,7 @@ class AddFeatureTest {
 	            NewLicenseTest.class.getResourceAsStream("/license.bin").readAllBytes()
 	        );
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/license/upload")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/license/upload")
 				.file(mockFile)
 				.param("format", IOFormat.BINARY.name())
 				.session(session))
@@ -123,4 +125,84 @@ class AddFeatureTest {
 				.session(session))
 				.andExpect(MockMvcResultMatchers.status().isBadRequest());
 	}
+	
+	@Test
+	void addTypedFeature() throws Exception {
+		
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/addfeature")
+				.param("featureName", "seats")
+				.param("featureType", FeatureType.INT.name())
+				.param("featureContent", "25")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/show")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.['License Info']", Matchers.is("seats:INT=25\n")));
+	}
+	
+	@Test
+	void addFeatureWithSeparatorsInContent() throws Exception {
+		
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/addfeature")
+				.param("featureName", "note")
+				.param("featureType", FeatureType.STRING.name())
+				.param("featureContent", "key=value:other")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/show")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.['License Info']", Matchers.is("note=key=value:other\n")));
+	}
+	
+	@Test
+	void addFeatureWithInvalidContent() throws Exception {
+		
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		
+		ls = (LicenseService) session.getAttribute("scopedTarget.licenseService");
+		
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/addfeature")
+				.param("featureName", "seats")
+				.param("featureType", FeatureType.INT.name())
+				.param("featureContent", "many")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("Content is not a valid INT value")));
+		
+		assertFalse(ls.licenseRequiresSaving());
+	}
+	
+	@Test
+	void addFeatureWithSeparatorInName() throws Exception {
+		
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		
+		ls = (LicenseService) session.getAttribute("scopedTarget.licenseService");
+		
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/addfeature")
+				.param("featureName", "edition:pro")
+				.param("featureType", FeatureType.STRING.name())
+				.param("featureContent", "enterprise")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("Feature name cannot contain ':' or '='")));
+		
+		assertFalse(ls.licenseRequiresSaving());
+	}
 }
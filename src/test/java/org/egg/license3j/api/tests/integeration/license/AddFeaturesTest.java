@@ -0,0 +1,115 @@
+package org.egg.license3j.api.tests.integeration.license;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.egg.license3j.api.service.LicenseService;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.RequestContextFilter;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AddFeaturesTest {
+
+	@Autowired private WebApplicationContext wac;
+	private MockMvc mockMvc;
+
+	@Autowired private MockHttpSession session;
+	
+	@Autowired private LicenseService ls;
+	
+	@BeforeEach
+	void setUp() {
+		
+		// Create a new session for each test method
+        session = new MockHttpSession();
+        
+		// Set up MockMvc with the actual web application context
+        // RequestContextFilter is crucial for @SessionScope to work correctly in tests
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(wac)
+                .addFilters(new RequestContextFilter()) // Ensures session scope is properly handled
+                .build();
+	}
+	
+	@Test
+	void addFeatures() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		
+		ls = (LicenseService) session.getAttribute("scopedTarget.licenseService");
+		
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/addfeatures")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("""
+						[
+						  {"name": "edition", "type": "STRING", "content": "enterprise"},
+						  {"name": "seats", "type": "INT", "content": "25"}
+						]
+						""")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("2 features have been added")));
+		
+		assertTrue(ls.licenseRequiresSigning());
+		assertTrue(ls.licenseRequiresSaving());
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/show")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.['License Info']", Matchers.is("edition=enterprise\nseats:INT=25\n")));
+	}
+	
+	@Test
+	void addFeaturesWithInvalidEntries() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		
+		ls = (LicenseService) session.getAttribute("scopedTarget.licenseService");
+		
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/addfeatures")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("""
+						[
+						  {"name": "edition", "type": "STRING", "content": "enterprise"},
+						  {"name": "", "type": "STRING", "content": "value"},
+						  {"name": "seats", "type": "INT", "content": "many"},
+						  {"name": "edition", "type": "STRING", "content": "basic"}
+						]
+						""")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.['features[1].name']", Matchers.is("Feature name cannot be blank")))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.['features[2].content']", Matchers.is("Content is not a valid INT value")))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.['features[3].name']", Matchers.is("Duplicate feature name in request")));
+		
+		// nothing is applied when any entry is invalid
+		assertFalse(ls.licenseRequiresSaving());
+	}
+	
+	@Test
+	void addFeaturesWhenNoLicenseInMemory() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/addfeatures")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"name\": \"edition\", \"type\": \"STRING\", \"content\": \"enterprise\"}]")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+		
+		ls = (LicenseService) session.getAttribute("scopedTarget.licenseService");
+		assertFalse(ls.isLicenseLoaded());
+	}
+}
@@ -2,6 +2,7 @@ package org.egg.license3j.api.tests.integeration.license;
 
 import org.egg.license3j.api.constants.FeatureType;
 import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -69,7 +70,7 @@ class DisplayLicenseTest {
 				MediaType.APPLICATION_OCTET_STREAM.toString(),
 				NewLicenseTest.class.getResourceAsStream("/license.bin").readAllBytes());
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/license/upload").file(mockFile)
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/license/upload").file(mockFile)
 				.param("format", IOFormat.BINARY.name()).session(session))
 				.andExpect(MockMvcResultMatchers.status().isOk());
 
@@ -0,0 +1,149 @@
+package org.egg.license3j.api.tests.integeration.license;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.UUID;
+
+import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.repository.FeatureIndex;
+import org.egg.license3j.api.service.ExpiryScanService;
+import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.RequestContextFilter;
+
+import com.jayway.jsonpath.JsonPath;
+
+import javax0.license3j.Feature;
+import javax0.license3j.License;
+import javax0.license3j.io.IOFormat;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ExpiryScanTest {
+
+	// license3j.admin.token of the test configuration
+	private static final String ADMIN_AUTHORIZATION = "Bearer test-admin-token";
+
+	@Autowired
+	private WebApplicationContext wac;
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ExpiryScanService scanner;
+
+	@Autowired
+	private FeatureIndex featureIndex;
+
+	@BeforeEach
+	void setUp() {
+
+		// Set up MockMvc with the actual web application context
+		// RequestContextFilter is crucial for @SessionScope to work correctly in tests
+		mockMvc = MockMvcBuilders.webAppContextSetup(wac).addFilters(new RequestContextFilter()).build();
+		// Ensures session scope is properly handled
+	}
+	
+	private String issueLicense(LocalDate expiryDate) throws Exception {
+		MockHttpSession session = new MockHttpSession();
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+
+		String licenseId = UUID.randomUUID().toString();
+		LicenseService ls = (LicenseService) session.getAttribute("scopedTarget.licenseService");
+		ls.addFeature("licenseId", FeatureType.UUID, licenseId);
+		ls.addFeature("expiryDate", FeatureType.DATE, expiryDate.toString());
+		ls.loadPrivateKey(SaveLicenseTest.class.getResourceAsStream("/test.private"), IOFormat.BINARY);
+		ls.signLicense();
+
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/save")
+				.param("licenseName", "license.bin")
+				.param("format", IOFormat.BINARY.name())
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		return licenseId;
+	}
+	
+	private long nextSequence() throws Exception {
+		String response = mockMvc.perform(MockMvcRequestBuilders.get("/api/license/issued/expiries").header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION).param("limit", "10000"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return ((Number) JsonPath.read(response, "$.next")).longValue();
+	}
+
+	@Test
+	void scanReportsUpcomingAndPassedExpirations() throws Exception {
+		LocalDate today = LocalDate.now(ZoneOffset.UTC);
+		scanner.scan();
+		long since = nextSequence();
+		
+		String expired = issueLicense(today.minusDays(1));
+		String upcoming = issueLicense(today.plusDays(10));
+		String later = issueLicense(today.plusYears(5));
+		scanner.scan();
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/issued/expiries").header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION).param("since", Long.toString(since)))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.events[?(@.licenseId == '"+expired+"')].type", Matchers.contains("EXPIRED")))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.events[?(@.licenseId == '"+upcoming+"')].type", Matchers.contains("UPCOMING")))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.events[?(@.licenseId == '"+later+"')]", Matchers.empty()));
+	}
+	
+	@Test
+	void scanOnlyReportsChanges() throws Exception {
+		String expired = issueLicense(LocalDate.now(ZoneOffset.UTC).minusDays(3));
+		scanner.scan();
+		long since = nextSequence();
+		
+		scanner.scan();
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/issued/expiries").header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION).param("since", Long.toString(since)))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.events[?(@.licenseId == '"+expired+"')]", Matchers.empty()));
+	}
+	
+	@Test
+	void reindexingWithTheSameExpiryIsNotReported() throws Exception {
+		UUID licenseId = UUID.randomUUID();
+		Date expiryDate = Date.from(Instant.now().minus(Duration.ofDays(2)));
+		featureIndex.add(licenseId, licenseExpiringAt(expiryDate));
+		scanner.scan();
+		long since = nextSequence();
+		
+		// a re-sign job records every license again with its old expiry date
+		featureIndex.add(licenseId, licenseExpiringAt(expiryDate));
+		scanner.scan();
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/issued/expiries").header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION).param("since", Long.toString(since)))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.events[?(@.licenseId == '"+licenseId+"')]", Matchers.empty()));
+	}
+	
+	@Test
+	void expiriesRequireTheAdministrationToken() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/issued/expiries"))
+				.andExpect(MockMvcResultMatchers.status().isUnauthorized());
+	}
+	
+	private static License licenseExpiringAt(Date expiryDate) {
+		License license = new License();
+		license.add(Feature.Create.dateFeature("expiryDate", expiryDate));
+		return license;
+	}
+}
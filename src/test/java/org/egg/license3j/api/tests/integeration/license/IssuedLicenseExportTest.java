@@ -0,0 +1,173 @@
+package org.egg.license3j.api.tests.integeration.license;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.RequestContextFilter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax0.license3j.io.IOFormat;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class IssuedLicenseExportTest {
+
+	// license3j.admin.token of the test configuration
+	private static final String ADMIN_AUTHORIZATION = "Bearer test-admin-token";
+
+	@Autowired
+	private WebApplicationContext wac;
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MockHttpSession session;
+	
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@BeforeEach
+	void setUp() {
+
+		// Set up MockMvc with the actual web application context
+		// RequestContextFilter is crucial for @SessionScope to work correctly in tests
+		mockMvc = MockMvcBuilders.webAppContextSetup(wac).addFilters(new RequestContextFilter()).build();
+		// Ensures session scope is properly handled
+	}
+	
+	private String issueLicense() throws Exception {
+		session = new MockHttpSession();
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+
+		String licenseId = UUID.randomUUID().toString();
+		LicenseService ls = (LicenseService) session.getAttribute("scopedTarget.licenseService");
+		ls.addFeature("licenseId", FeatureType.UUID, licenseId);
+		ls.addFeature("seats", FeatureType.INT, "25");
+		ls.addFeature("expiryDate", FeatureType.DATE, "2030-06-30");
+		ls.loadPrivateKey(SaveLicenseTest.class.getResourceAsStream("/test.private"), IOFormat.BINARY);
+		ls.signLicense();
+
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/save")
+				.param("licenseName", "license.bin")
+				.param("format", IOFormat.BINARY.name())
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		return licenseId;
+	}
+	
+	private String export(String format, String cursor) throws Exception {
+		MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/license/issued/export")
+				.param("format", format)
+				.param("cursor", cursor)
+				.header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION)
+				.session(session))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted())
+				.andReturn();
+		return mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andReturn().getResponse().getContentAsString();
+	}
+	
+	private JsonNode findRecord(String export, String licenseId) throws Exception {
+		for (String line : export.split("\n")) {
+			if (line.isEmpty()) {
+				// an export with nothing after its cursor is empty
+				continue;
+			}
+			JsonNode record = objectMapper.readTree(line);
+			if (licenseId.equals(record.get("licenseId").asText())) {
+				return record;
+			}
+		}
+		return null;
+	}
+
+	@Test
+	void exportAsNdjson() throws Exception {
+		String licenseId = issueLicense();
+		
+		JsonNode record = findRecord(export("NDJSON", ""), licenseId);
+		Assertions.assertNotNull(record);
+		Assertions.assertEquals("unverified", record.get("signature").asText());
+		Assertions.assertFalse(record.get("revoked").asBoolean());
+		Assertions.assertEquals("INT", record.at("/features/seats/type").asText());
+		Assertions.assertEquals("25", record.at("/features/seats/value").asText());
+		Assertions.assertEquals("2030-06-30 00:00:00.000", record.at("/features/expiryDate/value").asText());
+		Assertions.assertTrue(record.at("/features/licenseSignature").isMissingNode());
+	}
+	
+	@Test
+	void exportVerifiesSignaturesWithTheSessionKey() throws Exception {
+		String licenseId = issueLicense();
+		LicenseService ls = (LicenseService) session.getAttribute("scopedTarget.licenseService");
+		ls.loadPublicKey(SaveLicenseTest.class.getResourceAsStream("/test.public"), IOFormat.BINARY);
+		
+		JsonNode record = findRecord(export("NDJSON", ""), licenseId);
+		Assertions.assertNotNull(record);
+		Assertions.assertEquals("valid", record.get("signature").asText());
+	}
+	
+	@Test
+	void exportResumesAfterCursor() throws Exception {
+		String licenseId = issueLicense();
+		
+		JsonNode record = findRecord(export("NDJSON", ""), licenseId);
+		Assertions.assertNotNull(record);
+		String resumed = export("NDJSON", record.get("cursor").asText());
+		Assertions.assertNull(findRecord(resumed, licenseId));
+	}
+	
+	@Test
+	void exportAsCsv() throws Exception {
+		String licenseId = issueLicense();
+		
+		String[] lines = export("CSV", "").split("\n");
+		Assertions.assertEquals("licenseId,issuedAt,signature,revoked,features,cursor", lines[0]);
+		Assertions.assertTrue(Arrays.stream(lines).anyMatch(line -> line.startsWith(licenseId+",")));
+	}
+	
+	@Test
+	void exportWithInvalidCursor() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/issued/export")
+				.param("cursor", "not-a-cursor")
+				.header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("Cursor not-a-cursor is not valid")));
+	}
+	
+	@Test
+	void exportWithStaleCursor() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/issued/export")
+				.param("cursor", "999999-0-0-0")
+				.header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION))
+				.andExpect(MockMvcResultMatchers.status().isGone());
+	}
+	
+	@Test
+	void exportRequiresTheAdministrationToken() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/issued/export"))
+				.andExpect(MockMvcResultMatchers.status().isUnauthorized());
+	}
+}
@@ -0,0 +1,163 @@
+package org.egg.license3j.api.tests.integeration.license;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.repository.FeatureIndex;
+import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.RequestContextFilter;
+
+import javax0.license3j.Feature;
+import javax0.license3j.License;
+import javax0.license3j.io.IOFormat;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class IssuedLicenseSearchTest {
+
+	// license3j.admin.token of the test configuration
+	private static final String ADMIN_AUTHORIZATION = "Bearer test-admin-token";
+
+	@Autowired
+	private WebApplicationContext wac;
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MockHttpSession session;
+
+	@Autowired
+	private FeatureIndex featureIndex;
+
+	@BeforeEach
+	void setUp() {
+
+		// Set up MockMvc with the actual web application context
+		// RequestContextFilter is crucial for @SessionScope to work correctly in tests
+		mockMvc = MockMvcBuilders.webAppContextSetup(wac).addFilters(new RequestContextFilter()).build();
+		// Ensures session scope is properly handled
+	}
+	
+	// issues a license through a fresh session and returns its id
+	private String issueLicense(String edition, String expiryFeature, String expiry) throws Exception {
+		session = new MockHttpSession();
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+
+		String licenseId = UUID.randomUUID().toString();
+		LicenseService ls = (LicenseService) session.getAttribute("scopedTarget.licenseService");
+		ls.addFeature("licenseId", FeatureType.UUID, licenseId);
+		ls.addFeature("edition", FeatureType.STRING, edition);
+		ls.addFeature(expiryFeature, FeatureType.DATE, expiry);
+		ls.loadPrivateKey(SaveLicenseTest.class.getResourceAsStream("/test.private"), IOFormat.BINARY);
+		ls.signLicense();
+
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/save")
+				.param("licenseName", "license.bin")
+				.param("format", IOFormat.BINARY.name())
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		return licenseId;
+	}
+
+	@Test
+	void searchByValue() throws Exception {
+		String edition = "enterprise-"+UUID.randomUUID();
+		String expiryFeature = "expiry-"+UUID.randomUUID();
+		String first = issueLicense(edition, expiryFeature, "2030-01-01");
+		String second = issueLicense(edition, expiryFeature, "2031-01-01");
+		issueLicense("basic-"+UUID.randomUUID(), expiryFeature, "2032-01-01");
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/issued/search")
+				.param("featureName", "edition")
+				.param("featureType", FeatureType.STRING.name())
+				.param("value", edition)
+				.header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.count", Matchers.is(2)))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.licenseIds", Matchers.containsInAnyOrder(first, second)));
+	}
+
+	@Test
+	void searchByRange() throws Exception {
+		String expiryFeature = "expiry-"+UUID.randomUUID();
+		issueLicense("basic", expiryFeature, "2030-01-15");
+		String second = issueLicense("basic", expiryFeature, "2030-02-10");
+		String third = issueLicense("basic", expiryFeature, "2030-02-20");
+		issueLicense("basic", expiryFeature, "2030-03-01");
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/issued/search")
+				.param("featureName", expiryFeature)
+				.param("featureType", FeatureType.DATE.name())
+				.param("from", "2030-02-01")
+				.param("to", "2030-02-28")
+				.header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.count", Matchers.is(2)))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.licenseIds", Matchers.contains(second, third)));
+	}
+
+	@Test
+	void rangeSearchOnStringFeature() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/issued/search")
+				.param("featureName", "edition")
+				.param("featureType", FeatureType.STRING.name())
+				.param("from", "a")
+				.header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("STRING features only support searching for a value")));
+	}
+
+	@Test
+	void searchWithInvalidBounds() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/issued/search")
+				.param("featureName", "seats")
+				.param("featureType", FeatureType.LONG.name())
+				.param("from", "ten")
+				.header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+
+	@Test
+	void searchRequiresTheAdministrationToken() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/issued/search")
+				.param("featureName", "edition")
+				.param("featureType", FeatureType.STRING.name())
+				.param("value", "enterprise"))
+				.andExpect(MockMvcResultMatchers.status().isUnauthorized());
+	}
+
+	@Test
+	void reindexWithEqualDecimalOfOtherScale() throws Exception {
+		String priceFeature = "price-"+UUID.randomUUID();
+		UUID licenseId = UUID.randomUUID();
+		License first = new License();
+		first.add(Feature.Create.bigDecimalFeature(priceFeature, new BigDecimal("1.00")));
+		featureIndex.add(licenseId, first);
+
+		// the same value written with another scale must not drop the license from the index
+		License second = new License();
+		second.add(Feature.Create.bigDecimalFeature(priceFeature, new BigDecimal("1.0")));
+		featureIndex.add(licenseId, second);
+
+		MatcherAssert.assertThat(featureIndex.range(priceFeature, FeatureType.BIGDECIMAL, BigDecimal.ONE, BigDecimal.ONE, 10), Matchers.contains(licenseId));
+	}
+}
@@ -0,0 +1,121 @@
+package org.egg.license3j.api.tests.integeration.license;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.UUID;
+
+import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.RequestContextFilter;
+
+import javax0.license3j.io.IOFormat;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class IssuedLicenseTest {
+
+	// license3j.admin.token of the test configuration
+	private static final String ADMIN_AUTHORIZATION = "Bearer test-admin-token";
+
+	@Autowired
+	private WebApplicationContext wac;
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MockHttpSession session;
+
+	@Autowired
+	private LicenseService ls;
+
+	@BeforeEach
+	void setUp() {
+
+		// Create a new session for each test method
+		session = new MockHttpSession();
+
+		// Set up MockMvc with the actual web application context
+		// RequestContextFilter is crucial for @SessionScope to work correctly in tests
+		mockMvc = MockMvcBuilders.webAppContextSetup(wac).addFilters(new RequestContextFilter()).build();
+		// Ensures session scope is properly handled
+	}
+
+	@Test
+	void savedLicenseCanBeFetchedAgain() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+
+		ls = (LicenseService) session.getAttribute("scopedTarget.licenseService");
+		ls.addFeature("edition", FeatureType.STRING, "enterprise");
+		ls.addFeature("licenseId", FeatureType.UUID, UUID.randomUUID().toString());
+		ls.loadPrivateKey(SaveLicenseTest.class.getResourceAsStream("/test.private"), IOFormat.BINARY);
+		ls.signLicense();
+
+		MvcResult saved = AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/save")
+				.param("licenseName", "license.bin")
+				.param("format", IOFormat.BINARY.name())
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.header().exists("X-License-Id"))
+				.andReturn();
+
+		String licenseId = saved.getResponse().getHeader("X-License-Id");
+		assertNotNull(licenseId);
+
+		// a fresh session does not need the license in memory to fetch it
+		MvcResult fetched = mockMvc.perform(MockMvcRequestBuilders.get("/api/license/issued")
+				.param("licenseId", licenseId)
+				.header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION)
+				.session(new MockHttpSession()))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andReturn();
+
+		assertArrayEquals(saved.getResponse().getContentAsByteArray(), fetched.getResponse().getContentAsByteArray());
+	}
+
+	@Test
+	void fetchUnknownLicense() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/issued")
+				.param("licenseId", UUID.randomUUID().toString())
+				.header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION)
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isNotFound())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.startsWith("No license has been issued with the id")));
+	}
+
+	@Test
+	void fetchingRequiresTheAdministrationToken() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/issued")
+				.param("licenseId", UUID.randomUUID().toString())
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isUnauthorized())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("An administration token is required")));
+	}
+
+	@Test
+	void archivingRequiresTheAdministrationToken() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/issued/archive")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isUnauthorized())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("An administration token is required")));
+	}
+}
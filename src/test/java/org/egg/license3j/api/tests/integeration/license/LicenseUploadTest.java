@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.egg.license3j.api.constants.FeatureType;
 import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -57,7 +58,7 @@ class LicenseUploadTest {
 	            NewLicenseTest.class.getResourceAsStream("/license.bin").readAllBytes()
 	        );
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/license/upload")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/license/upload")
 				.file(mockFile)
 				.param("format", IOFormat.BINARY.name())
 				.session(session))
@@ -86,7 +87,7 @@ class LicenseUploadTest {
 	            NewLicenseTest.class.getResourceAsStream("/license.bin").readAllBytes()
 	        );
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/license/upload")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/license/upload")
 				.file(mockFile)
 				.param("format", IOFormat.BINARY.name())
 				.session(session))
@@ -106,7 +107,7 @@ class LicenseUploadTest {
 	            NewLicenseTest.class.getResourceAsStream("/InvalidLicense.bin").readAllBytes()
 	        );
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/license/upload")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/license/upload")
 				.file(mockFile)
 				.param("format", IOFormat.BINARY.name())
 				.session(session))
@@ -0,0 +1,151 @@
+package org.egg.license3j.api.tests.integeration.license;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.PublicKey;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.RequestContextFilter;
+
+import com.jayway.jsonpath.JsonPath;
+
+import javax0.license3j.License;
+import javax0.license3j.io.IOFormat;
+import javax0.license3j.io.LicenseReader;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ResignJobTest {
+
+	// license3j.admin.token and license3j.resign.new-private-key of the test configuration
+	private static final String ADMIN_AUTHORIZATION = "Bearer test-admin-token";
+	private static final Path NEW_PRIVATE_KEY = Path.of("target", "test-data", "resign.private");
+
+	@Autowired
+	private WebApplicationContext wac;
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MockHttpSession session;
+
+	@BeforeEach
+	void setUp() {
+
+		// Set up MockMvc with the actual web application context
+		// RequestContextFilter is crucial for @SessionScope to work correctly in tests
+		mockMvc = MockMvcBuilders.webAppContextSetup(wac).addFilters(new RequestContextFilter()).build();
+		// Ensures session scope is properly handled
+	}
+	
+	private String issueLicense() throws Exception {
+		MockHttpSession issuing = new MockHttpSession();
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new").session(issuing))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+
+		String licenseId = UUID.randomUUID().toString();
+		LicenseService ls = (LicenseService) issuing.getAttribute("scopedTarget.licenseService");
+		ls.addFeature("licenseId", FeatureType.UUID, licenseId);
+		ls.addFeature("edition", FeatureType.STRING, "enterprise");
+		ls.loadPrivateKey(SaveLicenseTest.class.getResourceAsStream("/test.private"), IOFormat.BINARY);
+		ls.signLicense();
+
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/save")
+				.param("licenseName", "license.bin")
+				.param("format", IOFormat.BINARY.name())
+				.session(issuing))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		return licenseId;
+	}
+
+	@Test
+	void resignWithNewKey() throws Exception {
+		String licenseId = issueLicense();
+		
+		// the new key pair is generated in a session, its private key is stored where the job reads it from
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		LicenseService ls = (LicenseService) session.getAttribute("scopedTarget.licenseService");
+		ls.generate("RSA", 2048);
+		PublicKey newPublicKey = ls.getPublicKey();
+		writeNewPrivateKey(ls);
+		
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/issued/resign")
+				.param("restart", "true")
+				.header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION))
+				.andExpect(MockMvcResultMatchers.status().isAccepted())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.state", Matchers.is("RUNNING")));
+		
+		String state = "RUNNING";
+		for (int i = 0; i < 300 && "RUNNING".equals(state); i++) {
+			Thread.sleep(100);
+			String progress = mockMvc.perform(MockMvcRequestBuilders.get("/api/license/issued/resign")
+					.header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION))
+					.andExpect(MockMvcResultMatchers.status().isOk())
+					.andReturn().getResponse().getContentAsString();
+			state = JsonPath.read(progress, "$.state");
+		}
+		Assertions.assertEquals("COMPLETED", state);
+		
+		byte[] fetched = mockMvc.perform(MockMvcRequestBuilders.get("/api/license/issued")
+				.param("licenseId", licenseId)
+				.header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+		try (LicenseReader reader = new LicenseReader(new ByteArrayInputStream(fetched))) {
+			License license = reader.read(IOFormat.BINARY);
+			Assertions.assertTrue(license.isOK(newPublicKey));
+			Assertions.assertEquals(UUID.fromString(licenseId), license.getLicenseId());
+		}
+	}
+	
+	@Test
+	void resignWithoutNewKey() throws Exception {
+		Files.deleteIfExists(NEW_PRIVATE_KEY);
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/issued/resign")
+				.header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION))
+				.andExpect(MockMvcResultMatchers.status().isConflict())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("The re-sign key file:"+NEW_PRIVATE_KEY+" could not be read")));
+	}
+	
+	@Test
+	void resignRequiresTheAdministrationToken() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/issued/resign")
+				.session(new MockHttpSession()))
+				.andExpect(MockMvcResultMatchers.status().isUnauthorized());
+	}
+	
+	private static void writeNewPrivateKey(LicenseService ls) throws Exception {
+		byte[] bundle = ls.saveKeys("resign.private", "resign.public", IOFormat.BINARY).getByteArray();
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bundle))) {
+			ZipEntry entry;
+			while ((entry = zip.getNextEntry()) != null) {
+				if (entry.getName().equals("resign.private")) {
+					Files.createDirectories(NEW_PRIVATE_KEY.getParent());
+					Files.write(NEW_PRIVATE_KEY, zip.readAllBytes());
+				}
+			}
+		}
+	}
+}
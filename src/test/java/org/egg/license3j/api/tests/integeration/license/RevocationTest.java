@@ -0,0 +1,118 @@
+package org.egg.license3j.api.tests.integeration.license;
+
+import java.util.UUID;
+
+import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.RequestContextFilter;
+
+import javax0.license3j.io.IOFormat;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RevocationTest {
+
+	// license3j.admin.token of the test configuration
+	private static final String ADMIN_AUTHORIZATION = "Bearer test-admin-token";
+
+	@Autowired
+	private WebApplicationContext wac;
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MockHttpSession session;
+
+	@Autowired
+	private LicenseService ls;
+
+	@BeforeEach
+	void setUp() {
+
+		// Create a new session for each test method
+		session = new MockHttpSession();
+
+		// Set up MockMvc with the actual web application context
+		// RequestContextFilter is crucial for @SessionScope to work correctly in tests
+		mockMvc = MockMvcBuilders.webAppContextSetup(wac).addFilters(new RequestContextFilter()).build();
+		// Ensures session scope is properly handled
+	}
+
+	@Test
+	void revokedLicenseIsReportedByVerify() throws Exception {
+		String licenseId = UUID.randomUUID().toString();
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+
+		ls = (LicenseService) session.getAttribute("scopedTarget.licenseService");
+		ls.addFeature("licenseId", FeatureType.UUID, licenseId);
+		ls.loadPrivateKey(SaveLicenseTest.class.getResourceAsStream("/test.private"), IOFormat.BINARY);
+		ls.loadPublicKey(SaveLicenseTest.class.getResourceAsStream("/test.public"), IOFormat.BINARY);
+		ls.signLicense();
+
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/verify").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("License is properly signed.")))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.revoked", Matchers.is("false")));
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/revoke")
+				.param("licenseId", licenseId)
+				.param("reason", "Key leaked")
+				.header(HttpHeaders.AUTHORIZATION, ADMIN_AUTHORIZATION)
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+
+		// no restart needed, the next verification already sees the revocation
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/verify").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("License is properly signed.")))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.revoked", Matchers.is("true")));
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/revoked")
+				.param("licenseId", licenseId))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.revoked", Matchers.is(true)))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.reason", Matchers.is("Key leaked")));
+	}
+
+	@Test
+	void unknownLicenseIsNotRevoked() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/revoked")
+				.param("licenseId", UUID.randomUUID().toString()))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.revoked", Matchers.is(false)));
+	}
+
+	@Test
+	void revokingRequiresTheAdministrationToken() throws Exception {
+		String licenseId = UUID.randomUUID().toString();
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/revoke")
+				.param("licenseId", licenseId))
+				.andExpect(MockMvcResultMatchers.status().isUnauthorized());
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/revoke")
+				.param("licenseId", licenseId)
+				.header(HttpHeaders.AUTHORIZATION, "Bearer guessed-token"))
+				.andExpect(MockMvcResultMatchers.status().isUnauthorized());
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/revoked")
+				.param("licenseId", licenseId))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.revoked", Matchers.is(false)));
+	}
+}
@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.egg.license3j.api.constants.FeatureType;
 import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -65,7 +66,7 @@ class SaveLicenseTest {
 		assertFalse(ls.licenseRequiresSigning());
 		assertTrue(ls.licenseRequiresSaving());
 
-		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/save")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/save")
 				.param("licenseName", "eggtest.bin")
 				.param("format", IOFormat.BINARY.name())
 				.session(session))
@@ -89,7 +90,7 @@ class SaveLicenseTest {
 		assertFalse(ls.licenseRequiresSigning());
 		assertTrue(ls.licenseRequiresSaving());
 
-		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/save")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/save")
 				.param("licenseName", "eggtest.bin")
 				.param("format", IOFormat.BINARY.name())
 				.session(session))
@@ -108,7 +109,7 @@ class SaveLicenseTest {
 	            NewLicenseTest.class.getResourceAsStream("/license.bin").readAllBytes()
 	        );
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/license/upload")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/license/upload")
 				.file(mockFile)
 				.param("format", IOFormat.BINARY.name())
 				.session(session))
@@ -124,7 +125,7 @@ class SaveLicenseTest {
 		assertFalse(ls.licenseRequiresSigning());
 		assertTrue(ls.licenseRequiresSaving());
 
-		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/save")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/save")
 				.param("licenseName", "eggtest.bin")
 				.param("format", IOFormat.BINARY.name())
 				.session(session))
@@ -143,7 +144,7 @@ class SaveLicenseTest {
 	            NewLicenseTest.class.getResourceAsStream("/license.bin").readAllBytes()
 	        );
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/license/upload")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/license/upload")
 				.file(mockFile)
 				.param("format", IOFormat.BINARY.name())
 				.session(session))
@@ -158,7 +159,7 @@ class SaveLicenseTest {
 		assertFalse(ls.licenseRequiresSigning());
 		assertTrue(ls.licenseRequiresSaving());
 
-		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/save")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/save")
 				.param("licenseName", "eggtest.bin")
 				.param("format", IOFormat.BINARY.name())
 				.session(session))
@@ -170,7 +171,7 @@ class SaveLicenseTest {
 	@Test
 	void saveLicenseWhenNotLoaded() throws Exception {
 
-		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/save")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/save")
 				.param("licenseName", "eggtest.bin")
 				.param("format", IOFormat.BINARY.name())
 				.session(session))
@@ -189,7 +190,7 @@ class SaveLicenseTest {
 		
 		assertTrue(ls.licenseRequiresSigning());
 
-		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/save")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/save")
 				.param("licenseName", "eggtest.bin")
 				.param("format", IOFormat.BINARY.name())
 				.session(session))
@@ -212,7 +213,7 @@ class SaveLicenseTest {
 		assertFalse(ls.licenseRequiresSigning());
 		assertTrue(ls.licenseRequiresSaving());
 
-		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/save")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/save")
 				.param("licenseName", "eggtest..bin")
 				.param("format", IOFormat.BINARY.name())
 				.session(session))
@@ -237,7 +238,7 @@ class SaveLicenseTest {
 		assertFalse(ls.licenseRequiresSigning());
 		assertTrue(ls.licenseRequiresSaving());
 
-		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/save")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/save")
 				.param("licenseName", "")
 				.param("format", IOFormat.BINARY.name())
 				.session(session))
@@ -2,6 +2,7 @@ package org.egg.license3j.api.tests.integeration.license;
 
 import org.egg.license3j.api.constants.FeatureType;
 import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -57,12 +58,12 @@ class SignAndVerifyTest {
 		ls.addFeature("TestFeature", FeatureType.STRING, "TestContent");	
 		ls.generate("RSA/ECB/PKCS1Padding", 1024);
 		
-		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/sign")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/license/sign")
 				.session(session))
 				.andExpect(MockMvcResultMatchers.status().isOk())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("License Signed with the keys loaded in memory")));
 		
-		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/verify")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/verify")
 				.session(session))
 				.andExpect(MockMvcResultMatchers.status().isOk())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("License is properly signed.")));
@@ -80,12 +81,12 @@ class SignAndVerifyTest {
 		ls.loadPrivateKey(SaveLicenseTest.class.getResourceAsStream("/test.private"), IOFormat.BINARY);
 		ls.loadPublicKey(SaveLicenseTest.class.getResourceAsStream("/test.public"), IOFormat.BINARY);
 		
-		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/sign")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/license/sign")
 				.session(session))
 				.andExpect(MockMvcResultMatchers.status().isOk())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("License Signed with the keys loaded in memory")));
 		
-		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/verify")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/verify")
 				.session(session))
 				.andExpect(MockMvcResultMatchers.status().isOk())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("License is properly signed.")));
@@ -101,7 +102,7 @@ class SignAndVerifyTest {
 	            NewLicenseTest.class.getResourceAsStream("/license.bin").readAllBytes()
 	        );
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/license/upload")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/license/upload")
 				.file(mockFile)
 				.param("format", IOFormat.BINARY.name())
 				.session(session))
@@ -112,12 +113,12 @@ class SignAndVerifyTest {
 		ls.loadPrivateKey(SaveLicenseTest.class.getResourceAsStream("/test.private"), IOFormat.BINARY);
 		ls.loadPublicKey(SaveLicenseTest.class.getResourceAsStream("/test.public"), IOFormat.BINARY);
 		
-		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/sign")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/license/sign")
 				.session(session))
 				.andExpect(MockMvcResultMatchers.status().isOk())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("License Signed with the keys loaded in memory")));
 		
-		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/verify")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/verify")
 				.session(session))
 				.andExpect(MockMvcResultMatchers.status().isOk())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("License is properly signed.")));
@@ -133,7 +134,7 @@ class SignAndVerifyTest {
 	            NewLicenseTest.class.getResourceAsStream("/license.bin").readAllBytes()
 	        );
 
-		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/license/upload")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.multipart("/api/license/upload")
 				.file(mockFile)
 				.param("format", IOFormat.BINARY.name())
 				.session(session))
@@ -143,12 +144,12 @@ class SignAndVerifyTest {
 		ls.addFeature("TestFeature", FeatureType.STRING, "TestContent");	
 		ls.generate("RSA/ECB/PKCS1Padding", 1024);
 		
-		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/sign")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/license/sign")
 				.session(session))
 				.andExpect(MockMvcResultMatchers.status().isOk())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("License Signed with the keys loaded in memory")));
 		
-		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/verify")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/verify")
 				.session(session))
 				.andExpect(MockMvcResultMatchers.status().isOk())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("License is properly signed.")));
@@ -157,12 +158,12 @@ class SignAndVerifyTest {
 	@Test
 	void signAndVerifyWhenNoLicenseInMemory() throws Exception {
 		
-		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/sign")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/license/sign")
 				.session(session))
 				.andExpect(MockMvcResultMatchers.status().isBadRequest())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("No license detected in memory.")));
 			
-		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/verify")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/verify")
 				.session(session))
 				.andExpect(MockMvcResultMatchers.status().isBadRequest())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("No license in memory")));
@@ -174,12 +175,12 @@ class SignAndVerifyTest {
 				.session(session))
 				.andExpect(MockMvcResultMatchers.status().isOk());
 	
-		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/sign")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/license/sign")
 				.session(session))
 				.andExpect(MockMvcResultMatchers.status().isBadRequest())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("No private key detected in memory.")));
 		
-		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/verify")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/verify")
 				.session(session))
 				.andExpect(MockMvcResultMatchers.status().isBadRequest())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("No public key in memory")));
@@ -194,12 +195,12 @@ class SignAndVerifyTest {
 		ls = (LicenseService) session.getAttribute("scopedTarget.licenseService");
 		ls.loadPublicKey(SaveLicenseTest.class.getResourceAsStream("/test.public"), IOFormat.BINARY);
 		
-		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/sign")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/license/sign")
 				.session(session))
 				.andExpect(MockMvcResultMatchers.status().isBadRequest())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("No private key detected in memory.")));
 		
-		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/verify")
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/verify")
 				.session(session))
 				.andExpect(MockMvcResultMatchers.status().isOk())
 				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("License is NOT properly signed.")));
@@ -0,0 +1,205 @@
+package org.egg.license3j.api.tests.integeration.license;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.service.LicenseService;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.RequestContextFilter;
+
+import javax0.license3j.io.IOFormat;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UpdateAndRemoveFeatureTest {
+
+	@Autowired
+	private WebApplicationContext wac;
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MockHttpSession session;
+
+	@Autowired
+	private LicenseService ls;
+
+	@BeforeEach
+	void setUp() {
+
+		// Create a new session for each test method
+		session = new MockHttpSession();
+
+		// Set up MockMvc with the actual web application context
+		// RequestContextFilter is crucial for @SessionScope to work correctly in tests
+		mockMvc = MockMvcBuilders.webAppContextSetup(wac).addFilters(new RequestContextFilter()).build();
+		// Ensures session scope is properly handled
+	}
+
+	@Test
+	void updateFeature() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+
+		ls = (LicenseService) session.getAttribute("scopedTarget.licenseService");
+		ls.addFeature("seats", FeatureType.INT, "10");
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/updatefeature")
+				.param("featureName", "seats")
+				.param("featureType", FeatureType.INT.name())
+				.param("featureContent", "20")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/show").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.['License Info']", Matchers.is("seats:INT=20\n")));
+
+		// the feature did not exist at the last signing, so it still counts as added
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/changedfeatures").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.seats", Matchers.is("ADDED")));
+	}
+
+	@Test
+	void removeFeature() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+
+		ls = (LicenseService) session.getAttribute("scopedTarget.licenseService");
+		ls.addFeature("edition", FeatureType.STRING, "enterprise");
+		ls.addFeature("seats", FeatureType.INT, "10");
+
+		mockMvc.perform(MockMvcRequestBuilders.delete("/api/license/removefeature")
+				.param("featureName", "seats")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/show").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.['License Info']", Matchers.is("edition=enterprise\n")));
+
+		// added and removed again since the last signing, so it has not changed at all
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/changedfeatures").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.seats").doesNotExist())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.edition", Matchers.is("ADDED")));
+	}
+
+	@Test
+	void changesAreTrackedSinceLastSigning() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+
+		ls = (LicenseService) session.getAttribute("scopedTarget.licenseService");
+		ls.addFeature("edition", FeatureType.STRING, "enterprise");
+		ls.addFeature("seats", FeatureType.INT, "10");
+		ls.loadPrivateKey(SaveLicenseTest.class.getResourceAsStream("/test.private"), IOFormat.BINARY);
+		ls.signLicense();
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/changedfeatures").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.content().json("{}"));
+
+		ls.updateFeature("seats", FeatureType.INT, "20");
+		ls.removeFeature("edition");
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/changedfeatures").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.seats", Matchers.is("UPDATED")))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.edition", Matchers.is("REMOVED")));
+
+		assertTrue(ls.licenseRequiresSigning());
+	}
+
+	@Test
+	void changeMissingFeature() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/updatefeature")
+				.param("featureName", "seats")
+				.param("featureType", FeatureType.INT.name())
+				.param("featureContent", "20")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isNotFound());
+
+		mockMvc.perform(MockMvcRequestBuilders.delete("/api/license/removefeature")
+				.param("featureName", "seats")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isNotFound())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("Feature seats does not exist in the license")));
+	}
+
+	@Test
+	void changeFeatureWhenNoLicenseInMemory() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.delete("/api/license/removefeature")
+				.param("featureName", "seats")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+
+	@Test
+	void signatureFeatureCannotBeChanged() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		ls = (LicenseService) session.getAttribute("scopedTarget.licenseService");
+		ls.addFeature("edition", FeatureType.STRING, "enterprise");
+		ls.loadPrivateKey(SaveLicenseTest.class.getResourceAsStream("/test.private"), IOFormat.BINARY);
+		ls.signLicense();
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/updatefeature")
+				.param("featureName", "licenseSignature")
+				.param("featureType", FeatureType.BINARY.name())
+				.param("featureContent", "AAAA")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("Feature licenseSignature is reserved for the signature, sign the license instead")));
+
+		mockMvc.perform(MockMvcRequestBuilders.delete("/api/license/removefeature")
+				.param("featureName", "licenseSignature")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+		// adding a feature of the same name would replace the signature as well
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/addfeature")
+				.param("featureName", "licenseSignature")
+				.param("featureType", FeatureType.BINARY.name())
+				.param("featureContent", "AAAA")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("Feature licenseSignature is reserved for the signature, sign the license instead")));
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/addfeatures")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("""
+						[
+						  {"name": "seats", "type": "INT", "content": "25"},
+						  {"name": "licenseSignature", "type": "BINARY", "content": "AAAA"}
+						]
+						""")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.['features[1].name']", Matchers.is("Feature licenseSignature is reserved for the signature, sign the license instead")));
+
+		assertFalse(ls.licenseRequiresSigning());
+	}
+}
@@ -0,0 +1,133 @@
+package org.egg.license3j.api.tests.integeration.license;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.egg.license3j.api.constants.FeatureType;
+import org.egg.license3j.api.service.LicenseService;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.RequestContextFilter;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class VersionedStateTest {
+
+	@Autowired
+	private WebApplicationContext wac;
+	private MockMvc mockMvc;
+	private MockHttpSession session;
+
+	@BeforeEach
+	void setUp() throws Exception {
+
+		// Set up MockMvc with the actual web application context
+		// RequestContextFilter is crucial for @SessionScope to work correctly in tests
+		mockMvc = MockMvcBuilders.webAppContextSetup(wac).addFilters(new RequestContextFilter()).build();
+		// Ensures session scope is properly handled
+		session = new MockHttpSession();
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1\""));
+	}
+
+	@Test
+	void changesWithTheExpectedVersionSucceed() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/addfeature")
+				.param("featureName", "edition")
+				.param("featureType", FeatureType.STRING.name())
+				.param("featureContent", "enterprise")
+				.header(HttpHeaders.IF_MATCH, "\"1\"")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"2\""));
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/version").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.version", Matchers.is(2)));
+	}
+
+	@Test
+	void changesWithAStaleVersionAreRejected() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/addfeature")
+				.param("featureName", "edition")
+				.param("featureType", FeatureType.STRING.name())
+				.param("featureContent", "enterprise")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/addfeature")
+				.param("featureName", "seats")
+				.param("featureType", FeatureType.INT.name())
+				.param("featureContent", "5")
+				.header(HttpHeaders.IF_MATCH, "\"1\"")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isPreconditionFailed())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("License state is at version 2, the request expected version 1")));
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/changedfeatures").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.seats").doesNotExist());
+	}
+
+	@Test
+	void invalidVersionsAreRejected() throws Exception {
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/license/sign")
+				.header(HttpHeaders.IF_MATCH, "\"latest\"")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+
+	@Test
+	void unchangedLicenseIsNotRenderedAgain() throws Exception {
+		String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/license/show").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotNull(etag);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/license/show")
+				.header(HttpHeaders.IF_NONE_MATCH, etag)
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isNotModified());
+	}
+
+	@Test
+	void parallelChangesOfOneSessionAreNotLost() throws Exception {
+		LicenseService ls = (LicenseService) session.getAttribute("scopedTarget.licenseService");
+		int features = 64;
+
+		List<Future<Long>> versions = new ArrayList<>();
+		try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+			for (int i = 0; i < features; i++) {
+				String name = "feature"+i;
+				versions.add(executor.submit(() -> ls.addFeature(name, FeatureType.INT, "1")));
+			}
+			for (Future<Long> version : versions) {
+				version.get();
+			}
+		}
+
+		assertEquals(1 + features, ls.getVersion());
+		assertEquals(features, ls.getLicense().getFeatures().size());
+		assertEquals(features, ls.getChangedFeatures().size());
+	}
+}
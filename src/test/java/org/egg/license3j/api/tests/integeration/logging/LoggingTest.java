@@ -0,0 +1,77 @@
+package org.egg.license3j.api.tests.integeration.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.egg.license3j.api.logging.LoggingContext;
+import org.egg.license3j.api.logging.SampledLogger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+class LoggingTest {
+
+	private Logger logger;
+	private ListAppender<ILoggingEvent> appender;
+
+	@BeforeEach
+	void setUp() {
+		logger = (Logger) LoggerFactory.getLogger("license3j.test.sampled");
+		appender = new ListAppender<>();
+		appender.start();
+		logger.addAppender(appender);
+	}
+
+	@AfterEach
+	void tearDown() {
+		logger.detachAppender(appender);
+		MDC.clear();
+	}
+
+	@Test
+	void repeatedMessagesAreSampledAndCounted() throws Exception {
+		SampledLogger sampled = new SampledLogger(logger, Duration.ofMillis(200), 3);
+		for (int i = 0; i < 10; i++) {
+			sampled.warn("No license in memory for {}", "client"+i);
+		}
+		sampled.warn("Another message");
+		List<String> messages = appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+		assertEquals(List.of("No license in memory for client0", "No license in memory for client1", "No license in memory for client2", "Another message"), messages);
+
+		TimeUnit.MILLISECONDS.sleep(250);
+		sampled.warn("No license in memory for {}", "client10");
+		ILoggingEvent last = appender.list.get(appender.list.size() - 1);
+		assertEquals("No license in memory for client10 (7 similar messages suppressed)", last.getFormattedMessage());
+		assertNull(last.getThrowableProxy());
+	}
+
+	@Test
+	void contextFollowsTheWorkToAnotherThread() throws Exception {
+		MDC.put(LoggingContext.SESSION_TAG, "session-1");
+		MDC.put(LoggingContext.OPERATION, "signLicense");
+		try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+			String seen = CompletableFuture.supplyAsync(LoggingContext.propagate(() -> MDC.get(LoggingContext.SESSION_TAG)+"/"+MDC.get(LoggingContext.OPERATION)), executor)
+					.get(10, TimeUnit.SECONDS);
+			assertEquals("session-1/signLicense", seen);
+
+			// the pool thread is left without the context once the work is done
+			String after = CompletableFuture.supplyAsync(() -> MDC.get(LoggingContext.SESSION_TAG), executor).get(10, TimeUnit.SECONDS);
+			assertNull(after);
+		}
+		assertTrue(MDC.get(LoggingContext.SESSION_TAG) != null);
+	}
+}
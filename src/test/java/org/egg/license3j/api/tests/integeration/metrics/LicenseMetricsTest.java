@@ -0,0 +1,133 @@
+package org.egg.license3j.api.tests.integeration.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.egg.license3j.api.constants.LicenseOperation;
+import org.egg.license3j.api.service.LicenseMetrics;
+import org.egg.license3j.api.tests.integeration.AsyncRequests;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.RequestContextFilter;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import javax0.license3j.io.IOFormat;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class LicenseMetricsTest {
+
+	@Autowired
+	private WebApplicationContext wac;
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	private MockHttpSession session;
+
+	@BeforeEach
+	void setUp() {
+		session = new MockHttpSession();
+		mockMvc = MockMvcBuilders.webAppContextSetup(wac).addFilters(new RequestContextFilter()).build();
+	}
+
+	private long timed(String operation, String format) {
+		return registry.get(LicenseMetrics.OPERATION_TIMER).tag("operation", operation).tag("format", format).timer().count();
+	}
+
+	private double counted(String name, String tag, String value) {
+		return registry.get(name).tag(tag, value).counters().stream().mapToDouble(counter -> counter.count()).sum();
+	}
+
+	// the failure counters are only registered once a failure happened
+	private double failures(String operation, String status) {
+		return registry.find(LicenseMetrics.OPERATION_FAILURES).tag("operation", operation).tag("status", status).counters()
+				.stream().mapToDouble(counter -> counter.count()).sum();
+	}
+
+	@Test
+	void operationsAreTimedWithTheirFormat() throws Exception {
+		long generated = timed("keys.generate", "NONE");
+		long signed = timed("license.sign", "NONE");
+		long saved = timed("license.save", "BINARY");
+		double verifiedSigned = counted(LicenseMetrics.VERIFICATIONS, "result", "signed");
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/addfeature")
+				.param("featureName", "edition")
+				.param("featureType", "STRING")
+				.param("featureContent", "enterprise")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/key/generatekeys")
+				.param("cipher", "RSA/ECB/PKCS1Padding")
+				.param("size", String.valueOf(1024))
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/license/sign").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/verify").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.get("/api/license/save")
+				.param("licenseName", "license.bin")
+				.param("format", "BINARY")
+				.session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+
+		assertEquals(generated + 1, timed("keys.generate", "NONE"));
+		assertEquals(signed + 1, timed("license.sign", "NONE"));
+		assertEquals(saved + 1, timed("license.save", "BINARY"));
+		assertEquals(verifiedSigned + 1, counted(LicenseMetrics.VERIFICATIONS, "result", "signed"));
+	}
+
+	@Test
+	void failuresAreCountedByStatus() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/license/new").session(session))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		double before = failures("license.sign", "400");
+
+		AsyncRequests.perform(mockMvc, MockMvcRequestBuilders.post("/api/license/sign").session(session))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+		assertEquals(before + 1, failures("license.sign", "400"));
+	}
+
+	@Test
+	void bulkheadsArePublished() {
+		assertNotNull(registry.get("license3j.bulkhead.queued").tag("bulkhead", "keygen").gauge());
+		assertNotNull(registry.get("license3j.bulkhead.rejected").tag("bulkhead", "sign").functionCounter());
+	}
+
+	@Test
+	void everyOperationAndFormatHasATimer() {
+		SimpleMeterRegistry simple = new SimpleMeterRegistry();
+		LicenseMetrics metrics = new LicenseMetrics(simple);
+
+		assertEquals("written", metrics.time(LicenseOperation.SAVE_KEYS, IOFormat.BASE64, () -> "written"));
+		assertThrows(ResponseStatusException.class, () -> metrics.time(LicenseOperation.LOAD_LICENSE, IOFormat.STRING, () -> {
+			throw new ResponseStatusException(HttpStatus.CONFLICT);
+		}));
+		// a format given to an operation without one is recorded without it
+		metrics.time(LicenseOperation.SIGN_LICENSE, IOFormat.BINARY, () -> null);
+
+		assertEquals(1, simple.get(LicenseMetrics.OPERATION_TIMER).tag("operation", "keys.save").tag("format", "BASE64").timer().count());
+		assertEquals(1, simple.get(LicenseMetrics.OPERATION_TIMER).tag("operation", "license.load").tag("format", "STRING").timer().count());
+		assertEquals(1, simple.get(LicenseMetrics.OPERATION_TIMER).tag("operation", "license.sign").tag("format", "NONE").timer().count());
+		assertEquals(1, simple.get(LicenseMetrics.OPERATION_FAILURES).tag("operation", "license.load").tag("status", "409").counter().count());
+	}
+}
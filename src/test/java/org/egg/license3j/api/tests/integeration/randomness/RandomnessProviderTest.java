@@ -0,0 +1,65 @@
+package org.egg.license3j.api.tests.integeration.randomness;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import org.egg.license3j.api.constants.RandomSource;
+import org.egg.license3j.api.service.RandomnessProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class RandomnessProviderTest {
+
+	@ParameterizedTest
+	@EnumSource(RandomSource.class)
+	void everySourceGeneratesKeys(RandomSource source) throws Exception {
+		assumeFalse(source == RandomSource.NATIVE_PRNG_NON_BLOCKING && System.getProperty("os.name").startsWith("Windows"));
+		RandomnessProvider randomness = new RandomnessProvider(source, 256);
+
+		KeyPair pair = randomness.generateKeyPair("RSA/ECB/PKCS1Padding", 1024);
+
+		assertEquals("RSA", pair.getPublic().getAlgorithm());
+		assertEquals(1024, ((RSAPublicKey) pair.getPublic()).getModulus().bitLength());
+		if (source.algorithm() != null) {
+			assertEquals(source.algorithm(), randomness.current().getAlgorithm());
+		}
+	}
+
+	@Test
+	void everyThreadHasItsOwnInstance() throws Exception {
+		RandomnessProvider randomness = new RandomnessProvider(RandomSource.DRBG, 256);
+
+		SecureRandom mine = randomness.current();
+		SecureRandom other = CompletableFuture.supplyAsync(randomness::current, runnable -> new Thread(runnable).start()).get();
+
+		assertSame(mine, randomness.current());
+		assertNotSame(mine, other);
+		// the startup check and the two threads
+		assertEquals(3, randomness.instanceCount());
+	}
+
+	@Test
+	void threadsDrawDifferentBytes() throws Exception {
+		RandomnessProvider randomness = new RandomnessProvider(RandomSource.DRBG, 256);
+
+		byte[] mine = new byte[32];
+		randomness.current().nextBytes(mine);
+		byte[] other = CompletableFuture.supplyAsync(() -> {
+			byte[] bytes = new byte[32];
+			randomness.current().nextBytes(bytes);
+			return bytes;
+		}, runnable -> new Thread(runnable).start()).get();
+
+		assertFalse(Arrays.equals(mine, other));
+	}
+}
@@ -0,0 +1,54 @@
+package org.egg.license3j.api.tests.integeration.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.egg.license3j.api.repository.ActivationStore;
+import org.egg.license3j.api.repository.ActivationStore.Entry;
+import org.egg.license3j.api.repository.ActivationStore.Kind;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ActivationStoreTest {
+
+	@TempDir
+	private Path directory;
+	
+	@Test
+	void snapshotReplacesTheLog() throws Exception {
+		Path file = directory.resolve("activations.log");
+		UUID licenseId = UUID.randomUUID();
+		
+		ActivationStore store = new ActivationStore(file);
+		store.open();
+		for (int i = 0; i < 100; i++) {
+			store.append(List.of(new Entry(Kind.CHECK_INS, licenseId, "", i + 1)));
+		}
+		store.append(List.of(new Entry(Kind.ACTIVATED, licenseId, "instance", 1)));
+		long logSize = Files.size(file);
+		
+		Entry activation = new Entry(Kind.ACTIVATED, licenseId, "instance", 1);
+		Entry total = new Entry(Kind.CHECK_INS, licenseId, "", 100);
+		assertEquals(2, store.compact(Stream.of(activation, total)));
+		
+		// entries written after the snapshot follow it
+		Entry later = new Entry(Kind.CHECK_INS, licenseId, "", 101);
+		store.append(List.of(later));
+		store.close();
+		
+		assertTrue(Files.size(file) < logSize);
+		store = new ActivationStore(file);
+		store.open();
+		List<Entry> loaded = new ArrayList<>();
+		assertEquals(3, store.load(loaded::add));
+		assertEquals(List.of(activation, total, later), loaded);
+		store.close();
+	}
+}
@@ -0,0 +1,220 @@
+package org.egg.license3j.api.tests.integeration.repository;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import org.egg.license3j.api.exceptions.StaleCursorException;
+import org.egg.license3j.api.repository.IssuedLicenseRepository;
+import org.egg.license3j.api.repository.ScanCursor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class IssuedLicenseRepositoryTest {
+
+	@TempDir
+	private Path directory;
+	
+	private IssuedLicenseRepository open(DataSize segmentSize) throws Exception {
+		IssuedLicenseRepository repository = new IssuedLicenseRepository(directory, segmentSize, 64, 1024);
+		repository.open();
+		return repository;
+	}
+	
+	private static byte[] payload(int i) {
+		return ("license-"+i).getBytes(StandardCharsets.UTF_8);
+	}
+	
+	private static byte[] bytes(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+	
+	@Test
+	void appendAndReadAfterReopen() throws Exception {
+		List<UUID> ids = new ArrayList<>();
+		List<CompletableFuture<?>> writes = new ArrayList<>();
+		
+		IssuedLicenseRepository repository = open(DataSize.ofKilobytes(1));
+		for (int i = 0; i < 200; i++) {
+			UUID id = UUID.randomUUID();
+			ids.add(id);
+			writes.add(repository.append(id, payload(i)));
+		}
+		CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+		
+		assertEquals(200, repository.size());
+		assertArrayEquals(payload(7), bytes(repository.read(ids.get(7)).orElseThrow()));
+		repository.close();
+		
+		// small segments force the log to roll over several files
+		try (Stream<Path> segments = Files.list(directory)) {
+			assertTrue(segments.filter(path -> path.getFileName().toString().startsWith("segment-")).count() > 1);
+		}
+		
+		repository = open(DataSize.ofKilobytes(1));
+		assertEquals(200, repository.size());
+		for (int i = 0; i < ids.size(); i++) {
+			assertArrayEquals(payload(i), bytes(repository.read(ids.get(i)).orElseThrow()));
+		}
+		repository.close();
+	}
+	
+	@Test
+	void latestRecordWins() throws Exception {
+		UUID id = UUID.randomUUID();
+		
+		IssuedLicenseRepository repository = open(DataSize.ofMegabytes(1));
+		repository.append(id, payload(1)).join();
+		repository.append(id, payload(2)).join();
+		assertArrayEquals(payload(2), bytes(repository.read(id).orElseThrow()));
+		repository.close();
+		
+		repository = open(DataSize.ofMegabytes(1));
+		assertEquals(1, repository.size());
+		assertArrayEquals(payload(2), bytes(repository.read(id).orElseThrow()));
+		repository.close();
+	}
+	
+	@Test
+	void incompleteRecordIsCutOff() throws Exception {
+		UUID id = UUID.randomUUID();
+		
+		IssuedLicenseRepository repository = open(DataSize.ofMegabytes(1));
+		repository.append(id, payload(1)).join();
+		repository.close();
+		
+		// simulate a crash in the middle of writing the next record
+		Path segment;
+		try (Stream<Path> segments = Files.list(directory)) {
+			segment = segments.filter(path -> path.getFileName().toString().startsWith("segment-")).findFirst().orElseThrow();
+		}
+		long intactSize = Files.size(segment);
+		Files.write(segment, new byte[] {0, 0, 0, 100, 1, 2, 3}, StandardOpenOption.APPEND);
+		
+		repository = open(DataSize.ofMegabytes(1));
+		assertEquals(1, repository.size());
+		assertEquals(intactSize, Files.size(segment));
+		
+		UUID next = UUID.randomUUID();
+		repository.append(next, payload(2)).join();
+		assertArrayEquals(payload(1), bytes(repository.read(id).orElseThrow()));
+		assertArrayEquals(payload(2), bytes(repository.read(next).orElseThrow()));
+		repository.close();
+	}
+	
+	@Test
+	void secondRepositoryOnTheSameDirectoryFailsToOpen() throws Exception {
+		UUID id = UUID.randomUUID();
+		
+		IssuedLicenseRepository repository = open(DataSize.ofMegabytes(1));
+		repository.append(id, payload(1)).join();
+		assertThrows(IOException.class, () -> open(DataSize.ofMegabytes(1)));
+		
+		// the failed open leaves the files of the first one alone
+		repository.append(UUID.randomUUID(), payload(2)).join();
+		repository.close();
+		
+		repository = open(DataSize.ofMegabytes(1));
+		assertEquals(2, repository.size());
+		assertArrayEquals(payload(1), bytes(repository.read(id).orElseThrow()));
+		repository.close();
+	}
+	
+	@Test
+	void archivedLicensesAreServedFromTheArchive() throws Exception {
+		List<UUID> ids = new ArrayList<>();
+		
+		IssuedLicenseRepository repository = open(DataSize.ofKilobytes(1));
+		for (int i = 0; i < 100; i++) {
+			UUID id = UUID.randomUUID();
+			ids.add(id);
+			repository.append(id, payload(i)).join();
+		}
+		assertEquals(100, repository.archive());
+		
+		// only the fresh, empty segment is left next to the archive files
+		try (Stream<Path> files = Files.list(directory)) {
+			assertEquals(1, files.filter(path -> path.getFileName().toString().startsWith("segment-")).count());
+		}
+		for (int i = 0; i < ids.size(); i++) {
+			assertArrayEquals(payload(i), bytes(repository.read(ids.get(i)).orElseThrow()));
+		}
+		
+		// a second run appends the newer records as a generation of their own, the first one is not rewritten
+		UUID added = UUID.randomUUID();
+		repository.append(added, payload(100)).join();
+		repository.append(ids.get(0), payload(1000)).join();
+		assertEquals(101, repository.archive());
+		assertEquals(101, repository.size());
+		assertEquals(2, archiveGenerations());
+		repository.close();
+		
+		repository = open(DataSize.ofKilobytes(1));
+		assertEquals(101, repository.size());
+		assertArrayEquals(payload(1000), bytes(repository.read(ids.get(0)).orElseThrow()));
+		assertArrayEquals(payload(50), bytes(repository.read(ids.get(50)).orElseThrow()));
+		assertArrayEquals(payload(100), bytes(repository.read(added).orElseThrow()));
+		assertTrue(repository.read(UUID.randomUUID()).isEmpty());
+		
+		List<UUID> visited = new ArrayList<>();
+		repository.forEach((id, license) -> visited.add(id));
+		assertEquals(101, visited.size());
+		
+		// a generation at least as large as the newest one takes it over
+		for (int i = 0; i < 200; i++) {
+			repository.append(UUID.randomUUID(), payload(i)).join();
+		}
+		assertEquals(301, repository.archive());
+		assertEquals(1, archiveGenerations());
+		assertArrayEquals(payload(1000), bytes(repository.read(ids.get(0)).orElseThrow()));
+		repository.close();
+	}
+	
+	@Test
+	void resumingFromAShiftedOffsetIsRejected() throws Exception {
+		IssuedLicenseRepository repository = open(DataSize.ofMegabytes(1));
+		for (int i = 0; i < 3; i++) {
+			repository.append(UUID.randomUUID(), payload(i)).join();
+		}
+		List<ScanCursor> cursors = new ArrayList<>();
+		repository.scan(repository.start(), null, (id, issuedAt, payload, next) -> cursors.add(next));
+		assertEquals(3, cursors.size());
+		
+		// a cursor handed out by the scan resumes after its license
+		ScanCursor resumed = cursors.get(0);
+		List<UUID> visited = new ArrayList<>();
+		repository.scan(resumed, null, (id, issuedAt, payload, next) -> visited.add(id));
+		assertEquals(2, visited.size());
+		assertTrue(repository.isRecordBoundary(resumed));
+		
+		// the same cursor moved into the payload of the next record must not be read as a header
+		ScanCursor shifted = new ScanCursor(resumed.generation(), resumed.archivePosition(), resumed.segment(), resumed.offset() + 4);
+		assertFalse(repository.isRecordBoundary(shifted));
+		assertThrows(StaleCursorException.class, () -> repository.scan(shifted, null, (id, issuedAt, payload, next) -> visited.add(id)));
+		assertEquals(2, visited.size());
+		repository.close();
+	}
+	
+	private long archiveGenerations() throws Exception {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(path -> path.getFileName().toString().endsWith(".idx")).count();
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package org.egg.license3j.api.tests.integeration.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.egg.license3j.api.repository.BloomFilter;
+import org.egg.license3j.api.repository.RevocationRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RevocationRegistryTest {
+
+	@TempDir
+	private Path directory;
+	
+	@Test
+	void bloomFilterHasNoFalseNegatives() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		List<UUID> added = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			UUID id = UUID.randomUUID();
+			added.add(id);
+			filter.add(id);
+		}
+		added.forEach(id -> assertTrue(filter.mightContain(id)));
+		
+		int falsePositives = 0;
+		for (int i = 0; i < 10_000; i++) {
+			if (filter.mightContain(UUID.randomUUID())) {
+				falsePositives++;
+			}
+		}
+		assertTrue(falsePositives < 300, "False positive rate is far above the configured one: "+falsePositives);
+	}
+	
+	@Test
+	void revocationsSurviveRestartAndGrowTheFilter() throws Exception {
+		Path file = directory.resolve("revocations.log");
+		List<UUID> revoked = new ArrayList<>();
+		
+		// a tiny filter has to be replaced several times on the way
+		RevocationRegistry registry = new RevocationRegistry(file, 4, 0.01);
+		registry.open();
+		for (int i = 0; i < 50; i++) {
+			UUID id = UUID.randomUUID();
+			revoked.add(id);
+			registry.revoke(id, "leaked\tkey "+i);
+		}
+		revoked.forEach(id -> assertTrue(registry.isRevoked(id)));
+		assertFalse(registry.isRevoked(UUID.randomUUID()));
+		registry.close();
+		
+		RevocationRegistry reopened = new RevocationRegistry(file, 4, 0.01);
+		reopened.open();
+		assertEquals(50, reopened.size());
+		revoked.forEach(id -> assertTrue(reopened.isRevoked(id)));
+		assertEquals("leaked key 7", reopened.find(revoked.get(7)).orElseThrow().reason());
+		reopened.close();
+	}
+}
@@ -0,0 +1,73 @@
+package org.egg.license3j.api.tests.integeration.warmup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.egg.license3j.api.service.BulkheadExecutor;
+import org.egg.license3j.api.service.CryptoExecutor;
+import org.egg.license3j.api.service.RandomnessProvider;
+import org.egg.license3j.api.service.WarmupService;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class WarmupTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private WarmupService warmup;
+
+	@Autowired
+	private ApplicationAvailability availability;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Autowired
+	private CryptoExecutor crypto;
+
+	@Autowired
+	private RandomnessProvider randomness;
+
+	@Autowired
+	private BulkheadExecutor bulkheads;
+
+	@Autowired
+	private LoggingSystem loggingSystem;
+
+	@Test
+	void warmupRunsBeforeTheApplicationIsReady() throws Exception {
+		assertTrue(warmup.duration() > 0);
+		assertEquals(ReadinessState.ACCEPTING_TRAFFIC, availability.getReadinessState());
+		assertTrue(registry.get(WarmupService.WARMUP_DURATION).timeGauge().value(TimeUnit.MILLISECONDS) > 0);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/actuator/health/readiness"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("UP")));
+	}
+
+	@Test
+	void disabledWarmupDoesNothing() {
+		WarmupService disabled = new WarmupService(crypto, randomness, bulkheads, new SimpleMeterRegistry(), loggingSystem, false, 2, 1, 1024, "RSA/ECB/PKCS1Padding");
+		disabled.run(null);
+
+		assertEquals(0, disabled.duration());
+	}
+}
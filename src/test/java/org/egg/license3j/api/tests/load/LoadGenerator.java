@@ -0,0 +1,373 @@
+package org.egg.license3j.api.tests.load;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import javax0.license3j.crypto.LicenseKeyPair;
+import javax0.license3j.io.IOFormat;
+import javax0.license3j.io.KeyPairWriter;
+
+/**
+ * Drives the session workflow of the API with many concurrent sessions:
+ * new, addfeature &times; N, upload of the private and the public key, sign,
+ * save and verify.
+ * <p>
+ * Every session runs on a virtual thread with its own session cookie and waits
+ * a think time between its requests. A share of the sessions, set by the mix,
+ * runs the workflow once and then only verifies its license, like deployed
+ * software checking in. Latencies are recorded per endpoint in HdrHistograms,
+ * corrected for the requests a slow response held back, and checked against the
+ * p99 objectives of the profile.
+ * <p>
+ * Run against a running instance with
+ * {@code mvn -P load-test test -Dtest=SessionWorkflowLoadTest -Dload.target=http://localhost:8080}
+ * or start {@link #main(String[])} with the base URL of the instance. HdrHistogram
+ * is on the test classpath through Micrometer.
+ */
+public class LoadGenerator {
+
+	private static final String COOKIE_NAME = "LICENSE3J_SESSION_COOKIE";
+
+	// a minute is the longest latency recorded, slower responses are recorded as a minute
+	private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+	enum Endpoint {
+		NEW("new"),
+		ADD_FEATURE("addfeature"),
+		UPLOAD_PRIVATE_KEY("uploadprivatekey"),
+		UPLOAD_PUBLIC_KEY("uploadpublickey"),
+		SIGN("sign"),
+		SAVE("save"),
+		VERIFY("verify");
+
+		private final String key;
+
+		Endpoint(String key) {
+			this.key = key;
+		}
+
+		String key() {
+			return key;
+		}
+	}
+
+	/**
+	 * Load to generate, read from the {@code load.*} system properties
+	 *
+	 * @param baseUrl      URL of the instance, up to and without /api
+	 * @param sessions     concurrent sessions
+	 * @param rampUp       time over which the sessions start, nothing is measured during it
+	 * @param duration     measured time after the ramp up
+	 * @param thinkTime    pause of a session between two requests
+	 * @param features     features added to every license
+	 * @param verifyShare  share of the sessions that only verify after their first workflow, 0 to 1
+	 * @param p99          p99 latency objective of every endpoint
+	 * @param maxErrorRate share of the requests of an endpoint allowed to fail
+	 * @param reportDirectory where the summary and the histograms of the endpoints are written
+	 */
+	record Profile(String baseUrl, int sessions, Duration rampUp, Duration duration, Duration thinkTime, int features,
+			double verifyShare, Map<Endpoint, Duration> p99, double maxErrorRate, Path reportDirectory) {
+
+		static Profile fromSystemProperties(String baseUrl) {
+			Map<Endpoint, Duration> p99 = new EnumMap<>(Endpoint.class);
+			p99.put(Endpoint.NEW, Duration.ofMillis(200));
+			p99.put(Endpoint.ADD_FEATURE, Duration.ofMillis(200));
+			p99.put(Endpoint.UPLOAD_PRIVATE_KEY, Duration.ofMillis(300));
+			p99.put(Endpoint.UPLOAD_PUBLIC_KEY, Duration.ofMillis(300));
+			p99.put(Endpoint.SIGN, Duration.ofMillis(1000));
+			p99.put(Endpoint.SAVE, Duration.ofMillis(300));
+			p99.put(Endpoint.VERIFY, Duration.ofMillis(500));
+			// e.g. -Dload.slo.p99=sign=500ms,verify=200ms
+			String overrides = System.getProperty("load.slo.p99", "");
+			for (String override : overrides.split(",")) {
+				if (override.isBlank()) {
+					continue;
+				}
+				String[] parts = override.trim().split("=", 2);
+				p99.put(endpoint(parts[0]), Duration.ofMillis(Long.parseLong(parts[1].replace("ms", "").trim())));
+			}
+
+			return new Profile(
+					baseUrl,
+					Integer.getInteger("load.sessions", 2000),
+					Duration.ofSeconds(Long.getLong("load.rampup-seconds", 10)),
+					Duration.ofSeconds(Long.getLong("load.seconds", 30)),
+					Duration.ofMillis(Long.getLong("load.think-millis", 500)),
+					Integer.getInteger("load.features", 5),
+					Double.parseDouble(System.getProperty("load.verify-share", "0.5")),
+					p99,
+					Double.parseDouble(System.getProperty("load.max-error-rate", "0.001")),
+					Path.of(System.getProperty("load.report-directory", "target/load-test/session-workflow")));
+		}
+
+		private static Endpoint endpoint(String key) {
+			for (Endpoint endpoint : Endpoint.values()) {
+				if (endpoint.key().equals(key.trim())) {
+					return endpoint;
+				}
+			}
+			throw new IllegalArgumentException("Unknown endpoint "+key+" in load.slo.p99");
+		}
+	}
+
+	record EndpointResult(Endpoint endpoint, long requests, long errors, double p50Millis, double p90Millis, double p99Millis,
+			double p999Millis, double maxMillis, Duration p99Objective, double maxErrorRate) {
+
+		boolean latencyMet() {
+			return requests == 0 || p99Millis <= p99Objective.toMillis();
+		}
+
+		boolean errorRateMet() {
+			return requests == 0 || errors <= maxErrorRate * requests;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-17s requests=%-8d errors=%-6d p50=%8.2fms p90=%8.2fms p99=%8.2fms p99.9=%8.2fms max=%8.2fms  p99 objective %dms %s",
+					endpoint.key(), requests, errors, p50Millis, p90Millis, p99Millis, p999Millis, maxMillis, p99Objective.toMillis(),
+					latencyMet() && errorRateMet() ? "met" : "MISSED");
+		}
+	}
+
+	record Report(Profile profile, long workflows, List<EndpointResult> endpoints) {
+
+		boolean objectivesMet() {
+			return endpoints.stream().allMatch(result -> result.latencyMet() && result.errorRateMet());
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder report = new StringBuilder();
+			report.append("sessions=").append(profile.sessions())
+					.append(" measured=").append(profile.duration().toSeconds()).append('s')
+					.append(" think=").append(profile.thinkTime().toMillis()).append("ms")
+					.append(" features=").append(profile.features())
+					.append(" verifyShare=").append(profile.verifyShare())
+					.append(" workflows=").append(workflows).append('\n');
+			endpoints.forEach(result -> report.append(result).append('\n'));
+			return report.toString();
+		}
+	}
+
+	private final Profile profile;
+	private final HttpClient client;
+	private final Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+	private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+	private final AtomicLong workflows = new AtomicLong();
+	private final byte[] privateKey;
+	private final byte[] publicKey;
+
+	private long measureFrom;
+	private long measureUntil;
+
+	LoadGenerator(Profile profile) throws Exception {
+		this.profile = profile;
+		this.client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+		for (Endpoint endpoint : Endpoint.values()) {
+			latencies.put(endpoint, new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3));
+			errors.put(endpoint, new LongAdder());
+		}
+
+		// one key pair shared by all sessions, the upload is measured, not the key generation
+		LicenseKeyPair keyPair = LicenseKeyPair.Create.from("RSA/ECB/PKCS1Padding", 2048);
+		ByteArrayOutputStream privateOut = new ByteArrayOutputStream();
+		ByteArrayOutputStream publicOut = new ByteArrayOutputStream();
+		try (KeyPairWriter writer = new KeyPairWriter(privateOut, publicOut)) {
+			writer.write(keyPair, IOFormat.BINARY);
+		}
+		this.privateKey = privateOut.toByteArray();
+		this.publicKey = publicOut.toByteArray();
+	}
+
+	public static void main(String[] args) throws Exception {
+		String baseUrl = args.length > 0 ? args[0] : System.getProperty("load.target", "http://localhost:8080");
+		Report report = new LoadGenerator(Profile.fromSystemProperties(baseUrl)).run();
+		System.out.println(report);
+		System.exit(report.objectivesMet() ? 0 : 1);
+	}
+
+	Report run() throws Exception {
+		long start = System.nanoTime();
+		measureFrom = start + profile.rampUp().toNanos();
+		measureUntil = measureFrom + profile.duration().toNanos();
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < profile.sessions(); i++) {
+				long startAt = start + profile.rampUp().toNanos() * i / profile.sessions();
+				boolean verifier = ThreadLocalRandom.current().nextDouble() < profile.verifyShare();
+				executor.submit(() -> {
+					simulateSession(startAt, verifier);
+					return null;
+				});
+			}
+		}
+
+		List<EndpointResult> results = new ArrayList<>();
+		Files.createDirectories(profile.reportDirectory());
+		for (Endpoint endpoint : Endpoint.values()) {
+			Histogram histogram = latencies.get(endpoint);
+			results.add(new EndpointResult(endpoint, histogram.getTotalCount(), errors.get(endpoint).sum(),
+					millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+					histogram.getMaxValue() / 1_000_000.0, profile.p99().get(endpoint), profile.maxErrorRate()));
+			// the .hgrm files can be plotted with the HdrHistogram plotter
+			try (PrintStream out = new PrintStream(Files.newOutputStream(profile.reportDirectory().resolve(endpoint.key()+".hgrm")), false, StandardCharsets.UTF_8)) {
+				histogram.outputPercentileDistribution(out, 1_000_000.0);
+			}
+		}
+		Report report = new Report(profile, workflows.get(), results);
+		Files.writeString(profile.reportDirectory().resolve("summary.txt"), report.toString());
+		return report;
+	}
+
+	private static double millis(Histogram histogram, double percentile) {
+		return histogram.getValueAtPercentile(percentile) / 1_000_000.0;
+	}
+
+	// one user of the API, the cookie of its session is kept for all of its requests
+	private void simulateSession(long startAt, boolean verifier) throws InterruptedException {
+		sleepUntil(startAt);
+		String[] cookie = new String[1];
+		boolean workflowDone = false;
+		while (System.nanoTime() < measureUntil) {
+			if (verifier && workflowDone) {
+				send(Endpoint.VERIFY, get("/api/license/verify", cookie[0]), cookie);
+				think();
+				continue;
+			}
+			workflowDone = workflow(cookie);
+		}
+	}
+
+	private boolean workflow(String[] cookie) throws InterruptedException {
+		if (!send(Endpoint.NEW, post("/api/license/new", cookie[0]), cookie)) {
+			think();
+			return false;
+		}
+		think();
+		for (int i = 0; i < profile.features(); i++) {
+			send(Endpoint.ADD_FEATURE, post("/api/license/addfeature?featureName=feature"+i+"&featureType=STRING&featureContent=value"+i, cookie[0]), cookie);
+			think();
+		}
+		send(Endpoint.UPLOAD_PRIVATE_KEY, multipart("/api/key/uploadprivatekey", "privateKeyFile", privateKey, cookie[0]), cookie);
+		think();
+		send(Endpoint.UPLOAD_PUBLIC_KEY, multipart("/api/key/uploadpublickey", "publicKeyFile", publicKey, cookie[0]), cookie);
+		think();
+		send(Endpoint.SIGN, post("/api/license/sign", cookie[0]), cookie);
+		think();
+		send(Endpoint.SAVE, get("/api/license/save?licenseName=license.bin&format=BINARY", cookie[0]), cookie);
+		think();
+		boolean verified = send(Endpoint.VERIFY, get("/api/license/verify", cookie[0]), cookie);
+		think();
+		if (verified && System.nanoTime() < measureUntil) {
+			workflows.incrementAndGet();
+		}
+		return verified;
+	}
+
+	// true if the request succeeded, the latency is only recorded inside the measurement window
+	private boolean send(Endpoint endpoint, HttpRequest request, String[] cookie) {
+		long requestStart = System.nanoTime();
+		boolean succeeded;
+		try {
+			HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+			response.headers().allValues("Set-Cookie").stream()
+					.filter(header -> header.startsWith(COOKIE_NAME))
+					.map(header -> header.split(";", 2)[0])
+					.findFirst()
+					.ifPresent(header -> cookie[0] = header);
+			succeeded = response.statusCode() / 100 == 2;
+		} catch (IOException e) {
+			succeeded = false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		long requestEnd = System.nanoTime();
+
+		if (requestStart >= measureFrom && requestEnd <= measureUntil) {
+			long latency = Math.min(requestEnd - requestStart, HIGHEST_TRACKABLE_NANOS);
+			long thinkNanos = profile.thinkTime().toNanos();
+			// a session waiting on a slow response does not send the requests it would have sent meanwhile
+			if (thinkNanos > 0) {
+				latencies.get(endpoint).recordValueWithExpectedInterval(latency, thinkNanos);
+			} else {
+				latencies.get(endpoint).recordValue(latency);
+			}
+			if (!succeeded) {
+				errors.get(endpoint).increment();
+			}
+		}
+		return succeeded;
+	}
+
+	private void think() throws InterruptedException {
+		long thinkMillis = profile.thinkTime().toMillis();
+		if (thinkMillis > 0) {
+			// +-50% so the sessions do not fall into lockstep
+			Thread.sleep(thinkMillis / 2 + ThreadLocalRandom.current().nextLong(thinkMillis + 1));
+		}
+	}
+
+	private static void sleepUntil(long nanoTime) throws InterruptedException {
+		long wait = nanoTime - System.nanoTime();
+		if (wait > 0) {
+			TimeUnit.NANOSECONDS.sleep(wait);
+		}
+	}
+
+	private HttpRequest post(String path, String cookie) {
+		return request(path, cookie).POST(HttpRequest.BodyPublishers.noBody()).build();
+	}
+
+	private HttpRequest get(String path, String cookie) {
+		return request(path, cookie).GET().build();
+	}
+
+	private HttpRequest multipart(String path, String part, byte[] file, String cookie) {
+		String boundary = "license3j-"+UUID.randomUUID();
+		ByteArrayOutputStream body = new ByteArrayOutputStream(file.length + 512);
+		body.writeBytes(("--"+boundary+"\r\n"
+				+ "Content-Disposition: form-data; name=\""+part+"\"; filename=\""+part+".key\"\r\n"
+				+ "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+		body.writeBytes(file);
+		body.writeBytes(("\r\n--"+boundary+"\r\n"
+				+ "Content-Disposition: form-data; name=\"format\"\r\n\r\n"
+				+ "BINARY\r\n"
+				+ "--"+boundary+"--\r\n").getBytes(StandardCharsets.UTF_8));
+		return request(path, cookie)
+				.header("Content-Type", "multipart/form-data; boundary="+boundary)
+				.POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+				.build();
+	}
+
+	private HttpRequest.Builder request(String path, String cookie) {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(profile.baseUrl()+path)).timeout(Duration.ofMinutes(1));
+		if (cookie != null) {
+			builder.header("Cookie", cookie);
+		}
+		return builder;
+	}
+}
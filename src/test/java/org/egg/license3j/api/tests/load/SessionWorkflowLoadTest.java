@@ -0,0 +1,56 @@
+package org.egg.license3j.api.tests.load;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.egg.license3j.api.License3jSpringApplication;
+import org.egg.license3j.api.tests.load.LoadGenerator.Profile;
+import org.egg.license3j.api.tests.load.LoadGenerator.Report;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Runs the session workflow load against an instance and checks the latency
+ * objectives of every endpoint.
+ * <p>
+ * Run with {@code mvn -P load-test test -Dtest=SessionWorkflowLoadTest}. The
+ * instance is started by the test unless {@code load.target} names a running
+ * one, the load itself is set with the {@code load.*} system properties read by
+ * {@link LoadGenerator.Profile}.
+ */
+@Tag("load")
+class SessionWorkflowLoadTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(SessionWorkflowLoadTest.class);
+
+	@Test
+	void sessionWorkflowMeetsItsObjectives() throws Exception {
+		String target = System.getProperty("load.target");
+		Report report;
+		if (target != null) {
+			report = new LoadGenerator(Profile.fromSystemProperties(target)).run();
+		} else {
+			try (ConfigurableApplicationContext application = new SpringApplicationBuilder(License3jSpringApplication.class)
+					.properties(
+							"server.port=0",
+							"server.tomcat.max-connections=20000",
+							// every session comes from this one address
+							"license3j.admission.enabled=false",
+							"license3j.repository.directory=target/load-test/session-workflow/issued",
+							"license3j.revocation.file=target/load-test/session-workflow/revocations.log",
+							"license3j.activation.file=target/load-test/session-workflow/activations.log",
+							"license3j.resign.checkpoint-file=target/load-test/session-workflow/resign.checkpoint")
+					.run()) {
+				String baseUrl = "http://localhost:"+application.getEnvironment().getProperty("local.server.port");
+				report = new LoadGenerator(Profile.fromSystemProperties(baseUrl)).run();
+			}
+		}
+		logger.info("Session workflow load test results\n{}", report);
+
+		assertTrue(report.workflows() > 0, "No session completed its workflow");
+		assertTrue(report.objectivesMet(), "Latency or error objectives missed\n"+report);
+	}
+}
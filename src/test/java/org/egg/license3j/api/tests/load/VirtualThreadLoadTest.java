@@ -0,0 +1,177 @@
+package org.egg.license3j.api.tests.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.egg.license3j.api.License3jSpringApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Compares throughput and latency of the platform thread and the virtual thread
+ * request mode under the same load of sign and verify requests.
+ * <p>
+ * Run with {@code mvn -P load-test test}. The number of clients, the Tomcat pool
+ * size and the durations can be changed with the {@code load.*} system properties.
+ */
+@Tag("load")
+class VirtualThreadLoadTest {
+
+	private static final int CLIENTS = Integer.getInteger("load.clients", 200);
+	private static final int TOMCAT_THREADS = Integer.getInteger("load.tomcat-threads", 50);
+	private static final Duration WARM_UP = Duration.ofSeconds(Long.getLong("load.warmup-seconds", 5));
+	private static final Duration MEASUREMENT = Duration.ofSeconds(Long.getLong("load.seconds", 20));
+	private static final Path REPORT = Path.of("target", "load-test", "virtual-threads.txt");
+
+	private static final String COOKIE_NAME = "LICENSE3J_SESSION_COOKIE";
+
+	private static final Logger logger = LoggerFactory.getLogger(VirtualThreadLoadTest.class);
+
+	private record Result(String mode, long requests, long errors, double throughput, double p50Millis, double p99Millis) {
+
+		@Override
+		public String toString() {
+			return String.format("%-8s requests=%d errors=%d throughput=%.1f/s p50=%.2fms p99=%.2fms", mode, requests, errors, throughput, p50Millis, p99Millis);
+		}
+	}
+
+	@Test
+	void compareExecutionModes() throws Exception {
+		Result platform = run(false);
+		Result virtual = run(true);
+
+		String report = "clients="+CLIENTS+" tomcatThreads="+TOMCAT_THREADS+" measurement="+MEASUREMENT.toSeconds()+"s\n"
+				+ platform+"\n"
+				+ virtual+"\n";
+		Files.createDirectories(REPORT.getParent());
+		Files.writeString(REPORT, report);
+		logger.info("Load test results\n{}", report);
+
+		assertEquals(0, platform.errors(), "Requests failed in platform thread mode");
+		assertEquals(0, virtual.errors(), "Requests failed in virtual thread mode");
+		assertTrue(platform.requests() > 0 && virtual.requests() > 0);
+	}
+
+	private Result run(boolean virtualThreads) throws Exception {
+		String mode = virtualThreads ? "virtual" : "platform";
+		try (ConfigurableApplicationContext application = new SpringApplicationBuilder(License3jSpringApplication.class)
+				.properties(
+						"server.port=0",
+						"spring.threads.virtual.enabled="+virtualThreads,
+						"server.tomcat.threads.max="+TOMCAT_THREADS,
+						// every client generates its keys at once before the measurement, the keygen bulkhead
+						// would answer most of them with a 503 and the admission limits would slow the loop down,
+						// neither is what this test compares
+						"license3j.bulkhead.keygen.queue-capacity="+CLIENTS,
+						"license3j.admission.enabled=false",
+						"license3j.repository.directory=target/load-test/"+mode+"/issued",
+						"license3j.revocation.file=target/load-test/"+mode+"/revocations.log",
+						"license3j.activation.file=target/load-test/"+mode+"/activations.log",
+						"license3j.resign.checkpoint-file=target/load-test/"+mode+"/resign.checkpoint")
+				.run()) {
+			String baseUrl = "http://localhost:"+application.getEnvironment().getProperty("local.server.port")+"/api";
+			HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+			long start = System.nanoTime();
+			long measureFrom = start + WARM_UP.toNanos();
+			long measureUntil = measureFrom + MEASUREMENT.toNanos();
+			AtomicLong errors = new AtomicLong();
+
+			List<Future<long[]>> clients = new ArrayList<>();
+			try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+				for (int i = 0; i < CLIENTS; i++) {
+					clients.add(executor.submit(() -> simulateClient(client, baseUrl, measureFrom, measureUntil, errors)));
+				}
+
+				List<long[]> latencies = new ArrayList<>();
+				for (Future<long[]> result : clients) {
+					latencies.add(result.get());
+				}
+				long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+				double seconds = MEASUREMENT.toNanos() / 1_000_000_000.0;
+				return new Result(mode, all.length, errors.get(), all.length / seconds, percentile(all, 0.50), percentile(all, 0.99));
+			}
+		}
+	}
+
+	// a user with its own session, signing and verifying its license in a loop
+	private static long[] simulateClient(HttpClient client, String baseUrl, long measureFrom, long measureUntil, AtomicLong errors) throws IOException, InterruptedException {
+		HttpResponse<String> created = client.send(post(baseUrl+"/license/new", null), HttpResponse.BodyHandlers.ofString());
+		String cookie = created.headers().allValues("Set-Cookie").stream()
+				.filter(header -> header.startsWith(COOKIE_NAME))
+				.map(header -> header.split(";", 2)[0])
+				.findFirst()
+				.orElseThrow(() -> new IllegalStateException("No session cookie"));
+		// a client without keys or license would only measure failing requests
+		setUp(client, post(baseUrl+"/key/generatekeys?cipher=RSA&size=1024", cookie));
+		setUp(client, post(baseUrl+"/license/addfeature?featureName=edition&featureType=STRING&featureContent=enterprise", cookie));
+
+		long[] latencies = new long[1024];
+		int count = 0;
+		boolean sign = true;
+		while (System.nanoTime() < measureUntil) {
+			HttpRequest request = sign
+					? post(baseUrl+"/license/sign", cookie)
+					: HttpRequest.newBuilder(URI.create(baseUrl+"/license/verify")).header("Cookie", cookie).GET().build();
+			sign = !sign;
+
+			long requestStart = System.nanoTime();
+			HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+			long requestEnd = System.nanoTime();
+			if (requestStart < measureFrom || requestEnd > measureUntil) {
+				continue;
+			}
+			if (response.statusCode() != 200) {
+				errors.incrementAndGet();
+			}
+			if (count == latencies.length) {
+				latencies = Arrays.copyOf(latencies, count * 2);
+			}
+			latencies[count++] = requestEnd - requestStart;
+		}
+		return Arrays.copyOf(latencies, count);
+	}
+
+	private static void setUp(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+		HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+		if (response.statusCode() != 200) {
+			throw new IllegalStateException(request.uri().getPath()+" answered "+response.statusCode()+": "+response.body());
+		}
+	}
+
+	private static HttpRequest post(String url, String cookie) {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).POST(HttpRequest.BodyPublishers.noBody());
+		if (cookie != null) {
+			builder.header("Cookie", cookie);
+		}
+		return builder.build();
+	}
+
+	private static double percentile(long[] sorted, double quantile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(quantile * sorted.length) - 1;
+		return sorted[Math.max(0, index)] / 1_000_000.0;
+	}
+}